@@ -0,0 +1,51 @@
+package org.lionsoul.jcseg.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * jcseg benchmark entrance, accepts all the standard JMH command line options.
+ * the GC profiler is always enabled so the allocation rate per operation
+ * is reported together with the time, and the results are written
+ * to jcseg-benchmark.json unless another result file is specified.
+ * </p>
+ * 
+ * <pre>
+ * mvn -pl jcseg-core,jcseg-benchmark -am package -DskipTests
+ * java -jar jcseg-benchmark/target/benchmarks.jar [JMH options] [benchmark regexp]
+ * </pre>
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class BenchmarkRunner 
+{
+    public static void main( String[] args ) throws RunnerException
+    {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(args);
+        } catch ( CommandLineOptionException e ) {
+            System.err.println("Error parsing the command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(cmd).addProfiler(GCProfiler.class);
+        if ( ! cmd.getResultFormat().hasValue() ) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if ( ! cmd.getResult().hasValue() ) {
+            builder.result("jcseg-benchmark.json");
+        }
+        
+        new Runner(builder.build()).run();
+    }
+}
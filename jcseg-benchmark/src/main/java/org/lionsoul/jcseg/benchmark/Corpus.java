@@ -0,0 +1,67 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+
+/**
+ * bundled benchmark corpus and the shared jcseg resources
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class Corpus 
+{
+    /**
+     * load the text of the specified corpus from the classpath
+     * 
+     * @param   name one of news, literature, tech, traditional
+     * @return  String
+     * @throws  IOException
+    */
+    public static String load( String name ) throws IOException
+    {
+        InputStream is = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt");
+        if ( is == null ) {
+            throw new IOException("No such corpus " + name);
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+        try {
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                sb.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * create a task config auto loaded from the jcseg.properties
+     * 
+     * @return  JcsegTaskConfig
+    */
+    public static JcsegTaskConfig config()
+    {
+        return new JcsegTaskConfig(true);
+    }
+    
+    /**
+     * get the dictionary shared by all the benchmarks in the same jvm
+     * 
+     * @param   config
+     * @return  ADictionary
+    */
+    public static ADictionary dictionary( JcsegTaskConfig config )
+    {
+        return DictionaryFactory.createSingletonDictionary(config);
+    }
+}
@@ -0,0 +1,123 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * dictionary benchmark: match/get for hit and miss keys and the lexicon loading
+ * the keys are the words segmented from the news corpus
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DictionaryBenchmark 
+{
+    private JcsegTaskConfig config;
+    private ADictionary dic;
+    private String[] hits;
+    private String[] misses;
+    private int cursor = 0;
+    
+    @Setup
+    public void setup() throws IOException, JcsegException
+    {
+        config = Corpus.config();
+        dic    = Corpus.dictionary(config);
+        
+        ISegment seg = SegmentFactory.createJcseg(JcsegTaskConfig.SIMPLE_MODE, 
+                new Object[]{new StringReader(Corpus.load("news")), config, dic});
+        List<String> hitList  = new ArrayList<String>();
+        List<String> missList = new ArrayList<String>();
+        IWord word;
+        while ( (word = seg.next()) != null ) {
+            String val = word.getValue();
+            if ( dic.match(ILexicon.CJK_WORD, val) ) {
+                hitList.add(val);
+                //reverse the word to get a key that is most likely missed
+                String rev = new StringBuilder(val).reverse().toString() + "丿";
+                if ( ! dic.match(ILexicon.CJK_WORD, rev) ) {
+                    missList.add(rev);
+                }
+            }
+        }
+        
+        hits   = hitList.toArray(new String[hitList.size()]);
+        misses = missList.toArray(new String[missList.size()]);
+    }
+    
+    /**
+     * fresh String instance for every call so the cached hash code won't help
+    */
+    private String nextKey( String[] keys )
+    {
+        if ( ++cursor >= keys.length ) {
+            cursor = 0;
+        }
+        
+        return new String(keys[cursor]);
+    }
+    
+    @Benchmark
+    public boolean matchHit()
+    {
+        return dic.match(ILexicon.CJK_WORD, nextKey(hits));
+    }
+    
+    @Benchmark
+    public boolean matchMiss()
+    {
+        return dic.match(ILexicon.CJK_WORD, nextKey(misses));
+    }
+    
+    @Benchmark
+    public IWord getHit()
+    {
+        return dic.get(ILexicon.CJK_WORD, nextKey(hits));
+    }
+    
+    @Benchmark
+    public boolean stopwordContains()
+    {
+        return dic.getStopwordSet().contains(nextKey(hits));
+    }
+    
+    /**
+     * load all the lexicons into a new dictionary
+    */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ADictionary loadLexicon()
+    {
+        return DictionaryFactory.createDefaultDictionary(config, true);
+    }
+}
@@ -0,0 +1,100 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lionsoul.jcseg.extractor.KeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.KeywordsExtractor;
+import org.lionsoul.jcseg.extractor.SummaryExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankSummaryExtractor;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TextRank keywords, keyphrase and summary extractor benchmark
+ * the segmenter is configured the same way as the jcseg-server extractor entry
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ExtractorBenchmark 
+{
+    @Param({"news", "literature", "tech"})
+    public String corpus;
+    
+    private KeywordsExtractor keywordsExtractor;
+    private KeyphraseExtractor keyphraseExtractor;
+    private SummaryExtractor summaryExtractor;
+    private String text;
+    
+    @Setup
+    public void setup() throws IOException, JcsegException
+    {
+        JcsegTaskConfig config = Corpus.config();
+        config.setClearStopwords(true);
+        config.setAppendCJKPinyin(false);
+        config.setAppendCJKSyn(false);
+        config.setKeepUnregWords(false);
+        ADictionary dic = Corpus.dictionary(config);
+        
+        keywordsExtractor  = new TextRankKeywordsExtractor(newSegment(config, dic));
+        keyphraseExtractor = new TextRankKeyphraseExtractor(newSegment(config, dic));
+        summaryExtractor   = new TextRankSummaryExtractor(
+                newSegment(config, dic), new SentenceSeg());
+        text = Corpus.load(corpus);
+    }
+    
+    private static ISegment newSegment( JcsegTaskConfig config, ADictionary dic ) 
+            throws JcsegException
+    {
+        return SegmentFactory.createJcseg(JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic});
+    }
+    
+    @Benchmark
+    public List<String> keywords() throws IOException
+    {
+        return keywordsExtractor.getKeywords(new StringReader(text));
+    }
+    
+    @Benchmark
+    public List<String> keyphrase() throws IOException
+    {
+        return keyphraseExtractor.getKeyphrase(new StringReader(text));
+    }
+    
+    @Benchmark
+    public List<String> keySentence() throws IOException
+    {
+        return summaryExtractor.getKeySentence(new StringReader(text));
+    }
+    
+    @Benchmark
+    public String summary() throws IOException
+    {
+        return summaryExtractor.getSummary(new StringReader(text), 86);
+    }
+}
@@ -0,0 +1,68 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.lionsoul.jcseg.util.STConverter;
+import org.lionsoul.jcseg.util.STConverterReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * simplified/traditional chinese conversion benchmark
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class STConverterBenchmark 
+{
+    private String simplified;
+    private String traditional;
+    private final char[] buff = new char[1024];
+    
+    @Setup
+    public void setup() throws IOException
+    {
+        simplified  = Corpus.load("news");
+        traditional = Corpus.load("traditional");
+    }
+    
+    @Benchmark
+    public String simToTraditional()
+    {
+        return STConverter.SimToTraditional(simplified);
+    }
+    
+    @Benchmark
+    public String traToSimplified()
+    {
+        return STConverter.TraToSimplified(traditional);
+    }
+    
+    @Benchmark
+    public int traToSimplifiedReader() throws IOException
+    {
+        STConverterReader reader = new STConverterReader(
+                new StringReader(traditional), STConverterReader.TRA_TO_SIM);
+        int len, total = 0;
+        while ( (len = reader.read(buff, 0, buff.length)) != -1 ) {
+            total += len + buff[len - 1];
+        }
+        
+        return total;
+    }
+}
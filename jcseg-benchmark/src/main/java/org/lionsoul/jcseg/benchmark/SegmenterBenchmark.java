@@ -0,0 +1,70 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * segmentation benchmark for every mode of the SegmentFactory
+ * one operation tokenizes the whole corpus text
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SegmenterBenchmark 
+{
+    @Param({"simple", "complex", "detect", "search", "delimiter", "nlp"})
+    public String mode;
+    
+    @Param({"news", "literature", "tech"})
+    public String corpus;
+    
+    private ISegment seg;
+    private String text;
+    
+    @Setup
+    public void setup() throws IOException, JcsegException
+    {
+        JcsegTaskConfig config = Corpus.config();
+        seg  = SegmentFactory.createJcseg(JcsegTaskConfig.getMode(mode), 
+                new Object[]{config, Corpus.dictionary(config)});
+        text = Corpus.load(corpus);
+    }
+    
+    @Benchmark
+    public int segment( Blackhole bh ) throws IOException
+    {
+        seg.reset(new StringReader(text));
+        IWord word;
+        int count = 0;
+        while ( (word = seg.next()) != null ) {
+            bh.consume(word);
+            count++;
+        }
+        
+        return count;
+    }
+}
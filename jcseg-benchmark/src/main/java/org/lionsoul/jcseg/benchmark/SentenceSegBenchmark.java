@@ -0,0 +1,61 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.lionsoul.jcseg.sentence.Sentence;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * sentence segmentation benchmark
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SentenceSegBenchmark 
+{
+    @Param({"news", "literature", "tech"})
+    public String corpus;
+    
+    private SentenceSeg seg;
+    private String text;
+    
+    @Setup
+    public void setup() throws IOException
+    {
+        seg  = new SentenceSeg();
+        text = Corpus.load(corpus);
+    }
+    
+    @Benchmark
+    public int sentences( Blackhole bh ) throws IOException
+    {
+        seg.reset(new StringReader(text));
+        Sentence sentence;
+        int count = 0;
+        while ( (sentence = seg.next()) != null ) {
+            bh.consume(sentence);
+            count++;
+        }
+        
+        return count;
+    }
+}
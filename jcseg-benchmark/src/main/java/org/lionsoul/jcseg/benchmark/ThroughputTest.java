@@ -0,0 +1,397 @@
+package org.lionsoul.jcseg.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.lionsoul.jcseg.monitor.DictionaryMetrics;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
+import org.lionsoul.jcseg.monitor.SegmentMetrics;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * <p>
+ * corpus throughput regression harness.
+ * run all the documents of a directory through the specified segmentation modes
+ * and report the chars/sec, tokens/sec, p50/p99 per-document latency and the
+ * bytes allocated per token, the result could be saved as JSON and compared
+ * with a saved baseline result.
+ * </p>
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.lionsoul.jcseg.benchmark.ThroughputTest
+ *      --dir corpus/ [--mode complex,nlp|all] [--warmup 3] [--rounds 5]
+ *      [--out result.json] [--baseline baseline.json] [--threshold 0.1]
+ * </pre>
+ *
+ * exit with status 2 if any metric regressed more than the threshold.
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class ThroughputTest
+{
+    /**
+     * metrics names and whether the bigger the better
+    */
+    public static final String[] METRICS = {
+        "chars_per_sec", "tokens_per_sec", "p50_ms", "p99_ms", "bytes_per_token"
+    };
+    private static final boolean[] BIGGER_BETTER = {true, true, false, false, false};
+
+    private final ADictionary dic;
+    private final JcsegTaskConfig config;
+    private final List<String> docs;
+    private long totalChars = 0;
+
+    /**
+     * the thread allocation counter, null if the jvm does not support it
+    */
+    private final com.sun.management.ThreadMXBean allocBean;
+
+    public ThroughputTest( JcsegTaskConfig config, ADictionary dic, List<String> docs )
+    {
+        this.config = config;
+        this.dic    = dic;
+        this.docs   = docs;
+        for ( String doc : docs ) {
+            totalChars += doc.length();
+        }
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() ) {
+            allocBean = (com.sun.management.ThreadMXBean) bean;
+            allocBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocBean = null;
+        }
+    }
+
+    private long allocatedBytes()
+    {
+        if ( allocBean == null ) {
+            return 0;
+        }
+
+        return allocBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * run the whole corpus through the specified mode
+     *
+     * @param   mode
+     * @param   warmup number of the warm up rounds
+     * @param   rounds number of the measured rounds
+     * @return  Map metrics name to value
+     * @throws  JcsegException
+     * @throws  IOException
+    */
+    public Map<String, Double> run( int mode, int warmup, int rounds )
+            throws JcsegException, IOException
+    {
+        ISegment seg = SegmentFactory.createJcseg(mode, new Object[]{config, dic});
+        for ( int r = 0; r < warmup; r++ ) {
+            for ( String doc : docs ) {
+                tokenize(seg, doc);
+            }
+        }
+
+        long[] latency = new long[docs.size() * rounds];
+        long tokens = 0, elapsed = 0;
+        int i = 0;
+        long startAlloc = allocatedBytes();
+        for ( int r = 0; r < rounds; r++ ) {
+            for ( String doc : docs ) {
+                long start = System.nanoTime();
+                tokens += tokenize(seg, doc);
+                long cost = System.nanoTime() - start;
+                latency[i++] = cost;
+                elapsed += cost;
+            }
+        }
+
+        long alloc = allocatedBytes() - startAlloc;
+        Arrays.sort(latency);
+
+        double seconds = elapsed / 1E9;
+        Map<String, Double> result = new LinkedHashMap<String, Double>();
+        result.put("tokens", (double) (tokens / rounds));
+        result.put("chars_per_sec",  totalChars * rounds / seconds);
+        result.put("tokens_per_sec", tokens / seconds);
+        result.put("p50_ms", percentile(latency, 0.50) / 1E6);
+        result.put("p99_ms", percentile(latency, 0.99) / 1E6);
+        result.put("bytes_per_token", allocBean == null || tokens == 0 ? -1D : (double) alloc / tokens);
+        return result;
+    }
+
+    private static int tokenize( ISegment seg, String doc ) throws IOException
+    {
+        seg.reset(new StringReader(doc));
+        int count = 0;
+        while ( seg.next() != null ) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * nearest rank percentile of the sorted values
+    */
+    private static long percentile( long[] sorted, double p )
+    {
+        if ( sorted.length == 0 ) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /**
+     * load all the regular files of the directory as UTF-8 text
+    */
+    public static List<String> loadDocuments( File dir ) throws IOException
+    {
+        File[] files = dir.isDirectory() ? dir.listFiles() : new File[]{dir};
+        if ( files == null ) {
+            throw new IOException("Unable to list directory " + dir);
+        }
+
+        Arrays.sort(files);
+        List<String> docs = new ArrayList<String>(files.length);
+        char[] buff = new char[8192];
+        for ( File file : files ) {
+            if ( ! file.isFile() ) {
+                continue;
+            }
+
+            StringBuilder sb = new StringBuilder((int) file.length());
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                int len;
+                while ( (len = reader.read(buff)) != -1 ) {
+                    sb.append(buff, 0, len);
+                }
+            } finally {
+                reader.close();
+            }
+
+            docs.add(sb.toString());
+        }
+
+        return docs;
+    }
+
+    /**
+     * encode the results as a JSON string
+    */
+    public String toJson( Map<String, Map<String, Double>> results )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"jcseg\": \"").append(SegmentFactory.version).append("\",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"docs\": ").append(docs.size()).append(",\n");
+        sb.append("  \"chars\": ").append(totalChars).append(",\n");
+        sb.append("  \"modes\": {");
+        int m = 0;
+        for ( Map.Entry<String, Map<String, Double>> mode : results.entrySet() ) {
+            sb.append(m++ == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(mode.getKey()).append("\": {");
+            int k = 0;
+            for ( Map.Entry<String, Double> e : mode.getValue().entrySet() ) {
+                sb.append(k++ == 0 ? "" : ", ");
+                sb.append('"').append(e.getKey()).append("\": ")
+                  .append(String.format(Locale.US, "%.3f", e.getValue()));
+            }
+            sb.append("}");
+        }
+        sb.append("\n  }\n}\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * parse the modes part of a JSON result written by {@link #toJson(Map)}
+    */
+    public static Map<String, Map<String, Double>> parseJson( String json )
+    {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<String, Map<String, Double>>();
+        Matcher mm = Pattern.compile("\"(\\w+)\"\\s*:\\s*\\{([^{}]*)\\}").matcher(json);
+        while ( mm.find() ) {
+            Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+            Matcher km = Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?[0-9.Ee+-]+)").matcher(mm.group(2));
+            while ( km.find() ) {
+                metrics.put(km.group(1), Double.valueOf(km.group(2)));
+            }
+            results.put(mm.group(1), metrics);
+        }
+
+        return results;
+    }
+
+    /**
+     * compare the results with the baseline and print the report
+     *
+     * @return  int number of the regressed metrics
+    */
+    public static int compare( Map<String, Map<String, Double>> results,
+            Map<String, Map<String, Double>> baseline, double threshold )
+    {
+        int regressions = 0;
+        for ( Map.Entry<String, Map<String, Double>> mode : results.entrySet() ) {
+            Map<String, Double> base = baseline.get(mode.getKey());
+            if ( base == null ) {
+                System.out.println(mode.getKey() + ": no baseline");
+                continue;
+            }
+
+            for ( int j = 0; j < METRICS.length; j++ ) {
+                Double cur = mode.getValue().get(METRICS[j]);
+                Double old = base.get(METRICS[j]);
+                if ( cur == null || old == null || old <= 0 || cur < 0 ) {
+                    continue;
+                }
+
+                double change = (cur - old) / old;
+                boolean regressed = BIGGER_BETTER[j] ? change < -threshold : change > threshold;
+                if ( regressed ) {
+                    regressions++;
+                }
+
+                System.out.format(Locale.US, "%-10s %-16s %14.3f -> %14.3f  %+7.2f%% %s\n",
+                        mode.getKey(), METRICS[j], old, cur, change * 100, regressed ? "REGRESSED" : "");
+            }
+        }
+
+        return regressions;
+    }
+
+    private static String readFile( File file ) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                sb.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * print the hot-path metrics collected with -Djcseg.metrics=true
+    */
+    private static void printMetrics()
+    {
+        for ( SegmentMetrics metrics : SegmentMetrics.getAll().values() ) {
+            System.out.println("+-- " + metrics.getName());
+            System.out.format(Locale.US, "|- chunks/call: %.2f, pushbacks: %d, cjk chars: %d, latin chars: %d\n",
+                    metrics.getChunksPerCall(), metrics.getPushbacks(),
+                    metrics.getCjkChars(), metrics.getLatinChars());
+            System.out.println("|- tokens: " + metrics.getTokensByType());
+            System.out.println("|- phase nanos: " + metrics.getPhaseNanos());
+        }
+
+        System.out.println("+-- Dictionary");
+        System.out.println("|- probes: " + DictionaryMetrics.getInstance().getProbes());
+        System.out.println("|- hit ratio: " + DictionaryMetrics.getInstance().getHitRatio());
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        String dir = null, modes = "complex", out = null, baseline = null;
+        int warmup = 3, rounds = 5;
+        double threshold = 0.1;
+        for ( int j = 0; j + 1 < args.length; j += 2 ) {
+            String key = args[j], val = args[j + 1];
+            if ( "--dir".equals(key) )              dir = val;
+            else if ( "--mode".equals(key) )        modes = val;
+            else if ( "--warmup".equals(key) )      warmup = Integer.parseInt(val);
+            else if ( "--rounds".equals(key) )      rounds = Integer.parseInt(val);
+            else if ( "--out".equals(key) )         out = val;
+            else if ( "--baseline".equals(key) )    baseline = val;
+            else if ( "--threshold".equals(key) )   threshold = Double.parseDouble(val);
+            else {
+                System.err.println("Unknown option " + key);
+                System.exit(1);
+            }
+        }
+
+        if ( dir == null ) {
+            System.err.println("Usage: ThroughputTest --dir <corpus dir> [--mode complex,nlp|all]"
+                    + " [--warmup 3] [--rounds 5] [--out result.json]"
+                    + " [--baseline baseline.json] [--threshold 0.1]");
+            System.exit(1);
+        }
+
+        List<String> docs = loadDocuments(new File(dir));
+        JcsegTaskConfig config = new JcsegTaskConfig(true);
+        ADictionary dic = DictionaryFactory.createDefaultDictionary(config);
+        ThroughputTest test = new ThroughputTest(config, dic, docs);
+
+        String[] names = "all".equals(modes) ? JcsegTaskConfig.MODE_NAMES : modes.split("\\s*,\\s*");
+        Map<String, Map<String, Double>> results = new LinkedHashMap<String, Map<String, Double>>();
+        for ( String name : names ) {
+            Map<String, Double> result = test.run(JcsegTaskConfig.getMode(name), warmup, rounds);
+            results.put(name, result);
+            System.out.format(Locale.US, "%-10s chars/sec: %.0f, tokens/sec: %.0f, "
+                    + "p50: %.3fms, p99: %.3fms, bytes/token: %.1f\n", name,
+                    result.get("chars_per_sec"), result.get("tokens_per_sec"),
+                    result.get("p50_ms"), result.get("p99_ms"), result.get("bytes_per_token"));
+        }
+
+        if ( JcsegMetrics.ENABLED ) {
+            printMetrics();
+        }
+        
+        String json = test.toJson(results);
+        if ( out != null ) {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(out), "UTF-8");
+            try {
+                writer.write(json);
+            } finally {
+                writer.close();
+            }
+        } else {
+            System.out.print(json);
+        }
+
+        if ( baseline != null ) {
+            int regressions = compare(results, parseJson(readFile(new File(baseline))), threshold);
+            if ( regressions > 0 ) {
+                System.out.println(regressions + " metric(s) regressed more than "
+                        + (threshold * 100) + "%");
+                System.exit(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,670 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * sparse BM25 sentence similarity graph for the textRank summary.
+ * the sentences are given as integer term id sequences, the weight of the
+ * edge from sentence i to sentence j is the BM25 score of the query j against
+ * the document i:
+ * </p>
+ *
+ * <pre>
+ * w(i,j) = sigema(tf(q,j) * IDF(q) * tf(q,i)*(k1+1)/(tf(q,i)+k1*(1-b+b*dl(i)/avgdl)))
+ * </pre>
+ *
+ * <p>
+ * only the sentences that share terms have a non zero weight, so the edges are
+ * built from the inverted index of the terms row by row (in parallel for large
+ * documents) and kept as CSR arrays of the incoming edges, no N*N matrix is
+ * allocated.
+ * </p>
+ *
+ * <p>
+ * a term that appears in most sentences (the punctuation and the stop words)
+ * would link nearly every pair of sentences, such terms are not expanded into
+ * edges but kept in the factored form w(i,j) = a(q,i) * tf(q,j) and summed per
+ * term during the iterations, which gives the same scores with the memory and
+ * the cost linear to the number of the postings.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class BM25Graph
+{
+    //default convergence tolerance of the scores
+    public static final double TOLERANCE = 1E-6D;
+
+    /**
+     * terms with a document frequency greater than this are kept factored
+    */
+    public static final int DENSE_DF = 64;
+
+    /**
+     * min number of the sentences to build the rows in parallel
+    */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private static final int NTHREADS = Runtime.getRuntime().availableProcessors();
+    private static volatile ExecutorService executor = null;
+
+    /**
+     * number of the sentences and the CSR incoming edges:
+     * the edges into sentence i are [inOffsets[i], inOffsets[i+1])
+    */
+    private final int size;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final double[] inWeights;
+
+    /**
+     * sum of the outgoing edge weights of each sentence
+    */
+    private final double[] weightSum;
+
+    /**
+     * factored dense terms of each sentence: the terms of sentence i are
+     * [denseOffsets[i], denseOffsets[i+1]) with the dense term index,
+     * the BM25 factor a(q,i) and the term frequency tf(q,i)
+    */
+    private final int denseNum;
+    private final int[] denseOffsets;
+    private final int[] denseTerms;
+    private final double[] denseFactors;
+    private final int[] denseTf;
+
+    /**
+     * number of the iterations run by the last rank
+    */
+    private int iterations = 0;
+
+    private BM25Graph(
+            int size, int[] inOffsets, int[] inSources, double[] inWeights, double[] weightSum,
+            int denseNum, int[] denseOffsets, int[] denseTerms, double[] denseFactors, int[] denseTf )
+    {
+        this.size = size;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        this.weightSum = weightSum;
+        this.denseNum = denseNum;
+        this.denseOffsets = denseOffsets;
+        this.denseTerms = denseTerms;
+        this.denseFactors = denseFactors;
+        this.denseTf = denseTf;
+    }
+
+    /**
+     * build the similarity graph of the sentences
+     *
+     * @param   docs term ids of each sentence
+     * @param   termNum number of the distinct terms
+     * @param   k1
+     * @param   b
+     * @return  BM25Graph
+    */
+    public static BM25Graph build( int[][] docs, int termNum, float k1, float b )
+    {
+        TermIndex index = new TermIndex(docs, termNum, k1, b);
+        final int docNum = index.docNum;
+
+        //1. the inverted index: sentences and the term frequency of each term
+        int[] postOffsets = new int[termNum + 1];
+        for ( int t = 0; t < termNum; t++ ) {
+            postOffsets[t + 1] = postOffsets[t] + index.df[t];
+        }
+
+        int[] postDocs = new int[index.docTerms.length];
+        int[] postTf = new int[postDocs.length];
+        int[] fill = new int[termNum];
+        System.arraycopy(postOffsets, 0, fill, 0, termNum);
+        for ( int i = 0; i < docNum; i++ ) {
+            for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                int p = fill[index.docTerms[k]]++;
+                postDocs[p] = i;
+                postTf[p] = index.docTf[k];
+            }
+        }
+
+        //2. the index of the factored dense terms and the weight sums
+        int[] denseIndex = new int[termNum];
+        int denseNum = 0;
+        for ( int t = 0; t < termNum; t++ ) {
+            denseIndex[t] = index.df[t] > DENSE_DF ? denseNum++ : -1;
+        }
+
+        double[] weightSum = new double[docNum];
+        int denseCount = 0;
+        for ( int i = 0; i < docNum; i++ ) {
+            double sum = 0D;
+            for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                int t = index.docTerms[k];
+                //all the edges but the self loop: sigema(tf(q,j)) with j != i
+                sum += index.factor[k] * (index.cf[t] - index.docTf[k]);
+                if ( denseIndex[t] > -1 ) {
+                    denseCount++;
+                }
+            }
+            weightSum[i] = sum;
+        }
+
+        int[] denseOffsets = new int[docNum + 1];
+        int[] denseTerms = new int[denseCount];
+        double[] denseFactors = new double[denseCount];
+        int[] denseTf = new int[denseCount];
+        int d = 0;
+        for ( int i = 0; i < docNum; i++ ) {
+            denseOffsets[i] = d;
+            for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                int idx = denseIndex[index.docTerms[k]];
+                if ( idx > -1 ) {
+                    denseTerms[d] = idx;
+                    denseFactors[d] = index.factor[k];
+                    denseTf[d++] = index.docTf[k];
+                }
+            }
+        }
+        denseOffsets[docNum] = d;
+
+        //3. the sparse outgoing edges of each sentence through the inverted index
+        RowBuilder builder = new PostingRowBuilder(
+            index, denseIndex, postOffsets, postDocs, postTf);
+        builder.buildAll();
+
+        return builder.toGraph(weightSum, denseNum, denseOffsets, denseTerms, denseFactors, denseTf);
+    }
+
+    /**
+     * build the approximate similarity graph of the sentences.
+     * the candidate pairs are found with the MinHash sketches of the term sets
+     * of the sentences and the BM25 weights are only computed for the candidate
+     * pairs, so the graph keeps linear to the number of the sentences no matter
+     * how many sentences share the common terms.
+     * only the terms with a positive idf and in no more than {@link #DENSE_DF}
+     * sentences are sketched, the common terms link nearly every pair of the
+     * sentences and tell nothing about the similarity. the pairs with a non
+     * positive weight are dropped so every linked sentence has a positive
+     * weight sum.
+     *
+     * @param   docs term ids of each sentence
+     * @param   termNum number of the distinct terms
+     * @param   k1
+     * @param   b
+     * @param   lsh
+     * @return  BM25Graph
+    */
+    public static BM25Graph buildApproximate(
+            int[][] docs, int termNum, float k1, float b, MinHashLSH lsh )
+    {
+        TermIndex index = new TermIndex(docs, termNum, k1, b);
+        final int docNum = index.docNum;
+
+        //1. the candidate pairs of the sketched term sets
+        int[][] sets = new int[docNum][];
+        for ( int i = 0; i < docNum; i++ ) {
+            int n = 0;
+            int[] set = new int[index.docOffsets[i + 1] - index.docOffsets[i]];
+            for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                int t = index.docTerms[k];
+                if ( index.df[t] <= DENSE_DF && index.idf[t] > 0 ) {
+                    set[n++] = t;
+                }
+            }
+            sets[i] = n == set.length ? set : Arrays.copyOf(set, n);
+        }
+
+        long[] pairs = lsh.candidates(sets);
+        sets = null;
+
+        //2. the candidates of each sentence in both directions
+        int[] candOffsets = new int[docNum + 1];
+        for ( long pair : pairs ) {
+            candOffsets[(int) (pair >>> 32) + 1]++;
+            candOffsets[(int) pair + 1]++;
+        }
+        for ( int i = 0; i < docNum; i++ ) {
+            candOffsets[i + 1] += candOffsets[i];
+        }
+
+        int[] candDocs = new int[candOffsets[docNum]];
+        int[] fill = new int[docNum];
+        System.arraycopy(candOffsets, 0, fill, 0, docNum);
+        for ( long pair : pairs ) {
+            int i = (int) (pair >>> 32), j = (int) pair;
+            candDocs[fill[i]++] = j;
+            candDocs[fill[j]++] = i;
+        }
+        pairs = null;
+
+        //3. the BM25 weights of the candidate pairs
+        CandidateRowBuilder builder = new CandidateRowBuilder(index, candOffsets, candDocs);
+        builder.buildAll();
+
+        //the weight sums are taken over the candidate edges only
+        double[] weightSum = new double[docNum];
+        for ( int i = 0; i < docNum; i++ ) {
+            double sum = 0D;
+            for ( double v : builder.rowWeights[i] ) {
+                sum += v;
+            }
+            weightSum[i] = sum;
+        }
+
+        int[] denseOffsets = new int[docNum + 1];
+        return builder.toGraph(weightSum, 0, denseOffsets, new int[0], new double[0], new int[0]);
+    }
+
+    /**
+     * run the textRank iterations until the max change of the scores is less
+     * than the tolerance or the max iterate number is reached.
+     * the scores are updated in place so the new scores are used at once:
+     *
+     * <pre>
+     * ws(i) = (1-d) + d * sigema(w(j,i) / sigema(w(j,k)) * ws(j)) with j != i
+     * </pre>
+     *
+     * @param   d damping factor
+     * @param   maxIterateNum
+     * @param   tolerance
+     * @return  double[] scores indexed by the sentence
+    */
+    public double[] rank( double d, int maxIterateNum, double tolerance )
+    {
+        double[] score = new double[size];
+
+        //the normalized score ws(j) / sigema(w(j,k)) of each sentence
+        double[] norm = new double[size];
+
+        //sigema(a(q,j) * norm(j)) of each dense term over all its sentences
+        double[] denseSum = new double[denseNum];
+
+        iterations = 0;
+        while ( iterations < maxIterateNum ) {
+            iterations++;
+            double delta = 0D;
+            for ( int i = 0; i < size; i++ ) {
+                double sigema = 0D;
+                for ( int e = inOffsets[i]; e < inOffsets[i + 1]; e++ ) {
+                    sigema += inWeights[e] * norm[inSources[e]];
+                }
+
+                //the factored dense terms without the self loop
+                for ( int k = denseOffsets[i]; k < denseOffsets[i + 1]; k++ ) {
+                    sigema += denseTf[k] * (denseSum[denseTerms[k]] - denseFactors[k] * norm[i]);
+                }
+
+                double s = 1 - d + d * sigema;
+                delta = Math.max(delta, Math.abs(s - score[i]));
+                score[i] = s;
+
+                double n = weightSum[i] == 0 ? 0D : s / weightSum[i];
+                for ( int k = denseOffsets[i]; k < denseOffsets[i + 1]; k++ ) {
+                    denseSum[denseTerms[k]] += denseFactors[k] * (n - norm[i]);
+                }
+                norm[i] = n;
+            }
+
+            if ( delta < tolerance ) {
+                break;
+            }
+        }
+
+        return score;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return  int number of the sparse edges
+    */
+    public int edges()
+    {
+        return inOffsets[size];
+    }
+
+    /**
+     * @return  int number of the factored dense terms
+    */
+    public int getDenseNum()
+    {
+        return denseNum;
+    }
+
+    /**
+     * @return  int number of the iterations run by the last rank
+    */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    /**
+     * get the shared executor for the parallel row build
+     *
+     * @return  ExecutorService
+    */
+    private static ExecutorService getExecutor()
+    {
+        if ( executor == null ) {
+            synchronized ( BM25Graph.class ) {
+                if ( executor == null ) {
+                    executor = Executors.newFixedThreadPool(NTHREADS, new ThreadFactory() {
+                        private final AtomicInteger counter = new AtomicInteger(0);
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "jcseg-bm25-" + counter.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * the distinct terms of each sentence with the term frequency and the
+     * BM25 factor a(q,i) = IDF(q) * tf(q,i)*(k1+1)/(tf(q,i)+k1*(1-b+b*dl(i)/avgdl))
+    */
+    private static class TermIndex
+    {
+        final int docNum;
+        final int[] docOffsets;
+        final int[] docTerms;
+        final int[] docTf;
+        final double[] factor;
+        final int[] df;
+        final int[] cf;
+        final double[] idf;
+
+        TermIndex( int[][] docs, int termNum, float k1, float b )
+        {
+            docNum = docs.length;
+            docOffsets = new int[docNum + 1];
+            int[] terms = new int[total(docs)];
+            int[] tf = new int[terms.length];
+            int[] slot = new int[termNum];
+            int[] stamp = new int[termNum];
+            df = new int[termNum];
+            cf = new int[termNum];
+            long tokens = 0;
+            int w = 0;
+            for ( int i = 0; i < docNum; i++ ) {
+                docOffsets[i] = w;
+                for ( int t : docs[i] ) {
+                    if ( stamp[t] != i + 1 ) {
+                        stamp[t] = i + 1;
+                        slot[t] = w;
+                        terms[w] = t;
+                        tf[w++] = 0;
+                        df[t]++;
+                    }
+                    tf[slot[t]]++;
+                    cf[t]++;
+                }
+                tokens += docs[i].length;
+            }
+            docOffsets[docNum] = w;
+            docTerms = w == terms.length ? terms : Arrays.copyOf(terms, w);
+            docTf = w == tf.length ? tf : Arrays.copyOf(tf, w);
+
+            idf = new double[termNum];
+            for ( int t = 0; t < termNum; t++ ) {
+                idf[t] = Math.log((docNum - df[t] + 0.5) / (df[t] + 0.5));
+            }
+
+            final double avgdl = (double) tokens / docNum;
+            factor = new double[w];
+            for ( int i = 0; i < docNum; i++ ) {
+                int dl = docs[i].length;
+                double dlRelative = k1 * (1 - b + b * dl / avgdl);
+                for ( int k = docOffsets[i]; k < docOffsets[i + 1]; k++ ) {
+                    int fi = docTf[k];
+                    factor[k] = idf[docTerms[k]] * (fi * (k1 + 1) / (fi + dlRelative));
+                }
+            }
+        }
+
+        private static int total( int[][] docs )
+        {
+            int total = 0;
+            for ( int[] doc : docs ) {
+                total += doc.length;
+            }
+
+            return total;
+        }
+    }
+
+    /**
+     * sparse outgoing edges builder.
+     * the rows are independent so they could be built by any number of
+     * threads, large documents are built with the shared executor.
+    */
+    private static abstract class RowBuilder
+    {
+        final TermIndex index;
+        final int docNum;
+        final int[][] rowTargets;
+        final double[][] rowWeights;
+
+        RowBuilder( TermIndex index )
+        {
+            this.index = index;
+            this.docNum = index.docNum;
+            this.rowTargets = new int[docNum][];
+            this.rowWeights = new double[docNum][];
+        }
+
+        /**
+         * build the rows [start, end)
+        */
+        abstract void build( int start, int end );
+
+        /**
+         * build all the rows, in parallel for large documents
+        */
+        void buildAll()
+        {
+            if ( docNum < PARALLEL_THRESHOLD || NTHREADS < 2 ) {
+                build(0, docNum);
+                return;
+            }
+
+            int step = (docNum + NTHREADS - 1) / NTHREADS;
+            List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(NTHREADS);
+            for ( int s = 0; s < docNum; s += step ) {
+                final int start = s, end = Math.min(docNum, s + step);
+                tasks.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        build(start, end);
+                        return null;
+                    }
+                });
+            }
+
+            try {
+                for ( Future<Object> f : getExecutor().invokeAll(tasks) ) {
+                    f.get();
+                }
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("BM25 graph build interrupted", e);
+            } catch ( ExecutionException e ) {
+                throw new IllegalStateException("BM25 graph build failed", e.getCause());
+            }
+        }
+
+        /**
+         * transpose the rows into the incoming edges of the graph
+        */
+        BM25Graph toGraph( double[] weightSum, int denseNum, int[] denseOffsets,
+                int[] denseTerms, double[] denseFactors, int[] denseTf )
+        {
+            int[] inOffsets = new int[docNum + 1];
+            for ( int j = 0; j < docNum; j++ ) {
+                for ( int i : rowTargets[j] ) {
+                    inOffsets[i + 1]++;
+                }
+            }
+            for ( int i = 0; i < docNum; i++ ) {
+                inOffsets[i + 1] += inOffsets[i];
+            }
+
+            int[] inSources = new int[inOffsets[docNum]];
+            double[] inWeights = new double[inSources.length];
+            int[] fill = new int[docNum];
+            System.arraycopy(inOffsets, 0, fill, 0, docNum);
+            for ( int j = 0; j < docNum; j++ ) {
+                int[] targets = rowTargets[j];
+                double[] weights = rowWeights[j];
+                for ( int k = 0; k < targets.length; k++ ) {
+                    int p = fill[targets[k]]++;
+                    inSources[p] = j;
+                    inWeights[p] = weights[k];
+                }
+                rowTargets[j] = null;
+                rowWeights[j] = null;
+            }
+
+            return new BM25Graph(docNum, inOffsets, inSources, inWeights, weightSum,
+                    denseNum, denseOffsets, denseTerms, denseFactors, denseTf);
+        }
+    }
+
+    /**
+     * rows over the inverted index of the sparse terms.
+     * each row is accumulated in a dense buffer of its own worker and only
+     * the touched sentences are copied out.
+    */
+    private static class PostingRowBuilder extends RowBuilder
+    {
+        private final int[] denseIndex;
+        private final int[] postOffsets;
+        private final int[] postDocs;
+        private final int[] postTf;
+
+        PostingRowBuilder( TermIndex index, int[] denseIndex,
+                int[] postOffsets, int[] postDocs, int[] postTf )
+        {
+            super(index);
+            this.denseIndex = denseIndex;
+            this.postOffsets = postOffsets;
+            this.postDocs = postDocs;
+            this.postTf = postTf;
+        }
+
+        @Override
+        void build( int start, int end )
+        {
+            double[] acc = new double[docNum];
+            boolean[] touched = new boolean[docNum];
+            int[] list = new int[docNum];
+            for ( int i = start; i < end; i++ ) {
+                int n = 0;
+                for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                    int t = index.docTerms[k];
+                    if ( denseIndex[t] > -1 ) {
+                        continue;
+                    }
+
+                    double a = index.factor[k];
+                    for ( int p = postOffsets[t]; p < postOffsets[t + 1]; p++ ) {
+                        int j = postDocs[p];
+                        if ( j == i ) {
+                            continue;
+                        }
+                        if ( ! touched[j] ) {
+                            touched[j] = true;
+                            list[n++] = j;
+                        }
+                        acc[j] += a * postTf[p];
+                    }
+                }
+
+                int[] targets = new int[n];
+                double[] weights = new double[n];
+                for ( int k = 0; k < n; k++ ) {
+                    int j = list[k];
+                    targets[k] = j;
+                    weights[k] = acc[j];
+                    acc[j] = 0D;
+                    touched[j] = false;
+                }
+
+                rowTargets[i] = targets;
+                rowWeights[i] = weights;
+            }
+        }
+    }
+
+    /**
+     * rows over the candidate pairs only.
+     * the factors of the terms of row i are scattered into a term indexed
+     * buffer and probed with the terms of each candidate.
+    */
+    private static class CandidateRowBuilder extends RowBuilder
+    {
+        private final int[] candOffsets;
+        private final int[] candDocs;
+
+        CandidateRowBuilder( TermIndex index, int[] candOffsets, int[] candDocs )
+        {
+            super(index);
+            this.candOffsets = candOffsets;
+            this.candDocs = candDocs;
+        }
+
+        @Override
+        void build( int start, int end )
+        {
+            int termNum = index.df.length;
+            double[] factor = new double[termNum];
+            int[] stamp = new int[termNum];
+            for ( int i = start; i < end; i++ ) {
+                for ( int k = index.docOffsets[i]; k < index.docOffsets[i + 1]; k++ ) {
+                    factor[index.docTerms[k]] = index.factor[k];
+                    stamp[index.docTerms[k]] = i + 1;
+                }
+
+                int n = candOffsets[i + 1] - candOffsets[i];
+                int[] targets = new int[n];
+                double[] weights = new double[n];
+                int m = 0;
+                for ( int c = 0; c < n; c++ ) {
+                    int j = candDocs[candOffsets[i] + c];
+                    double w = 0D;
+                    for ( int k = index.docOffsets[j]; k < index.docOffsets[j + 1]; k++ ) {
+                        int t = index.docTerms[k];
+                        if ( stamp[t] == i + 1 ) {
+                            w += factor[t] * index.docTf[k];
+                        }
+                    }
+                    if ( w > 0 ) {
+                        targets[m] = j;
+                        weights[m++] = w;
+                    }
+                }
+
+                rowTargets[i] = m == n ? targets : Arrays.copyOf(targets, m);
+                rowWeights[i] = m == n ? weights : Arrays.copyOf(weights, m);
+            }
+        }
+    }
+}
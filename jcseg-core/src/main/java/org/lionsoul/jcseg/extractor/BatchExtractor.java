@@ -0,0 +1,360 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lionsoul.jcseg.extractor.impl.TextRankKeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankSummaryExtractor;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * <p>
+ * extract from a batch of documents in parallel.
+ * the extractors are bound to one segmenter and could only process one
+ * document at a time, so every batch keeps a pool of workers, a worker is
+ * a segmenter, a sentence splitter and an extractor. a task takes an idle
+ * worker or creates a new one and gives it back once the document is done,
+ * so no more workers than the busy threads are created and they are all
+ * dropped with the batch, nothing is left on the threads of the executor.
+ * every document is analyzed once with {@link DocumentAnalysis} and the
+ * results are returned in the order of the input documents.
+ * </p>
+ *
+ * <pre>
+ * BatchExtractor batch = new BatchExtractor(config, dic, JcsegTaskConfig.COMPLEX_MODE);
+ * List&lt;List&lt;String&gt;&gt; keywords = batch.extract(docs, BatchExtractor.keywords(10));
+ * </pre>
+ *
+ * <p>
+ * the documents are submitted as they are iterated with at most
+ * {@link #getMaxPending()} documents waiting, so a lazy iterable over a
+ * huge corpus is never loaded all at once. do not call it from a task of
+ * the same executor or the batch may wait for itself.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class BatchExtractor
+{
+    /**
+     * number of the threads of the default executor
+    */
+    public static final int NTHREADS = Runtime.getRuntime().availableProcessors();
+
+    private static volatile ExecutorService defaultExecutor = null;
+
+    private final JcsegTaskConfig config;
+    private final ADictionary dic;
+    private final int mode;
+    private final ExecutorService executor;
+
+    /**
+     * max number of the submitted documents not done yet
+    */
+    private int maxPending = NTHREADS * 4;
+
+    /**
+     * create a batch extractor on the shared default executor
+     *
+     * @param   config
+     * @param   dic
+     * @param   mode segment mode of the segmenters
+    */
+    public BatchExtractor( JcsegTaskConfig config, ADictionary dic, int mode )
+    {
+        this(config, dic, mode, null);
+    }
+
+    /**
+     * create a batch extractor on the specified executor
+     *
+     * @param   config
+     * @param   dic
+     * @param   mode segment mode of the segmenters
+     * @param   executor null for the shared default executor
+    */
+    public BatchExtractor( JcsegTaskConfig config, ADictionary dic, int mode, ExecutorService executor )
+    {
+        this.config = config;
+        this.dic = dic;
+        this.mode = mode;
+        this.executor = executor == null ? getDefaultExecutor() : executor;
+    }
+
+    /**
+     * lazy create the shared executor with daemon threads
+    */
+    private static ExecutorService getDefaultExecutor()
+    {
+        if ( defaultExecutor == null ) {
+            synchronized ( BatchExtractor.class ) {
+                if ( defaultExecutor == null ) {
+                    defaultExecutor = Executors.newFixedThreadPool(NTHREADS, new ThreadFactory() {
+                        private final AtomicInteger counter = new AtomicInteger(0);
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "jcseg-batch-" + counter.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+                }
+            }
+        }
+
+        return defaultExecutor;
+    }
+
+    /**
+     * run the extraction over all the documents
+     *
+     * @param   docs
+     * @param   extraction
+     * @return  List<T> the result of each document in the input order
+     * @throws  IOException
+    */
+    public <E, T> List<T> extract( Iterable<String> docs, final Extraction<E, T> extraction ) throws IOException
+    {
+        final Semaphore permits = new Semaphore(maxPending);
+        final Queue<Worker<E>> workers = new ConcurrentLinkedQueue<Worker<E>>();
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        try {
+            for ( final String doc : docs ) {
+                permits.acquire();
+                try {
+                    futures.add(executor.submit(new Callable<T>() {
+                        @Override
+                        public T call() throws Exception {
+                            try {
+                                Worker<E> worker = workers.poll();
+                                if ( worker == null ) {
+                                    worker = new Worker<E>(extraction);
+                                }
+                                
+                                //a failed worker is dropped
+                                T result = worker.extract(extraction, doc);
+                                workers.offer(worker);
+                                return result;
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    }));
+                } catch ( RuntimeException e ) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            List<T> results = new ArrayList<T>(futures.size());
+            for ( Future<T> f : futures ) {
+                results.add(f.get());
+            }
+
+            return results;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new IOException("Interrupted while extracting the documents");
+        } catch ( ExecutionException e ) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to extract the documents", cause);
+        }
+    }
+
+    private static <T> void cancel( List<Future<T>> futures )
+    {
+        for ( Future<T> f : futures ) {
+            f.cancel(false);
+        }
+    }
+
+    /**
+     * the segmenters and the extractor of a worker
+    */
+    private class Worker<E>
+    {
+        final ISegment seg;
+        final SentenceSeg sentenceSeg;
+        final E extractor;
+
+        Worker( Extraction<E, ?> extraction ) throws JcsegException, IOException
+        {
+            this.seg = SegmentFactory.createJcseg(mode, new Object[]{config, dic});
+            this.sentenceSeg = new SentenceSeg();
+            this.extractor = extraction.create(seg, sentenceSeg);
+        }
+
+        <T> T extract( Extraction<E, T> extraction, String doc ) throws IOException
+        {
+            return extraction.extract(extractor, DocumentAnalysis.analyze(doc, sentenceSeg, seg));
+        }
+    }
+
+    /**
+     * an extraction of a batch: the extractor of a worker is created
+     * once with the segmenters of the worker and used for every document
+     * the worker takes. the extractions are stateless except the
+     * extractors they create so one could be used by any number of batches.
+     *
+     * @param   <E> type of the extractor
+     * @param   <T> type of the result of a document
+    */
+    public static abstract class Extraction<E, T>
+    {
+        /**
+         * create the extractor of a worker
+         *
+         * @param   seg
+         * @param   sentenceSeg
+         * @return  E
+        */
+        protected abstract E create( ISegment seg, SentenceSeg sentenceSeg );
+
+        /**
+         * extract from the analysis of a document
+         *
+         * @param   extractor
+         * @param   doc
+         * @return  T
+         * @throws  IOException
+        */
+        protected abstract T extract( E extractor, DocumentAnalysis doc ) throws IOException;
+    }
+
+    /**
+     * TextRank keywords extraction
+     *
+     * @param   keywordsNum
+     * @return  Extraction
+    */
+    public static Extraction<TextRankKeywordsExtractor, List<String>> keywords( final int keywordsNum )
+    {
+        return new Extraction<TextRankKeywordsExtractor, List<String>>() {
+            @Override
+            protected TextRankKeywordsExtractor create( ISegment seg, SentenceSeg sentenceSeg ) {
+                TextRankKeywordsExtractor extractor = new TextRankKeywordsExtractor(seg);
+                extractor.setKeywordsNum(keywordsNum);
+                return extractor;
+            }
+
+            @Override
+            protected List<String> extract( TextRankKeywordsExtractor extractor,
+                    DocumentAnalysis doc ) throws IOException {
+                return extractor.getKeywords(doc);
+            }
+        };
+    }
+
+    /**
+     * TextRank keyphrase extraction
+     *
+     * @param   maxWordsNum max number of the words of a phrase
+     * @param   autoMinLength
+     * @return  Extraction
+    */
+    public static Extraction<TextRankKeyphraseExtractor, List<String>> keyphrase(
+            final int maxWordsNum, final int autoMinLength )
+    {
+        return new Extraction<TextRankKeyphraseExtractor, List<String>>() {
+            @Override
+            protected TextRankKeyphraseExtractor create( ISegment seg, SentenceSeg sentenceSeg ) {
+                TextRankKeyphraseExtractor extractor = new TextRankKeyphraseExtractor(seg);
+                extractor.setMaxWordsNum(maxWordsNum);
+                extractor.setAutoMinLength(autoMinLength);
+                return extractor;
+            }
+
+            @Override
+            protected List<String> extract( TextRankKeyphraseExtractor extractor,
+                    DocumentAnalysis doc ) throws IOException {
+                return extractor.getKeyphrase(doc);
+            }
+        };
+    }
+
+    /**
+     * TextRank key sentence extraction
+     *
+     * @param   sentenceNum
+     * @return  Extraction
+    */
+    public static Extraction<TextRankSummaryExtractor, List<String>> keySentence( final int sentenceNum )
+    {
+        return new Extraction<TextRankSummaryExtractor, List<String>>() {
+            @Override
+            protected TextRankSummaryExtractor create( ISegment seg, SentenceSeg sentenceSeg ) {
+                TextRankSummaryExtractor extractor = new TextRankSummaryExtractor(seg, sentenceSeg);
+                extractor.setSentenceNum(sentenceNum);
+                return extractor;
+            }
+
+            @Override
+            protected List<String> extract( TextRankSummaryExtractor extractor,
+                    DocumentAnalysis doc ) throws IOException {
+                return extractor.getKeySentence(doc);
+            }
+        };
+    }
+
+    /**
+     * TextRank summary extraction
+     *
+     * @param   length
+     * @return  Extraction
+    */
+    public static Extraction<TextRankSummaryExtractor, String> summary( final int length )
+    {
+        return new Extraction<TextRankSummaryExtractor, String>() {
+            @Override
+            protected TextRankSummaryExtractor create( ISegment seg, SentenceSeg sentenceSeg ) {
+                return new TextRankSummaryExtractor(seg, sentenceSeg);
+            }
+
+            @Override
+            protected String extract( TextRankSummaryExtractor extractor,
+                    DocumentAnalysis doc ) throws IOException {
+                return extractor.getSummary(doc, length);
+            }
+        };
+    }
+
+    public int getMaxPending()
+    {
+        return maxPending;
+    }
+
+    public void setMaxPending( int maxPending )
+    {
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+}
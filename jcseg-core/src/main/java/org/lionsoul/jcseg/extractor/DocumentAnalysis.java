@@ -0,0 +1,259 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lionsoul.jcseg.sentence.Sentence;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+
+/**
+ * <p>
+ * one pass analysis of a document shared by the extractors.
+ * the document is split into sentences and every sentence is segmented once,
+ * the words of all the sentences are kept in document order with the integer
+ * term id of each word, so the keywords, the keyphrase and the summary of the
+ * same document could all be extracted without segmenting it again.
+ * </p>
+ *
+ * <p>
+ * the position of the words are reset to the position in the document, and the
+ * words are the same term if they are equal as IWord, the first occurrence of a
+ * term is kept as the term. the extractors take only the text of the sentences,
+ * so the chars out of any sentence (the colons and the line breaks for example)
+ * are not analyzed.
+ * </p>
+ *
+ * <pre>
+ * DocumentAnalysis doc = DocumentAnalysis.analyze(text, new SentenceSeg(), seg);
+ * keywordsExtractor.getKeywords(doc);
+ * keyphraseExtractor.getKeyphrase(doc);
+ * summaryExtractor.getSummary(doc, 86);
+ * </pre>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class DocumentAnalysis
+{
+    /**
+     * the original text
+    */
+    private final String text;
+
+    /**
+     * the sentences and the words of each sentence
+    */
+    private final List<Sentence> sentences;
+    private final List<List<IWord>> sentenceWords;
+
+    /**
+     * all the words in document order, the words of sentence i
+     * are [sentenceOffsets[i], sentenceOffsets[i+1])
+    */
+    private final IWord[] words;
+    private final int[] sentenceOffsets;
+
+    /**
+     * term id of each word and the terms indexed by the id
+    */
+    private final int[] termIds;
+    private final List<IWord> terms;
+
+    private DocumentAnalysis( String text, List<Sentence> sentences,
+            List<List<IWord>> sentenceWords, IWord[] words, int[] sentenceOffsets,
+            int[] termIds, List<IWord> terms )
+    {
+        this.text = text;
+        this.sentences = sentences;
+        this.sentenceWords = sentenceWords;
+        this.words = words;
+        this.sentenceOffsets = sentenceOffsets;
+        this.termIds = termIds;
+        this.terms = terms;
+    }
+
+    /**
+     * analyze the specified text
+     *
+     * @param   text
+     * @param   sentenceSeg
+     * @param   wordSeg
+     * @return  DocumentAnalysis
+     * @throws  IOException
+    */
+    public static DocumentAnalysis analyze(
+            String text, SentenceSeg sentenceSeg, ISegment wordSeg ) throws IOException
+    {
+        List<Sentence> sentences = new ArrayList<Sentence>();
+        List<List<IWord>> sentenceWords = new ArrayList<List<IWord>>();
+        List<IWord> all = new ArrayList<IWord>();
+        IntList offsets = new IntList();
+
+        //the sentences are spans of the text and segmented in place
+        Sentence sen = null;
+        sentenceSeg.reset(text);
+        while ( (sen = sentenceSeg.nextSpan()) != null ) {
+            offsets.add(all.size());
+            List<IWord> list = new ArrayList<IWord>();
+            int start = sen.getPosition(), end = start + sen.getLength();
+            if ( wordSeg instanceof ISpanSegment ) {
+                ((ISpanSegment) wordSeg).reset(text, start, end);
+            } else {
+                wordSeg.reset(new StringReader(text.substring(start, end)));
+            }
+
+            IWord word = null;
+            while ( (word = wordSeg.next()) != null ) {
+                word.setPosition(sen.getPosition() + word.getPosition());
+                list.add(word);
+                all.add(word);
+            }
+
+            sentences.add(sen);
+            sentenceWords.add(list);
+        }
+        offsets.add(all.size());
+
+        //map the words to the term ids
+        IWord[] words = all.toArray(new IWord[all.size()]);
+        int[] termIds = new int[words.length];
+        Map<IWord, Integer> ids = new HashMap<IWord, Integer>();
+        List<IWord> terms = new ArrayList<IWord>();
+        for ( int j = 0; j < words.length; j++ ) {
+            Integer id = ids.get(words[j]);
+            if ( id == null ) {
+                id = terms.size();
+                ids.put(words[j], id);
+                terms.add(words[j]);
+            }
+            termIds[j] = id;
+        }
+
+        return new DocumentAnalysis(text, sentences, sentenceWords,
+                words, offsets.toArray(), termIds, terms);
+    }
+
+    /**
+     * analyze the text of the specified reader
+     *
+     * @param   reader
+     * @param   sentenceSeg
+     * @param   wordSeg
+     * @return  DocumentAnalysis
+     * @throws  IOException
+    */
+    public static DocumentAnalysis analyze(
+            Reader reader, SentenceSeg sentenceSeg, ISegment wordSeg ) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        char[] buff = new char[4096];
+        int len;
+        while ( (len = reader.read(buff)) != -1 ) {
+            sb.append(buff, 0, len);
+        }
+
+        return analyze(sb.toString(), sentenceSeg, wordSeg);
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    public List<Sentence> getSentences()
+    {
+        return sentences;
+    }
+
+    /**
+     * @return  List<List<IWord>> the words of each sentence
+    */
+    public List<List<IWord>> getSentenceWords()
+    {
+        return sentenceWords;
+    }
+
+    /**
+     * @return  int number of the words of the document
+    */
+    public int getWordNum()
+    {
+        return words.length;
+    }
+
+    public IWord getWord( int idx )
+    {
+        return words[idx];
+    }
+
+    /**
+     * @param   idx index of the word in the document
+     * @return  int term id of the word
+    */
+    public int getTermId( int idx )
+    {
+        return termIds[idx];
+    }
+
+    /**
+     * @return  int number of the distinct terms
+    */
+    public int getTermNum()
+    {
+        return terms.size();
+    }
+
+    /**
+     * @param   id
+     * @return  IWord the first occurrence of the term
+    */
+    public IWord getTerm( int id )
+    {
+        return terms.get(id);
+    }
+
+    /**
+     * get the term ids of the words of each sentence
+     *
+     * @return  int[][]
+    */
+    public int[][] getSentenceTermIds()
+    {
+        int[][] docs = new int[sentences.size()][];
+        for ( int i = 0; i < docs.length; i++ ) {
+            docs[i] = Arrays.copyOfRange(termIds, sentenceOffsets[i], sentenceOffsets[i + 1]);
+        }
+
+        return docs;
+    }
+
+    /**
+     * simple growable int array for the sentence offsets
+    */
+    private static class IntList
+    {
+        int[] items = new int[16];
+        int size = 0;
+
+        void add( int val )
+        {
+            if ( size == items.length ) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = val;
+        }
+
+        int[] toArray()
+        {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
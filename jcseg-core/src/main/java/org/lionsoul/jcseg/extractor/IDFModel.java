@@ -0,0 +1,231 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * <p>
+ * corpus term statistics for the TF-IDF keywords extractor.
+ * the document frequency of every term of a corpus is kept in a binary file
+ * laid out as an open addressing hash table, the file is memory mapped and
+ * the terms are probed in place, so nothing but the mapping is loaded and
+ * a huge vocabulary costs no heap at all.
+ * </p>
+ *
+ * <pre>
+ * int MAGIC, int VERSION, int docNum, int termNum, int capacity
+ * int[capacity] slots: offset of the entry in the entry area or -1
+ * entries: int df, int length, char[length] term
+ * </pre>
+ *
+ * <p>
+ * the buffer is only read with the absolute methods so a model could be
+ * shared by any number of threads.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class IDFModel
+{
+    public static final int MAGIC = 0x4A434944;     //JCID
+    public static final int VERSION = 1;
+
+    private static final int HEADER = 20;
+
+    private final ByteBuffer buf;
+    private final int docNum;
+    private final int termNum;
+    private final int mask;
+    private final int entryBase;
+
+    /**
+     * idf of the terms that are not in the corpus
+    */
+    private final double maxIdf;
+
+    private IDFModel( ByteBuffer buf )
+    {
+        this.buf = buf;
+        this.docNum = buf.getInt(8);
+        this.termNum = buf.getInt(12);
+        int capacity = buf.getInt(16);
+        this.mask = capacity - 1;
+        this.entryBase = HEADER + capacity * 4;
+        this.maxIdf = idf(0);
+    }
+
+    /**
+     * memory map the specified term statistics file
+     *
+     * @param   file
+     * @return  IDFModel
+     * @throws  IOException
+    */
+    public static IDFModel load( File file ) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if ( buf.remaining() < HEADER || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION ) {
+                throw new IOException("Invalid term statistics file " + file);
+            }
+
+            int capacity = buf.getInt(16);
+            if ( capacity <= 0 || (capacity & (capacity - 1)) != 0
+                    || buf.remaining() < HEADER + capacity * 4 ) {
+                throw new IOException("Corrupted term statistics file " + file);
+            }
+
+            //the mapping stays valid after the channel is closed
+            return new IDFModel(buf);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * write the term statistics file
+     *
+     * @param   file
+     * @param   docNum number of the documents of the corpus
+     * @param   df term and its document frequency mapping
+     * @throws  IOException
+    */
+    public static void save( File file, int docNum, Map<String, Integer> df ) throws IOException
+    {
+        int termNum = df.size();
+        int capacity = 16;
+        while ( capacity < termNum * 2 ) {
+            capacity <<= 1;
+        }
+
+        int mask = capacity - 1;
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        String[] terms = new String[termNum];
+        int[] freqs = new int[termNum];
+        int offset = 0, n = 0;
+        for ( Map.Entry<String, Integer> e : df.entrySet() ) {
+            String term = e.getKey();
+            int s = hash(term) & mask;
+            while ( slots[s] != -1 ) {
+                s = (s + 1) & mask;
+            }
+
+            slots[s] = offset;
+            terms[n] = term;
+            freqs[n++] = e.getValue();
+            offset += 8 + term.length() * 2;
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docNum);
+            out.writeInt(termNum);
+            out.writeInt(capacity);
+            for ( int slot : slots ) {
+                out.writeInt(slot);
+            }
+
+            //entries in the same order as the offsets
+            for ( int j = 0; j < n; j++ ) {
+                out.writeInt(freqs[j]);
+                out.writeInt(terms[j].length());
+                out.writeChars(terms[j]);
+            }
+        } finally {
+            out.close();
+        }
+
+        if ( file.exists() && ! file.delete() ) {
+            throw new IOException("Unable to replace the term statistics file " + file);
+        }
+        if ( ! tmp.renameTo(file) ) {
+            throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+    }
+
+    private static int hash( String term )
+    {
+        int h = term.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * get the document frequency of the specified term
+     *
+     * @param   term
+     * @return  int 0 if the term is not in the corpus
+    */
+    public int df( String term )
+    {
+        int len = term.length();
+        int s = hash(term) & mask;
+        while ( true ) {
+            int offset = buf.getInt(HEADER + s * 4);
+            if ( offset == -1 ) {
+                return 0;
+            }
+
+            int p = entryBase + offset;
+            if ( buf.getInt(p + 4) == len && matches(p + 8, term, len) ) {
+                return buf.getInt(p);
+            }
+
+            s = (s + 1) & mask;
+        }
+    }
+
+    private boolean matches( int p, String term, int len )
+    {
+        for ( int j = 0; j < len; j++ ) {
+            if ( buf.getChar(p + j * 2) != term.charAt(j) ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * get the smoothed inverse document frequency of the specified term:
+     * IDF(t) = log((N+1)/(df(t)+1)) + 1
+     * the terms not in the corpus get the max idf
+     *
+     * @param   term
+     * @return  double
+    */
+    public double idf( String term )
+    {
+        int df = df(term);
+        return df == 0 ? maxIdf : idf(df);
+    }
+
+    private double idf( int df )
+    {
+        return Math.log((docNum + 1.0) / (df + 1.0)) + 1;
+    }
+
+    public int getDocNum()
+    {
+        return docNum;
+    }
+
+    public int getTermNum()
+    {
+        return termNum;
+    }
+}
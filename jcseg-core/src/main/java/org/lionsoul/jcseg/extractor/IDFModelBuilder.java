@@ -0,0 +1,348 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.lionsoul.jcseg.extractor.impl.TFIDFKeywordsExtractor;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * <p>
+ * build the {@link IDFModel} term statistics file from a corpus.
+ * the documents are read by the calling thread and segmented in batches by
+ * a fixed number of workers, every worker has its own segmenter and its own
+ * document frequency table, the tables are merged once all the documents
+ * are done so the workers never contend on a shared map.
+ * the words are filtered the same way as {@link TFIDFKeywordsExtractor} does,
+ * and the stop words are cleared by the segmenter if the config asks for it,
+ * so build the statistics with the jcseg.properties the extractor runs with.
+ * </p>
+ *
+ * <pre>
+ * java -cp jcseg-core.jar org.lionsoul.jcseg.extractor.IDFModelBuilder \
+ *      --out idf.dat [--config jcseg.properties] [--mode complex] [--threads 4] \
+ *      [--min-df 1] [--doc line|file] corpus...
+ * </pre>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class IDFModelBuilder
+{
+    /**
+     * number of the documents of a batch
+    */
+    public static final int BATCH_SIZE = 256;
+
+    private final JcsegTaskConfig config;
+    private final ADictionary dic;
+    private final int mode;
+    private final int threads;
+
+    /**
+     * the terms with a document frequency less than it are dropped
+    */
+    private int minDf = 1;
+
+    /**
+     * take every line as a document or every file as a document
+    */
+    private boolean lineDoc = true;
+
+    private ExecutorService executor = null;
+    private Semaphore permits = null;
+    private final AtomicInteger docNum = new AtomicInteger(0);
+    private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    private final List<Worker> workers = Collections.synchronizedList(new ArrayList<Worker>());
+    private ThreadLocal<Worker> local = null;
+
+    public IDFModelBuilder( JcsegTaskConfig config, ADictionary dic, int mode, int threads )
+    {
+        this.config = config;
+        this.dic = dic;
+        this.mode = mode;
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setMinDf( int minDf )
+    {
+        this.minDf = minDf;
+    }
+
+    public void setLineDoc( boolean lineDoc )
+    {
+        this.lineDoc = lineDoc;
+    }
+
+    /**
+     * segment all the documents of the files and write the term statistics
+     *
+     * @param   files corpus files or directories
+     * @param   out
+     * @return  int number of the terms written
+     * @throws  IOException
+    */
+    public int build( List<File> files, File out ) throws IOException
+    {
+        executor = Executors.newFixedThreadPool(threads);
+        permits = new Semaphore(threads * 2);
+        local = new ThreadLocal<Worker>();
+        docNum.set(0);
+        error.set(null);
+        workers.clear();
+
+        try {
+            List<String> batch = new ArrayList<String>(BATCH_SIZE);
+            for ( File file : files ) {
+                batch = read(file, batch);
+            }
+            if ( batch.size() > 0 ) {
+                submit(batch);
+            }
+
+            executor.shutdown();
+            while ( ! executor.awaitTermination(1, TimeUnit.SECONDS) ) {
+                //wait for the batches in the queue
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building the term statistics");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if ( error.get() != null ) {
+            throw new IOException("Failed to segment the corpus: " + error.get());
+        }
+
+        //merge the document frequency tables of the workers
+        Map<String, Integer> df = new HashMap<String, Integer>();
+        for ( Worker worker : workers ) {
+            for ( Map.Entry<String, int[]> e : worker.df.entrySet() ) {
+                Integer f = df.get(e.getKey());
+                df.put(e.getKey(), f == null ? e.getValue()[0] : f + e.getValue()[0]);
+            }
+            worker.df.clear();
+        }
+
+        if ( minDf > 1 ) {
+            List<String> drops = new ArrayList<String>();
+            for ( Map.Entry<String, Integer> e : df.entrySet() ) {
+                if ( e.getValue() < minDf ) {
+                    drops.add(e.getKey());
+                }
+            }
+            for ( String term : drops ) {
+                df.remove(term);
+            }
+        }
+
+        IDFModel.save(out, docNum.get(), df);
+        return df.size();
+    }
+
+    /**
+     * read the documents of a file or all the files of a directory
+     * and submit them batch by batch
+    */
+    private List<String> read( File file, List<String> batch ) throws IOException, InterruptedException
+    {
+        if ( file.isDirectory() ) {
+            File[] children = file.listFiles();
+            if ( children != null ) {
+                Arrays.sort(children);
+                for ( File child : children ) {
+                    batch = read(child, batch);
+                }
+            }
+            return batch;
+        }
+
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            StringBuilder sb = lineDoc ? null : new StringBuilder();
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                if ( lineDoc ) {
+                    if ( line.length() > 0 ) {
+                        batch.add(line);
+                    }
+                } else {
+                    sb.append(line).append('\n');
+                }
+
+                if ( batch.size() >= BATCH_SIZE ) {
+                    submit(batch);
+                    batch = new ArrayList<String>(BATCH_SIZE);
+                }
+            }
+
+            if ( ! lineDoc && sb.length() > 0 ) {
+                batch.add(sb.toString());
+            }
+        } finally {
+            reader.close();
+        }
+
+        return batch;
+    }
+
+    /**
+     * submit a batch, block if too many batches are waiting
+    */
+    private void submit( final List<String> batch ) throws InterruptedException
+    {
+        permits.acquire();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if ( error.get() == null ) {
+                        worker().count(batch);
+                    }
+                } catch ( Throwable e ) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    private Worker worker() throws JcsegException
+    {
+        Worker worker = local.get();
+        if ( worker == null ) {
+            worker = new Worker(new TFIDFKeywordsExtractor(
+                    SegmentFactory.createJcseg(mode, new Object[]{config, dic}), null));
+            local.set(worker);
+            workers.add(worker);
+        }
+
+        return worker;
+    }
+
+    /**
+     * the extractor and the document frequency table of a worker thread,
+     * the extractor is only used to segment and filter the words
+    */
+    private class Worker
+    {
+        final KeywordsExtractor extractor;
+        final ISegment seg;
+        final Map<String, int[]> df = new HashMap<String, int[]>();
+        final Set<String> seen = new HashSet<String>();
+
+        Worker( KeywordsExtractor extractor )
+        {
+            this.extractor = extractor;
+            this.seg = extractor.getSeg();
+        }
+
+        void count( List<String> docs ) throws IOException
+        {
+            for ( String doc : docs ) {
+                seen.clear();
+                seg.reset(new StringReader(doc));
+                IWord word;
+                while ( (word = seg.next()) != null ) {
+                    if ( extractor.filter(word) == false ) {
+                        continue;
+                    }
+
+                    String term = word.getValue();
+                    if ( seen.add(term) ) {
+                        int[] f = df.get(term);
+                        if ( f == null ) {
+                            df.put(term, new int[]{1});
+                        } else {
+                            f[0]++;
+                        }
+                    }
+                }
+                docNum.incrementAndGet();
+            }
+        }
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        String out = null, conf = null, mode = "complex", doc = "line";
+        int threads = Runtime.getRuntime().availableProcessors(), minDf = 1;
+        List<File> files = new ArrayList<File>();
+        for ( int j = 0; j < args.length; j++ ) {
+            String key = args[j];
+            if ( ! key.startsWith("--") ) {
+                files.add(new File(key));
+                continue;
+            }
+
+            if ( j + 1 >= args.length ) {
+                System.err.println("Missing value for option " + key);
+                System.exit(1);
+            }
+
+            String val = args[++j];
+            if ( "--out".equals(key) )              out = val;
+            else if ( "--config".equals(key) )      conf = val;
+            else if ( "--mode".equals(key) )        mode = val;
+            else if ( "--threads".equals(key) )     threads = Integer.parseInt(val);
+            else if ( "--min-df".equals(key) )      minDf = Integer.parseInt(val);
+            else if ( "--doc".equals(key) )         doc = val;
+            else {
+                System.err.println("Unknown option " + key);
+                System.exit(1);
+            }
+        }
+
+        if ( out == null || files.isEmpty() ) {
+            System.err.println("Usage: IDFModelBuilder --out <file> [--config jcseg.properties]"
+                    + " [--mode complex] [--threads n]"
+                    + " [--min-df 1] [--doc line|file] <corpus file or dir>...");
+            System.exit(1);
+        }
+
+        //the default config is auto loaded, a specified one should fail loud
+        JcsegTaskConfig config;
+        if ( conf == null ) {
+            config = new JcsegTaskConfig(true);
+        } else {
+            config = new JcsegTaskConfig();
+            config.load(conf);
+        }
+
+        ADictionary dic = DictionaryFactory.createDefaultDictionary(config);
+        IDFModelBuilder builder = new IDFModelBuilder(config, dic, JcsegTaskConfig.getMode(mode), threads);
+        builder.setMinDf(minDf);
+        builder.setLineDoc(! "file".equals(doc));
+
+        long start = System.currentTimeMillis();
+        int terms = builder.build(files, new File(out));
+        System.out.println("+-Done, " + builder.docNum.get() + " documents, " + terms
+                + " terms, cost " + (System.currentTimeMillis() - start) + "ms, saved to " + out);
+    }
+}
@@ -128,6 +128,18 @@ public abstract class KeyphraseExtractor
      * @throws  IOException
     */
     public abstract List<String> getKeyphrase(Reader reader) throws IOException;
+    
+    /**
+     * get the keyphrase list from the analysis of a document,
+     * the default implementation segment the text of it again
+     * 
+     * @param   doc
+     * @throws  IOException
+    */
+    public List<String> getKeyphrase(DocumentAnalysis doc) throws IOException
+    {
+        return getKeyphrase(new StringReader(doc.getText()));
+    }
 
     
     public ISegment getSeg()
@@ -135,6 +135,18 @@ public abstract class KeywordsExtractor
      * @throws  IOException
     */
     public abstract List<String> getKeywords(Reader reader) throws IOException;
+    
+    /**
+     * get the keywords list from the analysis of a document,
+     * the default implementation segment the text of it again
+     * 
+     * @param   doc
+     * @throws  IOException
+    */
+    public List<String> getKeywords(DocumentAnalysis doc) throws IOException
+    {
+        return getKeywords(new StringReader(doc.getText()));
+    }
 
     
     public ISegment getSeg()
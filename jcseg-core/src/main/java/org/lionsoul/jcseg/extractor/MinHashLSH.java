@@ -0,0 +1,184 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * MinHash sketch and LSH banding over integer term id sets.
+ * every set is sketched with bands*rows min hash values, the rows of a band
+ * are hashed into a bucket key and the sets that fall into the same bucket of
+ * any band are taken as the candidate similar pairs. two sets with the Jaccard
+ * similarity s become a candidate with the probability 1-(1-s^rows)^bands:
+ * more bands raise the recall and more rows raise the similarity threshold,
+ * about (1/bands)^(1/rows), so less pairs are checked.
+ * </p>
+ *
+ * <p>
+ * a bucket may still hold a lot of sets (nearly identical boilerplate lines
+ * for example), each set of a bucket is only paired with the next
+ * {@link #MAX_BUCKET} sets of it so the number of the candidate pairs keeps
+ * linear to the number of the sets.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class MinHashLSH
+{
+    /**
+     * max number of the following sets in a bucket to pair with
+    */
+    public static final int MAX_BUCKET = 32;
+
+    private final int bands;
+    private final int rows;
+
+    /**
+     * the coefficients of the hash functions: h(t) = high32(a*t+b)
+    */
+    private final long[] hashA;
+    private final long[] hashB;
+
+    /**
+     * create a new LSH index
+     *
+     * @param   bands number of the bands
+     * @param   rows number of the rows of each band
+    */
+    public MinHashLSH( int bands, int rows )
+    {
+        if ( bands <= 0 || rows <= 0 ) {
+            throw new IllegalArgumentException("bands and rows should be greater than 0");
+        }
+
+        this.bands = bands;
+        this.rows = rows;
+
+        //fixed seed so the result of a document is stable
+        Random random = new Random(0x4A43534CL);
+        int k = bands * rows;
+        hashA = new long[k];
+        hashB = new long[k];
+        for ( int j = 0; j < k; j++ ) {
+            hashA[j] = random.nextLong() | 1L;
+            hashB[j] = random.nextLong();
+        }
+    }
+
+    /**
+     * compute the MinHash signature of the specified set
+     *
+     * @param   set distinct term ids
+     * @param   sig signature buffer with at least bands*rows elements
+    */
+    public void sketch( int[] set, int[] sig )
+    {
+        int k = hashA.length;
+        Arrays.fill(sig, 0, k, Integer.MAX_VALUE);
+        for ( int t : set ) {
+            for ( int j = 0; j < k; j++ ) {
+                int h = (int) ((hashA[j] * t + hashB[j]) >>> 32);
+                if ( h < sig[j] ) {
+                    sig[j] = h;
+                }
+            }
+        }
+    }
+
+    /**
+     * find the candidate similar pairs of the sets, empty sets are
+     * never paired
+     *
+     * @param   sets distinct term ids of each set
+     * @return  long[] sorted unique pairs packed as (i &lt;&lt; 32 | j) with i &lt; j
+    */
+    public long[] candidates( int[][] sets )
+    {
+        int n = sets.length;
+        int k = bands * rows;
+
+        //signatures of all the sets, k ints per set
+        int[] sigs = new int[n * k];
+        int[] sig = new int[k];
+        for ( int i = 0; i < n; i++ ) {
+            sketch(sets[i], sig);
+            System.arraycopy(sig, 0, sigs, i * k, k);
+        }
+
+        long[] pairs = new long[Math.max(16, n)];
+        int size = 0;
+        long[] entries = new long[n];
+        for ( int band = 0; band < bands; band++ ) {
+            //bucket key of the band packed with the set index
+            int m = 0;
+            for ( int i = 0; i < n; i++ ) {
+                if ( sets[i].length == 0 ) {
+                    continue;
+                }
+
+                int h = band * 0x9E3779B9;
+                int base = i * k + band * rows;
+                for ( int r = 0; r < rows; r++ ) {
+                    h = (h ^ sigs[base + r]) * 0x01000193;
+                }
+                entries[m++] = ((long) h << 32) | i;
+            }
+
+            //the sets of a bucket are continuous after the sort
+            Arrays.sort(entries, 0, m);
+            for ( int s = 0; s < m; ) {
+                int e = s + 1;
+                while ( e < m && (entries[e] >>> 32) == (entries[s] >>> 32) ) {
+                    e++;
+                }
+
+                for ( int a = s; a < e; a++ ) {
+                    int end = Math.min(e, a + 1 + MAX_BUCKET);
+                    for ( int b = a + 1; b < end; b++ ) {
+                        if ( size == pairs.length ) {
+                            //the same pairs repeat over the bands, remove
+                            //them first and only grow if still mostly full
+                            size = unique(pairs, size);
+                            if ( size > (pairs.length >> 1) ) {
+                                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                            }
+                        }
+                        pairs[size++] = (entries[a] << 32) | (entries[b] & 0xFFFFFFFFL);
+                    }
+                }
+
+                s = e;
+            }
+        }
+
+        size = unique(pairs, size);
+        return Arrays.copyOf(pairs, size);
+    }
+
+    private static int unique( long[] arr, int size )
+    {
+        if ( size == 0 ) {
+            return 0;
+        }
+
+        Arrays.sort(arr, 0, size);
+        int w = 1;
+        for ( int j = 1; j < size; j++ ) {
+            if ( arr[j] != arr[w - 1] ) {
+                arr[w++] = arr[j];
+            }
+        }
+
+        return w;
+    }
+
+    public int getBands()
+    {
+        return bands;
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+}
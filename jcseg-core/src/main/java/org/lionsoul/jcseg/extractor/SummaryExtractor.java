@@ -71,6 +71,19 @@ public abstract class SummaryExtractor
     */
     public abstract List<String> getKeySentence( Reader reader ) throws IOException;
     
+    /**
+     * get the key sentence from the analysis of a document,
+     * the default implementation split and segment the text of it again
+     * 
+     * @param   doc
+     * @return  List<String>
+     * @throws  IOException
+    */
+    public List<String> getKeySentence( DocumentAnalysis doc ) throws IOException
+    {
+        return getKeySentence(new StringReader(doc.getText()));
+    }
+    
     
     /**
      * get document summary from a string
@@ -108,6 +121,20 @@ public abstract class SummaryExtractor
      * @throws  IOException
     */
     public abstract String getSummary(Reader reader, int length) throws IOException;
+    
+    /**
+     * get summary from the analysis of a document,
+     * the default implementation split and segment the text of it again
+     * 
+     * @param   doc
+     * @param   length
+     * @return  String
+     * @throws  IOException
+    */
+    public String getSummary(DocumentAnalysis doc, int length) throws IOException
+    {
+        return getSummary(new StringReader(doc.getText()), length);
+    }
 
     
     public ISegment getWordSeg()
@@ -0,0 +1,276 @@
+package org.lionsoul.jcseg.extractor;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * textRank co-occurrence graph over integer term ids.
+ * the terms of a document are mapped to the ids 0..size-1 by the caller and
+ * the graph is built from the id sequence of the document: every two terms
+ * within the window are linked and the times they co-occur is the weight.
+ * </p>
+ *
+ * <p>
+ * the adjacency is kept as CSR arrays (row offsets, target ids, edge weights)
+ * so the page rank iterations run over the primitive arrays only, the edge
+ * weights are normalized by the out degree of the target term once when the
+ * graph is built, and the iterations stop as soon as the scores converged.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class TextRankGraph
+{
+    //page rank damping factor
+    public static final float D = 0.85F;
+
+    //default convergence tolerance of the scores
+    public static final float TOLERANCE = 1E-5F;
+
+    /**
+     * number of the vertices and the CSR adjacency:
+     * the edges of vertex v are [offsets[v], offsets[v+1])
+    */
+    private final int size;
+    private final int[] offsets;
+    private final int[] targets;
+    private final float[] weights;
+
+    /**
+     * number of the iterations run by the last rank
+    */
+    private int iterations = 0;
+
+    private TextRankGraph( int size, int[] offsets, int[] targets, float[] weights )
+    {
+        this.size = size;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * build the co-occurrence graph from the term id sequence
+     *
+     * @param   seq term ids of the document in order
+     * @param   len length of the sequence
+     * @param   size number of the distinct terms
+     * @param   windowSize
+     * @return  TextRankGraph
+    */
+    public static TextRankGraph build( int[] seq, int len, int size, int windowSize )
+    {
+        /*
+         * degree of a term is the number of the window entries of all its
+         * occurrences, the self entries included, the same as the size of
+         * its neighbour list of the classic implementation
+        */
+        int[] degree = new int[size];
+        int[] count  = new int[size];
+        for ( int i = 0; i < len; i++ ) {
+            int s = Math.max(0, i - windowSize);
+            int e = Math.min(i + windowSize, len - 1);
+            degree[seq[i]] += e - s;
+            for ( int j = s; j <= e; j++ ) {
+                if ( j != i && seq[j] != seq[i] ) {
+                    count[seq[i]]++;
+                }
+            }
+        }
+
+        int[] offsets = new int[size + 1];
+        for ( int v = 0; v < size; v++ ) {
+            offsets[v + 1] = offsets[v] + count[v];
+        }
+
+        //fill the raw neighbour entries with the duplicates
+        int[] raw = new int[offsets[size]];
+        int[] fill = new int[size];
+        System.arraycopy(offsets, 0, fill, 0, size);
+        for ( int i = 0; i < len; i++ ) {
+            int s = Math.max(0, i - windowSize);
+            int e = Math.min(i + windowSize, len - 1);
+            for ( int j = s; j <= e; j++ ) {
+                if ( j != i && seq[j] != seq[i] ) {
+                    raw[fill[seq[i]]++] = seq[j];
+                }
+            }
+        }
+
+        //merge the duplicated entries into weighted edges
+        int[] targets = new int[raw.length];
+        float[] weights = new float[raw.length];
+        int w = 0;
+        for ( int v = 0; v < size; v++ ) {
+            int start = offsets[v], end = offsets[v + 1];
+            offsets[v] = w;
+            if ( start == end ) {
+                continue;
+            }
+
+            Arrays.sort(raw, start, end);
+            int last = raw[start], times = 0;
+            for ( int k = start; k < end; k++ ) {
+                if ( raw[k] != last ) {
+                    targets[w] = last;
+                    weights[w++] = (float) times / degree[last];
+                    last = raw[k];
+                    times = 0;
+                }
+                times++;
+            }
+            targets[w] = last;
+            weights[w++] = (float) times / degree[last];
+        }
+        offsets[size] = w;
+
+        return new TextRankGraph(size, offsets, targets, weights);
+    }
+
+    /**
+     * run the page rank iterations until the scores converged
+     *
+     * @param   maxIterateNum
+     * @return  float[] scores indexed by the term id
+    */
+    public float[] rank( int maxIterateNum )
+    {
+        return rank(D, maxIterateNum, TOLERANCE);
+    }
+
+    /**
+     * run the page rank iterations until the max change of the scores
+     * is less than the tolerance or the max iterate number is reached.
+     * the scores are updated in place so the new scores are used at once.
+     *
+     * @param   d damping factor
+     * @param   maxIterateNum
+     * @param   tolerance
+     * @return  float[] scores indexed by the term id
+    */
+    public float[] rank( float d, int maxIterateNum, float tolerance )
+    {
+        float[] score = new float[size];
+        iterations = 0;
+        while ( iterations < maxIterateNum ) {
+            iterations++;
+            float delta = 0F;
+            for ( int v = 0; v < size; v++ ) {
+                float sigema = 0F;
+                for ( int e = offsets[v]; e < offsets[v + 1]; e++ ) {
+                    sigema += weights[e] * score[targets[e]];
+                }
+
+                float s = 1 - d + d * sigema;
+                delta = Math.max(delta, Math.abs(s - score[v]));
+                score[v] = s;
+            }
+
+            if ( delta < tolerance ) {
+                break;
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * select the ids of the top k scores with a min heap
+     *
+     * @param   score
+     * @param   k
+     * @return  int[] ids ordered by the score desc, the smaller id first for the same score
+    */
+    public static int[] topK( float[] score, int k )
+    {
+        k = Math.min(k, score.length);
+        if ( k <= 0 ) {
+            return new int[0];
+        }
+
+        int[] heap = new int[k];
+        int n = 0;
+        for ( int id = 0; id < score.length; id++ ) {
+            if ( n < k ) {
+                heap[n] = id;
+                siftUp(heap, n++, score);
+            } else if ( before(id, heap[0], score) ) {
+                heap[0] = id;
+                siftDown(heap, 0, k, score);
+            }
+        }
+
+        //pop the heap from the tail to get the desc order
+        int[] top = new int[k];
+        for ( int i = k - 1; i >= 0; i-- ) {
+            top[i] = heap[0];
+            heap[0] = heap[--n];
+            siftDown(heap, 0, n, score);
+        }
+
+        return top;
+    }
+
+    /**
+     * check if term a ranks before term b
+    */
+    private static boolean before( int a, int b, float[] score )
+    {
+        return score[a] > score[b] || (score[a] == score[b] && a < b);
+    }
+
+    private static void siftUp( int[] heap, int i, float[] score )
+    {
+        int id = heap[i];
+        while ( i > 0 ) {
+            int p = (i - 1) >>> 1;
+            if ( ! before(heap[p], id, score) ) {
+                break;
+            }
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = id;
+    }
+
+    private static void siftDown( int[] heap, int i, int n, float[] score )
+    {
+        int id = heap[i];
+        while ( true ) {
+            int c = (i << 1) + 1;
+            if ( c >= n ) {
+                break;
+            }
+            if ( c + 1 < n && before(heap[c], heap[c + 1], score) ) {
+                c++;
+            }
+            if ( ! before(id, heap[c], score) ) {
+                break;
+            }
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = id;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return  int number of the weighted edges
+    */
+    public int edges()
+    {
+        return offsets[size];
+    }
+
+    /**
+     * @return  int number of the iterations run by the last rank
+    */
+    public int getIterations()
+    {
+        return iterations;
+    }
+}
@@ -0,0 +1,555 @@
+package org.lionsoul.jcseg.extractor.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lionsoul.jcseg.extractor.KeywordsExtractor;
+import org.lionsoul.jcseg.extractor.TextRankGraph;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+
+/**
+ * <p>
+ * textRank keywords extractor over a sliding window of a text stream.
+ * the extractor keeps the last {@link #getCapacity()} filtered words of the
+ * stream and the co-occurrence graph of them, the same graph as
+ * {@link TextRankGraph} builds from the words in the window. a new word links
+ * the words within the window size before it and the oldest word unlinks the
+ * words after it when it expires, so an update costs O(windowSize) whatever
+ * the capacity is.
+ * </p>
+ *
+ * <p>
+ * the scores of the last ranking are kept and the page rank iterations of
+ * the next ranking start from them, a small change of the window converges
+ * in a few iterations. the keywords are ranked on demand only if the window
+ * changed since the last ranking.
+ * </p>
+ *
+ * <pre>
+ * SlidingWindowKeywordsExtractor extractor = new SlidingWindowKeywordsExtractor(seg, 2000);
+ * extractor.append(new StringReader(message));
+ * List&lt;String&gt; keywords = extractor.getKeywords();
+ * </pre>
+ *
+ * <p>
+ * the extractor is stateful and not thread safe.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class SlidingWindowKeywordsExtractor extends KeywordsExtractor
+{
+    //page rank damping factor
+    public static final float D = TextRankGraph.D;
+
+    //default keywords number
+    protected int keywordsNum = 10;
+
+    //max iterate times
+    protected int maxIterateNum = 120;
+
+    /**
+     * auto filter the words with low score
+    */
+    protected boolean autoFilter = false;
+
+    /**
+     * co-occurrence window size
+    */
+    private final int windowSize;
+
+    /**
+     * ring buffer of the term ids of the words in the window,
+     * the oldest word is at head
+    */
+    private final int[] ring;
+    private int head = 0;
+    private int count = 0;
+
+    /**
+     * the terms of the window, the id of an expired term is reused
+    */
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private String[] terms = new String[64];
+    private int[] occurs = new int[64];
+    private int[] degree = new int[64];
+    private float[] score = new float[64];
+    private int idSize = 0;
+    private int[] free = new int[16];
+    private int freeNum = 0;
+
+    /**
+     * undirected weighted edges (u, v, times) with u < v,
+     * indexed by the packed pair in the edge table
+    */
+    private int[] edgeU = new int[256];
+    private int[] edgeV = new int[256];
+    private int[] edgeTimes = new int[256];
+    private int edgeNum = 0;
+    private final EdgeTable table = new EdgeTable();
+
+    /**
+     * ranking scratch and state
+    */
+    private float[] acc = new float[64];
+    private float[] norm = new float[64];
+    private boolean dirty = false;
+    private int iterations = 0;
+
+    /**
+     * create an extractor with the default window size 5
+     *
+     * @param   seg
+     * @param   capacity max number of the words kept
+    */
+    public SlidingWindowKeywordsExtractor(ISegment seg, int capacity)
+    {
+        this(seg, capacity, 5);
+    }
+
+    /**
+     * @param   seg
+     * @param   capacity max number of the words kept
+     * @param   windowSize co-occurrence window size
+    */
+    public SlidingWindowKeywordsExtractor(ISegment seg, int capacity, int windowSize)
+    {
+        super(seg);
+        if ( capacity <= 0 || windowSize <= 0 ) {
+            throw new IllegalArgumentException("capacity and windowSize should be greater than 0");
+        }
+
+        this.ring = new int[capacity];
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * append the words of the reader to the window and
+     * return the keywords of the window after it
+     *
+     * @param   reader
+     * @return  List<String>
+    */
+    @Override
+    public List<String> getKeywords(Reader reader) throws IOException
+    {
+        append(reader);
+        return getKeywords();
+    }
+
+    /**
+     * segment the text of the reader and append the words to the window
+     *
+     * @param   reader
+     * @throws  IOException
+    */
+    public void append(Reader reader) throws IOException
+    {
+        IWord w = null;
+        seg.reset(reader);
+        while ( (w = seg.next()) != null ) {
+            append(w);
+        }
+    }
+
+    /**
+     * append a word to the window, the oldest word expires
+     * if the window is full
+     *
+     * @param   word
+     * @return  boolean false if the word is filtered
+    */
+    public boolean append(IWord word)
+    {
+        if ( filter(word) == false ) {
+            return false;
+        }
+
+        if ( count == ring.length ) {
+            evict(1);
+        }
+
+        int t = idOf(word.getValue());
+        for ( int j = Math.max(0, count - windowSize); j < count; j++ ) {
+            int u = at(j);
+            degree[t]++;
+            degree[u]++;
+            if ( u != t ) {
+                link(t, u, 1);
+            }
+        }
+
+        ring[(head + count) % ring.length] = t;
+        count++;
+        occurs[t]++;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * expire the oldest words, a caller could expire the words
+     * by time with it
+     *
+     * @param   num
+    */
+    public void evict(int num)
+    {
+        num = Math.min(num, count);
+        for ( ; num > 0; num-- ) {
+            int t = at(0);
+            int end = Math.min(windowSize, count - 1);
+            for ( int j = 1; j <= end; j++ ) {
+                int u = at(j);
+                degree[t]--;
+                degree[u]--;
+                if ( u != t ) {
+                    link(t, u, -1);
+                }
+            }
+
+            head = (head + 1) % ring.length;
+            count--;
+            if ( --occurs[t] == 0 ) {
+                release(t);
+            }
+            dirty = true;
+        }
+    }
+
+    /**
+     * clear the window
+    */
+    public void clear()
+    {
+        evict(count);
+    }
+
+    /**
+     * get the keywords of the current window
+     *
+     * @return  List<String>
+    */
+    public List<String> getKeywords()
+    {
+        rank();
+
+        int live = ids.size();
+        float tScores = 0F;
+        for ( int id = 0; id < idSize; id++ ) {
+            if ( occurs[id] > 0 ) tScores += score[id];
+        }
+
+        float stdScores = count == 0 ? 0F : tScores / count * (1 + D);
+
+        //the dead ids have a negative score and never rank before a live one
+        int[] top = TextRankGraph.topK(score, Math.min(keywordsNum, live));
+        List<String> keywords = new ArrayList<String>(top.length);
+        for ( int id : top ) {
+            if ( autoFilter && score[id] < stdScores ) break;
+            keywords.add(terms[id]);
+        }
+
+        return keywords;
+    }
+
+    /**
+     * warm started page rank iterations over the edge list
+    */
+    private void rank()
+    {
+        if ( dirty == false ) {
+            return;
+        }
+
+        iterations = 0;
+        while ( iterations < maxIterateNum ) {
+            iterations++;
+            for ( int v = 0; v < idSize; v++ ) {
+                norm[v] = degree[v] > 0 ? score[v] / degree[v] : 0F;
+                acc[v] = 0F;
+            }
+
+            for ( int e = 0; e < edgeNum; e++ ) {
+                int u = edgeU[e], v = edgeV[e], times = edgeTimes[e];
+                acc[u] += times * norm[v];
+                acc[v] += times * norm[u];
+            }
+
+            float delta = 0F;
+            for ( int v = 0; v < idSize; v++ ) {
+                if ( occurs[v] == 0 ) continue;
+                float s = 1 - D + D * acc[v];
+                delta = Math.max(delta, Math.abs(s - score[v]));
+                score[v] = s;
+            }
+
+            if ( delta < TextRankGraph.TOLERANCE ) {
+                break;
+            }
+        }
+
+        dirty = false;
+    }
+
+    private int at(int idx)
+    {
+        return ring[(head + idx) % ring.length];
+    }
+
+    /**
+     * get the id of the term, allocate one for a new term
+    */
+    private int idOf(String term)
+    {
+        Integer id = ids.get(term);
+        if ( id != null ) {
+            return id;
+        }
+
+        int t;
+        if ( freeNum > 0 ) {
+            t = free[--freeNum];
+        } else {
+            t = idSize++;
+            if ( t == terms.length ) {
+                int len = t * 2;
+                terms = Arrays.copyOf(terms, len);
+                occurs = Arrays.copyOf(occurs, len);
+                degree = Arrays.copyOf(degree, len);
+                score = Arrays.copyOf(score, len);
+                acc = new float[len];
+                norm = new float[len];
+            }
+        }
+
+        ids.put(term, t);
+        terms[t] = term;
+        score[t] = 1F;
+        return t;
+    }
+
+    /**
+     * release the id of the term expired from the window
+    */
+    private void release(int t)
+    {
+        ids.remove(terms[t]);
+        terms[t] = null;
+        score[t] = -1F;
+        if ( freeNum == free.length ) {
+            free = Arrays.copyOf(free, freeNum * 2);
+        }
+        free[freeNum++] = t;
+    }
+
+    /**
+     * add the delta to the times of the edge between a and b,
+     * the edge is removed once its times drops to zero
+    */
+    private void link(int a, int b, int delta)
+    {
+        int u = Math.min(a, b), v = Math.max(a, b);
+        long key = ((long) u << 32) | v;
+        int e = table.get(key);
+        if ( e == -1 ) {
+            if ( edgeNum == edgeU.length ) {
+                int len = edgeNum * 2;
+                edgeU = Arrays.copyOf(edgeU, len);
+                edgeV = Arrays.copyOf(edgeV, len);
+                edgeTimes = Arrays.copyOf(edgeTimes, len);
+            }
+
+            e = edgeNum++;
+            edgeU[e] = u;
+            edgeV[e] = v;
+            edgeTimes[e] = 0;
+            table.put(key, e);
+        }
+
+        edgeTimes[e] += delta;
+        if ( edgeTimes[e] == 0 ) {
+            //move the last edge into the hole
+            table.remove(key);
+            int last = --edgeNum;
+            if ( e != last ) {
+                edgeU[e] = edgeU[last];
+                edgeV[e] = edgeV[last];
+                edgeTimes[e] = edgeTimes[last];
+                table.put(((long) edgeU[e] << 32) | edgeV[e], e);
+            }
+        }
+    }
+
+    /**
+     * open addressing hash table from the packed edge pair
+     * to the edge index, with backward shift deletion
+    */
+    private static class EdgeTable
+    {
+        private static final long EMPTY = -1L;
+
+        long[] keys = new long[512];
+        int[] vals = new int[512];
+        int size = 0;
+
+        EdgeTable()
+        {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int slot(long key, int mask)
+        {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        int get(long key)
+        {
+            int mask = keys.length - 1;
+            int s = slot(key, mask);
+            while ( keys[s] != EMPTY ) {
+                if ( keys[s] == key ) {
+                    return vals[s];
+                }
+                s = (s + 1) & mask;
+            }
+
+            return -1;
+        }
+
+        void put(long key, int val)
+        {
+            if ( (size + 1) * 2 > keys.length ) {
+                resize();
+            }
+
+            int mask = keys.length - 1;
+            int s = slot(key, mask);
+            while ( keys[s] != EMPTY ) {
+                if ( keys[s] == key ) {
+                    vals[s] = val;
+                    return;
+                }
+                s = (s + 1) & mask;
+            }
+
+            keys[s] = key;
+            vals[s] = val;
+            size++;
+        }
+
+        void remove(long key)
+        {
+            int mask = keys.length - 1;
+            int s = slot(key, mask);
+            while ( keys[s] != key ) {
+                if ( keys[s] == EMPTY ) {
+                    return;
+                }
+                s = (s + 1) & mask;
+            }
+
+            //shift back the following entries of the probe chain
+            int hole = s;
+            s = (s + 1) & mask;
+            while ( keys[s] != EMPTY ) {
+                int home = slot(keys[s], mask);
+                if ( ((s - home) & mask) >= ((s - hole) & mask) ) {
+                    keys[hole] = keys[s];
+                    vals[hole] = vals[s];
+                    hole = s;
+                }
+                s = (s + 1) & mask;
+            }
+
+            keys[hole] = EMPTY;
+            size--;
+        }
+
+        private void resize()
+        {
+            long[] oKeys = keys;
+            int[] oVals = vals;
+            keys = new long[oKeys.length * 2];
+            vals = new int[oKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for ( int j = 0; j < oKeys.length; j++ ) {
+                if ( oKeys[j] != EMPTY ) {
+                    put(oKeys[j], oVals[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return  int number of the words in the window
+    */
+    public int getTokenNum()
+    {
+        return count;
+    }
+
+    /**
+     * @return  int number of the distinct terms in the window
+    */
+    public int getTermNum()
+    {
+        return ids.size();
+    }
+
+    /**
+     * @return  int number of the iterations run by the last ranking
+    */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    public int getCapacity()
+    {
+        return ring.length;
+    }
+
+    public int getWindowSize()
+    {
+        return windowSize;
+    }
+
+    public int getKeywordsNum()
+    {
+        return keywordsNum;
+    }
+
+    public void setKeywordsNum(int keywordsNum)
+    {
+        this.keywordsNum = keywordsNum;
+    }
+
+    public int getMaxIterateNum()
+    {
+        return maxIterateNum;
+    }
+
+    public void setMaxIterateNum(int maxIterateNum)
+    {
+        this.maxIterateNum = maxIterateNum;
+    }
+
+    public boolean isAutoFilter()
+    {
+        return autoFilter;
+    }
+
+    public void setAutoFilter(boolean autoFilter)
+    {
+        this.autoFilter = autoFilter;
+    }
+
+}
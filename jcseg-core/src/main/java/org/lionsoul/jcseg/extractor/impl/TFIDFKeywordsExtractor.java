@@ -0,0 +1,175 @@
+package org.lionsoul.jcseg.extractor.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
+import org.lionsoul.jcseg.extractor.IDFModel;
+import org.lionsoul.jcseg.extractor.KeywordsExtractor;
+import org.lionsoul.jcseg.extractor.TextRankGraph;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+
+/**
+ * document keywords extractor base on TF-IDF.
+ * the terms are counted in one pass of the document and scored by
+ * tf * idf with the idf from the corpus term statistics {@link IDFModel},
+ * no graph is built so it fits the short text like titles and comments.
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class TFIDFKeywordsExtractor extends KeywordsExtractor
+{
+    /**
+     * the corpus term statistics
+    */
+    protected IDFModel model;
+
+    //default keywords number
+    protected int keywordsNum = 10;
+
+    /**
+     * auto filter the words with a score lower than the average
+    */
+    protected boolean autoFilter = false;
+
+
+    public TFIDFKeywordsExtractor(ISegment seg, IDFModel model)
+    {
+        super(seg);
+        this.model = model;
+    }
+
+    @Override
+    public List<String> getKeywords(Reader reader) throws IOException
+    {
+        //count the term frequency of the words
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> terms = new ArrayList<String>();
+        int[] tf = new int[16];
+
+        IWord w = null;
+        seg.reset(reader);
+        while ( (w = seg.next()) != null ) {
+            if ( filter(w) == false ) continue;
+
+            String word = w.getValue();
+            Integer id = ids.get(word);
+            if ( id == null ) {
+                id = terms.size();
+                ids.put(word, id);
+                terms.add(word);
+                if ( id == tf.length ) {
+                    tf = Arrays.copyOf(tf, id * 2);
+                }
+            }
+
+            tf[id]++;
+        }
+
+        return rank(tf, terms);
+    }
+
+    /**
+     * get the keywords from the words of the analysis without
+     * segmenting the document again
+     *
+     * @param   doc
+     * @return  List<String>
+    */
+    @Override
+    public List<String> getKeywords(DocumentAnalysis doc) throws IOException
+    {
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> terms = new ArrayList<String>();
+        int[] tf = new int[Math.max(16, doc.getWordNum())];
+
+        for ( int j = 0; j < doc.getWordNum(); j++ ) {
+            IWord w = doc.getWord(j);
+            if ( filter(w) == false ) continue;
+
+            String word = w.getValue();
+            Integer id = ids.get(word);
+            if ( id == null ) {
+                id = terms.size();
+                ids.put(word, id);
+                terms.add(word);
+            }
+
+            tf[id]++;
+        }
+
+        return rank(tf, terms);
+    }
+
+    /**
+     * score the terms by tf * idf and select the keywords
+     *
+     * @param   tf
+     * @param   terms
+     * @return  List<String>
+    */
+    protected List<String> rank(int[] tf, List<String> terms)
+    {
+        int size = terms.size();
+        if ( size == 0 ) {
+            return new ArrayList<String>(1);
+        }
+
+        //tf * idf scores
+        float[] score = new float[size];
+        float tScores = 0F;
+        for ( int id = 0; id < size; id++ ) {
+            score[id] = (float) (tf[id] * model.idf(terms.get(id)));
+            tScores += score[id];
+        }
+
+        float avgScores = tScores / size;
+
+        //select the top keywords, the earlier one first for the same score
+        int[] top = TextRankGraph.topK(score, keywordsNum);
+        List<String> keywords = new ArrayList<String>(top.length);
+        for ( int id : top ) {
+            if ( autoFilter && score[id] < avgScores ) break;
+            keywords.add(terms.get(id));
+        }
+
+        return keywords;
+    }
+
+    public IDFModel getModel()
+    {
+        return model;
+    }
+
+    public void setModel(IDFModel model)
+    {
+        this.model = model;
+    }
+
+    public int getKeywordsNum()
+    {
+        return keywordsNum;
+    }
+
+    public void setKeywordsNum(int keywordsNum)
+    {
+        this.keywordsNum = keywordsNum;
+    }
+
+    public boolean isAutoFilter()
+    {
+        return autoFilter;
+    }
+
+    public void setAutoFilter(boolean autoFilter)
+    {
+        this.autoFilter = autoFilter;
+    }
+
+}
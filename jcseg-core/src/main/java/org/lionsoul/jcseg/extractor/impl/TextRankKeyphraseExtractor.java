@@ -3,28 +3,30 @@ package org.lionsoul.jcseg.extractor.impl;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
 import org.lionsoul.jcseg.extractor.KeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.TextRankGraph;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 import org.lionsoul.jcseg.util.IStringBuffer;
 
 /**
  * document key phrase extractor base on textRank algorithm
+ * the words are ranked over the integer id graph {@link TextRankGraph}
+ * and the phrases are assembled with the position index of the words
  * 
  * @author chenxin<chenxin619315@gmail.com>
 */
 public class TextRankKeyphraseExtractor extends KeyphraseExtractor
 {
     //page rank damping factor
-    public static final float D = 0.85F;
+    public static final float D = TextRankGraph.D;
     
     //default keywords number
     protected int keywordsNum = 10;
@@ -54,156 +56,152 @@ public class TextRankKeyphraseExtractor extends KeyphraseExtractor
     @Override
     public List<String> getKeyphrase(Reader reader) throws IOException 
     {
-        Map<IWord, List<IWord>> winMap = new HashMap<IWord, List<IWord>>();
-        List<IWord> wordsPool = new ArrayList<IWord>();
+        /*
+         * map the words to the integer term ids and keep the id sequence 
+         * of the document, the first occurrence of a term is its position
+        */
+        Map<IWord, Integer> ids = new HashMap<IWord, Integer>();
+        List<IWord> terms = new ArrayList<IWord>();
+        int[] seq = new int[64];
+        int len = 0, end = 0;
         
         ///document segment
         IWord w = null;
         seg.reset(reader);
         while ( (w = seg.next()) != null ) {
             if ( filter(w) == false ) continue;
-            if ( ! winMap.containsKey(w) ) {
-                winMap.put(w, new LinkedList<IWord>());
-            }
-            
-            wordsPool.add(w);
-        }
-        
-        ///neighbour define
-        for ( int i = 0; i < wordsPool.size(); i++ ) {
-            IWord word = wordsPool.get(i);
-            List<IWord> support = winMap.get(word);
             
-            int sIdx = Math.max(0, i - windowSize);
-            int eIdx = Math.min(i + windowSize, wordsPool.size() - 1);
+            Integer id = ids.get(w);
+            if ( id == null ) {
+                id = terms.size();
+                ids.put(w, id);
+                terms.add(w);
+                end = Math.max(end, w.getPosition() + w.getLength());
+            }
             
-            for ( int j = sIdx; j <= eIdx; j++ ) {
-                if ( j == i ) continue;
-                support.add(wordsPool.get(j));
+            if ( len == seq.length ) {
+                seq = Arrays.copyOf(seq, len * 2);
             }
+            seq[len++] = id;
         }
         
-        ///do the page rank socres count
-        Map<IWord, Float> score = new HashMap<IWord, Float>();
-        for ( int c = 0; c < maxIterateNum; c++ ) {
-            for ( Map.Entry<IWord, List<IWord>> entry : winMap.entrySet() ) {
-                IWord key = entry.getKey();
-                List<IWord> value = entry.getValue();
-                
-                float sigema = 0F;
-                for ( IWord ele : value ) {
-                    int size = winMap.get(ele).size();
-                    if ( size == 0 
-                            || ele.getValue().equals(key.getValue()) ) {
-                        continue;
-                    }
-                    
-                    float Sy = 0F;
-                    if ( score != null && score.containsKey(ele) ) {
-                        Sy = score.get(ele);
-                    }
-                    
-                    sigema += Sy / size;
-                }
-                
-                //core page rank algorithm
-                score.put(key, 1 - D + D * sigema);
-            }
-        }
+        return assemble(seq, len, terms, end);
+    }
+    
+    /**
+     * get the keyphrase from the words of the analysis without segmenting
+     * the document again, the analysis already mapped the words to the term
+     * ids so only the filtered terms are mapped to the keyphrase term ids
+     * 
+     * @param   doc
+     * @return  List<String>
+    */
+    @Override
+    public List<String> getKeyphrase(DocumentAnalysis doc) throws IOException
+    {
+        int[] remap = new int[doc.getTermNum()];
+        Arrays.fill(remap, -1);
+        List<IWord> terms = new ArrayList<IWord>();
+        int[] seq = new int[Math.max(16, doc.getWordNum())];
+        int len = 0, end = 0;
         
-        //sort the items by PR value
-        List<Map.Entry<IWord, Float>> entryList = new ArrayList<Map.Entry<IWord, Float>>(score.entrySet());
-        Collections.sort(entryList, new Comparator<Map.Entry<IWord, Float>>(){
-            @Override
-            public int compare(Entry<IWord, Float> o1, Entry<IWord, Float> o2) {
-                return o2.getValue().compareTo(o1.getValue());
+        for ( int j = 0; j < doc.getWordNum(); j++ ) {
+            IWord w = doc.getWord(j);
+            if ( filter(w) == false ) continue;
+            
+            int tid = doc.getTermId(j);
+            int id = remap[tid];
+            if ( id == -1 ) {
+                id = terms.size();
+                remap[tid] = id;
+                terms.add(w);
+                end = Math.max(end, w.getPosition() + w.getLength());
             }
-        });
+            
+            seq[len++] = id;
+        }
         
-        if ( entryList.size() == 0 ) {
+        return assemble(seq, len, terms, end);
+    }
+    
+    /**
+     * rank the terms of the id sequence and assemble the phrases
+     * 
+     * @param   seq
+     * @param   len
+     * @param   terms   the first occurrence of the terms
+     * @param   end     max end position of the terms
+     * @return  List<String>
+    */
+    protected List<String> assemble(int[] seq, int len, List<IWord> terms, int end)
+    {
+        if ( len == 0 ) {
             return new ArrayList<String>(1);
         }
         
+        ///build the co-occurrence graph and do the page rank scores count
+        int size = terms.size();
+        TextRankGraph graph = TextRankGraph.build(seq, len, size, windowSize);
+        float[] score = graph.rank(maxIterateNum);
+        
         float tScores = 0F, avgScores = 0F, stdScores = 0F;
-        for ( Map.Entry<IWord, Float> entry : entryList ) {
-            tScores += entry.getValue();
-            //System.out.println(entry.getKey().getValue()+"="+entry.getValue());
+        for ( float s : score ) {
+            tScores += s;
         }
         
-        avgScores = tScores / wordsPool.size();
+        avgScores = tScores / len;
         stdScores = avgScores * (1 + D);
         
+        /*
+         * only the terms with a score not less than the standard 
+         * score could be a phrase seed, rank them by the score 
+        */
+        int seeds = 0;
+        for ( float s : score ) {
+            if ( s >= stdScores ) seeds++;
+        }
+        
+        int[] rank = TextRankGraph.topK(score, Math.min(size, seeds + maxWordsNum - 1));
+        
+        /*
+         * position index of the terms: head[pos] is the first term starts 
+         * at pos and next[id] links the other terms start at the same pos
+        */
+        int[] head = new int[end + 1];
+        int[] next = new int[size];
+        Arrays.fill(head, -1);
+        for ( int id = size - 1; id >= 0; id-- ) {
+            int pos = terms.get(id).getPosition();
+            next[id] = head[pos];
+            head[pos] = id;
+        }
+        
         /*
          * we consider the conjoint keywords as a key phrase
          * so, get all the conjointed keywords
         */
+        int[] stamp = new int[size];
+        int[] chain = new int[maxWordsNum];
+        int mark = 0;
         IStringBuffer isb = new IStringBuffer();
         List<String> phraseList = new LinkedList<String>();
-        for ( int i = 0; i < entryList.size(); ) {
-            Map.Entry<IWord, Float> entry = entryList.get(i);
-            IWord seed = entry.getKey();
-            if ( entry.getValue() < stdScores ) {
-                i++;
-                continue;
-            }
+        for ( int i = 0; i < seeds; ) {
+            IWord seed = terms.get(rank[i]);
             
-            int len = 0;
-            List<IWord> sortQueue = null;
-            List<IWord> listQueue = new ArrayList<IWord>(maxWordsNum);
-            listQueue.add(seed);
-            
-            //make a chunk
-            for ( int j = 1; j < maxWordsNum; j++ ) {
-                int idx = i + j;
-                if ( idx >= entryList.size() ) break;
-                listQueue.add(entryList.get(idx).getKey());
-            }
-            
-            for ( ; listQueue.size() > 1 ; ) {
-                /*
-                 * sort the sort queue and check all the words could
-                 * make a phrase by its original position
-                */
-                sortQueue = new ArrayList<IWord>(listQueue);
-                Collections.sort(sortQueue, new Comparator<IWord>(){
-                    @Override
-                    public int compare(IWord o1, IWord o2) {
-                        return (o1.getPosition() - o2.getPosition());
-                    }
-                });
-                
-                IWord t = sortQueue.get(0);
-                int pos = t.getPosition() + t.getLength() - 1;
-                boolean match = true;
-                for ( int k = 1; k < sortQueue.size(); k++ ) {
-                    IWord kw = sortQueue.get(k);
-                    if ( kw.getPosition() - pos != 1  ) {
-                        match = false;
-                        break;
-                    }
-                    
-                    //reset the pos
-                    pos = kw.getPosition() + kw.getLength() - 1;
+            /*
+             * check if the top words from the seed could make a phrase 
+             * by their original position, drop the last ranked word 
+             * until they match or only the seed is left
+            */
+            int num = Math.min(maxWordsNum, rank.length - i);
+            for ( ; num > 1; num-- ) {
+                if ( conjoint(rank, i, num, terms, head, next, stamp, ++mark, chain) ) {
+                    break;
                 }
-                
-                /*
-                 * not matched, remove the last word item
-                 * from the list queue and continue the next match check ... 
-                */
-                if ( match == false ) {
-                    //let gc do its work
-                    sortQueue.clear();
-                    sortQueue = null;
-                    listQueue.remove(listQueue.size()-1);
-                    continue;
-                }
-                
-                len = listQueue.size();
-                break;
             }
             
             //no matching
-            if ( len == 0 ) {
+            if ( num < 2 ) {
                 //return the mix words
                 if ( seed.getType() == IWord.T_MIXED_WORD ) {
                     phraseList.add(seed.getValue());
@@ -217,17 +215,65 @@ public class TextRankKeyphraseExtractor extends KeyphraseExtractor
             }
             
             isb.clear();
-            for ( IWord word : sortQueue ) isb.append(word.getValue());
+            for ( int k = 0; k < num; k++ ) isb.append(terms.get(chain[k]).getValue());
             phraseList.add(isb.toString());
-            i += sortQueue.size();
-            
-            //let gc do its work
-            listQueue.clear();
-            listQueue = null;
+            i += num;
         }
         
         return phraseList;
     }
+    
+    /**
+     * check if the terms rank[from, from+num) are conjoint in the document,
+     * start from the term with the min position and probe the position index
+     * at the end of the current term for the next one. 
+     * 
+     * @param   rank
+     * @param   from
+     * @param   num
+     * @param   terms
+     * @param   head
+     * @param   next
+     * @param   stamp   the terms to check are marked with the mark
+     * @param   mark
+     * @param   chain   the terms in position order if they are conjoint
+     * @return  boolean
+    */
+    private static boolean conjoint(
+            int[] rank, int from, int num, List<IWord> terms, 
+            int[] head, int[] next, int[] stamp, int mark, int[] chain)
+    {
+        int first = rank[from];
+        for ( int k = from; k < from + num; k++ ) {
+            int id = rank[k];
+            stamp[id] = mark;
+            if ( terms.get(id).getPosition() < terms.get(first).getPosition() ) {
+                first = id;
+            }
+        }
+        
+        chain[0] = first;
+        for ( int k = 1; k < num; k++ ) {
+            IWord t = terms.get(chain[k - 1]);
+            int pos = t.getPosition() + t.getLength();
+            if ( pos >= head.length ) {
+                return false;
+            }
+            
+            int id = head[pos];
+            while ( id != -1 && stamp[id] != mark ) {
+                id = next[id];
+            }
+            
+            if ( id == -1 ) {
+                return false;
+            }
+            
+            chain[k] = id;
+        }
+        
+        return true;
+    }
 
     public int getKeywordsNum()
     {
@@ -3,26 +3,27 @@ package org.lionsoul.jcseg.extractor.impl;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
 import org.lionsoul.jcseg.extractor.KeywordsExtractor;
+import org.lionsoul.jcseg.extractor.TextRankGraph;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 
 /**
  * document keywords extractor base on textRank algorithm
+ * the words are ranked over the integer id graph {@link TextRankGraph}
  * 
  * @author chenxin<chenxin619315@gmail.com>
 */
 public class TextRankKeywordsExtractor extends KeywordsExtractor
 {
     //page rank damping factor
-    public static final float D = 0.85F;
+    public static final float D = TextRankGraph.D;
     
     //default keywords number
     protected int keywordsNum = 10;
@@ -47,98 +48,111 @@ public class TextRankKeywordsExtractor extends KeywordsExtractor
     @Override
     public List<String> getKeywords(Reader reader) throws IOException 
     {
-        Map<String, List<String>> winMap = new HashMap<String, List<String>>();
-        List<String> words = new ArrayList<String>();
+        /*
+         * map the words to the integer term ids 
+         * and keep the id sequence of the document
+        */
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> terms = new ArrayList<String>();
+        int[] seq = new int[64];
+        int len = 0;
         
         //document segment
         IWord w = null;
         seg.reset(reader);
         while ( (w = seg.next()) != null ) {
-            if ( filter(w) == false ) continue;
+            int id = termId(w, ids, terms);
+            if ( id == -1 ) continue;
             
-            String word = w.getValue();
-            if ( ! winMap.containsKey(word) ) {
-                winMap.put(word, new LinkedList<String>());
+            if ( len == seq.length ) {
+                seq = Arrays.copyOf(seq, len * 2);
             }
-            
-            words.add(word);
+            seq[len++] = id;
         }
         
-        //count the neighbour
-        for ( int i = 0; i < words.size(); i++ ) {
-            String word = words.get(i);
-            List<String> support = winMap.get(word);
-            
-            int sIdx = Math.max(0, i - windowSize);
-            int eIdx = Math.min(i + windowSize, words.size() - 1);
-            
-            for ( int j = sIdx; j <= eIdx; j++ ) {
-                if ( j == i ) continue;
-                support.add(words.get(j));
+        return rank(seq, len, terms);
+    }
+    
+    /**
+     * get the keywords from the words of the analysis without segmenting
+     * the document again, the words are filtered and mapped the same way
+     * 
+     * @param   doc
+     * @return  List<String>
+    */
+    @Override
+    public List<String> getKeywords(DocumentAnalysis doc) throws IOException
+    {
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> terms = new ArrayList<String>();
+        int[] seq = new int[Math.max(16, doc.getWordNum())];
+        int len = 0;
+        
+        for ( int j = 0; j < doc.getWordNum(); j++ ) {
+            int id = termId(doc.getWord(j), ids, terms);
+            if ( id != -1 ) {
+                seq[len++] = id;
             }
         }
         
-        //do the page rank scores caculate
-        HashMap<String, Float> score = new HashMap<String, Float>();
-        for ( int c = 0; c < maxIterateNum; c++ ) {
-            for ( Map.Entry<String, List<String>> entry : winMap.entrySet() ) {
-                String key = entry.getKey();
-                List<String> value = entry.getValue();
-                
-                float sigema = 0F;
-                for ( String ele : value ) {
-                    int size = winMap.get(ele).size();
-                    if ( ele.equals(key) || size == 0 ) {
-                        continue;
-                    }
-                    
-                    float Sy = 0;
-                    if ( score != null 
-                            && score.containsKey(ele) ) {
-                        Sy = score.get(ele);
-                    }
-                    
-                    sigema += Sy / size;
-                }
-                
-                score.put(key, 1 - D + D * sigema);
-            }
+        return rank(seq, len, terms);
+    }
+    
+    /**
+     * get the term id of the word, a new word gets the next id
+     * 
+     * @param   w
+     * @param   ids
+     * @param   terms the words by their ids
+     * @return  int or -1 if the word is filtered
+    */
+    private int termId(IWord w, Map<String, Integer> ids, List<String> terms)
+    {
+        if ( filter(w) == false ) {
+            return -1;
         }
-
-        //sort the items by score
-        List<Map.Entry<String, Float>> entryList = new ArrayList<Map.Entry<String, Float>>(score.entrySet());
-        Collections.sort(entryList, new Comparator<Map.Entry<String, Float>>(){
-            @Override
-            public int compare(Map.Entry<String, Float> o1, Map.Entry<String, Float> o2) {
-                return o2.getValue().compareTo(o1.getValue());
-            }
-        });
+        
+        String word = w.getValue();
+        Integer id = ids.get(word);
+        if ( id == null ) {
+            id = terms.size();
+            ids.put(word, id);
+            terms.add(word);
+        }
+        
+        return id;
+    }
+    
+    /**
+     * rank the terms of the id sequence and select the keywords
+     * 
+     * @param   seq
+     * @param   len
+     * @param   terms
+     * @return  List<String>
+    */
+    protected List<String> rank(int[] seq, int len, List<String> terms)
+    {
+        //build the co-occurrence graph and do the page rank scores caculate
+        TextRankGraph graph = TextRankGraph.build(seq, len, terms.size(), windowSize);
+        float[] score = graph.rank(maxIterateNum);
         
         float tScores = 0F, avgScores = 0F, stdScores = 0F;
-        for ( Map.Entry<String, Float> entry : entryList ) {
-            tScores += entry.getValue();
-            //System.out.println(entry.getKey()+"="+entry.getValue());
+        for ( float s : score ) {
+            tScores += s;
         }
         
-        avgScores = tScores / words.size();
+        avgScores = tScores / len;
         stdScores = avgScores * (1 + D);
         
-        //return the sublist as the final result
-        int len = Math.min(keywordsNum, entryList.size());
-        List<String> keywords = new ArrayList<String>(len);
-        for ( int i = 0; i < entryList.size(); i++ ) {
-            Map.Entry<String, Float> e = entryList.get(i);
-            if ( i >= len ) break;
-            if ( autoFilter && e.getValue() < stdScores ) break;
-            keywords.add(e.getKey());
+        //select the top keywords
+        int[] top = TextRankGraph.topK(score, keywordsNum);
+        List<String> keywords = new ArrayList<String>(top.length);
+        for ( int id : top ) {
+            if ( autoFilter && score[id] < stdScores ) break;
+            keywords.add(terms.get(id));
         }
         
-        //let gc do its work
-        winMap.clear();
-        words.clear();
-        winMap = null; words = null;
-        score = null; entryList = null;
-        
         return keywords;
     }
 
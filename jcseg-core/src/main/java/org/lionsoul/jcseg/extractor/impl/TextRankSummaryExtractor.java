@@ -8,10 +8,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.lionsoul.jcseg.extractor.BM25Graph;
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
+import org.lionsoul.jcseg.extractor.MinHashLSH;
 import org.lionsoul.jcseg.extractor.SummaryExtractor;
 import org.lionsoul.jcseg.sentence.Sentence;
 import org.lionsoul.jcseg.sentence.SentenceSeg;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 import org.lionsoul.jcseg.util.IStringBuffer;
 import org.lionsoul.jcseg.util.Sort;
@@ -34,6 +38,15 @@ public class TextRankSummaryExtractor extends SummaryExtractor
     //max iterate times
     protected int maxIterateNum = 120;
     
+    /**
+     * approximate mode: only the sentences paired by the MinHash LSH
+     * of their term sets are linked. more bands raise the recall and
+     * more rows of each band check less pairs, see {@link MinHashLSH}
+    */
+    protected boolean approximate = false;
+    protected int lshBands = 16;
+    protected int lshRows = 3;
+    
 
     public TextRankSummaryExtractor(ISegment wordSeg, SentenceSeg sentenceSeg)
     {
@@ -60,6 +73,27 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         return sentence;
     }
     
+    /**
+     * split the text to the span sentences, the chars of 
+     * the sentences are not copied
+     * 
+     * @param   text
+     * @return  List<Sentence>
+     * @throws  IOException 
+    */
+    List<Sentence> textToSentence(String text) throws IOException
+    {
+        List<Sentence> sentence = new ArrayList<Sentence>();
+        
+        Sentence sen = null;
+        sentenceSeg.reset(text);
+        while ( (sen = sentenceSeg.nextSpan()) != null ) {
+            sentence.add(sen);
+        }
+        
+        return sentence;
+    }
+    
     /**
      * sentence to words
      * 
@@ -72,7 +106,12 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         List<List<IWord>> senWords = new ArrayList<List<IWord>>();
         for ( Sentence sen : sentence ) {
             List<IWord> words = new ArrayList<IWord>();
-            wordSeg.reset(new StringReader(sen.getValue()));
+            if ( sen.getSource() != null && wordSeg instanceof ISpanSegment ) {
+                int start = sen.getPosition();
+                ((ISpanSegment) wordSeg).reset(sen.getSource(), start, start + sen.getLength());
+            } else {
+                wordSeg.reset(new StringReader(sen.getValue()));
+            }
             IWord word = null;
             while ( (word = wordSeg.next()) != null ) {
                 words.add(word);
@@ -85,154 +124,75 @@ public class TextRankSummaryExtractor extends SummaryExtractor
     }
     
     /**
-     * degree of correlations matrix build
-     * well, base on BM25 alogrithm: 
-     * Score(Q,d) = sigema(IDF(qi)*fi(k1+1)/(fi+k1*(1-b+dl/avgdl)))
-     * IDF(qi) = log((N-n(qi)+0.5)/(n(qi)+0.5))
+     * map the words of the sentences to the integer term ids,
+     * words are the same term if they are equal as IWord
      * 
-     * @param   sentence
-     * @param   sendWords
-     * @return  double[]
+     * @param   senWords
+     * @param   ids the word to term id mapping to fill
+     * @return  int[][]
     */
-    double[][] BM25RelevanceMatixBuild(
-            List<Sentence> sentence, List<List<IWord>> senWords)
+    static int[][] termIds(List<List<IWord>> senWords, Map<IWord, Integer> ids)
     {
-        int docNum = sentence.size();
-        
-        //1. count the average document length
-        double avgdl = 0D;
-        //for ( Sentence sen : sentence ) avgdl += sen.getLength();
-        for ( List<IWord> words : senWords ) avgdl += words.size();
-        avgdl /= docNum;
-        
-        //2. count all the tf and the df/N
-        //word and the frequency mapping for each document 
-        @SuppressWarnings("unchecked")
-        Map<IWord, Integer>[] tf = new Map[docNum];
-        //word and the number of document thats contains this word mapping 
-        Map<IWord, Integer> df = new HashMap<IWord, Integer>();
+        int[][] docs = new int[senWords.size()][];
         int index = 0;
         for ( List<IWord> words : senWords ) {
-            Map<IWord, Integer> f = new HashMap<IWord, Integer>();
-            for ( IWord word : words ) {
-                f.put(word, f.containsKey(word) ? f.get(word) + 1 : 1);
-            }
-            
-            tf[index++] = f;
-            
-            /*
-             * the logic inner the following loop could not merge in the above one
-             * is because that same word may appear more than one time in a document,
-             * well, map will clear up the duplicate. 
-            */
-            for ( Map.Entry<IWord, Integer> entry : f.entrySet() ) {
-                IWord key = entry.getKey();
-                df.put(key, df.containsKey(key) ? df.get(key) + 1 : 1);
-            }
-        }
-        
-        //3. count the words idf
-        Map<IWord, Double> idf = new HashMap<IWord, Double>();
-        for ( Map.Entry<IWord, Integer> entry : df.entrySet() ) {
-            IWord key = entry.getKey();
-            int nq = df.get(key).intValue();
-            idf.put(key, Math.log((docNum - nq + 0.5) / (nq + 0.5)) );
-        }
-        
-        //4. build the relevance score matrix
-        double[][] scores = new double[docNum][docNum];
-        for ( int i = 0; i < docNum; i++ ) {
+            int[] doc = new int[words.size()];
             int j = 0;
-            int dl = senWords.get(i).size();
-            double dlRelative = K1 * (1 - B + B * dl / avgdl);
-            
-            /*
-             * count the relevance for document sentence[i]
-             * with all the queries setence[i]  
-            */
-            for ( List<IWord> query : senWords ) {
-                double score = 0F;
-                for ( IWord q : query ) {
-                    /*
-                     * count the relevance of q with document sentence[i] 
-                    */
-                    int fi = tf[i].containsKey(q) ? tf[i].get(q).intValue() : 0;
-                    double rel = fi * (K1 + 1) / (fi + dlRelative);
-                    
-                    /*
-                     * count and add the sub relevance value: idf * rel 
-                    */
-                    score += idf.get(q).doubleValue() * rel;
+            for ( IWord word : words ) {
+                Integer id = ids.get(word);
+                if ( id == null ) {
+                    id = ids.size();
+                    ids.put(word, id);
                 }
-                
-                scores[i][j++] = score;
+                doc[j++] = id;
             }
+            
+            docs[index++] = doc;
         }
         
-        //let gc do its work
-        for ( Map<IWord, Integer> m : tf ) m.clear();
-        tf = null;
-        
-        df.clear(); df = null;
-        idf.clear(); idf = null;
-        
-        return scores;
+        return docs;
     }
     
     /**
-     * sum the specifield double array
+     * get the documents order by relevance score.
+     * the relevance of the sentences is the BM25 score, base on the 
+     * sparse similarity graph built from the inverted index of the terms:
+     * Score(Q,d) = sigema(IDF(qi)*fi(k1+1)/(fi+k1*(1-b+dl/avgdl)))
+     * IDF(qi) = log((N-n(qi)+0.5)/(n(qi)+0.5))
      * 
-     * @param   score
-     * @return  double
+     * @param   sentence
+     * @param   senWords
+     * @throws  IOException 
     */
-    static double sum(double[] score)
+    protected Document[] textRankSortedDocuments(
+            List<Sentence> sentence, List<List<IWord>> senWords) throws IOException
     {
-        double r = 0D;
-        for ( double d : score ) r += d;
-        return r;
+        Map<IWord, Integer> ids = new HashMap<IWord, Integer>();
+        int[][] termDocs = termIds(senWords, ids);
+        return textRankSortedDocuments(sentence, senWords, termDocs, ids.size());
     }
     
     /**
-     * get the documents order by relevance score.
+     * get the documents order by relevance score with the term ids
+     * of the words of the sentences already mapped
      * 
      * @param   sentence
      * @param   senWords
-     * @throws  IOException 
+     * @param   termDocs    term ids of the words of each sentence
+     * @param   termNum     number of the distinct terms
     */
-    protected Document[] textRankSortedDocuments(
-            List<Sentence> sentence, List<List<IWord>> senWords) throws IOException
+    protected Document[] textRankSortedDocuments(List<Sentence> sentence, 
+            List<List<IWord>> senWords, int[][] termDocs, int termNum) throws IOException
     {
         int docNum = sentence.size();
     
-        //documents relavance matrix build
-        double[][] relevance = BM25RelevanceMatixBuild(sentence, senWords);
-        //org.lionsoul.jcseg.util.Util.printMatrix(relevance);
+        //documents relevance graph build
+        BM25Graph graph = approximate 
+            ? BM25Graph.buildApproximate(termDocs, termNum, K1, B, new MinHashLSH(lshBands, lshRows))
+            : BM25Graph.build(termDocs, termNum, K1, B);
         
-        double[] score = new double[docNum];
-        double[] weight_sum = new double[docNum];
-        for ( int i = 0; i < docNum; i++ ) {
-            weight_sum[i] = sum(relevance[i]) - relevance[i][i];
-            score[i] = 0;
-        }
-        
-        //do the textrank score iteration
-        for ( int c = 0; c < maxIterateNum; c++ ) {
-            for ( int i = 0; i < docNum; i++ ) {
-                double sigema = 0D;
-                for ( int j = 0; j < docNum; j++ ) {
-                    if ( i == j || weight_sum[j] == 0 ) continue;
-                    /*
-                     * ws(vj) * wji / sigema(wjk) with k in Out(Vj) 
-                     * ws(vj): score[j] the score of document[j]
-                     * wji: relevance score bettween document[j] and document[i]
-                     * sigema(wjk): weight sum for document[j]
-                    */
-                    sigema += relevance[j][i] / weight_sum[j] * score[j];
-                }
-                
-                score[i] = 1 - D + D * sigema;
-            }
-        }
+        //do the textrank score iteration until the scores converged
+        double[] score = graph.rank(D, maxIterateNum, BM25Graph.TOLERANCE);
         
         //build the document set
         //and sort the documents by scores
@@ -243,20 +203,36 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         
         Sort.shellSort(docs);
         
-        
-        //let gc do its works
-        relevance = null;
-        score = null;
-        weight_sum = null;
-        
         return docs;
     }
 
     @Override
     public List<String> getKeySentence(Reader reader) throws IOException 
     {
-        //build the documents
-        List<Sentence> sentence = textToSentence(reader);
+        return getKeySentence(textToSentence(reader));
+    }
+    
+    /**
+     * get the key sentence from a string, the sentences are
+     * the spans of the string and only the key ones are copied
+     * 
+     * @see SummaryExtractor#getKeySentenceFromString(String)
+    */
+    @Override
+    public List<String> getKeySentenceFromString(String doc) throws IOException 
+    {
+        return getKeySentence(textToSentence(doc));
+    }
+    
+    /**
+     * get the key sentence of the sentences
+     * 
+     * @param   sentence
+     * @return  List<String>
+     * @throws  IOException 
+    */
+    protected List<String> getKeySentence(List<Sentence> sentence) throws IOException 
+    {
         if ( sentence.size() == 1 ) {
             List<String> list = new ArrayList<String>(1);
             list.add(sentence.get(0).getValue());
@@ -264,32 +240,79 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         }
         
         List<List<IWord>> senWords = sentenceTokenize(sentence);
-        int docNum = sentence.size();
                 
         //get the text rank score sorted documents
         Document[] docs = textRankSortedDocuments(sentence, senWords);
+        return topSentence(docs);
+    }
+    
+    /**
+     * get the key sentence from the sentences and the term ids
+     * of the analysis without segmenting the document again
+     * 
+     * @param   doc
+     * @return  List<String>
+    */
+    @Override
+    public List<String> getKeySentence(DocumentAnalysis doc) throws IOException 
+    {
+        List<Sentence> sentence = doc.getSentences();
+        if ( sentence.size() == 1 ) {
+            List<String> list = new ArrayList<String>(1);
+            list.add(sentence.get(0).getValue());
+            return list;
+        }
         
-        //return the sublist as the final result
-        int len = Math.min(sentenceNum, docNum);
+        Document[] docs = textRankSortedDocuments(sentence, 
+                doc.getSentenceWords(), doc.getSentenceTermIds(), doc.getTermNum());
+        return topSentence(docs);
+    }
+    
+    /**
+     * return the top sentences of the sorted documents
+     * 
+     * @param   docs
+     * @return  List<String>
+    */
+    protected List<String> topSentence(Document[] docs)
+    {
+        int len = Math.min(sentenceNum, docs.length);
         List<String> topSentence = new ArrayList<String>(len);
         for ( int i = 0; i < len; i++ ) {
             topSentence.add(docs[i].getSentence().getValue());
-            //System.out.println(i+", "+docs[i].getScore()+", "+docs[i].getSentence());
         }
         
-        //let gc do its work
-        docs = null;
-        sentence.clear(); sentence = null;
-        senWords.clear(); senWords = null;
-        
         return topSentence;
     }
 
     @Override
     public String getSummary(Reader reader, int length) throws IOException 
     {
-        //build the documents
-        List<Sentence> sentence = textToSentence(reader);
+        return getSummary(textToSentence(reader), length);
+    }
+    
+    /**
+     * get the summary from a string, the sentences are the spans
+     * of the string and only the ones of the summary are copied
+     * 
+     * @see SummaryExtractor#getSummaryFromString(String, int)
+    */
+    @Override
+    public String getSummaryFromString(String doc, int length) throws IOException 
+    {
+        return getSummary(textToSentence(doc), length);
+    }
+    
+    /**
+     * get the summary of the sentences
+     * 
+     * @param   sentence
+     * @param   length
+     * @return  String
+     * @throws  IOException 
+    */
+    protected String getSummary(List<Sentence> sentence, int length) throws IOException 
+    {
         if ( sentence.size() == 1 ) {
             String summary = sentence.get(0).getValue();
             return length >= summary.length() 
@@ -297,16 +320,51 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         }
         
         List<List<IWord>> senWords = sentenceTokenize(sentence);
-        int docNum = sentence.size();
                 
         //get the text rank score sorted documents
         Document[] docs = textRankSortedDocuments(sentence, senWords);
+        return summary(sentence, docs, length);
+    }
+    
+    /**
+     * get the summary from the sentences and the term ids
+     * of the analysis without segmenting the document again
+     * 
+     * @param   doc
+     * @param   length
+     * @return  String
+    */
+    @Override
+    public String getSummary(DocumentAnalysis doc, int length) throws IOException 
+    {
+        List<Sentence> sentence = doc.getSentences();
+        if ( sentence.size() == 1 ) {
+            String summary = sentence.get(0).getValue();
+            return length >= summary.length() 
+                    ? summary.substring(0) : summary.substring(0, length);
+        }
+        
+        Document[] docs = textRankSortedDocuments(sentence, 
+                doc.getSentenceWords(), doc.getSentenceTermIds(), doc.getTermNum());
+        return summary(sentence, docs, length);
+    }
+    
+    /**
+     * substring length chars from the position of the document with 
+     * the greatest text rank score, if still not enought start ahead of it
+     * 
+     * @param   sentence
+     * @param   docs    the sorted documents
+     * @param   length
+     * @return  String
+    */
+    protected String summary(List<Sentence> sentence, Document[] docs, int length)
+    {
+        int docNum = sentence.size();
+        if ( docNum == 0 ) {
+            return "";
+        }
         
-        /*
-         * substring length chars from the position
-         * of the document with the greatest text rank score.
-         * if still not enought start ahead of it...
-        */
         int less = length, sIdx = docs[0].getIndex();
         for ( int i = docs[0].getIndex(); i < docNum; i++ ) {
             less -= sentence.get(i).getLength();
@@ -338,11 +396,6 @@ public class TextRankSummaryExtractor extends SummaryExtractor
             }
         }
         
-        //let gc do its work
-        docs = null;
-        sentence.clear(); sentence = null;
-        senWords.clear(); senWords = null;
-                
         return isb.toString();
     }
     
@@ -366,6 +419,36 @@ public class TextRankSummaryExtractor extends SummaryExtractor
         this.maxIterateNum = maxIterateNum;
     }
 
+    public boolean isApproximate()
+    {
+        return approximate;
+    }
+
+    public void setApproximate(boolean approximate)
+    {
+        this.approximate = approximate;
+    }
+
+    public int getLshBands()
+    {
+        return lshBands;
+    }
+
+    public void setLshBands(int lshBands)
+    {
+        this.lshBands = lshBands;
+    }
+
+    public int getLshRows()
+    {
+        return lshRows;
+    }
+
+    public void setLshRows(int lshRows)
+    {
+        this.lshRows = lshRows;
+    }
+
 
     /**
      * summary document inner class
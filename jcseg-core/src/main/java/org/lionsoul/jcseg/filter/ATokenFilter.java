@@ -0,0 +1,52 @@
+package org.lionsoul.jcseg.filter;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+
+/**
+ * <p>
+ * token filter abstract super class.
+ * a token filter wraps another {@link ISegment} and pulls the tokens from it
+ * only when its {@link #next()} is invoked, so the filters could be chained
+ * and no work is done for the tokens that the consumer never asks for.
+ * </p>
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public abstract class ATokenFilter implements ISegment
+{
+    /**
+     * the upstream token source
+    */
+    protected final ISegment input;
+    
+    public ATokenFilter( ISegment input )
+    {
+        this.input = input;
+    }
+    
+    /**
+     * reset the upstream and clear the pending state of the filter
+     * 
+     * @see ISegment#reset(Reader)
+    */
+    @Override
+    public void reset( Reader input ) throws IOException
+    {
+        this.input.reset(input);
+        clear();
+    }
+    
+    /**
+     * clear the pending state of the filter
+    */
+    protected abstract void clear();
+    
+    @Override
+    public int getStreamPosition()
+    {
+        return input.getStreamPosition();
+    }
+}
@@ -0,0 +1,318 @@
+package org.lionsoul.jcseg.filter;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.util.IntArrayList;
+
+/**
+ * <p>
+ * char filter pipeline reader.
+ * all the filters run as one fused pass over the block read from the
+ * underlying reader and the chars are filtered in place, so no intermediate
+ * String is created no matter how many filters there are.
+ * </p>
+ *
+ * <p>
+ * a filter may drop chars (the html strip filter for example), an offset
+ * correction map is kept for that case so the positions of the filtered stream
+ * could be mapped back to the original text with {@link #correctOffset(int)}
+ * and the tokens with {@link #correctWord(IWord)}.
+ * </p>
+ *
+ * <p>
+ * the {@link ILookaheadCharFilter} filters get the next char of the original
+ * stream too, the last char of a block then needs one char read ahead which
+ * is kept for the next block.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class CharFilterReader extends Reader
+{
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private final ICharFilter[] filters;
+
+    /**
+     * the look ahead filters by the index of the filters, null if there is none
+    */
+    private final ILookaheadCharFilter[] lookaheads;
+
+    /**
+     * the char read ahead of the current block, -1 for the end of the stream
+    */
+    private int ahead = NONE;
+
+    /**
+     * number of chars emitted so far and the current number of dropped chars
+    */
+    private int outPos = 0;
+    private int diff = 0;
+
+    /**
+     * offset correction map: from outOffsets[i] on the output position
+     * should be shifted by diffs[i] to get the position in the original text
+    */
+    private final IntArrayList outOffsets = new IntArrayList(16);
+    private final IntArrayList diffs = new IntArrayList(16);
+
+    /**
+     * create a new char filter reader
+     *
+     * @param   in
+     * @param   filters
+    */
+    public CharFilterReader( Reader in, ICharFilter[] filters )
+    {
+        this.in = in;
+        this.filters = filters;
+
+        ILookaheadCharFilter[] lookaheads = null;
+        for ( int j = 0; j < filters.length; j++ ) {
+            filters[j].reset();
+            if ( filters[j] instanceof ILookaheadCharFilter ) {
+                if ( lookaheads == null ) {
+                    lookaheads = new ILookaheadCharFilter[filters.length];
+                }
+                lookaheads[j] = (ILookaheadCharFilter) filters[j];
+            }
+        }
+
+        this.lookaheads = lookaheads;
+    }
+
+    /**
+     * pass the char through the filter chain
+     *
+     * @param   c
+     * @param   next the next char of the original stream
+     * @return  int the filtered char or -1 for dropped
+    */
+    private int doFilter( int c, int next )
+    {
+        for ( int j = 0; j < filters.length; j++ ) {
+            if ( lookaheads != null && lookaheads[j] != null ) {
+                c = lookaheads[j].filter(c, next);
+            } else {
+                c = filters[j].filter(c);
+            }
+
+            if ( c == -1 ) {
+                break;
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * @return  int the next char of the underlying reader
+    */
+    private int next() throws IOException
+    {
+        if ( ahead == NONE ) {
+            return in.read();
+        }
+
+        int c = ahead;
+        ahead = NONE;
+        return c;
+    }
+
+    /**
+     * @return  int the char after the current one, read ahead and
+     *  kept for the next read if needed, -1 without a look ahead filter
+    */
+    private int peek() throws IOException
+    {
+        if ( lookaheads == null ) {
+            return -1;
+        }
+
+        if ( ahead == NONE ) {
+            ahead = in.read();
+        }
+
+        return ahead;
+    }
+
+    /**
+     * record a dropped char at the current output position
+    */
+    private void drop()
+    {
+        diff++;
+        int size = outOffsets.size();
+        if ( size > 0 && outOffsets.get(size - 1) == outPos ) {
+            diffs.set(size - 1, diff);
+        } else {
+            outOffsets.add(outPos);
+            diffs.add(diff);
+        }
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int c;
+        while ( (c = next()) != -1 ) {
+            if ( (c = doFilter(c, peek())) == -1 ) {
+                drop();
+                continue;
+            }
+
+            outPos++;
+            return c;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int read( char[] cbuf, int off, int len ) throws IOException
+    {
+        if ( len == 0 ) {
+            return 0;
+        }
+
+        int n, c, w, end;
+        do {
+            if ( ahead == NONE ) {
+                n = in.read(cbuf, off, len);
+            } else if ( ahead == -1 ) {
+                n = -1;
+                ahead = NONE;
+            } else {
+                //the char read ahead goes first
+                cbuf[off] = (char) ahead;
+                ahead = NONE;
+                n = len > 1 ? in.read(cbuf, off + 1, len - 1) : 0;
+                n = n == -1 ? 1 : n + 1;
+            }
+
+            if ( n == -1 ) {
+                return -1;
+            }
+
+            w = off;
+            end = off + n;
+            for ( int r = off; r < end; r++ ) {
+                /*
+                 * the chars are filtered in place and never written
+                 * ahead of the read position so cbuf[r + 1] is still raw
+                */
+                int next = lookaheads == null ? -1 : (r + 1 < end ? cbuf[r + 1] : peek());
+                if ( (c = doFilter(cbuf[r], next)) == -1 ) {
+                    drop();
+                    continue;
+                }
+
+                cbuf[w++] = (char) c;
+                outPos++;
+            }
+        } while ( w == off && len > 0 );
+
+        return w - off;
+    }
+
+    /**
+     * map the specified position of the filtered stream
+     * back to the position of the original text
+     *
+     * @param   offset
+     * @return  int
+    */
+    public int correctOffset( int offset )
+    {
+        int size = outOffsets.size();
+        if ( size == 0 || offset < outOffsets.get(0) ) {
+            return offset;
+        }
+
+        //binary search the last record whose output offset <= offset
+        int low = 0, high = size - 1, mid;
+        while ( low < high ) {
+            mid = (low + high + 1) >>> 1;
+            if ( outOffsets.get(mid) <= offset ) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return offset + diffs.get(low);
+    }
+
+    /**
+     * map the position and the length of the specified word of the filtered 
+     * stream back to the original text, the chars dropped inside the word are 
+     * counted to its length while the ones before or after it are not
+     *
+     * @param   word
+    */
+    public void correctWord( IWord word )
+    {
+        int start = word.getPosition();
+        int end = start + word.getLength();
+        int _start = correctOffset(start);
+        word.setPosition(_start);
+        if ( end > start ) {
+            word.setLength(correctOffset(end - 1) + 1 - _start);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * create a char filter by its name:
+     * fullwidth, lowercase, t2s, s2t, html
+     *
+     * @param   name
+     * @return  ICharFilter
+    */
+    public static ICharFilter createFilter( String name )
+    {
+        name = name.trim().toLowerCase();
+        if ( "fullwidth".equals(name) ) {
+            return new FullWidthCharFilter();
+        } else if ( "lowercase".equals(name) ) {
+            return new LowerCaseCharFilter();
+        } else if ( "t2s".equals(name) ) {
+            return new STConvertCharFilter(STConvertCharFilter.TRA_TO_SIM);
+        } else if ( "s2t".equals(name) ) {
+            return new STConvertCharFilter(STConvertCharFilter.SIM_TO_TRA);
+        } else if ( "html".equals(name) ) {
+            return new HTMLStripCharFilter();
+        }
+
+        throw new IllegalArgumentException("Unknown char filter " + name);
+    }
+
+    /**
+     * create a char filter reader with the filters of the specified names
+     *
+     * @param   in
+     * @param   names
+     * @return  CharFilterReader or null if there is no filter to apply
+    */
+    public static CharFilterReader create( Reader in, String[] names )
+    {
+        if ( names == null || names.length == 0 ) {
+            return null;
+        }
+
+        ICharFilter[] filters = new ICharFilter[names.length];
+        for ( int j = 0; j < names.length; j++ ) {
+            filters[j] = createFilter(names[j]);
+        }
+
+        return new CharFilterReader(in, filters);
+    }
+}
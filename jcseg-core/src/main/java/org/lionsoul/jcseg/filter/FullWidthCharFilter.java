@@ -0,0 +1,24 @@
+package org.lionsoul.jcseg.filter;
+
+import org.lionsoul.jcseg.util.StringUtil;
+
+/**
+ * full-width letter and digit to half-width char filter
+ * the full-width punctuations are kept as they are
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class FullWidthCharFilter implements ICharFilter
+{
+    @Override
+    public int filter( int c ) 
+    {
+        return StringUtil.isFWEnChar(c) ? c - 65248 : c;
+    }
+
+    @Override
+    public void reset() 
+    {
+        //stateless and nothing to do
+    }
+}
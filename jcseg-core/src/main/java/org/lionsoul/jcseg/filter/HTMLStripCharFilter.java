@@ -0,0 +1,56 @@
+package org.lionsoul.jcseg.filter;
+
+/**
+ * simple html tag strip char filter.
+ * a '&lt;' followed by a letter, '/', '!' or '?' starts a tag and all the chars
+ * up to the closing '&gt;' are dropped from the stream, any other '&lt;' like 
+ * the one of "1&lt;2" is kept as it is. the html entities are not decoded 
+ * cause a filter only maps char to char.
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class HTMLStripCharFilter implements ILookaheadCharFilter
+{
+    //whether we are inside a tag
+    private boolean inTag = false;
+    
+    @Override
+    public int filter( int c, int next ) 
+    {
+        if ( inTag ) {
+            if ( c == '>' ) {
+                inTag = false;
+            }
+            
+            return -1;
+        }
+        
+        if ( c == '<' && isTagStart(next) ) {
+            inTag = true;
+            return -1;
+        }
+        
+        return c;
+    }
+    
+    /**
+     * without the next char a '&lt;' is never taken as a tag
+    */
+    @Override
+    public int filter( int c ) 
+    {
+        return filter(c, -1);
+    }
+    
+    private static boolean isTagStart( int c )
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || c == '/' || c == '!' || c == '?';
+    }
+
+    @Override
+    public void reset() 
+    {
+        inTag = false;
+    }
+}
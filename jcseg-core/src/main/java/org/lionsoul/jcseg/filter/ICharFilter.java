@@ -0,0 +1,24 @@
+package org.lionsoul.jcseg.filter;
+
+/**
+ * char filter interface.
+ * all the char filters of a pipeline run in one single pass 
+ * inside the {@link CharFilterReader} before the chars reach the segmenter.
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public interface ICharFilter 
+{
+    /**
+     * filter the specified char
+     * 
+     * @param   c
+     * @return  int the filtered char or -1 to drop it from the stream
+    */
+    public int filter( int c );
+    
+    /**
+     * reset the internal state of the filter for a new stream
+    */
+    public void reset();
+}
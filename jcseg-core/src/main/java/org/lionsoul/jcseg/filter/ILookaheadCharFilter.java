@@ -0,0 +1,19 @@
+package org.lionsoul.jcseg.filter;
+
+/**
+ * char filter that decides on a char with the next char of the stream,
+ * the {@link CharFilterReader} reads one char ahead for it.
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public interface ILookaheadCharFilter extends ICharFilter
+{
+    /**
+     * filter the specified char
+     * 
+     * @param   c
+     * @param   next the next char of the original stream or -1 for the end
+     * @return  int the filtered char or -1 to drop it from the stream
+    */
+    public int filter( int c, int next );
+}
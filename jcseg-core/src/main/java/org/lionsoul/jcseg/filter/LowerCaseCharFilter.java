@@ -0,0 +1,21 @@
+package org.lionsoul.jcseg.filter;
+
+/**
+ * Latin upper case letter to lower case char filter
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class LowerCaseCharFilter implements ICharFilter
+{
+    @Override
+    public int filter( int c ) 
+    {
+        return ( c >= 65 && c <= 90 ) ? c + 32 : c;
+    }
+
+    @Override
+    public void reset() 
+    {
+        //stateless and nothing to do
+    }
+}
@@ -0,0 +1,57 @@
+package org.lionsoul.jcseg.filter;
+
+import java.io.IOException;
+
+import org.lionsoul.jcseg.tokenizer.Word;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+
+/**
+ * pinyin append token filter, works only when both the 
+ * config.APPEND_CJK_PINYIN and config.LOAD_CJK_PINYIN are true.
+ * the pinyin word is created only when it is pulled.
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class PinyinFilter extends ATokenFilter
+{
+    private final JcsegTaskConfig config;
+    
+    /**
+     * the word whose pinyin is pending
+    */
+    private IWord pending = null;
+    
+    public PinyinFilter( ISegment input, JcsegTaskConfig config )
+    {
+        super(input);
+        this.config = config;
+    }
+
+    @Override
+    public IWord next() throws IOException 
+    {
+        if ( pending != null ) {
+            IWord pinyin = new Word(pending.getPinyin(), IWord.T_CJK_PINYIN);
+            pinyin.setPosition(pending.getPosition());
+            pinyin.setEntity(pending.getEntity());
+            pending = null;
+            return pinyin;
+        }
+        
+        IWord word = input.next();
+        if ( word != null && config.APPEND_CJK_PINYIN 
+                && config.LOAD_CJK_PINYIN && word.getPinyin() != null ) {
+            pending = word;
+        }
+        
+        return word;
+    }
+
+    @Override
+    protected void clear() 
+    {
+        pending = null;
+    }
+}
@@ -0,0 +1,45 @@
+package org.lionsoul.jcseg.filter;
+
+import org.lionsoul.jcseg.util.STConverter;
+
+/**
+ * simplified/traditional chinese convert char filter
+ * 
+ * @see     STConverter
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class STConvertCharFilter implements ICharFilter
+{
+    /**
+     * convert mode constants
+    */
+    public static final int SIM_TO_TRA = 0;
+    public static final int TRA_TO_SIM = 1;
+    
+    private final int mode;
+    
+    public STConvertCharFilter( int mode )
+    {
+        if ( mode != SIM_TO_TRA && mode != TRA_TO_SIM ) {
+            throw new IllegalArgumentException("Invalid convert mode " + mode);
+        }
+        
+        this.mode = mode;
+    }
+    
+    @Override
+    public int filter( int c ) 
+    {
+        if ( mode == TRA_TO_SIM ) {
+            return STConverter.TraToSimplified((char)c);
+        }
+        
+        return STConverter.SimToTraditional((char)c);
+    }
+
+    @Override
+    public void reset() 
+    {
+        //stateless and nothing to do
+    }
+}
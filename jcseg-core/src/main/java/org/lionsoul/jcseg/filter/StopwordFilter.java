@@ -0,0 +1,50 @@
+package org.lionsoul.jcseg.filter;
+
+import java.io.IOException;
+
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.StopwordSet;
+
+/**
+ * stop words clear token filter, works only when config.CLEAR_STOPWORD is true
+ * 
+ * @see     StopwordSet
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class StopwordFilter extends ATokenFilter
+{
+    private final JcsegTaskConfig config;
+    private final ADictionary dic;
+    
+    public StopwordFilter( ISegment input, JcsegTaskConfig config, ADictionary dic )
+    {
+        super(input);
+        this.config = config;
+        this.dic    = dic;
+    }
+
+    @Override
+    public IWord next() throws IOException 
+    {
+        IWord word;
+        while ( (word = input.next()) != null ) {
+            if ( config.CLEAR_STOPWORD 
+                    && dic.getStopwordSet().contains(word.getValue()) ) {
+                continue;
+            }
+            
+            return word;
+        }
+        
+        return null;
+    }
+
+    @Override
+    protected void clear() 
+    {
+        //stateless and nothing to do
+    }
+}
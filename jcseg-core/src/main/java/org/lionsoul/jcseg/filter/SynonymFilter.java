@@ -0,0 +1,95 @@
+package org.lionsoul.jcseg.filter;
+
+import java.io.IOException;
+
+import org.lionsoul.jcseg.tokenizer.Word;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+
+/**
+ * <p>
+ * synonyms words append token filter, works only when config.APPEND_CJK_SYN is true
+ * and config.LOAD_CJK_SYN should be true as well for the CJK words.
+ * the synonyms words share the position, part of speech, type and entity 
+ * with the primitive word and they are created one by one as they are pulled.
+ * </p>
+ * 
+ * <p>
+ * the synonyms of the Latin words that come without the synonyms
+ * will be searched in the CJK_WORD lexicon of the dictionary.
+ * </p>
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class SynonymFilter extends ATokenFilter
+{
+    private final JcsegTaskConfig config;
+    private final ADictionary dic;
+    
+    /**
+     * the word whose synonyms are pending and the synonyms cursor
+    */
+    private IWord pending = null;
+    private String[] syns = null;
+    private int cursor = 0;
+    
+    public SynonymFilter( ISegment input, JcsegTaskConfig config, ADictionary dic )
+    {
+        super(input);
+        this.config = config;
+        this.dic    = dic;
+    }
+
+    @Override
+    public IWord next() throws IOException 
+    {
+        if ( pending != null ) {
+            IWord syn = new Word(syns[cursor++], pending.getType());
+            syn.setPartSpeech(pending.getPartSpeech());
+            syn.setPosition(pending.getPosition());
+            syn.setEntity(pending.getEntity());
+            if ( cursor >= syns.length ) {
+                clear();
+            }
+            
+            return syn;
+        }
+        
+        IWord word = input.next();
+        if ( word == null || ! config.APPEND_CJK_SYN ) {
+            return word;
+        }
+        
+        String[] wsyns = word.getSyn();
+        if ( word.getType() == IWord.T_BASIC_LATIN 
+                || word.getType() == IWord.T_MIXED_WORD ) {
+            if ( wsyns == null && dic != null ) {
+                IWord ew = dic.get(ILexicon.CJK_WORD, word.getValue());
+                if ( ew != null ) {
+                    wsyns = ew.getSyn();
+                }
+            }
+        } else if ( ! config.LOAD_CJK_SYN ) {
+            return word;
+        }
+        
+        if ( wsyns != null && wsyns.length > 0 ) {
+            pending = word;
+            syns    = wsyns;
+            cursor  = 0;
+        }
+        
+        return word;
+    }
+
+    @Override
+    protected void clear() 
+    {
+        pending = null;
+        syns    = null;
+        cursor  = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package org.lionsoul.jcseg.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * dictionary probe metrics, counts the match/get probes and
+ * the hits for each lexicon type of all the dictionaries.
+ * </p>
+ *
+ * <p>
+ * the callers should guard every update with {@link JcsegMetrics#ENABLED}.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class DictionaryMetrics implements DictionaryMetricsMXBean
+{
+    /**
+     * lexicon names indexed by the ILexicon constants
+    */
+    public static final String[] LEXICON_NAMES = {
+        "cjk_word", "cjk_unit", "cn_lname", "cn_sname", "cn_dname_1",
+        "cn_dname_2", "cn_lname_adorn", "stop_word", "mix_assist_word", "domain_suffix"
+    };
+
+    private static final DictionaryMetrics instance = new DictionaryMetrics();
+    static {
+        if ( JcsegMetrics.ENABLED ) {
+            JcsegMetrics.register("type=Dictionary", instance);
+        }
+    }
+
+    private final StripedCounter[] probes = SegmentMetrics.newCounters(ILexicon.T_LEN);
+    private final StripedCounter[] hits = SegmentMetrics.newCounters(ILexicon.T_LEN);
+
+    private DictionaryMetrics() {}
+
+    public static DictionaryMetrics getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * record a probe of the specified lexicon
+     *
+     * @param   t lexicon type
+     * @param   hit
+    */
+    public void probe( int t, boolean hit )
+    {
+        probes[t].increment();
+        if ( hit ) {
+            hits[t].increment();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getProbes()
+    {
+        return SegmentMetrics.toMap(LEXICON_NAMES, probes);
+    }
+
+    @Override
+    public Map<String, Long> getHits()
+    {
+        return SegmentMetrics.toMap(LEXICON_NAMES, hits);
+    }
+
+    @Override
+    public Map<String, Double> getHitRatio()
+    {
+        Map<String, Double> map = new LinkedHashMap<String, Double>();
+        for ( int j = 0; j < LEXICON_NAMES.length; j++ ) {
+            long p = probes[j].sum();
+            map.put(LEXICON_NAMES[j], p == 0 ? 0D : (double) hits[j].sum() / p);
+        }
+
+        return map;
+    }
+
+    @Override
+    public void reset()
+    {
+        for ( int j = 0; j < ILexicon.T_LEN; j++ ) {
+            probes[j].reset();
+            hits[j].reset();
+        }
+    }
+}
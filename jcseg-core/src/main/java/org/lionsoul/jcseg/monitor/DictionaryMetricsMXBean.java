@@ -0,0 +1,31 @@
+package org.lionsoul.jcseg.monitor;
+
+import java.util.Map;
+
+/**
+ * dictionary probe metrics management interface
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public interface DictionaryMetricsMXBean
+{
+    /**
+     * number of the match/get probes grouped by the lexicon type
+    */
+    public Map<String, Long> getProbes();
+
+    /**
+     * number of the hit probes grouped by the lexicon type
+    */
+    public Map<String, Long> getHits();
+
+    /**
+     * hit ratio of the probes grouped by the lexicon type
+    */
+    public Map<String, Double> getHitRatio();
+
+    /**
+     * reset all the counters
+    */
+    public void reset();
+}
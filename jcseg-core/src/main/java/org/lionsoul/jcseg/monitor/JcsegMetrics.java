@@ -0,0 +1,58 @@
+package org.lionsoul.jcseg.monitor;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * hot-path metrics switch and the JMX registration helper.
+ * </p>
+ *
+ * <p>
+ * the metrics are disabled by default, start the jvm with -Djcseg.metrics=true
+ * to enable them. {@link #ENABLED} is a static final field so the JIT treats it
+ * as a constant and all the metrics code guarded by it is removed from the
+ * compiled code when it is false.
+ * </p>
+ *
+ * <p>
+ * the metrics are published under the "org.lionsoul.jcseg" JMX domain:
+ * type=Segment,name=&lt;segmenter class&gt; for the segmenters and
+ * type=Dictionary for the dictionary probes.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public final class JcsegMetrics
+{
+    public static final String DOMAIN = "org.lionsoul.jcseg";
+
+    /**
+     * global metrics switch
+    */
+    public static final boolean ENABLED = Boolean.getBoolean("jcseg.metrics");
+
+    private JcsegMetrics() {}
+
+    /**
+     * register the metrics bean to the platform MBean server,
+     * any registration error is ignored since the metrics is optional
+     *
+     * @param   name object name properties like "type=Segment,name=ComplexSeg"
+     * @param   mbean
+    */
+    public static void register( String name, Object mbean )
+    {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName oName = new ObjectName(DOMAIN + ":" + name);
+            if ( ! server.isRegistered(oName) ) {
+                server.registerMBean(mbean, oName);
+            }
+        } catch ( Exception e ) {
+            System.err.println("Failed to register metrics bean " + name + ": " + e.getMessage());
+        }
+    }
+}
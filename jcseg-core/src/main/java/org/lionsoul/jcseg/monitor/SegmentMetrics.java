@@ -0,0 +1,239 @@
+package org.lionsoul.jcseg.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * segmenter hot-path metrics.
+ * one instance for each segmenter class shared by all its instances,
+ * all the counters are striped so concurrent segmenters don't contend.
+ * </p>
+ *
+ * <p>
+ * the callers should guard every update with {@link JcsegMetrics#ENABLED}
+ * so the code is removed by the JIT when the metrics is disabled.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class SegmentMetrics implements SegmentMetricsMXBean
+{
+    /**
+     * analysis phases
+    */
+    public static final int PHASE_CJK = 0;
+    public static final int PHASE_LATIN = 1;
+    public static final int PHASE_PUNCTUATION = 2;
+    public static final int PHASE_OTHER = 3;
+    public static final int PHASE_FILTER = 4;
+    public static final String[] PHASE_NAMES = {
+        "cjk", "latin", "punctuation", "other", "filter"
+    };
+
+    /**
+     * word type names indexed by the IWord.T_XXX constants
+    */
+    public static final String[] TYPE_NAMES = {
+        "unknown", "cjk_word", "mixed_word", "cn_name", "cn_nickname", "basic_latin",
+        "letter_number", "other_number", "cjk_pinyin", "cn_numeric", "punctuation", "unrecognize_word"
+    };
+
+    private static final ConcurrentMap<String, SegmentMetrics> instances
+            = new ConcurrentHashMap<String, SegmentMetrics>();
+
+    private final String name;
+    private final StripedCounter chunkCalls = new StripedCounter();
+    private final StripedCounter chunks = new StripedCounter();
+    private final StripedCounter pushbacks = new StripedCounter();
+    private final StripedCounter cjkChars = new StripedCounter();
+    private final StripedCounter latinChars = new StripedCounter();
+    private final StripedCounter[] tokens = newCounters(TYPE_NAMES.length);
+    private final StripedCounter[] phaseNanos = newCounters(PHASE_NAMES.length);
+
+    private SegmentMetrics( String name )
+    {
+        this.name = name;
+    }
+
+    /**
+     * get the metrics of the specified segmenter, the metrics is created
+     * and registered to the JMX server on the first call
+     *
+     * @param   name segmenter name
+     * @return  SegmentMetrics
+    */
+    public static SegmentMetrics get( String name )
+    {
+        SegmentMetrics metrics = instances.get(name);
+        if ( metrics == null ) {
+            SegmentMetrics created = new SegmentMetrics(name);
+            metrics = instances.putIfAbsent(name, created);
+            if ( metrics == null ) {
+                metrics = created;
+                JcsegMetrics.register("type=Segment,name=" + name, created);
+            }
+        }
+
+        return metrics;
+    }
+
+    /**
+     * @return  Map all the created segmenter metrics
+    */
+    public static Map<String, SegmentMetrics> getAll()
+    {
+        return instances;
+    }
+
+    static StripedCounter[] newCounters( int size )
+    {
+        StripedCounter[] counters = new StripedCounter[size];
+        for ( int j = 0; j < size; j++ ) {
+            counters[j] = new StripedCounter();
+        }
+
+        return counters;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * record a getBestCJKChunk call
+    */
+    public void bestChunk()
+    {
+        chunkCalls.increment();
+    }
+
+    /**
+     * record the number of candidate chunks evaluated
+    */
+    public void chunks( int num )
+    {
+        chunks.add(num);
+    }
+
+    public void pushback()
+    {
+        pushbacks.increment();
+    }
+
+    /**
+     * record a returned token of the specified word type
+    */
+    public void token( int type )
+    {
+        tokens[type > 0 && type < TYPE_NAMES.length ? type : 0].increment();
+    }
+
+    /**
+     * record the chars consumed and the time spent by a phase
+     *
+     * @param   phase
+     * @param   chars
+     * @param   nanos
+    */
+    public void phase( int phase, int chars, long nanos )
+    {
+        phaseNanos[phase].add(nanos);
+        if ( phase == PHASE_CJK ) {
+            cjkChars.add(chars);
+        } else if ( phase == PHASE_LATIN ) {
+            latinChars.add(chars);
+        }
+    }
+
+    @Override
+    public long getBestChunkCalls()
+    {
+        return chunkCalls.sum();
+    }
+
+    @Override
+    public long getChunksEvaluated()
+    {
+        return chunks.sum();
+    }
+
+    @Override
+    public double getChunksPerCall()
+    {
+        long calls = chunkCalls.sum();
+        return calls == 0 ? 0D : (double) chunks.sum() / calls;
+    }
+
+    @Override
+    public long getPushbacks()
+    {
+        return pushbacks.sum();
+    }
+
+    @Override
+    public long getTokens()
+    {
+        long sum = 0;
+        for ( StripedCounter counter : tokens ) {
+            sum += counter.sum();
+        }
+
+        return sum;
+    }
+
+    @Override
+    public Map<String, Long> getTokensByType()
+    {
+        return toMap(TYPE_NAMES, tokens);
+    }
+
+    @Override
+    public long getCjkChars()
+    {
+        return cjkChars.sum();
+    }
+
+    @Override
+    public long getLatinChars()
+    {
+        return latinChars.sum();
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos()
+    {
+        return toMap(PHASE_NAMES, phaseNanos);
+    }
+
+    @Override
+    public void reset()
+    {
+        chunkCalls.reset();
+        chunks.reset();
+        pushbacks.reset();
+        cjkChars.reset();
+        latinChars.reset();
+        for ( StripedCounter counter : tokens ) {
+            counter.reset();
+        }
+        for ( StripedCounter counter : phaseNanos ) {
+            counter.reset();
+        }
+    }
+
+    static Map<String, Long> toMap( String[] names, StripedCounter[] counters )
+    {
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for ( int j = 0; j < names.length; j++ ) {
+            map.put(names[j], counters[j].sum());
+        }
+
+        return map;
+    }
+}
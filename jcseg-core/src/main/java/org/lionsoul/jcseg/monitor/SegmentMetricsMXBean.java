@@ -0,0 +1,61 @@
+package org.lionsoul.jcseg.monitor;
+
+import java.util.Map;
+
+/**
+ * segmenter hot-path metrics management interface
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public interface SegmentMetricsMXBean
+{
+    /**
+     * number of the getBestCJKChunk calls
+    */
+    public long getBestChunkCalls();
+
+    /**
+     * number of the candidate chunks evaluated by the getBestCJKChunk calls
+    */
+    public long getChunksEvaluated();
+
+    /**
+     * average number of candidate chunks per getBestCJKChunk call
+    */
+    public double getChunksPerCall();
+
+    /**
+     * number of the push back operations on the input stream
+    */
+    public long getPushbacks();
+
+    /**
+     * total number of the tokens returned
+    */
+    public long getTokens();
+
+    /**
+     * number of the returned tokens grouped by the word type
+    */
+    public Map<String, Long> getTokensByType();
+
+    /**
+     * number of the input chars consumed by the CJK analysis
+    */
+    public long getCjkChars();
+
+    /**
+     * number of the input chars consumed by the Latin analysis
+    */
+    public long getLatinChars();
+
+    /**
+     * nano seconds spent in each analysis phase
+    */
+    public Map<String, Long> getPhaseNanos();
+
+    /**
+     * reset all the counters
+    */
+    public void reset();
+}
@@ -22,6 +22,12 @@ public class Sentence
     */
     private int position = -1;
     
+    /**
+     * the document of a span sentence, the value is
+     * created from it only when it is asked for
+    */
+    private CharSequence source = null;
+    
     /**
      * construct method
      * 
@@ -40,6 +46,21 @@ public class Sentence
         this(value, -1);
     }
     
+    /**
+     * create a span sentence of the chars [position, position+length) 
+     * of the document without copying them
+     * 
+     * @param   source
+     * @param   position
+     * @param   length
+    */
+    public Sentence(CharSequence source, int position, int length)
+    {
+        this.source = source;
+        this.position = position;
+        this.length = length;
+    }
+    
     public int getPosition()
     {
         return position;
@@ -53,8 +74,20 @@ public class Sentence
 
     public String getValue()
     {
+        if ( value == null && source != null ) {
+            value = source.subSequence(position, position + length).toString();
+        }
+        
         return value;
     }
+    
+    /**
+     * @return  CharSequence the document of a span sentence or null
+    */
+    public CharSequence getSource()
+    {
+        return source;
+    }
 
     public Sentence setValue(String value)
     {
@@ -86,7 +119,7 @@ public class Sentence
         sb.append('{')
         .append("position=").append(position).append(',')
         .append("length=").append(length).append(',')
-        .append("value=").append(value).append('}');
+        .append("value=").append(getValue()).append('}');
         
         return sb.toString();
     }
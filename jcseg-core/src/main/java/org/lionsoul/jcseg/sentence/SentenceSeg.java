@@ -27,6 +27,18 @@ public class SentenceSeg
      * global string buffer 
     */
     protected IStringBuffer gisb = null;
+    
+    /**
+     * the text read in place, null for a reader
+    */
+    protected CharSequence text = null;
+    
+    /**
+     * end position of the current sentence and if the
+     * chars of it are copied into the global buffer
+    */
+    protected int end;
+    private boolean copy = true;
         
     /**
      * construct method
@@ -54,8 +66,28 @@ public class SentenceSeg
      */
     public void reset( Reader input ) throws IOException
     { 
-        if ( input != null ) 
+        if ( input != null ) {
             reader = new IPushbackReader(new BufferedReader(input));
+            text = null;
+        }
+        idx = -1;
+    }
+    
+    /**
+     * reset to the specified text, the text is read in place 
+     * and {@link #nextSpan()} returns the sentences without copying them
+     * 
+     * @param   text
+    */
+    public void reset( CharSequence text )
+    {
+        if ( reader == null ) {
+            reader = new IPushbackReader(text, 0, text.length());
+        } else {
+            reader.reset(text, 0, text.length());
+        }
+        
+        this.text = text;
         idx = -1;
     }
     
@@ -71,6 +103,17 @@ public class SentenceSeg
         return c;
     }
     
+    /**
+     * push back the char to the stream
+     * 
+     * @param   c
+    */
+    protected void unread( int c )
+    {
+        reader.unread(c);
+        idx--;
+    }
+    
     /**
      * get the next sentence
      * 
@@ -79,7 +122,60 @@ public class SentenceSeg
     */
     public Sentence next() throws IOException
     {
-        gisb.clear();
+        copy = true;
+        int pos = scan();
+        if ( pos == -1 ) {
+            return null;
+        }
+        
+        //clear the whitespace from the back
+        for ( int i = gisb.length() - 1; i >= 0; i-- ) {
+            char chr = gisb.charAt(i);
+            if ( chr == ' ' || chr == '\t' ) gisb.deleteCharAt(i);
+            else break;
+        }
+        
+        return new Sentence(gisb.toString(), pos);
+    }
+    
+    /**
+     * get the next sentence as a span of the text set by {@link #reset(CharSequence)},
+     * the chars of the sentence are not copied and the value of the sentence is
+     * only created when it is asked for. it is the same as {@link #next()} for a reader.
+     * 
+     * @return  Sentence
+     * @throws  IOException
+    */
+    public Sentence nextSpan() throws IOException
+    {
+        if ( text == null ) {
+            return next();
+        }
+        
+        copy = false;
+        int pos = scan();
+        return pos == -1 ? null : new Sentence(text, pos, end - pos);
+    }
+    
+    /**
+     * append the char at the specified position to the current sentence,
+     * the chars of a sentence are continuous in the stream so the sentence
+     * ends after the last char that is not a blank
+    */
+    private void append( char c, int pos )
+    {
+        if ( copy ) gisb.append(c);
+        if ( c != ' ' && c != '\t' ) end = pos + 1;
+    }
+    
+    /**
+     * scan the next sentence
+     * 
+     * @return  int start position of the sentence or -1 for the end of the stream
+     * @throws  IOException 
+    */
+    protected int scan() throws IOException
+    {
         int c, pos = -1;
         
         while ( (c = readNext()) != -1 ) {
@@ -111,7 +207,8 @@ public class SentenceSeg
             }
              
             pos = idx;
-            gisb.clear().append((char)c);
+            gisb.clear();
+            append((char)c, idx);
             
             while ( (c = readNext()) != -1 ) {
                 boolean endTag = false;
@@ -122,17 +219,25 @@ public class SentenceSeg
                  * .。\n;；?？!！:： 
                 */
                 switch ((char)c) {
-                case '"': gisb.append('"'); readUntil('"');  break;
-                case '“': gisb.append('“'); readUntil('”');  break;
-                case '【': gisb.append('【'); readUntil('】'); break;
-                case '《': gisb.append('《'); readUntil('》'); break;
+                case '"': append('"', idx); readUntil('"');  break;
+                case '“': append('“', idx); readUntil('”');  break;
+                case '【': append('【', idx); readUntil('】'); break;
+                case '《': append('《', idx); readUntil('》'); break;
                 case '.': {
+                    /*
+                     * a dot followed by a letter or a digit is not the end of
+                     * the sentence, v2.0 or 3.5 for example, the char after the
+                     * dot is always pushed back so it starts the next sentence
+                     * or goes on with the current one
+                    */
+                    int dot = idx;
                     int chr = readNext();
-                    gisb.append((char)c);
-                    if ( StringUtil.isEnLetter(chr) )  {
-                        reader.unread(chr);
-                        continue;
-                    } else {
+                    append((char)c, dot);
+                    if ( chr != -1 ) {
+                        unread(chr);
+                    }
+                    
+                    if ( ! StringUtil.isEnLetter(chr) && ! StringUtil.isEnNumeric(chr) ) {
                         endTag = true;
                     }
                     
@@ -147,7 +252,7 @@ public class SentenceSeg
                 case '！':
                 case '…': {
                     endTag = true;
-                    gisb.append((char)c);
+                    append((char)c, idx);
                     break;
                 }
                 case ':':
@@ -157,24 +262,18 @@ public class SentenceSeg
                     break;
                 }
                 default:
-                    gisb.append((char)c);
+                    append((char)c, idx);
                 }
                 
                 if ( endTag ) break;
             }
-
-            //clear the whitespace from the back
-            for ( int i = gisb.length() - 1; i >= 0; i-- ) {
-                char chr = gisb.charAt(i);
-                if ( chr == ' ' || chr == '\t' ) gisb.deleteCharAt(i);
-                else break;
-            }
             
-            if ( gisb.length() <= 1 ) continue;
-            return new Sentence(gisb.toString(), pos);
+            //the sentence without the blanks from the back
+            if ( end - pos <= 1 ) continue;
+            return pos;
         }
                 
-        return null;
+        return -1;
     }
     
     /**
@@ -193,16 +292,17 @@ public class SentenceSeg
                  * push back the readed chars
                  * and reset the global idx value. 
                 */
+                unread(ch);
                 for ( int j = sb.length() - 1; j >= 0; j-- ) {
-                    reader.unread(sb.charAt(j));
+                    unread(sb.charAt(j));
                 }
-                idx -= sb.length();
                 break;
             }
             
             sb.append((char)ch);
             if ( ch == echar ) {
-                gisb.append(sb.toString());
+                if ( copy ) gisb.append(sb.toString());
+                end = idx + 1;
                 break;
             }
         }
@@ -6,10 +6,17 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
+import org.lionsoul.jcseg.filter.CharFilterReader;
+import org.lionsoul.jcseg.filter.PinyinFilter;
+import org.lionsoul.jcseg.filter.StopwordFilter;
+import org.lionsoul.jcseg.filter.SynonymFilter;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
+import org.lionsoul.jcseg.monitor.SegmentMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.IChunk;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
 import org.lionsoul.jcseg.util.NumericUtil;
@@ -26,7 +33,7 @@ import org.lionsoul.jcseg.util.IntArrayList;
  * 
  * @author  chenxin<chenxin619315@gmail.com>
 */
-public abstract class ASegment implements ISegment 
+public abstract class ASegment implements ISpanSegment
 {
     /**
      * the index value of the current input stream
@@ -37,6 +44,35 @@ public abstract class ASegment implements ISegment
     //protected PushbackReader reader = null;
     protected IPushbackReader reader = null;
     
+    /**
+     * the char filter pipeline reader, null for no filters.
+     * the positions of the stream are corrected through it
+     * before the word is returned. 
+    */
+    protected CharFilterReader filterReader = null;
+    
+    /**
+     * the head of the token filter chain and its raw token source
+     * @see #createTokenFilter(ISegment)
+    */
+    private ISegment tokenFilter = null;
+    private final ISegment tokenSource = new ISegment() {
+        @Override
+        public void reset(Reader input) throws IOException {
+            ASegment.this.reset(input);
+        }
+        
+        @Override
+        public int getStreamPosition() {
+            return ASegment.this.getStreamPosition();
+        }
+        
+        @Override
+        public IWord next() throws IOException {
+            return nextToken();
+        }
+    };
+    
     /**
      * CJK word cache pool, Reusable string buffer
      * and the array list for basic integer
@@ -63,6 +99,15 @@ public abstract class ASegment implements ISegment
     protected ADictionary dic;
     protected JcsegTaskConfig config;
     
+    /**
+     * hot-path metrics shared by all the instances of the same segmenter,
+     * null if the metrics is disabled, check JcsegMetrics.ENABLED before use it.
+     * rawNanos is the time spent in the raw token analysis of the current next call.
+    */
+    protected final SegmentMetrics metrics = JcsegMetrics.ENABLED 
+            ? SegmentMetrics.get(getClass().getSimpleName()) : null;
+    private long rawNanos = 0;
+    
     /**
      * initialize the segment
      * 
@@ -98,10 +143,31 @@ public abstract class ASegment implements ISegment
     public void reset( Reader input ) throws IOException
     { 
         if ( input != null ) {
-            reader = new IPushbackReader(new BufferedReader(input));
+            filterReader = CharFilterReader.create(input, config.getCharFilters());
+            reader = new IPushbackReader(new BufferedReader(
+                    filterReader == null ? input : filterReader));
         }
         
         idx = -1;
+        tokenFilter = null;
+    }
+    
+    /**
+     * reset to the chars [start, end) of the text, the chars are read in
+     * place unless there are char filters, they work on a reader
+     * 
+     * @see ISpanSegment#reset(CharSequence, int, int)
+     */
+    @Override
+    public void reset( CharSequence text, int start, int end ) throws IOException
+    {
+        IPushbackReader spanReader = SpanReader.reset(this, config, reader, text, start, end);
+        if ( spanReader != null ) {
+            reader = spanReader;
+            filterReader = null;
+            idx = -1;
+            tokenFilter = null;
+        }
     }
     
     /**
@@ -126,6 +192,9 @@ public abstract class ASegment implements ISegment
     {
         reader.unread(data);
         idx--;
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.pushback();
+        }
     }
     
     /**
@@ -140,6 +209,9 @@ public abstract class ASegment implements ISegment
             reader.unread(chars[j]);
         }
         idx -= chars.length;
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.pushback();
+        }
     }
     
     @Override
@@ -148,6 +220,22 @@ public abstract class ASegment implements ISegment
         return idx + 1;
     }
     
+    /**
+     * map the position and the length of the word back to the original
+     * text if there are char filters that dropped chars from the stream
+     * 
+     * @param   word
+     * @return  IWord
+    */
+    protected IWord correctPosition( IWord word )
+    {
+        if ( filterReader != null ) {
+            filterReader.correctWord(word);
+        }
+        
+        return word;
+    }
+    
     /**
      * set the current dictionary
      * 
@@ -156,6 +244,7 @@ public abstract class ASegment implements ISegment
     public void setDict( ADictionary dic ) 
     {
         this.dic = dic;
+        tokenFilter = null;
     }
     
     /**
@@ -176,6 +265,7 @@ public abstract class ASegment implements ISegment
     public void setConfig( JcsegTaskConfig config ) 
     {
         this.config = config;
+        tokenFilter = null;
     }
     
     /**
@@ -189,10 +279,57 @@ public abstract class ASegment implements ISegment
     }
 
     /**
+     * pull the next token through the token filter chain
+     * 
      * @see ISegment#next() 
      */
     @Override
     public IWord next() throws IOException 
+    {
+        if ( tokenFilter == null ) {
+            tokenFilter = createTokenFilter(tokenSource);
+        }
+        
+        if ( ! JcsegMetrics.ENABLED ) {
+            return tokenFilter.next();
+        }
+        
+        rawNanos = 0;
+        long start = System.nanoTime();
+        IWord word = tokenFilter.next();
+        metrics.phase(SegmentMetrics.PHASE_FILTER, 0, System.nanoTime() - start - rawNanos);
+        if ( word != null ) {
+            metrics.token(word.getType());
+        }
+        
+        return word;
+    }
+    
+    /**
+     * create the token filter chain for the raw tokens
+     * the stop words are cleared first and the pinyin and synonyms
+     * words are created only when they are pulled by the consumer
+     * 
+     * @param   input the raw token source
+     * @return  ISegment
+    */
+    protected ISegment createTokenFilter( ISegment input )
+    {
+        return new PinyinFilter(
+            new SynonymFilter(
+                new StopwordFilter(input, config, dic), config, dic
+            ), config
+        );
+    }
+    
+    /**
+     * get the next raw token from the current position
+     * the stop words, pinyin and synonyms are handled by the token filters
+     * 
+     * @return  IWord
+     * @throws  IOException
+     */
+    protected IWord nextToken() throws IOException 
     {
         /*
          * @Note: check and get the token directly from the word pool
@@ -203,19 +340,23 @@ public abstract class ASegment implements ISegment
          * @added: 2014-04-11
          */
         if ( wordPool.size() > 0 ) {
-            return wordPool.remove();
+            return correctPosition(wordPool.remove());
         }
         
-        int c, pos;
+        int c, pos, phase;
+        long start;
         IWord word = null;
         while ( (c = readNext()) != -1 ) {
             if ( StringUtil.isWhitespace(c) ) continue;
             pos = idx;
+            phase = SegmentMetrics.PHASE_OTHER;
+            start = JcsegMetrics.ENABLED ? System.nanoTime() : 0;
             
             /* CJK char.
              * and start the CJK word analysis
             */
             if ( StringUtil.isCJKChar( c ) ) {
+                phase = SegmentMetrics.PHASE_CJK;
                 behindLatin = null;
                 word = getNextCJKWord(c, pos);
                 if ( behindLatin != null ) {
@@ -226,6 +367,7 @@ public abstract class ASegment implements ISegment
              * and start the Latin word analysis
             */
             else if ( StringUtil.isEnChar(c) ) {
+                phase = SegmentMetrics.PHASE_LATIN;
                 word = getNextLatinWord(c, pos);
             }
             /* find a content around with pair punctuation.
@@ -233,17 +375,13 @@ public abstract class ASegment implements ISegment
             */
             else if ( config.PPT_MAX_LENGTH > 0 
                     && StringUtil.isPairPunctuation( (char)c ) ) {
+                phase = SegmentMetrics.PHASE_PUNCTUATION;
                 word = getNextPunctuationPairWord(c, pos);
             } 
             /* letter number like 'ⅠⅡ';
              */
             else if ( StringUtil.isLetterNumber(c) ) {
                 String val = nextLetterNumber(c);
-                if ( config.CLEAR_STOPWORD 
-                        && dic.match(ILexicon.STOP_WORD, val) ) {
-                    continue;
-                }
-                
                 word = new Word(val, IWord.T_OTHER_NUMBER);
                 word.setPartSpeech(IWord.NUMERIC_POSPEECH);
                 word.setPosition(pos);
@@ -252,11 +390,6 @@ public abstract class ASegment implements ISegment
              */
             else if ( StringUtil.isOtherNumber(c) ) {
                 String val = nextOtherNumber(c);
-                if ( config.CLEAR_STOPWORD 
-                        && dic.match(ILexicon.STOP_WORD, val) ) {
-                    continue;
-                }
-                
                 word = new Word(val, IWord.T_OTHER_NUMBER);
                 word.setPartSpeech(IWord.NUMERIC_POSPEECH);
                 word.setPosition(pos);
@@ -265,11 +398,6 @@ public abstract class ASegment implements ISegment
              */
             else if ( StringUtil.isCnPunctuation( c ) ) {
                 String str = String.valueOf((char)c);
-                if ( config.CLEAR_STOPWORD 
-                        && dic.match(ILexicon.STOP_WORD, str)) {
-                    continue;
-                }
-                
                 word = new Word(str, IWord.T_PUNCTUATION);
                 word.setPartSpeech(IWord.PUNCTUATION);
                 word.setPosition(pos);
@@ -281,18 +409,19 @@ public abstract class ASegment implements ISegment
             */
             else if ( config.KEEP_UNREG_WORDS ) {
                 String str = String.valueOf((char)c);
-                if ( config.CLEAR_STOPWORD
-                        && dic.match(ILexicon.STOP_WORD, str)) {
-                    continue;
-                }
-                
                 word = new Word(str, IWord.T_UNRECOGNIZE_WORD);
                 word.setPartSpeech(IWord.UNRECOGNIZE);
                 word.setPosition(pos);
             }
             
+            if ( JcsegMetrics.ENABLED ) {
+                long cost = System.nanoTime() - start;
+                metrics.phase(phase, idx - pos + 1, cost);
+                rawNanos += cost;
+            }
+            
             if ( word != null ) {
-                return word;
+                return correctPosition(word);
             }
             
             /*
@@ -306,7 +435,7 @@ public abstract class ASegment implements ISegment
              * then the buffered word will miss
             */
             if ( wordPool.size() > 0 ) {
-                return wordPool.removeFirst();
+                return correctPosition(wordPool.removeFirst());
             }
             
             continue;
@@ -438,13 +567,6 @@ public abstract class ASegment implements ISegment
                         wd.setPosition(pos+cjkidx);
                     }
                     
-                    //clear the stop words as need
-                    if ( config.CLEAR_STOPWORD 
-                            && dic.match(ILexicon.STOP_WORD, num) ) {
-                        cjkidx += num.length();
-                        continue;
-                    }
-                    
                     /*
                      * @Note: added at 2016/07/19
                      * we cannot share the position with the original word item in the
@@ -469,13 +591,15 @@ public abstract class ASegment implements ISegment
                 
                 if ( w != null ) {
                     cjkidx += w.getLength();
-                    appendWordFeatures(w);
                     continue;
                 }
             }
             
             
             IChunk chunk = getBestCJKChunk(chars, cjkidx);
+            if ( JcsegMetrics.ENABLED ) {
+                metrics.bestChunk();
+            }
             w = chunk.getWords()[0];
             
             /* 
@@ -519,14 +643,14 @@ public abstract class ASegment implements ISegment
                 }
             }
             
-            //check and clear the stop words
+            //check and clear the stop words before the mixed word check
+            //so a stop word never merges into the following Latin word
             if ( config.CLEAR_STOPWORD 
-                    && dic.match(ILexicon.STOP_WORD, w.getValue()) ) {
+                    && dic.getStopwordSet().contains(w.getValue()) ) {
                 cjkidx += w.getLength();
                 continue;
             }
             
-            
             /*
              * reach the end of the chars - the last word.
              * check the existence of the Chinese and English mixed word
@@ -551,13 +675,6 @@ public abstract class ASegment implements ISegment
             w.setPosition(pos+cjkidx);
             wordPool.add(w);
             cjkidx += w.getLength();
-            
-            /*
-             * check and append the Pinyin and the synonyms words.
-            */
-            if ( T == -1 ) {
-                appendWordFeatures(w);
-            }
         }
         
         if ( wordPool.size() == 0 ) {
@@ -583,11 +700,6 @@ public abstract class ASegment implements ISegment
         */
         if ( StringUtil.isEnPunctuation( c ) ) {
             String str = String.valueOf((char)c);
-            if ( config.CLEAR_STOPWORD 
-                    && dic.match(ILexicon.STOP_WORD, str) ) {
-                return null;
-            }
-            
             IWord w = new Word(str, IWord.T_PUNCTUATION);
             w.setPosition(pos);
             w.setPartSpeech(IWord.PUNCTUATION);
@@ -606,16 +718,6 @@ public abstract class ASegment implements ISegment
             enSecondSeg(w, false);
         }
         
-        if ( config.CLEAR_STOPWORD 
-                && dic.match(ILexicon.STOP_WORD, w.getValue()) ) {
-            w = null;    //Let gc do its work
-            return null;
-        }
-        
-        if ( config.APPEND_CJK_SYN ) {
-            appendLatinSyn(w);
-        }
-        
         return w;
     }
     
@@ -690,36 +792,19 @@ public abstract class ASegment implements ISegment
     */
     protected IWord getNextPunctuationPairWord(int c, int pos) throws IOException
     {
-        IWord w = null, w2 = null;
         String text = getPairPunctuationText(c);
         
         //handle the punctuation.
-        String str = String.valueOf((char)c);
-        if ( ! ( config.CLEAR_STOPWORD 
-                && dic.match(ILexicon.STOP_WORD, str) ) ) {
-            w = new Word(str, IWord.T_PUNCTUATION);
-            w.setPartSpeech(IWord.PUNCTUATION);
-            w.setPosition(pos);
-        }
+        IWord w = new Word(String.valueOf((char)c), IWord.T_PUNCTUATION);
+        w.setPartSpeech(IWord.PUNCTUATION);
+        w.setPosition(pos);
         
         //handle the pair text.
-        if ( text != null && ! ( config.CLEAR_STOPWORD 
-                && dic.match(ILexicon.STOP_WORD, text) ) ) {
-            w2 = new Word( text, ILexicon.CJK_WORD );
+        if ( text != null ) {
+            IWord w2 = new Word( text, ILexicon.CJK_WORD );
             w2.setPartSpeech(IWord.PPT_POSPEECH);
             w2.setPosition(pos+1);
-            
-            if ( w == null ) w = w2;
-            else wordPool.add(w2);
-        }
-        
-        /* here: 
-         * 1. the punctuation is clear.
-         * 2. the pair text is null or being cleared.
-         * @date 2013-09-06
-        */
-        if ( w == null && w2 == null ) {
-            return null;
+            wordPool.add(w2);
         }
         
         return w;
@@ -729,7 +814,11 @@ public abstract class ASegment implements ISegment
      * check and append the pinyin and the synonyms words of the specified word
      * 
      * @param   word
+     * @deprecated the pinyin and the synonyms words are appended by the
+     *  {@link PinyinFilter} and {@link SynonymFilter} of the token filter chain
+     *  and this is no longer invoked by the segmenters
     */
+    @Deprecated
     protected void appendWordFeatures( IWord word )
     {
         //add the pinyin to the pool
@@ -761,7 +850,10 @@ public abstract class ASegment implements ISegment
      * All the synonyms words share the same position part of speech, word type with the primitive word
      * 
      * @param w
+     * @deprecated the synonyms words are appended by the {@link SynonymFilter}
+     *  of the token filter chain and this is no longer invoked by the segmenters
      */
+    @Deprecated
     protected void appendLatinSyn( IWord w )
     {
         IWord ew;
@@ -814,7 +906,6 @@ public abstract class ASegment implements ISegment
         
         isb.append(chars[0]);
         IWord sword = null, fword = null;    //first word
-        String _str = null;
         
         for ( j = 1; j < chars.length; j++ ) {
             /* get the char type.
@@ -838,15 +929,11 @@ public abstract class ASegment implements ISegment
                  * and add to the wordPool.
                 */
                 if ( isb.length() >= config.STOKEN_MIN_LEN ) {
-                    _str = isb.toString();
-                    if ( ! ( config.CLEAR_STOPWORD
-                            && dic.match(ILexicon.STOP_WORD, _str) ) ) {
-                        sword = new Word(_str, w.getType());
-                        sword.setPartSpeech(w.getPartSpeech());
-                        sword.setPosition(w.getPosition() + start);
-                        if ( retfw && fword == null ) fword = sword;
-                        else wordPool.add(sword);
-                    }
+                    sword = new Word(isb.toString(), w.getType());
+                    sword.setPartSpeech(w.getPartSpeech());
+                    sword.setPosition(w.getPosition() + start);
+                    if ( retfw && fword == null ) fword = sword;
+                    else wordPool.add(sword);
                 }
                 
                 isb.clear();
@@ -859,16 +946,11 @@ public abstract class ASegment implements ISegment
         //Continue to check the last item
         if ( isb.length() >= config.STOKEN_MIN_LEN ) {
             start = j - isb.length() - p;
-            _str = isb.toString();
-            
-            if ( ! ( config.CLEAR_STOPWORD
-                    && dic.match(ILexicon.STOP_WORD, _str) ) ) {
-                sword = new Word(_str, w.getType());
-                sword.setPartSpeech(w.getPartSpeech());
-                sword.setPosition(w.getPosition() + start);
-                if ( retfw && fword == null ) fword = sword;
-                else wordPool.add(sword);
-            }
+            sword = new Word(isb.toString(), w.getType());
+            sword.setPartSpeech(w.getPartSpeech());
+            sword.setPosition(w.getPosition() + start);
+            if ( retfw && fword == null ) fword = sword;
+            else wordPool.add(sword);
         }
         
         chars = null;    //Let gc do its work.
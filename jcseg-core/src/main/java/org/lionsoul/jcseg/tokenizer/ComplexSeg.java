@@ -8,6 +8,7 @@ import java.util.ArrayList;
 
 
 
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.IChunk;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
@@ -53,6 +54,9 @@ public class ComplexSeg extends ASegment
         IWord[] mwords = getNextMatch(chars, index), mword2, mword3;
         if ( mwords.length == 1 
                 && mwords[0].getType() == ILexicon.UNMATCH_CJK_WORD ) {
+            if ( JcsegMetrics.ENABLED ) {
+                metrics.chunks(1);
+            }
             return new Chunk(new IWord[]{mwords[0]});
         }
         
@@ -71,6 +75,9 @@ public class ComplexSeg extends ASegment
                  */
                 if ( mword2.length == 1
                         && mword2[0].getType() == ILexicon.UNMATCH_CJK_WORD) {
+                    if ( JcsegMetrics.ENABLED ) {
+                        metrics.chunks(chunkArr.size() + 1);
+                    }
                     return new Chunk(new IWord[]{mwords[mwords.length - 1]});
                 }
                 
@@ -101,6 +108,10 @@ public class ComplexSeg extends ASegment
             }
         }
         
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.chunks(chunkArr.size());
+        }
+        
         if ( chunkArr.size() == 1 ) {
             return chunkArr.get(0);
         }
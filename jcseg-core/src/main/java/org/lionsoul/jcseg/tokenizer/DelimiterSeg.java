@@ -5,9 +5,15 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.LinkedList;
 
+import org.lionsoul.jcseg.filter.CharFilterReader;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
+import org.lionsoul.jcseg.monitor.SegmentMetrics;
+import org.lionsoul.jcseg.filter.PinyinFilter;
+import org.lionsoul.jcseg.filter.SynonymFilter;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
 import org.lionsoul.jcseg.util.IPushbackReader;
@@ -20,7 +26,7 @@ import org.lionsoul.jcseg.util.StringUtil;
  * 
  * @author  chenxin<chenxin619315@gmail.com>
 */
-public class DelimiterSeg implements ISegment
+public class DelimiterSeg implements ISpanSegment
 { 
     /**
      * the index of the current input stream 
@@ -39,12 +45,31 @@ public class DelimiterSeg implements ISegment
     private IStringBuffer isb = null;
     protected LinkedList<IWord> wordPool = null;
     
+    /**
+     * the char filter pipeline reader, null for no filters
+    */
+    private CharFilterReader filterReader = null;
+    
+    /**
+     * the head of the pinyin and synonyms token filter chain
+    */
+    private ISegment tokenFilter = null;
+    
     /**
      * the dictionary and task configuration
     */
     private ADictionary dic;
     private JcsegTaskConfig config;
     
+    /**
+     * hot-path metrics shared by all the instances of the same segmenter,
+     * null if the metrics is disabled, check JcsegMetrics.ENABLED before use it.
+     * rawNanos is the time spent in the raw token analysis of the current next call.
+    */
+    protected final SegmentMetrics metrics = JcsegMetrics.ENABLED 
+            ? SegmentMetrics.get(getClass().getSimpleName()) : null;
+    private long rawNanos = 0;
+    
     /**
      * method to create a new ISegment
      * 
@@ -80,10 +105,31 @@ public class DelimiterSeg implements ISegment
     public void reset(Reader input) throws IOException
     {
         if ( input != null ) {
-            reader = new IPushbackReader(new BufferedReader(input));
+            filterReader = CharFilterReader.create(input, config.getCharFilters());
+            reader = new IPushbackReader(new BufferedReader(
+                    filterReader == null ? input : filterReader));
         }
         
         idx = -1;
+        tokenFilter = null;
+    }
+
+    /**
+     * reset to the chars [start, end) of the text, the chars are read in
+     * place unless there are char filters, they work on a reader
+     * 
+     * @see ISpanSegment#reset(CharSequence, int, int)
+     */
+    @Override
+    public void reset(CharSequence text, int start, int end) throws IOException
+    {
+        IPushbackReader spanReader = SpanReader.reset(this, config, reader, text, start, end);
+        if ( spanReader != null ) {
+            reader = spanReader;
+            filterReader = null;
+            idx = -1;
+            tokenFilter = null;
+        }
     }
 
     @Override
@@ -115,10 +161,61 @@ public class DelimiterSeg implements ISegment
     {
         reader.unread(data);
         idx--;
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.pushback();
+        }
     }
 
+    /**
+     * pull the next token through the pinyin and synonyms token filters
+     * 
+     * @see ISegment#next()
+    */
     @Override
     public IWord next() throws IOException
+    {
+        if ( tokenFilter == null ) {
+            final DelimiterSeg seg = this;
+            tokenFilter = new PinyinFilter(new SynonymFilter(new ISegment() {
+                @Override
+                public void reset(Reader input) throws IOException {
+                    seg.reset(input);
+                }
+                
+                @Override
+                public int getStreamPosition() {
+                    return seg.getStreamPosition();
+                }
+                
+                @Override
+                public IWord next() throws IOException {
+                    return seg.nextToken();
+                }
+            }, config, dic), config);
+        }
+        
+        if ( ! JcsegMetrics.ENABLED ) {
+            return tokenFilter.next();
+        }
+        
+        rawNanos = 0;
+        long start = System.nanoTime();
+        IWord word = tokenFilter.next();
+        metrics.phase(SegmentMetrics.PHASE_FILTER, 0, System.nanoTime() - start - rawNanos);
+        if ( word != null ) {
+            metrics.token(word.getType());
+        }
+        
+        return word;
+    }
+    
+    /**
+     * get the next raw token split by the delimiter
+     * 
+     * @return  IWord
+     * @throws  IOException
+    */
+    protected IWord nextToken() throws IOException
     {
         /*
          * @Note: 
@@ -129,6 +226,7 @@ public class DelimiterSeg implements ISegment
         }
         
         int c, i, pos;
+        long start;
         
         while ( (c = readNext()) != -1 ) {
             /*
@@ -139,6 +237,7 @@ public class DelimiterSeg implements ISegment
             }
             
             pos = idx;
+            start = JcsegMetrics.ENABLED ? System.nanoTime() : 0;
             isb.clear().append((char)c);
             for ( i = 1; i < config.MAX_LATIN_LENGTH; i++ ) {
                 c = readNext();
@@ -167,31 +266,19 @@ public class DelimiterSeg implements ISegment
                 }
             }
             
-            //reset the word offset
+            //reset the word offset and map it back to the original text
             wd.setPosition(pos);
-            
-            /* 
-             * check and append the word features
-             * 1, check and append the Pinyin
-             * 2, check and append the synonyms
-            */
-            if ( dic != null && config.APPEND_CJK_PINYIN 
-                    && config.LOAD_CJK_PINYIN && wd.getPinyin() != null ) {
-                IWord pinyin = new Word(wd.getPinyin(), IWord.T_CJK_PINYIN);
-                pinyin.setPosition(pos);
-                wordPool.add(pinyin);
+            if ( filterReader != null ) {
+                filterReader.correctWord(wd);
             }
             
-            String[] syns = null;
-            IWord syn = null;
-            if ( dic != null && config.APPEND_CJK_SYN 
-                    && config.LOAD_CJK_SYN && (syns = wd.getSyn()) != null ) {
-                for ( int j = 0; j < syns.length; j++ ) {
-                    syn = new Word(syns[j], wd.getType());
-                    syn.setPartSpeech(wd.getPartSpeech());
-                    syn.setPosition(pos);
-                    wordPool.add(syn);
-                }
+            if ( JcsegMetrics.ENABLED ) {
+                char fc = val.charAt(0);
+                int phase = StringUtil.isCJKChar(fc) ? SegmentMetrics.PHASE_CJK
+                        : (StringUtil.isEnChar(fc) ? SegmentMetrics.PHASE_LATIN : SegmentMetrics.PHASE_OTHER);
+                long cost = System.nanoTime() - start;
+                metrics.phase(phase, val.length(), cost);
+                rawNanos += cost;
             }
             
             return wd;
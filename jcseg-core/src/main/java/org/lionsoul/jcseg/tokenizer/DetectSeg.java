@@ -4,9 +4,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 
+import org.lionsoul.jcseg.filter.CharFilterReader;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
+import org.lionsoul.jcseg.monitor.SegmentMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
 import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
 import org.lionsoul.jcseg.util.StringUtil;
@@ -23,7 +27,7 @@ import org.lionsoul.jcseg.util.IStringBuffer;
  * @author  chenxin <chenxin619315@gmail.com>
  * @since   1.9.4
 */
-public class DetectSeg implements ISegment
+public class DetectSeg implements ISpanSegment
 {
     /**
      * the index of the current input stream 
@@ -36,12 +40,24 @@ public class DetectSeg implements ISegment
     private IPushbackReader reader = null;
     private IStringBuffer isb = null;
     
+    /**
+     * the char filter pipeline reader, null for no filters
+    */
+    private CharFilterReader filterReader = null;
+    
     /**
      * the dictionary and task configuration
     */
     private ADictionary dic;
     private JcsegTaskConfig config;
     
+    /**
+     * hot-path metrics shared by all the instances of the same segmenter,
+     * null if the metrics is disabled, check JcsegMetrics.ENABLED before use it.
+    */
+    protected final SegmentMetrics metrics = JcsegMetrics.ENABLED 
+            ? SegmentMetrics.get(getClass().getSimpleName()) : null;
+    
     /**
      * method to create the new ISegment
      * 
@@ -77,7 +93,9 @@ public class DetectSeg implements ISegment
     public void reset(Reader input) throws IOException 
     {
         if ( input != null ) {
-            reader = new IPushbackReader(new BufferedReader(input));
+            filterReader = CharFilterReader.create(input, config.getCharFilters());
+            reader = new IPushbackReader(new BufferedReader(
+                    filterReader == null ? input : filterReader));
         }
         
         idx = -1;
@@ -92,6 +110,23 @@ public class DetectSeg implements ISegment
         return idx + 1;
     }
     
+    /**
+     * reset to the chars [start, end) of the text, the chars are read in
+     * place unless there are char filters, they work on a reader
+     * 
+     * @see ISpanSegment#reset(CharSequence, int, int)
+     */
+    @Override
+    public void reset(CharSequence text, int start, int end) throws IOException
+    {
+        IPushbackReader spanReader = SpanReader.reset(this, config, reader, text, start, end);
+        if ( spanReader != null ) {
+            reader = spanReader;
+            filterReader = null;
+            idx = -1;
+        }
+    }
+    
     /**
      * read the next char from the current position
      * 
@@ -115,6 +150,9 @@ public class DetectSeg implements ISegment
     {
         reader.unread(data);
         idx--;
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.pushback();
+        }
     }
     
     /**
@@ -165,6 +203,7 @@ public class DetectSeg implements ISegment
     public IWord next() throws IOException 
     {
         int c, i, pos;
+        long start;
         IWord   w = null;
         String  T = null;
         
@@ -172,6 +211,7 @@ public class DetectSeg implements ISegment
             w = null;
             T = null;
             pos = idx;
+            start = JcsegMetrics.ENABLED ? System.nanoTime() : 0;
             isb.clear();
             
             /* @Convertor: check if char is an Latin letter
@@ -223,6 +263,9 @@ public class DetectSeg implements ISegment
              */
             if ( w == null ) {
                 for ( i = isb.length() - 1; i > 0; i-- ) pushBack(isb.charAt(i));
+                if ( JcsegMetrics.ENABLED ) {
+                    analysed(pos, start);
+                }
                 continue;
             }
             
@@ -239,9 +282,17 @@ public class DetectSeg implements ISegment
                 pushBack(isb.charAt(i));
             }
             
-            //add position record
+            //add position record and map it back to the original text
             w = w.clone();
             w.setPosition(pos);
+            if ( filterReader != null ) {
+                filterReader.correctWord(w);
+            }
+            
+            if ( JcsegMetrics.ENABLED ) {
+                analysed(pos, start);
+                metrics.token(w.getType());
+            }
             
             return w;
         }
@@ -249,4 +300,19 @@ public class DetectSeg implements ISegment
         return null;
     }
     
+    /**
+     * record the chars consumed from the specified position and the time
+     * spent to the phase of the first char in the string buffer
+     * 
+     * @param   pos
+     * @param   start
+    */
+    private void analysed( int pos, long start )
+    {
+        char c = isb.charAt(0);
+        int phase = StringUtil.isCJKChar(c) ? SegmentMetrics.PHASE_CJK
+                : (StringUtil.isEnChar(c) ? SegmentMetrics.PHASE_LATIN : SegmentMetrics.PHASE_OTHER);
+        metrics.phase(phase, idx - pos + 1, System.nanoTime() - start);
+    }
+    
 }
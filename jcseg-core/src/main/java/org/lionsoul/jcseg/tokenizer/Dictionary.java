@@ -2,9 +2,13 @@ package org.lionsoul.jcseg.tokenizer;
 
 import java.util.HashMap;
 //import java.util.Hashtable;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.lionsoul.jcseg.monitor.DictionaryMetrics;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
@@ -45,7 +49,11 @@ public class Dictionary extends ADictionary
     public boolean match(int t, String key)
     {
         if ( t >= 0 && t < ILexicon.T_LEN ) {
-            return dics[t].containsKey(key);
+            boolean hit = dics[t].containsKey(key);
+            if ( JcsegMetrics.ENABLED ) {
+                DictionaryMetrics.getInstance().probe(t, hit);
+            }
+            return hit;
         }
         return false;
     }
@@ -62,6 +70,10 @@ public class Dictionary extends ADictionary
             }
             
             dics[t].put(word.getValue(), word);
+            if ( t == ILexicon.STOP_WORD ) {
+                stopwordChanged();
+            }
+            
             return word;
         }
         
@@ -81,6 +93,10 @@ public class Dictionary extends ADictionary
             
             IWord word = new Word(key, fre, type, entity);
             dics[t].put(key, word);
+            if ( t == ILexicon.STOP_WORD ) {
+                stopwordChanged();
+            }
+            
             return word;
         }
         
@@ -121,7 +137,11 @@ public class Dictionary extends ADictionary
     public IWord get(int t, String key)
     {
         if ( t >= 0 && t < ILexicon.T_LEN ) {
-            return dics[t].get(key);
+            IWord word = dics[t].get(key);
+            if ( JcsegMetrics.ENABLED ) {
+                DictionaryMetrics.getInstance().probe(t, word != null);
+            }
+            return word;
         }
         return null;
     }
@@ -133,7 +153,10 @@ public class Dictionary extends ADictionary
     public void remove(int t, String key)
     {
         if ( t >= 0 && t < ILexicon.T_LEN ) {
-            dics[t].remove(key);
+            if ( dics[t].remove(key) != null 
+                    && t == ILexicon.STOP_WORD ) {
+                stopwordChanged();
+            }
         }
     }
     
@@ -149,4 +172,16 @@ public class Dictionary extends ADictionary
         return 0;
     }
     
+    /**
+     * @see ADictionary#keySet(int) 
+    */
+    @Override
+    public Set<String> keySet(int t)
+    {
+        if ( t >= 0 && t < ILexicon.T_LEN ) {
+            return dics[t].keySet();
+        }
+        return Collections.emptySet();
+    }
+    
 }
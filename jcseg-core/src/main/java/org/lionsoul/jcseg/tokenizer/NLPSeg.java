@@ -3,6 +3,7 @@ package org.lionsoul.jcseg.tokenizer;
 import java.io.IOException;
 import java.io.Reader;
 
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.Entity;
 import org.lionsoul.jcseg.tokenizer.core.IChunk;
@@ -168,6 +169,9 @@ public class NLPSeg extends ComplexSeg
             
             
             IChunk chunk = getBestCJKChunk(chars, cjkidx);
+            if ( JcsegMetrics.ENABLED ) {
+                metrics.bestChunk();
+            }
             w = chunk.getWords()[0];
             
             /* 
@@ -201,12 +205,14 @@ public class NLPSeg extends ComplexSeg
                 }
             }
             
+            //check and clear the stop words before the mixed word check
+            //so a stop word never merges into the following Latin word
             if ( config.CLEAR_STOPWORD 
-                    && dic.match(ILexicon.STOP_WORD, w.getValue()) ) {
+                    && dic.getStopwordSet().contains(w.getValue()) ) {
                 cjkidx += w.getLength();
                 continue;
             }
-                        
+            
             /*
              * reach the end of the chars - the last word.
              * check the existence of the Chinese and English mixed word
@@ -231,13 +237,6 @@ public class NLPSeg extends ComplexSeg
             w.setPosition(pos+cjkidx);
             wordPool.add(w);
             cjkidx += w.getLength();
-            
-            /*
-             * check and append the Pinyin and the synonyms words.
-            */
-            if ( T == -1 ) {
-                appendWordFeatures(w);
-            }
         }
         
         if ( wordPool.size() == 0 ) {
@@ -77,7 +77,6 @@ public class SearchSeg extends ASegment
                     word = dic.get(ILexicon.CJK_WORD, temp).clone();
                     word.setPosition(pos+cjkidx);
                     mList.add(word);
-                    appendWordFeatures(word);
                 }
             }
             
@@ -88,19 +87,11 @@ public class SearchSeg extends ASegment
         }
         
         /*
-         * do all the words analysis
-         * 1, clear the stop words
-         * 1, check and append the pinyin or synonyms words
+         * the stop words, pinyin and synonyms words
+         * are handled by the token filters
         */
         for ( IWord w : mList ) {
-            key = w.getValue();
-            if ( config.CLEAR_STOPWORD 
-                    && dic.match(ILexicon.STOP_WORD, key) ) {
-                continue;
-            }
-            
             wordPool.add(w);
-            appendWordFeatures(w);
         }
         
         //let gc do its work
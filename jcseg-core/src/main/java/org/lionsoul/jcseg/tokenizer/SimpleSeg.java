@@ -3,6 +3,7 @@ package org.lionsoul.jcseg.tokenizer;
 import java.io.IOException;
 import java.io.Reader;
 
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.IChunk;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
@@ -34,6 +35,9 @@ public class SimpleSeg extends ASegment
     public IChunk getBestCJKChunk(char[] chars, int index) throws IOException
     {
         IWord[] words = getNextMatch(chars, index);
+        if ( JcsegMetrics.ENABLED ) {
+            metrics.chunks(1);
+        }
         return new Chunk(new IWord[]{words[words.length - 1]});
     }
     
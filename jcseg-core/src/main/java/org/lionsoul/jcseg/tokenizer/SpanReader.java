@@ -0,0 +1,50 @@
+package org.lionsoul.jcseg.tokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.util.IPushbackReader;
+
+/**
+ * span reset shared by the segmenters
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+final class SpanReader
+{
+    private SpanReader() {}
+    
+    /**
+     * reset the segmenter to the chars [start, end) of the text.
+     * the chars are read in place by the push back reader unless there are 
+     * char filters, they work on a reader so the chars are copied into one
+     * and the segmenter is reset with {@link ISegment#reset(java.io.Reader)}
+     * 
+     * @param   seg
+     * @param   config
+     * @param   reader the push back reader of the segmenter, could be null
+     * @param   text
+     * @param   start
+     * @param   end
+     * @return  IPushbackReader of the chars or null if the segmenter is reset on a reader
+     * @throws  IOException
+    */
+    static IPushbackReader reset( ISegment seg, JcsegTaskConfig config, 
+            IPushbackReader reader, CharSequence text, int start, int end ) throws IOException
+    {
+        String[] charFilters = config.getCharFilters();
+        if ( charFilters != null && charFilters.length > 0 ) {
+            seg.reset(new StringReader(text.subSequence(start, end).toString()));
+            return null;
+        }
+        
+        if ( reader == null ) {
+            return new IPushbackReader(text, start, end);
+        }
+        
+        reader.reset(text, start, end);
+        return reader;
+    }
+}
@@ -11,6 +11,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.security.CodeSource;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -35,6 +39,18 @@ public abstract class ADictionary
     /**auto load thread */
     private Thread autoloadThread = null;
     
+    /**
+     * number of the lexicon reloads done by the auto load thread
+     * and the time in ms of the last one, 0 for none yet
+    */
+    private final AtomicLong reloads = new AtomicLong(0);
+    private volatile long lastReloadTime = 0;
+    
+    /**
+     * the listeners run by the auto load thread after every lexicon reload
+    */
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<Runnable>();
+    
     /**
      * maximum length for the Chinese words after the LATIN word
      * or the one before it used to match Chinese and English mix word, 
@@ -45,6 +61,14 @@ public abstract class ADictionary
     volatile public int mixSuffixLength = 1;
     volatile public int mixPrefixLength = 1;
     
+    /**
+     * the precomputed stop words snapshot and the version of
+     * the STOP_WORD lexicon bumped by every stop words change
+     * @see #getStopwordSet()
+    */
+    private volatile StopwordSet stopwordSet = null;
+    private final AtomicLong stopwordVersion = new AtomicLong(0);
+    
     /**
      * initialize the ADictionary
      * 
@@ -230,6 +254,12 @@ public abstract class ADictionary
                             //    in that case, this won't work normally.
                             //but, it will still work!!!
                             af.setLastUpdateTime(f.lastModified());
+                            reloads.incrementAndGet();
+                            stopwordChanged();
+                            lastReloadTime = System.currentTimeMillis();
+                            for ( Runnable listener : reloadListeners ) {
+                                listener.run();
+                            }
                             //System.out.println("newly added words loaded for path " + f.getParent());
                         } catch (IOException e) {
                             break;
@@ -253,6 +283,33 @@ public abstract class ADictionary
         }
     }
     
+    /**
+     * add a listener to run after every lexicon reload of the auto load
+     * thread, the results computed with the old words should be dropped by it
+     * 
+     * @param   listener
+    */
+    public void addReloadListener( Runnable listener )
+    {
+        reloadListeners.add(listener);
+    }
+    
+    /**
+     * @return  long number of the lexicon reloads done by the auto load thread
+    */
+    public long getReloads()
+    {
+        return reloads.get();
+    }
+    
+    /**
+     * @return  long time in ms of the last lexicon reload, 0 for none yet
+    */
+    public long getLastReloadTime()
+    {
+        return lastReloadTime;
+    }
+    
     public boolean isSync()
     {
         return sync;
@@ -345,6 +402,44 @@ public abstract class ADictionary
      */
     public abstract int size(int t);
     
+    /**
+     * return all the keys of the specified lexicon
+     * 
+     * @param   t
+     * @return  Set
+    */
+    public abstract Set<String> keySet(int t);
+    
+    /**
+     * get the precomputed stop words membership structure.
+     * the snapshot will be rebuilt once the STOP_WORD lexicon
+     * changed, after an auto load for example.
+     * 
+     * @return  StopwordSet
+    */
+    public StopwordSet getStopwordSet()
+    {
+        //read the version first so a change during the build triggers another one
+        long version = stopwordVersion.get();
+        StopwordSet set = stopwordSet;
+        if ( set == null || set.version != version ) {
+            set = new StopwordSet(keySet(ILexicon.STOP_WORD), version);
+            stopwordSet = set;
+        }
+        
+        return set;
+    }
+    
+    /**
+     * mark the STOP_WORD lexicon changed, the implementations should
+     * invoke it once a stop word is added or removed so the next 
+     * {@link #getStopwordSet()} will rebuild the snapshot
+    */
+    protected void stopwordChanged()
+    {
+        stopwordVersion.incrementAndGet();
+    }
+    
     
     /**
      * get the key's type index located in ILexicon interface
@@ -1,5 +1,6 @@
 package org.lionsoul.jcseg.tokenizer.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 
@@ -149,4 +150,75 @@ public class DictionaryFactory
         return singletonDic;
     }
     
+    /**
+     * create a default ADictionary instance from the prebuilt dictionary image.
+     * the lexicons are loaded the normal way and the image is (re)built
+     * if the image does not exist, it is out of date or it is broken.
+     * 
+     * <p>
+     * the image saves the lexicon parsing only, every word is still added
+     * to the hash tables of the dictionary, so the load time grows with the 
+     * number of the words (about 200ms for the default lexicons on a cold jvm).
+     * </p>
+     * 
+     * @param   config
+     * @param   image path of the dictionary image
+     * @param   rebuild force to rebuild the image from the lexicons
+     * @return  ADictionary
+     * @see     DictionarySnapshot
+    */
+    public static ADictionary createSnapshotDictionary(
+            JcsegTaskConfig config, File image, boolean rebuild)
+    {
+        String fingerprint = DictionarySnapshot.fingerprint(config);
+        ADictionary dic = null;
+        
+        if ( rebuild == false ) {
+            dic = createDefaultDictionary(config, config.isAutoload(), false);
+            try {
+                if ( ! DictionarySnapshot.load(dic, image, fingerprint) ) {
+                    dic = null;
+                }
+            } catch (Exception e) {
+                /*
+                 * a broken image may fail with any exception half way,
+                 * drop the partially loaded dictionary and rebuild it
+                */
+                System.err.println("+-[Error]: Dictionary image \"" + image 
+                        + "\" is broken: " + e + ", rebuilt from the lexicons");
+                dic = null;
+            }
+        }
+        
+        try {
+            if ( dic == null ) {
+                dic = createDefaultDictionary(config, config.isAutoload(), false);
+                String[] lexpath = config.getLexiconPath();
+                if ( lexpath == null ) {
+                    dic.loadClassPath();
+                } else {
+                    for ( String lpath : lexpath ) dic.loadDirectory(lpath);
+                }
+                
+                DictionarySnapshot.save(dic, image, fingerprint);
+            }
+            
+            if ( config.getLexiconPath() != null && dic.getConfig().isAutoload() ) {
+                dic.startAutoload();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        
+        return dic;
+    }
+    
+    /**
+     * @see #createSnapshotDictionary(JcsegTaskConfig, File, boolean)
+    */
+    public static ADictionary createSnapshotDictionary(JcsegTaskConfig config, File image)
+    {
+        return createSnapshotDictionary(config, image, false);
+    }
+    
 }
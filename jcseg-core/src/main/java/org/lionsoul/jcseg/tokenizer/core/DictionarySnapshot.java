@@ -0,0 +1,406 @@
+package org.lionsoul.jcseg.tokenizer.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lionsoul.jcseg.tokenizer.Word;
+
+/**
+ * <p>
+ * prebuilt dictionary image.
+ * all the words of all the lexicons are written as a compact binary image with
+ * a string table, the image is read at once and the words are added to the
+ * dictionary directly on load, so no lexicon text parsing is needed at startup.
+ * </p>
+ *
+ * <p>
+ * the same word instance may be shared by more than one lexicon (the CJK_UNIT
+ * words are also CJK_WORD words for example), the words are written once with
+ * an id and the lexicons refer to the ids so the sharing is kept after load.
+ * </p>
+ *
+ * <p>
+ * the image records a fingerprint of the loading config and the lexicon files,
+ * {@link #load(ADictionary, File, String)} refuses an image with a different
+ * fingerprint so a stale image is never used.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class DictionarySnapshot
+{
+    public static final int MAGIC = 0x4A435344;     //JCSD
+    public static final int VERSION = 1;
+
+    private DictionarySnapshot() {}
+
+    /**
+     * compute the fingerprint of the dictionary load:
+     * the config items that affect the loaded words and the name,
+     * size and last modified time of every lexicon file
+     *
+     * @param   config
+     * @return  String
+    */
+    public static String fingerprint( JcsegTaskConfig config )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("maxlen=").append(config.MAX_LENGTH)
+          .append(",pinyin=").append(config.LOAD_CJK_PINYIN)
+          .append(",syn=").append(config.LOAD_CJK_SYN)
+          .append(",pos=").append(config.LOAD_CJK_POS)
+          .append(",entity=").append(config.LOAD_CJK_ENTITY);
+
+        String[] lexPath = config.getLexiconPath();
+        if ( lexPath == null ) {
+            //the lexicons are loaded from the classpath
+            CodeSource codeSrc = ADictionary.class.getProtectionDomain().getCodeSource();
+            if ( codeSrc != null ) {
+                File src = new File(codeSrc.getLocation().getPath());
+                if ( src.isDirectory() ) {
+                    appendFiles(sb, new File(src, "lexicon"));
+                } else {
+                    appendFile(sb, src);
+                }
+            }
+        } else {
+            for ( String path : lexPath ) {
+                appendFiles(sb, new File(path));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static void appendFiles( StringBuilder sb, File dir )
+    {
+        File[] files = dir.listFiles(new FilenameFilter(){
+            @Override
+            public boolean accept(File dir, String name) {
+                return (name.startsWith("lex-") && name.endsWith(".lex"));
+            }
+        });
+
+        if ( files == null ) {
+            return;
+        }
+
+        Arrays.sort(files);
+        for ( File file : files ) {
+            appendFile(sb, file);
+        }
+    }
+
+    private static void appendFile( StringBuilder sb, File file )
+    {
+        sb.append(';').append(file.getAbsolutePath())
+          .append(':').append(file.length())
+          .append(':').append(file.lastModified());
+    }
+
+    /**
+     * write the image of the specified dictionary to the file
+     *
+     * @param   dic
+     * @param   file
+     * @param   fingerprint
+     * @throws  IOException
+    */
+    public static void save( ADictionary dic, File file, String fingerprint ) throws IOException
+    {
+        //collect the unique words and strings
+        Map<IWord, Integer> wordIds = new IdentityHashMap<IWord, Integer>();
+        List<IWord> words = new ArrayList<IWord>();
+        Map<String, Integer> strIds = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        int[][] lexicons = new int[ILexicon.T_LEN][];
+        for ( int t = 0; t < ILexicon.T_LEN; t++ ) {
+            Set<String> keys = dic.keySet(t);
+            int[] ids = new int[keys.size()];
+            int i = 0;
+            for ( String key : keys ) {
+                IWord word = dic.get(t, key);
+                if ( word == null ) {
+                    continue;
+                }
+
+                Integer id = wordIds.get(word);
+                if ( id == null ) {
+                    id = words.size();
+                    wordIds.put(word, id);
+                    words.add(word);
+                    stringId(strIds, strings, word.getValue());
+                    stringId(strIds, strings, word.getEntity());
+                    stringId(strIds, strings, word.getPinyin());
+                    stringIds(strIds, strings, word.getPartSpeech());
+                    stringIds(strIds, strings, word.getSyn());
+                }
+                ids[i++] = id;
+            }
+            lexicons[t] = i == ids.length ? ids : Arrays.copyOf(ids, i);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, fingerprint);
+            out.writeInt(dic.mixPrefixLength);
+            out.writeInt(dic.mixSuffixLength);
+
+            out.writeInt(strings.size());
+            for ( String str : strings ) {
+                writeString(out, str);
+            }
+
+            out.writeInt(words.size());
+            for ( IWord word : words ) {
+                out.writeInt(strIds.get(word.getValue()));
+                out.writeInt(word.getFrequency());
+                out.writeInt(word.getType());
+                out.writeInt(id(strIds, word.getEntity()));
+                out.writeInt(id(strIds, word.getPinyin()));
+                writeIds(out, strIds, word.getPartSpeech());
+                writeIds(out, strIds, word.getSyn());
+            }
+
+            for ( int t = 0; t < ILexicon.T_LEN; t++ ) {
+                out.writeInt(lexicons[t].length);
+                for ( int id : lexicons[t] ) {
+                    out.writeInt(id);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        if ( file.exists() && ! file.delete() ) {
+            throw new IOException("Unable to replace the dictionary image " + file);
+        }
+        if ( ! tmp.renameTo(file) ) {
+            throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * load the image into the specified dictionary
+     *
+     * @param   dic
+     * @param   file
+     * @param   fingerprint the expected fingerprint, null to skip the check
+     * @return  boolean false if the image does not exist or mismatches
+     * @throws  IOException
+    */
+    public static boolean load( ADictionary dic, File file, String fingerprint ) throws IOException
+    {
+        if ( ! file.exists() ) {
+            return false;
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            ByteBuffer buf = read(raf.getChannel());
+            if ( buf.remaining() < 8 || buf.getInt() != MAGIC || buf.getInt() != VERSION ) {
+                return false;
+            }
+
+            String fp = readString(buf);
+            if ( fingerprint != null && ! fingerprint.equals(fp) ) {
+                return false;
+            }
+
+            int prefixLength = buf.getInt();
+            int suffixLength = buf.getInt();
+
+            String[] strings = new String[buf.getInt()];
+            for ( int j = 0; j < strings.length; j++ ) {
+                strings[j] = readString(buf);
+            }
+
+            IWord[] words = new IWord[buf.getInt()];
+            Map<String, String> entities = new HashMap<String, String>();
+            for ( int j = 0; j < words.length; j++ ) {
+                String value = strings[buf.getInt()];
+                int fre = buf.getInt();
+                int type = buf.getInt();
+                String entity = str(strings, buf.getInt());
+                if ( entity != null ) {
+                    //entities are compared with the Entity constants
+                    String e = entities.get(entity);
+                    if ( e == null ) {
+                        e = Entity.get(entity);
+                        entities.put(entity, e);
+                    }
+                    entity = e;
+                }
+
+                Word word = new Word(value, fre, type, entity);
+                word.setPinyin(str(strings, buf.getInt()));
+                word.setPartSpeech(strs(strings, buf));
+                word.setSyn(strs(strings, buf));
+                words[j] = word;
+            }
+
+            for ( int t = 0; t < ILexicon.T_LEN; t++ ) {
+                int size = buf.getInt();
+                for ( int j = 0; j < size; j++ ) {
+                    dic.add(t, words[buf.getInt()]);
+                }
+            }
+
+            dic.mixPrefixLength = prefixLength;
+            dic.mixSuffixLength = suffixLength;
+        } finally {
+            raf.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * read the fingerprint of the image
+     *
+     * @param   file
+     * @return  String or null if it is not a valid image
+     * @throws  IOException
+    */
+    public static String readFingerprint( File file ) throws IOException
+    {
+        DataInputStream is = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            long size = file.length();
+            if ( size < 12 || is.readInt() != MAGIC || is.readInt() != VERSION ) {
+                return null;
+            }
+
+            int len = is.readInt();
+            if ( len < 0 || len * 2L > size - 12 ) {
+                return null;
+            }
+
+            char[] chars = new char[len];
+            for ( int j = 0; j < len; j++ ) {
+                chars[j] = is.readChar();
+            }
+
+            return new String(chars);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * read the whole image into a heap buffer.
+     * the image is not memory mapped, a mapping is only released by the gc
+     * and keeps the file locked on windows so the image could not be rebuilt,
+     * the words are copied out of it on load anyway
+    */
+    private static ByteBuffer read( FileChannel channel ) throws IOException
+    {
+        long size = channel.size();
+        if ( size > Integer.MAX_VALUE ) {
+            throw new IOException("Dictionary image too large: " + size);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while ( buf.hasRemaining() && channel.read(buf) != -1 ) {
+            //read till the end
+        }
+
+        buf.flip();
+        return buf;
+    }
+
+    private static void stringId( Map<String, Integer> ids, List<String> strings, String str )
+    {
+        if ( str != null && ! ids.containsKey(str) ) {
+            ids.put(str, strings.size());
+            strings.add(str);
+        }
+    }
+
+    private static void stringIds( Map<String, Integer> ids, List<String> strings, String[] arr )
+    {
+        if ( arr != null ) {
+            for ( String str : arr ) {
+                stringId(ids, strings, str);
+            }
+        }
+    }
+
+    private static int id( Map<String, Integer> ids, String str )
+    {
+        return str == null ? -1 : ids.get(str);
+    }
+
+    private static void writeIds( DataOutputStream out, Map<String, Integer> ids, String[] arr )
+            throws IOException
+    {
+        if ( arr == null ) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(arr.length);
+        for ( String str : arr ) {
+            out.writeInt(id(ids, str));
+        }
+    }
+
+    private static void writeString( DataOutputStream out, String str ) throws IOException
+    {
+        out.writeInt(str.length());
+        out.writeChars(str);
+    }
+
+    private static String readString( ByteBuffer buf )
+    {
+        char[] chars = new char[buf.getInt()];
+        for ( int j = 0; j < chars.length; j++ ) {
+            chars[j] = buf.getChar();
+        }
+
+        return new String(chars);
+    }
+
+    private static String str( String[] strings, int id )
+    {
+        return id == -1 ? null : strings[id];
+    }
+
+    private static String[] strs( String[] strings, ByteBuffer buf )
+    {
+        int len = buf.getInt();
+        if ( len == -1 ) {
+            return null;
+        }
+
+        String[] arr = new String[len];
+        for ( int j = 0; j < len; j++ ) {
+            arr[j] = str(strings, buf.getInt());
+        }
+
+        return arr;
+    }
+}
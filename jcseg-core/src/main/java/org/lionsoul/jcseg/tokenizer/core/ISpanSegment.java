@@ -0,0 +1,23 @@
+package org.lionsoul.jcseg.tokenizer.core;
+
+import java.io.IOException;
+
+/**
+ * Jcseg segment interface of the segmenters that could
+ * segment a span of a char sequence in place
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public interface ISpanSegment extends ISegment
+{
+    /**
+     * reset to the chars [start, end) of the text and segment them
+     * in place without copying them into a new reader, the position
+     * of the words are relative to the start
+     * 
+     * @param   text
+     * @param   start
+     * @param   end
+     */
+    public void reset( CharSequence text, int start, int end ) throws IOException;
+}
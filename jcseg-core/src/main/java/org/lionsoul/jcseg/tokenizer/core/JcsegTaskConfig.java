@@ -27,6 +27,11 @@ public class JcsegTaskConfig implements Cloneable
     public static final int DELIMITER_MODE = 5;
     public static final int NLP_MODE = 6;
     
+    /**the names of the modes, the same as the algorithm names of the analyzers*/
+    public static final String[] MODE_NAMES = {
+        "simple", "complex", "detect", "search", "delimiter", "nlp"
+    };
+    
     /**maximum length for maximum match(5-7)*/
     public int MAX_LENGTH = 5;
     
@@ -101,6 +106,12 @@ public class JcsegTaskConfig implements Cloneable
     
     public boolean KEEP_UNREG_WORDS = false;
     
+    /**
+     * names of the char filters to run ahead of the segmenter
+     * @see org.lionsoul.jcseg.filter.CharFilterReader#createFilter(String)
+    */
+    private String[] charFilters = null;
+    
     private String[] lexPath = null;        /*lexicon directory path array.*/
     private boolean lexAutoload = false;
     private int polltime = 10;
@@ -306,6 +317,12 @@ public class JcsegTaskConfig implements Cloneable
         //load the keep punctuation
         if ( lexPro.getProperty("jcseg.keeppunctuations") != null )
             KEEP_PUNCTUATIONS = lexPro.getProperty("jcseg.keeppunctuations");
+        
+        //char filter pipeline
+        if ( lexPro.getProperty("jcseg.charfilter") != null ) {
+            String filters = lexPro.getProperty("jcseg.charfilter").trim();
+            charFilters = filters.length() == 0 ? null : filters.split("\\s*,\\s*");
+        }
     }
     
     /**return the lexicon directory path*/
@@ -525,12 +542,40 @@ public class JcsegTaskConfig implements Cloneable
         KEEP_UNREG_WORDS = keepUnregWords;
     }
     
+    public String[] getCharFilters()
+    {
+        return charFilters;
+    }
+    
+    public void setCharFilters( String[] charFilters )
+    {
+        this.charFilters = charFilters;
+    }
+    
     //return the currently use properties file
     public String getPropertieFile()
     {
         return pFile;
     }
     
+    /**
+     * get the segmentation mode by its name
+     * 
+     * @param   name one of {@link #MODE_NAMES}
+     * @return  int
+     * @throws  IllegalArgumentException for an unknown name
+    */
+    public static int getMode( String name )
+    {
+        if ( "simple".equals(name) )    return SIMPLE_MODE;
+        if ( "complex".equals(name) )   return COMPLEX_MODE;
+        if ( "detect".equals(name) )    return DETECT_MODE;
+        if ( "search".equals(name) )    return SEARCH_MODE;
+        if ( "delimiter".equals(name) ) return DELIMITER_MODE;
+        if ( "nlp".equals(name) )       return NLP_MODE;
+        throw new IllegalArgumentException("Unknown mode " + name);
+    }
+    
     /**
      * rewrite the clone method
      * 
@@ -0,0 +1,92 @@
+package org.lionsoul.jcseg.tokenizer.core;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * precomputed stop words membership structure.
+ * the first char bitmap and the length range of all the stop words are
+ * checked before the hash lookup, so the most of the tokens are rejected
+ * without hashing their value.
+ * </p>
+ * 
+ * <p>
+ * it is an immutable snapshot of the STOP_WORD lexicon,
+ * use {@link ADictionary#getStopwordSet()} to get the current one.
+ * </p>
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class StopwordSet 
+{
+    //bitmap of the first char of all the stop words
+    private final long[] firstChars = new long[1024];
+    private final Set<String> words;
+    private int minLength = Integer.MAX_VALUE;
+    private int maxLength = 0;
+    
+    /**
+     * the STOP_WORD lexicon version the snapshot is created from
+    */
+    final long version;
+    
+    /**
+     * create the snapshot from the specified stop words
+     * 
+     * @param   keys
+    */
+    public StopwordSet( Set<String> keys )
+    {
+        this(keys, 0);
+    }
+    
+    StopwordSet( Set<String> keys, long version )
+    {
+        this.version = version;
+        words = new HashSet<String>(keys.size() * 2);
+        for ( String key : keys ) {
+            int len = key.length();
+            if ( len == 0 ) {
+                continue;
+            }
+            
+            words.add(key);
+            char c = key.charAt(0);
+            firstChars[c >>> 6] |= (1L << (c & 63));
+            if ( len < minLength ) minLength = len;
+            if ( len > maxLength ) maxLength = len;
+        }
+    }
+    
+    /**
+     * check if the specified word is a stop word
+     * 
+     * @param   word
+     * @return  boolean
+    */
+    public boolean contains( String word )
+    {
+        int len = word.length();
+        if ( len < minLength || len > maxLength ) {
+            return false;
+        }
+        
+        char c = word.charAt(0);
+        if ( (firstChars[c >>> 6] & (1L << (c & 63))) == 0 ) {
+            return false;
+        }
+        
+        return words.contains(word);
+    }
+    
+    /**
+     * return the number of the stop words
+     * 
+     * @return  int
+    */
+    public int size()
+    {
+        return words.size();
+    }
+}
@@ -52,6 +52,15 @@ public class IIntFIFO
         return v;
     }
     
+    /**
+     * remove all the items of the queue
+    */
+    public void clear()
+    {
+        head.next = null;
+        size = 0;
+    }
+    
     /**
      * get the size of the queue
      * 
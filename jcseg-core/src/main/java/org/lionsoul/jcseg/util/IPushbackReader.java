@@ -4,7 +4,7 @@ import java.io.IOException;
 import java.io.Reader;
 
 /**
- * IPushBackReader based on Reader
+ * IPushBackReader based on Reader or a span of a CharSequence
  * Not thread safe support unlimited unread operation
  * 
  * @author chenxin <chenxin619315@gmail.com>
@@ -14,6 +14,14 @@ public class IPushbackReader
     //reader
     private Reader reader = null;
     
+    /**
+     * the chars [pos, end) of the text are read in place
+     * if the reader is created over a CharSequence
+    */
+    private CharSequence text = null;
+    private int pos = 0;
+    private int end = 0;
+    
     //push buffer
     private IIntFIFO queue = null;
     
@@ -23,6 +31,41 @@ public class IPushbackReader
         queue = new IIntFIFO();
     }
     
+    /**
+     * create a reader over the chars [start, end) of the text
+     * without copying them
+     * 
+     * @param   text
+     * @param   start
+     * @param   end
+    */
+    public IPushbackReader( CharSequence text, int start, int end )
+    {
+        queue = new IIntFIFO();
+        reset(text, start, end);
+    }
+    
+    /**
+     * reset the reader to the chars [start, end) of the text,
+     * the unread chars are dropped
+     * 
+     * @param   text
+     * @param   start
+     * @param   end
+    */
+    public void reset( CharSequence text, int start, int end )
+    {
+        if ( start < 0 || end > text.length() || start > end ) {
+            throw new IndexOutOfBoundsException("Invalid span [" + start + ", " + end + ")");
+        }
+        
+        this.reader = null;
+        this.text = text;
+        this.pos  = start;
+        this.end  = end;
+        queue.clear();
+    }
+    
     /**
      * read the next int from the stream this will check the buffer queue first
      * and take the first item of the buffer as the result
@@ -37,6 +80,10 @@ public class IPushbackReader
             return queue.deQueue();
         }
         
+        if ( text != null ) {
+            return pos < end ? text.charAt(pos++) : -1;
+        }
+        
         //load from the normal reader
         return reader.read();
     }
@@ -59,6 +106,15 @@ public class IPushbackReader
             throw new IOException("Method not implemented yet");
         }
         
+        if ( text != null ) {
+            if ( pos >= end ) return -1;
+            int num = Math.min(len, end - pos);
+            for ( int i = 0; i < num; i++ ) {
+                cbuf[off + i] = text.charAt(pos++);
+            }
+            return num;
+        }
+        
         return reader.read(cbuf, off, len);
     }
     
@@ -0,0 +1,77 @@
+package org.lionsoul.jcseg.util;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>
+ * simplified/traditional chinese converting reader
+ * every char read from the underlying reader will be converted
+ * through the {@link STConverter} mapping tables on the fly.
+ * </p>
+ *
+ * <p>
+ * the conversion is one char to one char so the stream positions
+ * of the converted stream are the same as the original one, just wrap
+ * the input reader before pass it to {@link org.lionsoul.jcseg.tokenizer.core.ISegment#reset(Reader)}
+ * and no whole-text conversion is needed any more.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+ */
+public class STConverterReader extends FilterReader
+{
+    /**
+     * convert mode constants
+    */
+    public static final int SIM_TO_TRA = 0;
+    public static final int TRA_TO_SIM = 1;
+
+    private final char[] table;
+
+    /**
+     * create a new converting reader
+     *
+     * @param   in
+     * @param   mode  one of SIM_TO_TRA or TRA_TO_SIM
+    */
+    public STConverterReader( Reader in, int mode )
+    {
+        super(in);
+
+        switch ( mode ) {
+        case SIM_TO_TRA:
+            table = STConverter.S2T_TABLE;
+            break;
+        case TRA_TO_SIM:
+            table = STConverter.T2S_TABLE;
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid convert mode " + mode);
+        }
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int c = in.read();
+        if ( c == -1 ) {
+            return -1;
+        }
+
+        char t = table[c];
+        return t == 0 ? c : t;
+    }
+
+    @Override
+    public int read( char[] cbuf, int off, int len ) throws IOException
+    {
+        int n = in.read(cbuf, off, len);
+        if ( n > 0 ) {
+            STConverter.convert(table, cbuf, off, n);
+        }
+
+        return n;
+    }
+}
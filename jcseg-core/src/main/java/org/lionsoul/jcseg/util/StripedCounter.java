@@ -0,0 +1,94 @@
+package org.lionsoul.jcseg.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * striped long counter for highly concurrent updates.
+ * the value is spread over a number of cells selected by the thread id
+ * so the threads seldom write to the same cache line, the cells are only
+ * summed when the value is read, the same idea as the LongAdder of jdk 8
+ * but still works for the jdk 6 runtime.
+ * </p>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class StripedCounter
+{
+    /**
+     * distance between two cells in longs, 8 longs make up a 64 bytes cache line
+    */
+    private static final int PAD = 8;
+
+    /**
+     * number of the cells, the next power of two of twice the cpu number
+    */
+    private static final int CELLS;
+    static {
+        int n = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+        int cells = 1;
+        while ( cells < n ) {
+            cells <<= 1;
+        }
+        CELLS = cells;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * PAD);
+
+    private static int index()
+    {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & (CELLS - 1)) * PAD;
+    }
+
+    /**
+     * add the specified delta to the counter
+     *
+     * @param   delta
+    */
+    public void add( long delta )
+    {
+        cells.getAndAdd(index(), delta);
+    }
+
+    /**
+     * increase the counter by one
+    */
+    public void increment()
+    {
+        cells.getAndIncrement(index());
+    }
+
+    /**
+     * get the current sum of the counter, the value is not an atomic snapshot
+     * if there are concurrent updates
+     *
+     * @return  long
+    */
+    public long sum()
+    {
+        long sum = 0;
+        for ( int j = 0; j < CELLS; j++ ) {
+            sum += cells.get(j * PAD);
+        }
+
+        return sum;
+    }
+
+    /**
+     * reset the counter to zero
+    */
+    public void reset()
+    {
+        for ( int j = 0; j < CELLS; j++ ) {
+            cells.set(j * PAD, 0);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(sum());
+    }
+}
@@ -0,0 +1,267 @@
+package org.lionsoul.jcseg.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lionsoul.jcseg.extractor.impl.TextRankKeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankSummaryExtractor;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * <p>
+ * JIT warm up routine.
+ * push the bundled synthetic corpus through all the registered tokenizers
+ * and the extractors round by round until the JIT compiler settles down, that is
+ * no compilation time is added for a number of continuous rounds, and then flip
+ * the ready flag. so the node could report ready only after the hot paths are
+ * compiled and the first real requests won't run in the interpreter.
+ * </p>
+ *
+ * <pre>
+ * Warmup warmup = new Warmup();
+ * warmup.addTokenizer(JcsegTaskConfig.COMPLEX_MODE, config, dic);
+ * warmup.addExtractor(config, dic);
+ * warmup.run();    //or warmup.start() to run it in a daemon thread
+ * </pre>
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+ */
+public class Warmup implements Runnable
+{
+    /**
+     * the bundled warm up corpus
+    */
+    public static final String CORPUS = "/warmup/corpus.txt";
+
+    private final List<ISegment> tokenizers = new ArrayList<ISegment>();
+    private TextRankKeywordsExtractor keywordsExtractor = null;
+    private TextRankKeyphraseExtractor keyphraseExtractor = null;
+    private TextRankSummaryExtractor summaryExtractor = null;
+
+    private String corpus = null;
+
+    /**
+     * rounds limitation and the max time in milliseconds
+    */
+    private int minRounds = 10;
+    private int maxRounds = 2000;
+    private long maxTime = 60000;
+
+    /**
+     * number of the continuous rounds without compilation
+     * to consider the compile queue is settled
+    */
+    private int quietRounds = 3;
+
+    private volatile boolean ready = false;
+    private volatile int rounds = 0;
+    private volatile long costTime = 0;
+
+    /**
+     * add a tokenizer to warm up
+     *
+     * @param   mode
+     * @param   config
+     * @param   dic
+     * @return  Warmup
+     * @throws  JcsegException
+    */
+    public Warmup addTokenizer( int mode, JcsegTaskConfig config, ADictionary dic ) throws JcsegException
+    {
+        tokenizers.add(SegmentFactory.createJcseg(mode, new Object[]{config, dic}));
+        return this;
+    }
+
+    /**
+     * warm up the keywords, keyphrase, key sentence and summary extractors
+     * with the specified config and dictionary
+     *
+     * @param   config
+     * @param   dic
+     * @return  Warmup
+     * @throws  JcsegException
+     * @throws  IOException
+    */
+    public Warmup addExtractor( JcsegTaskConfig config, ADictionary dic ) 
+            throws JcsegException, IOException
+    {
+        keywordsExtractor  = new TextRankKeywordsExtractor(SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic}));
+        keyphraseExtractor = new TextRankKeyphraseExtractor(SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic}));
+        summaryExtractor   = new TextRankSummaryExtractor(SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic}), new SentenceSeg());
+        return this;
+    }
+
+    /**
+     * set the corpus text, the bundled corpus will be used if it is not set
+     *
+     * @param   corpus
+    */
+    public void setCorpus( String corpus )
+    {
+        this.corpus = corpus;
+    }
+
+    public void setMinRounds( int minRounds )
+    {
+        this.minRounds = minRounds;
+    }
+
+    public void setMaxRounds( int maxRounds )
+    {
+        this.maxRounds = maxRounds;
+    }
+
+    public void setMaxTime( long maxTime )
+    {
+        this.maxTime = maxTime;
+    }
+
+    public void setQuietRounds( int quietRounds )
+    {
+        this.quietRounds = quietRounds;
+    }
+
+    /**
+     * @return  boolean true if the warm up is finished
+    */
+    public boolean isReady()
+    {
+        return ready;
+    }
+
+    /**
+     * @return  int number of the rounds finished
+    */
+    public int getRounds()
+    {
+        return rounds;
+    }
+
+    /**
+     * @return  long time spent on the warm up in milliseconds
+    */
+    public long getCostTime()
+    {
+        return costTime;
+    }
+
+    /**
+     * start the warm up in a daemon thread
+     *
+     * @return  Thread
+    */
+    public Thread start()
+    {
+        Thread thread = new Thread(this, "jcseg-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * run the warm up rounds until the JIT compiler settles down
+     * or the rounds/time limitation is reached, the ready flag
+     * is set no matter how the rounds end.
+    */
+    @Override
+    public void run()
+    {
+        long start = System.currentTimeMillis();
+        try {
+            String text = corpus == null ? loadCorpus() : corpus;
+            CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+            boolean monitor = jit != null && jit.isCompilationTimeMonitoringSupported();
+            long lastJitTime = monitor ? jit.getTotalCompilationTime() : 0;
+            int quiet = 0;
+
+            while ( rounds < maxRounds && System.currentTimeMillis() - start < maxTime ) {
+                runRound(text);
+                rounds++;
+
+                if ( monitor ) {
+                    long jitTime = jit.getTotalCompilationTime();
+                    quiet = jitTime == lastJitTime ? quiet + 1 : 0;
+                    lastJitTime = jitTime;
+                } else {
+                    quiet++;
+                }
+
+                if ( rounds >= minRounds && quiet >= quietRounds ) {
+                    break;
+                }
+            }
+        } catch ( IOException e ) {
+            e.printStackTrace();
+        } finally {
+            costTime = System.currentTimeMillis() - start;
+            ready = true;
+        }
+    }
+
+    /**
+     * push the text through all the tokenizers and extractors once
+     *
+     * @param   text
+     * @throws  IOException
+    */
+    protected void runRound( String text ) throws IOException
+    {
+        for ( ISegment seg : tokenizers ) {
+            seg.reset(new StringReader(text));
+            while ( seg.next() != null ) {
+                //just consume the tokens
+            }
+        }
+
+        if ( keywordsExtractor != null ) {
+            keywordsExtractor.getKeywords(new StringReader(text));
+            keyphraseExtractor.getKeyphrase(new StringReader(text));
+            summaryExtractor.getKeySentence(new StringReader(text));
+            summaryExtractor.getSummary(new StringReader(text), 86);
+        }
+    }
+
+    /**
+     * load the bundled warm up corpus
+     *
+     * @return  String
+     * @throws  IOException
+    */
+    public static String loadCorpus() throws IOException
+    {
+        InputStream is = Warmup.class.getResourceAsStream(CORPUS);
+        if ( is == null ) {
+            throw new IOException("Missing warm up corpus " + CORPUS);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        Reader reader = new InputStreamReader(is, "UTF-8");
+        try {
+            char[] buff = new char[4096];
+            int len;
+            while ( (len = reader.read(buff)) != -1 ) {
+                sb.append(buff, 0, len);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return sb.toString();
+    }
+}
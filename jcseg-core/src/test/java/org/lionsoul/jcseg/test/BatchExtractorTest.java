@@ -0,0 +1,99 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.extractor.BatchExtractor;
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * batch extractor test, the results of a batch should be the
+ * same as extracting the documents one by one in the input order
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class BatchExtractorTest extends TestCase
+{
+    private static final String[] TEXTS = {
+        "Jcseg是基于mmseg算法的一个轻量级开源中文分词器，同时集成了关键字提取，关键短语提取，关键句子提取和文章自动摘要等功能。",
+        "分布式系统中的缓存可以大幅降低数据库的压力，但是缓存的一致性和过期策略需要仔细设计。",
+        "今天的天气很好，我们一起去公园散步，看到了很多盛开的花朵和在湖边嬉戏的孩子。",
+        "新版本v2.0正式发布了，性能提升了3.5倍。新版本v2.0的内存占用降低了1.5倍，v2.0版本兼容v1.8的接口。"
+    };
+
+    private JcsegTaskConfig config;
+    private ADictionary dic;
+
+    @Override
+    protected void setUp()
+    {
+        config = new JcsegTaskConfig(true);
+        config.setAutoload(false);
+        dic = DictionaryFactory.createDefaultDictionary(config);
+    }
+
+    public void testKeywords() throws JcsegException, IOException
+    {
+        List<String> docs = new ArrayList<String>();
+        for ( int j = 0; j < 30; j++ ) {
+            docs.add(TEXTS[j % TEXTS.length]);
+        }
+
+        TextRankKeywordsExtractor extractor = new TextRankKeywordsExtractor(
+            SegmentFactory.createJcseg(JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic}));
+        extractor.setKeywordsNum(5);
+        List<List<String>> expected = new ArrayList<List<String>>();
+        for ( String doc : docs ) {
+            expected.add(extractor.getKeywordsFromString(doc));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BatchExtractor batch = new BatchExtractor(
+                    config, dic, JcsegTaskConfig.COMPLEX_MODE, executor);
+            batch.setMaxPending(3);
+            for ( int r = 0; r < 2; r++ ) {
+                assertEquals(expected, batch.extract(docs, BatchExtractor.keywords(5)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * the keywords of the shared document analysis are the same as the
+     * keywords of the whole text, the decimals and the versions included
+    */
+    public void testSharedAnalysis() throws JcsegException, IOException
+    {
+        TextRankKeywordsExtractor extractor = new TextRankKeywordsExtractor(
+            SegmentFactory.createJcseg(JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic}));
+        extractor.setKeywordsNum(10);
+        SentenceSeg sentenceSeg = new SentenceSeg();
+        ISegment wordSeg = SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic});
+
+        for ( String text : TEXTS ) {
+            List<String> expected = extractor.getKeywordsFromString(text);
+            DocumentAnalysis doc = DocumentAnalysis.analyze(text, sentenceSeg, wordSeg);
+            assertEquals(expected, extractor.getKeywords(doc));
+        }
+
+        List<String> keywords = extractor.getKeywordsFromString(TEXTS[3]);
+        assertTrue(keywords.contains("v2.0"));
+        assertTrue(keywords.contains("3.5"));
+    }
+}
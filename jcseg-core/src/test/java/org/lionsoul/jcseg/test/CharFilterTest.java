@@ -0,0 +1,171 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.filter.CharFilterReader;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * char filter pipeline test program
+ * the position of every token should point to the same text of the original string
+ * 
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class CharFilterTest extends TestCase
+{
+    
+    /**
+     * a token across the dropped html tags should span to its last char
+     * of the original string instead of the length of the filtered value
+    */
+    public void testTokenEndOffset() throws JcsegException, IOException
+    {
+        String str = "歡迎使用 Jc<b>seg</b> 中文分詞器";
+        
+        JcsegTaskConfig config = new JcsegTaskConfig(true);
+        config.setCharFilters(new String[]{"html", "lowercase"});
+        ADictionary dic = DictionaryFactory.createDefaultDictionary(config, false);
+        
+        int[] modes = new int[]{
+            JcsegTaskConfig.SIMPLE_MODE, 
+            JcsegTaskConfig.COMPLEX_MODE, 
+            JcsegTaskConfig.DELIMITER_MODE
+        };
+        
+        for ( int mode : modes ) {
+            ISegment seg = SegmentFactory.createJcseg(
+                mode, new Object[]{new StringReader(str), config, dic});
+            
+            IWord word = null;
+            boolean found = false;
+            while ( (word = seg.next()) != null ) {
+                if ( ! "jcseg".equals(word.getValue()) ) {
+                    continue;
+                }
+                
+                found = true;
+                assertEquals(5, word.getPosition());
+                assertEquals(8, word.getLength());
+                assertEquals("Jc<b>seg", str.substring(
+                        word.getPosition(), word.getPosition() + word.getLength()));
+            }
+            
+            assertTrue("no jcseg token for mode " + mode, found);
+        }
+    }
+
+    /**
+     * filter the string through the html filter with the specified read block size,
+     * 0 for the single char read
+    */
+    private static String strip( String str, int block ) throws IOException
+    {
+        CharFilterReader reader = CharFilterReader.create(
+                new StringReader(str), new String[]{"html"});
+        StringBuilder sb = new StringBuilder();
+        if ( block == 0 ) {
+            int c;
+            while ( (c = reader.read()) != -1 ) {
+                sb.append((char) c);
+            }
+        } else {
+            char[] buff = new char[block];
+            int len;
+            while ( (len = reader.read(buff, 0, block)) != -1 ) {
+                sb.append(buff, 0, len);
+            }
+        }
+        
+        reader.close();
+        return sb.toString();
+    }
+    
+    private static void assertStrip( String expected, String str ) throws IOException
+    {
+        //every block size puts the '<' at the end of a block somewhere
+        for ( int block = 0; block <= str.length() + 1; block++ ) {
+            assertEquals("block " + block, expected, strip(str, block));
+        }
+    }
+    
+    /**
+     * a '<' that does not start a tag is plain text
+    */
+    public void testHtmlPlainLessThan() throws IOException
+    {
+        assertStrip("1<2 and 3>2", "1<2 and 3>2");
+        assertStrip("a < b and c > d", "a < b and c > d");
+        assertStrip("x<=y, y>=z", "x<=y, y>=z");
+        assertStrip("<", "<");
+        assertStrip("a<", "a<");
+        assertStrip("价格<100元", "价格<100元");
+    }
+    
+    public void testHtmlTags() throws IOException
+    {
+        assertStrip("hello world", "<p>hello <b>world</b></p>");
+        assertStrip("ab", "a<!-- note -->b");
+        assertStrip("text", "<?xml version=\"1.0\"?>text");
+        assertStrip("1<2 bold", "1<2 <b>bold</b>");
+        assertStrip("a", "a<br");
+    }
+    
+    /**
+     * the offsets are mapped back around the plain '<' kept
+    */
+    public void testHtmlOffset() throws IOException
+    {
+        String str = "<i>1<2</i>x";
+        CharFilterReader reader = CharFilterReader.create(
+                new StringReader(str), new String[]{"html"});
+        char[] buff = new char[4];
+        StringBuilder sb = new StringBuilder();
+        int len;
+        while ( (len = reader.read(buff, 0, buff.length)) != -1 ) {
+            sb.append(buff, 0, len);
+        }
+        
+        assertEquals("1<2x", sb.toString());
+        assertEquals(str.indexOf('1'), reader.correctOffset(0));
+        assertEquals(str.indexOf('<', 1), reader.correctOffset(1));
+        assertEquals(str.indexOf('x'), reader.correctOffset(3));
+        reader.close();
+    }
+
+    public static void main(String[] args) 
+    {
+        String str = "<p>歡迎使用<b>Jcseg</b>中文分詞器, ＪＡＶＡ是一門很好的編程語言.</p>";
+        
+        JcsegTaskConfig config = new JcsegTaskConfig(true);
+        config.setCharFilters(new String[]{"html", "t2s", "fullwidth", "lowercase"});
+        ADictionary dic = DictionaryFactory.createDefaultDictionary(config);
+        
+        try {
+            ISegment seg = SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, 
+                new Object[]{new StringReader(str), config, dic}
+            );
+            
+            IWord word = null;
+            while ( (word = seg.next()) != null ) {
+                int pos = word.getPosition();
+                System.out.println(word.getValue() + "[" + pos + "] -> " 
+                        + str.substring(pos, Math.min(pos + word.getLength(), str.length())));
+            }
+        } catch (JcsegException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
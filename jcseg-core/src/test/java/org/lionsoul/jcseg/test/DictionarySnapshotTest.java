@@ -0,0 +1,99 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.DictionarySnapshot;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+
+/**
+ * dictionary image save, load and rebuild test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class DictionarySnapshotTest extends TestCase
+{
+    private JcsegTaskConfig config;
+    private File image;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        config = new JcsegTaskConfig(true);
+        config.setAutoload(false);
+        image = File.createTempFile("jcseg-snapshot", ".dic");
+        image.delete();
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        image.delete();
+    }
+
+    private static void assertSameWords(ADictionary expected, ADictionary dic)
+    {
+        for ( int t = 0; t < ILexicon.T_LEN; t++ ) {
+            assertEquals(expected.size(t), dic.size(t));
+        }
+    }
+
+    public void testLoad()
+    {
+        ADictionary built = DictionaryFactory.createSnapshotDictionary(config, image, true);
+        assertTrue(image.exists());
+        assertTrue(built.size(ILexicon.CJK_WORD) > 0);
+
+        ADictionary loaded = DictionaryFactory.createSnapshotDictionary(config, image);
+        assertSameWords(built, loaded);
+        assertEquals(built.mixPrefixLength, loaded.mixPrefixLength);
+        assertEquals(built.mixSuffixLength, loaded.mixSuffixLength);
+    }
+
+    /**
+     * a truncated image fails half way of the load, the partially loaded
+     * words should be discarded and the image rebuilt from the lexicons
+    */
+    public void testBrokenImage() throws IOException
+    {
+        ADictionary built = DictionaryFactory.createSnapshotDictionary(config, image, true);
+        long length = image.length();
+
+        RandomAccessFile raf = new RandomAccessFile(image, "rw");
+        try {
+            raf.setLength(length * 3 / 4);
+        } finally {
+            raf.close();
+        }
+
+        ADictionary loaded = DictionaryFactory.createSnapshotDictionary(config, image);
+        assertSameWords(built, loaded);
+        assertEquals(length, image.length());
+    }
+
+    /**
+     * the fingerprint is read from the header only,
+     * a header with a bad string length is not an image
+    */
+    public void testFingerprint() throws IOException
+    {
+        DictionaryFactory.createSnapshotDictionary(config, image, true);
+        assertEquals(DictionarySnapshot.fingerprint(config), DictionarySnapshot.readFingerprint(image));
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(image));
+        out.writeInt(DictionarySnapshot.MAGIC);
+        out.writeInt(DictionarySnapshot.VERSION);
+        out.writeInt(1 << 20);
+        out.writeChars("abc");
+        out.close();
+        assertNull(DictionarySnapshot.readFingerprint(image));
+    }
+}
@@ -0,0 +1,128 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.extractor.IDFModel;
+import org.lionsoul.jcseg.extractor.IDFModelBuilder;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+
+/**
+ * term statistics file save and load test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class IDFModelTest extends TestCase
+{
+    private File file;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        file = File.createTempFile("jcseg-idf", ".bin");
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        file.delete();
+    }
+
+    /**
+     * every term gets its document frequency back,
+     * the terms of the same hash code included
+    */
+    public void testRoundTrip() throws IOException
+    {
+        Map<String, Integer> df = new HashMap<String, Integer>();
+        for ( int j = 0; j < 1000; j++ ) {
+            df.put("词" + j, j % 50 + 1);
+        }
+        df.put("Aa", 3);
+        df.put("BB", 7);
+        df.put("", 2);
+
+        //save over an existing file
+        IDFModel.save(file, 100, df);
+        IDFModel model = IDFModel.load(file);
+        assertEquals(100, model.getDocNum());
+        assertEquals(df.size(), model.getTermNum());
+        for ( Map.Entry<String, Integer> e : df.entrySet() ) {
+            assertEquals(e.getKey(), e.getValue().intValue(), model.df(e.getKey()));
+        }
+
+        assertEquals(0, model.df("词1000"));
+        assertEquals(0, model.df("Ab"));
+        assertEquals(Math.log(101.0 / 8) + 1, model.idf("BB"), 1E-9);
+        assertEquals(Math.log(101.0) + 1, model.idf("missing"), 1E-9);
+        assertTrue(model.idf("missing") > model.idf("词49"));
+    }
+
+    /**
+     * the builder counts the documents of the terms the
+     * keywords extractor keeps, once per document
+    */
+    public void testBuild() throws IOException
+    {
+        JcsegTaskConfig config = new JcsegTaskConfig(true);
+        config.setAutoload(false);
+        ADictionary dic = DictionaryFactory.createDefaultDictionary(config, false);
+        dic.add(ILexicon.CJK_WORD, "我们", IWord.T_CJK_WORD).setPartSpeech(new String[]{"r"});
+
+        File corpus = File.createTempFile("jcseg-corpus", ".txt");
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(corpus), "UTF-8");
+            writer.write("春山 秋水 春山 x 我们\n");
+            writer.write("春山 冬雪 y\n");
+            writer.write("\n");
+            writer.write("秋水 我们\n");
+            writer.close();
+
+            IDFModelBuilder builder = new IDFModelBuilder(config, dic, JcsegTaskConfig.DELIMITER_MODE, 2);
+            assertEquals(3, builder.build(Arrays.asList(corpus), file));
+        } finally {
+            corpus.delete();
+        }
+
+        IDFModel model = IDFModel.load(file);
+        assertEquals(3, model.getDocNum());
+        assertEquals(2, model.df("春山"));
+        assertEquals(2, model.df("秋水"));
+        assertEquals(1, model.df("冬雪"));
+        assertEquals(0, model.df("x"));
+        assertEquals(0, model.df("我们"));
+    }
+
+    public void testEmpty() throws IOException
+    {
+        IDFModel.save(file, 0, new HashMap<String, Integer>());
+        IDFModel model = IDFModel.load(file);
+        assertEquals(0, model.getTermNum());
+        assertEquals(0, model.df("词"));
+    }
+
+    public void testInvalidFile() throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[32]);
+        out.close();
+
+        try {
+            IDFModel.load(file);
+            fail("the invalid file should not be loaded");
+        } catch ( IOException e ) {
+        }
+    }
+}
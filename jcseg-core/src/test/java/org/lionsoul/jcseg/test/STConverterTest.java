@@ -1,21 +1,74 @@
 package org.lionsoul.jcseg.test;
 
-import org.lionsoul.jcseg.util.STConverter;
+import java.io.IOException;
+import java.io.StringReader;
 
-public class STConverterTest {
+import junit.framework.TestCase;
 
-    /**
-     * @param args
-     */
-    public static void main(String[] args) {
+import org.lionsoul.jcseg.util.STConverter;
+import org.lionsoul.jcseg.util.STConverterReader;
+
+/**
+ * simplified and traditional chinese converter test
+ * 
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class STConverterTest extends TestCase
+{
+    private static final String SIM = "Jcseg简体中文, 欢迎使用, 国家发展与编程学习.";
+    private static final String TRA = "Jcseg簡體中文, 歡迎使用, 國家發展與編程學習.";
+    
+    public void testSimToTraditional()
+    {
+        assertEquals(TRA, STConverter.SimToTraditional(SIM));
+        assertEquals('體', STConverter.SimToTraditional('体'));
         
-        String str = "Jcseg中文分词器, java是一门很好的编程语言.";
-        System.out.println("str = " + str);
+        //the chars without a traditional form are kept
+        assertEquals('中', STConverter.SimToTraditional('中'));
+        assertEquals('J', STConverter.SimToTraditional('J'));
+        assertEquals("java, 123.", STConverter.SimToTraditional("java, 123."));
+    }
+    
+    public void testTraToSimplified()
+    {
+        assertEquals(SIM, STConverter.TraToSimplified(TRA));
+        assertEquals('体', STConverter.TraToSimplified('體'));
+        assertEquals('中', STConverter.TraToSimplified('中'));
         
-        String tra = STConverter.SimToTraditional(str);
-        System.out.println("Simplified to traditional: " + tra);
+        //simplified text stays the same
+        assertEquals(SIM, STConverter.TraToSimplified(SIM));
+    }
+    
+    public void testBuffer()
+    {
+        char[] buff = TRA.toCharArray();
+        STConverter.TraToSimplified(buff, 5, 4);
+        assertEquals("Jcseg简体中文, 歡迎使用, 國家發展與編程學習.", new String(buff));
+    }
+    
+    /**
+     * the streaming conversion gives the same text for any read size
+    */
+    public void testReader() throws IOException
+    {
+        for ( int size = 1; size <= TRA.length() + 1; size++ ) {
+            assertEquals(SIM, read(new STConverterReader(
+                    new StringReader(TRA), STConverterReader.TRA_TO_SIM), size));
+            assertEquals(TRA, read(new STConverterReader(
+                    new StringReader(SIM), STConverterReader.SIM_TO_TRA), size));
+        }
+    }
+    
+    private static String read( STConverterReader reader, int size ) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        char[] buff = new char[size];
+        int len;
+        while ( (len = reader.read(buff, 0, buff.length)) != -1 ) {
+            sb.append(buff, 0, len);
+        }
         
-        String sim = STConverter.TraToSimplified(tra);
-        System.out.println("Traditional to simplified: " + sim);
+        reader.close();
+        return sb.toString();
     }
 }
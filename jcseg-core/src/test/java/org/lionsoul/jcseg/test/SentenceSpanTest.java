@@ -0,0 +1,172 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
+import org.lionsoul.jcseg.sentence.Sentence;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * sentence span and in place segment test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class SentenceSpanTest extends TestCase
+{
+    private static final String TEXT = "  歌曲很好听。 jcseg 是中文分词器！\n最后一句  ";
+
+    private JcsegTaskConfig config;
+    private ADictionary dic;
+
+    @Override
+    protected void setUp()
+    {
+        config = new JcsegTaskConfig(true);
+        dic = DictionaryFactory.createDefaultDictionary(config, false);
+        dic.add(ILexicon.CJK_WORD, "歌曲", IWord.T_CJK_WORD);
+        dic.add(ILexicon.CJK_WORD, "中文", IWord.T_CJK_WORD);
+        dic.add(ILexicon.CJK_WORD, "分词器", IWord.T_CJK_WORD);
+    }
+
+    /**
+     * the span sentences have the same value and position as the copied ones
+    */
+    public void testNextSpan() throws IOException
+    {
+        SentenceSeg sentenceSeg = new SentenceSeg(new StringReader(TEXT));
+        List<Sentence> copied = new ArrayList<Sentence>();
+        Sentence sen = null;
+        while ( (sen = sentenceSeg.next()) != null ) {
+            copied.add(sen);
+        }
+
+        sentenceSeg.reset(TEXT);
+        List<Sentence> spans = new ArrayList<Sentence>();
+        while ( (sen = sentenceSeg.nextSpan()) != null ) {
+            assertSame(TEXT, sen.getSource());
+            spans.add(sen);
+        }
+
+        assertTrue(copied.size() > 1);
+        assertEquals(copied.size(), spans.size());
+        for ( int j = 0; j < copied.size(); j++ ) {
+            Sentence c = copied.get(j), s = spans.get(j);
+            assertEquals(c.getValue(), s.getValue());
+            assertEquals(c.getPosition(), s.getPosition());
+            assertEquals(c.getLength(), s.getLength());
+        }
+
+        //a reader reset after a text reset copies again
+        sentenceSeg.reset(new StringReader(TEXT));
+        sen = sentenceSeg.nextSpan();
+        assertNull(sen.getSource());
+        assertEquals(copied.get(0).getValue(), sen.getValue());
+    }
+
+    /**
+     * the char after a dot is never lost, the decimals and the
+     * versions stay in one sentence and the spans rebuild the text
+    */
+    public void testDotSpans() throws IOException
+    {
+        String text = "新版本v2.0正式发布了，性能提升了3.5倍。价格是1.5元！见www.jcseg.org.好的";
+        SentenceSeg sentenceSeg = new SentenceSeg();
+        sentenceSeg.reset(text);
+        StringBuilder sb = new StringBuilder();
+        List<String> values = new ArrayList<String>();
+        Sentence sen = null;
+        while ( (sen = sentenceSeg.nextSpan()) != null ) {
+            assertEquals(sb.length(), sen.getPosition());
+            sb.append(sen.getValue());
+            values.add(sen.getValue());
+        }
+
+        assertEquals(text, sb.toString());
+        assertEquals("新版本v2.0正式发布了，性能提升了3.5倍。", values.get(0));
+        assertEquals("价格是1.5元！", values.get(1));
+        assertEquals("见www.jcseg.org.", values.get(2));
+        assertEquals("好的", values.get(3));
+
+        //the copied sentences are the same
+        sentenceSeg.reset(new StringReader(text));
+        for ( String value : values ) {
+            assertEquals(value, sentenceSeg.next().getValue());
+        }
+        assertNull(sentenceSeg.next());
+    }
+
+    /**
+     * the words of the document analysis over the sentence spans are
+     * the same as the words of the whole text, the decimals and the
+     * versions included
+    */
+    public void testAnalysisWords() throws JcsegException, IOException
+    {
+        String text = "新版本v2.0正式发布了，性能提升了3.5倍。价格是1.5元！兼容v1.8的接口.好的";
+        ISegment seg = SegmentFactory.createJcseg(
+                JcsegTaskConfig.COMPLEX_MODE, new Object[]{config, dic});
+        seg.reset(new StringReader(text));
+        List<String> expected = words(seg);
+        assertTrue(expected.contains("v2.0/3"));
+        assertTrue(expected.contains("3.5/18"));
+
+        DocumentAnalysis doc = DocumentAnalysis.analyze(text, new SentenceSeg(), seg);
+        List<String> analysed = new ArrayList<String>();
+        for ( int j = 0; j < doc.getWordNum(); j++ ) {
+            IWord word = doc.getWord(j);
+            analysed.add(word.getValue() + "/" + word.getPosition());
+        }
+
+        assertEquals(expected, analysed);
+    }
+
+    /**
+     * the in place segment of a span gets the same words and
+     * positions relative to the span start as a copied sentence
+    */
+    public void testSpanReset() throws JcsegException, IOException
+    {
+        int[] modes = {JcsegTaskConfig.COMPLEX_MODE, JcsegTaskConfig.DELIMITER_MODE};
+        for ( int mode : modes ) {
+            ISegment seg = SegmentFactory.createJcseg(mode, new Object[]{config, dic});
+            assertTrue(seg instanceof ISpanSegment);
+
+            SentenceSeg sentenceSeg = new SentenceSeg();
+            sentenceSeg.reset(TEXT);
+            Sentence sen = null;
+            while ( (sen = sentenceSeg.nextSpan()) != null ) {
+                int start = sen.getPosition();
+                seg.reset(new StringReader(sen.getValue()));
+                List<String> expected = words(seg);
+
+                ((ISpanSegment) seg).reset(TEXT, start, start + sen.getLength());
+                assertEquals(expected, words(seg));
+            }
+        }
+    }
+
+    private static List<String> words( ISegment seg ) throws IOException
+    {
+        List<String> words = new ArrayList<String>();
+        IWord word = null;
+        while ( (word = seg.next()) != null ) {
+            words.add(word.getValue() + "/" + word.getPosition());
+        }
+
+        return words;
+    }
+}
@@ -0,0 +1,140 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.extractor.impl.SlidingWindowKeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * sliding window keywords extractor test, the keywords of the window
+ * should be the same as a fresh textRank run over the words in the window
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class SlidingWindowKeywordsTest extends TestCase
+{
+    private static final int CAPACITY = 200;
+    private static final int KEYWORDS_NUM = 5;
+
+    private JcsegTaskConfig config;
+    private ADictionary dic;
+    private SlidingWindowKeywordsExtractor sliding;
+    private TextRankKeywordsExtractor fresh;
+
+    /**
+     * the words of the stream in order, the window is the last CAPACITY of them
+    */
+    private List<String> stream;
+
+    @Override
+    protected void setUp() throws JcsegException
+    {
+        config = new JcsegTaskConfig(true);
+        config.setAutoload(false);
+        dic = DictionaryFactory.createDefaultDictionary(config, false);
+
+        //the words are separated by spaces and segmented as they are
+        sliding = new SlidingWindowKeywordsExtractor(SegmentFactory.createJcseg(
+                JcsegTaskConfig.DELIMITER_MODE, new Object[]{config, dic}), CAPACITY);
+        sliding.setKeywordsNum(KEYWORDS_NUM);
+        fresh = new TextRankKeywordsExtractor(SegmentFactory.createJcseg(
+                JcsegTaskConfig.DELIMITER_MODE, new Object[]{config, dic}));
+        fresh.setKeywordsNum(KEYWORDS_NUM);
+        stream = new ArrayList<String>();
+    }
+
+    /**
+     * a skewed random stream of the words from a vocabulary of 40 terms
+    */
+    private static List<String> words(Random random, int num)
+    {
+        String first = "春夏秋冬东南西北";
+        String second = "山水花鸟云";
+        List<String> words = new ArrayList<String>(num);
+        for ( int j = 0; j < num; j++ ) {
+            double r = random.nextDouble();
+            int idx = (int) (first.length() * second.length() * r * r);
+            words.add("" + first.charAt(idx / second.length()) + second.charAt(idx % second.length()));
+        }
+
+        return words;
+    }
+
+    private static String join(List<String> words)
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( String word : words ) {
+            sb.append(word).append(' ');
+        }
+
+        return sb.toString();
+    }
+
+    private void append(List<String> words) throws IOException
+    {
+        sliding.append(new StringReader(join(words)));
+        stream.addAll(words);
+    }
+
+    private void assertWindow() throws IOException
+    {
+        List<String> window = stream.subList(Math.max(0, stream.size() - CAPACITY), stream.size());
+        assertEquals(window.size(), sliding.getTokenNum());
+        assertEquals(fresh.getKeywordsFromString(join(window)), sliding.getKeywords());
+    }
+
+    /**
+     * append far past the capacity so the words expire and the ids
+     * are reused, the ranking is checked after every chunk
+    */
+    public void testAppendAndEvict() throws IOException
+    {
+        Random random = new Random(7);
+        for ( int r = 0; r < 40; r++ ) {
+            append(words(random, 1 + random.nextInt(60)));
+            assertWindow();
+        }
+
+        assertTrue(stream.size() > CAPACITY * 3);
+        assertTrue(sliding.getTermNum() <= 40);
+    }
+
+    /**
+     * the words expired by the caller and a cleared window
+    */
+    public void testEvict() throws IOException
+    {
+        Random random = new Random(11);
+        append(words(random, 300));
+        assertWindow();
+
+        //expire the oldest half of the window
+        sliding.evict(CAPACITY / 2);
+        List<String> window = new ArrayList<String>(stream.subList(stream.size() - CAPACITY / 2, stream.size()));
+        stream = window;
+        assertWindow();
+
+        append(words(random, 30));
+        assertWindow();
+
+        sliding.clear();
+        assertEquals(0, sliding.getTokenNum());
+        assertEquals(0, sliding.getTermNum());
+        assertTrue(sliding.getKeywords().isEmpty());
+
+        stream.clear();
+        append(words(random, 50));
+        assertWindow();
+    }
+}
@@ -0,0 +1,100 @@
+package org.lionsoul.jcseg.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * stop words, synonyms and pinyin token filters test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class TokenFilterTest extends TestCase
+{
+    private JcsegTaskConfig config;
+    private ADictionary dic;
+
+    @Override
+    protected void setUp()
+    {
+        config = new JcsegTaskConfig(true);
+        config.setClearStopwords(true);
+        config.setAppendCJKSyn(true);
+        config.setLoadCJKSyn(true);
+
+        dic = DictionaryFactory.createDefaultDictionary(config, false);
+        dic.add(ILexicon.CJK_WORD, "卡拉", IWord.T_CJK_WORD);
+        dic.add(ILexicon.MIX_ASSIST_WORD, "卡拉", IWord.T_MIXED_WORD);
+        dic.add(ILexicon.CJK_WORD, "卡拉ok", IWord.T_MIXED_WORD);
+        dic.add(ILexicon.CJK_WORD, "歌曲", IWord.T_CJK_WORD).setSyn(new String[]{"歌儿"});
+        dic.mixPrefixLength = 2;
+    }
+
+    private List<String> segment( String str ) throws JcsegException, IOException
+    {
+        ISegment seg = SegmentFactory.createJcseg(
+            JcsegTaskConfig.COMPLEX_MODE, new Object[]{new StringReader(str), config, dic});
+
+        List<String> words = new ArrayList<String>();
+        IWord word = null;
+        while ( (word = seg.next()) != null ) {
+            words.add(word.getValue());
+        }
+
+        return words;
+    }
+
+    /**
+     * a stop word is cleared before the mixed word check
+     * so it never merges into the following Latin word
+    */
+    public void testStopwordBeforeMixedWord() throws JcsegException, IOException
+    {
+        assertTrue(segment("卡拉ok").contains("卡拉ok"));
+
+        dic.add(ILexicon.STOP_WORD, "卡拉", IWord.T_CJK_WORD);
+        List<String> words = segment("卡拉ok");
+        assertFalse(words.contains("卡拉ok"));
+        assertFalse(words.contains("卡拉"));
+        assertTrue(words.contains("ok"));
+    }
+
+    /**
+     * the stop words changes take effect on the next segment
+    */
+    public void testStopwordChange() throws JcsegException, IOException
+    {
+        assertTrue(segment("歌曲").contains("歌曲"));
+
+        dic.add(ILexicon.STOP_WORD, "歌曲", IWord.T_CJK_WORD);
+        assertFalse(segment("歌曲").contains("歌曲"));
+
+        dic.remove(ILexicon.STOP_WORD, "歌曲");
+        assertTrue(segment("歌曲").contains("歌曲"));
+    }
+
+    /**
+     * the synonyms of the CJK words are appended only when they are loaded
+    */
+    public void testCJKSynonyms() throws JcsegException, IOException
+    {
+        assertTrue(segment("歌曲").contains("歌儿"));
+
+        config.setLoadCJKSyn(false);
+        List<String> words = segment("歌曲");
+        assertTrue(words.contains("歌曲"));
+        assertFalse(words.contains("歌儿"));
+    }
+}
@@ -22,6 +22,7 @@ import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
 import org.lionsoul.jcseg.tokenizer.core.JcsegException;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.util.Warmup;
 
 /**
  * Registers indices level analysis components so, if not explicitly configured, will be shared
@@ -29,6 +30,12 @@ import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
  */
 public class JcsegIndicesAnalysis extends AbstractComponent
 {
+    private static final int[] SEG_MODES = {
+        JcsegTaskConfig.SIMPLE_MODE, JcsegTaskConfig.COMPLEX_MODE,
+        JcsegTaskConfig.DETECT_MODE, JcsegTaskConfig.SEARCH_MODE,
+        JcsegTaskConfig.DELIMITER_MODE, JcsegTaskConfig.NLP_MODE
+    };
+    
     @Inject
     public JcsegIndicesAnalysis(Settings settings, IndicesAnalysisService indicesAnalysisService)
     {
@@ -152,5 +159,51 @@ public class JcsegIndicesAnalysis extends AbstractComponent
                 return tokenStream;
             }
         }));
+        
+        /*
+         * JIT warm up all the segmentation modes and the extractors in a
+         * daemon thread so the node start is never blocked by it.
+         * set jcseg.warmup to false in elasticsearch.yml to disable it
+        */
+        if ( settings.getAsBoolean("jcseg.warmup", true) ) {
+            warmup(config, dic, settings.getAsLong("jcseg.warmup_max_time", 60000L));
+        }
+    }
+    
+    /**
+     * start the warm up routine for all the segmentation modes
+     * in a daemon thread and log the result once it is done
+     * 
+     * @param   config
+     * @param   dic
+     * @param   maxTime
+    */
+    private void warmup(JcsegTaskConfig config, ADictionary dic, long maxTime)
+    {
+        final Warmup warmup = new Warmup();
+        warmup.setMaxTime(maxTime);
+        try {
+            for ( int mode : SEG_MODES ) {
+                warmup.addTokenizer(mode, config, dic);
+            }
+            warmup.addExtractor(config, dic);
+        } catch (JcsegException e) {
+            logger.warn("jcseg warm up failed", e);
+            return;
+        } catch (IOException e) {
+            logger.warn("jcseg warm up failed", e);
+            return;
+        }
+        
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmup.run();
+                logger.info("jcseg warm up finished with {} rounds in {}ms", 
+                        warmup.getRounds(), warmup.getCostTime());
+            }
+        }, "jcseg-warmup");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
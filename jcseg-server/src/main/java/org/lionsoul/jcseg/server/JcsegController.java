@@ -10,9 +10,13 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.server.Request;
 import org.lionsoul.jcseg.server.core.Controller;
 import org.lionsoul.jcseg.server.core.GlobalResource;
-import org.lionsoul.jcseg.server.core.JSONWriter;
+import org.lionsoul.jcseg.server.core.JSONStreamWriter;
 import org.lionsoul.jcseg.server.core.ServerConfig;
+import org.lionsoul.jcseg.server.core.StandardHandler;
 import org.lionsoul.jcseg.server.core.UriEntry;
+import org.lionsoul.jcseg.server.util.ResultCache;
+import org.lionsoul.jcseg.server.util.SingleFlight;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
 
 public class JcsegController extends Controller
 {
@@ -25,6 +29,11 @@ public class JcsegController extends Controller
     public static final int STATUS_DUPLICATE = 5;       //operation duplicate
     public static final int STATUS_ACCESS_DENY = 6;     //privileges deny
     
+    /**
+     * the computations in flight by their keys
+    */
+    private static final SingleFlight flights = new SingleFlight();
+    
     public JcsegController(
             ServerConfig setting,
             GlobalResource resourcePool, 
@@ -38,39 +47,215 @@ public class JcsegController extends Controller
 
 
     /**
-     * global output protocol
+     * a computation of a result and the answer of the request with it,
+     * the results are cached by {@link JcsegController#cached(Computation, Object...)}
+    */
+    protected static abstract class Computation
+    {
+        /**
+         * @return  Object the result, null for not to cache
+         * @throws  IOException
+         * @throws  JcsegException
+        */
+        protected abstract Object compute() throws IOException, JcsegException;
+        
+        /**
+         * answer the request with the result, invoked by the thread 
+         * that computed the result if the request waited for it
+         * 
+         * @param   result
+         * @throws  IOException
+        */
+        protected abstract void respond(Object result) throws IOException;
+    }
+    
+    /**
+     * answer the request with the result of the specified key from the 
+     * result cache, or compute and cache it if it is not cached yet.
+     * the key is all the things that make the result, the endpoint, 
+     * the tokenizer, the arguments and the text.
+     * 
+     * the concurrent requests of the same key share one computation,
+     * the first one computes and the rest are detached and answered by
+     * the thread of the first one once it is done, so a burst of the same
+     * text costs one segmentation and holds one worker only.
+     * 
+     * @param   computation
+     * @param   key
+     * @throws  IOException
+    */
+    protected void cached(final Computation computation, Object... key) throws IOException
+    {
+        ResultCache cache = null;
+        if ( globalResource instanceof JcsegGlobalResource ) {
+            cache = ((JcsegGlobalResource)globalResource).getResultCache();
+        }
+        
+        String cacheKey = cacheKey(key);
+        if ( cache != null ) {
+            Object result = cache.get(cacheKey);
+            if ( result != null ) {
+                computation.respond(result);
+                return;
+            }
+        }
+        
+        /*
+         * detach the request before joining the flight, 
+         * the leader could answer it as soon as it is attached
+        */
+        final Runnable finisher = detach();
+        if ( finisher == null ) {
+            try {
+                computation.respond(compute(computation, cache, cacheKey));
+            } catch (JcsegException e) {
+                response(STATUS_INTERNEL_ERROR, "Internal error...");
+            }
+            return;
+        }
+        
+        SingleFlight.Flight flight = flights.join(cacheKey, new SingleFlight.Waiter() {
+            @Override
+            public void done(Object result, Throwable error) {
+                complete(computation, result, error, finisher);
+            }
+        });
+        if ( flight == null ) {
+            return;
+        }
+        
+        /*
+         * cache the result before the flight lands,
+         * so the requests coming after it always find the result
+        */
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = compute(computation, cache, cacheKey);
+        } catch (Throwable e) {
+            error = e;
+        }
+        
+        flight.land(result, error);
+        complete(computation, result, error, finisher);
+    }
+    
+    private static Object compute(Computation computation, ResultCache cache, String key) 
+            throws IOException, JcsegException
+    {
+        Object result = computation.compute();
+        if ( cache != null && result != null ) {
+            cache.put(key, result);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * answer the detached request with the result or the error 
+     * of its computation and finish it
+    */
+    private void complete(Computation computation, 
+            Object result, Throwable error, Runnable finisher)
+    {
+        try {
+            if ( error == null ) {
+                computation.respond(result);
+            } else if ( error instanceof JcsegException ) {
+                response(STATUS_INTERNEL_ERROR, "Internal error...");
+            } else {
+                failed(error);
+            }
+        } catch (Throwable e) {
+            failed(e);
+        } finally {
+            finisher.run();
+        }
+    }
+    
+    /**
+     * report the failed request the same way as the handler does
+    */
+    private void failed(Throwable e)
+    {
+        System.err.println("+-[Error]: failed to handle request " 
+                + request.getRequestURI() + " with " + getClass().getName() + ": " + e);
+        request.setAttribute(StandardHandler.ERROR_ATTRIBUTE, Boolean.TRUE);
+        if ( ! response.isCommitted() ) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * @return  long number of the requests that shared
+     * the computation of a concurrent request of the same key
+    */
+    public static long getCoalesced()
+    {
+        return flights.getCoalesced();
+    }
+    
+    /**
+     * join the parts of the key with the NUL char
+     * 
+     * @param   key
+     * @return  String
+    */
+    protected static String cacheKey(Object... key)
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int j = 0; j < key.length; j++ ) {
+            if ( j > 0 ) {
+                sb.append('\u0000');
+            }
+            sb.append(key[j]);
+        }
+        
+        return sb.toString();
+    }
+
+    /**
+     * global output protocol, the response is streamed to the 
+     * output stream of the response as it is serialized
      * 
      * @param    code
      * @param    data
+     * @throws   IOException 
     */
-    protected void response( int code, String data )
-    {    
+    protected void response(int code, Object data) throws IOException
+    {
         /*
          * send the json content type and the charset 
         */
         response.setContentType("application/json;charset="+config.getCharset());
         
-        JSONWriter json = JSONWriter.create()
-                    .put("code", code)
-                        .put("data", data);
-        
-        /*IStringBuffer sb = new IStringBuffer();
-        sb.append("{\n");
-        sb.append("\"status\": ").append(status).append(",\n");
-        sb.append("\"errcode\": ").append(errcode).append(",\n");
-        sb.append("\"data\": ");
-        if ( data.charAt(0) == '{' || data.charAt(0) == '[' ) {
-            sb.append(data).append('\n');
-        } else {
-            sb.append('"').append(data).append("\"\n");
+        //the internal errors are answered with 200, mark them for the metrics
+        if ( code == STATUS_INTERNEL_ERROR ) {
+            request.setAttribute(StandardHandler.ERROR_ATTRIBUTE, Boolean.TRUE);
         }
-        sb.append("}\n");*/
         
-        output.println(json.toString());
-        output.flush();
-        
-        //let the gc do its work
-        json = null;
+        JSONStreamWriter json = JSONStreamWriter.create(
+                response.getOutputStream(), config.getCharset());
+        try {
+            json.beginObject()
+                .key("code").value(code)
+                .key("data").value(data)
+            .endObject().raw("\n");
+        } finally {
+            json.close();
+        }
+    }
+    
+    /**
+     * global string output protocol
+     * 
+     * @param    code
+     * @param    data
+     * @throws   IOException 
+    */
+    protected void response(int code, String data) throws IOException
+    {
+        response(code, (Object)data);
     }
     
     /**
@@ -78,10 +263,11 @@ public class JcsegController extends Controller
      * 
      * @param    code
      * @param    data
+     * @throws   IOException 
     */
-    protected void response(int code, List<Object> data)
+    protected void response(int code, List<Object> data) throws IOException
     {
-        response(code, JSONWriter.list2JsonString(data));
+        response(code, (Object)data);
     }
     
     /**
@@ -89,22 +275,23 @@ public class JcsegController extends Controller
      * 
      * @param    code
      * @param    data
+     * @throws   IOException 
     */
-    protected void response(int code, Object[] data)
+    protected void response(int code, Object[] data) throws IOException
     {
-        response(code, JSONWriter.vector2JsonString(data));
+        response(code, (Object)data);
     }
     
     /**
      * global map output protocol
      * 
-     * @param    status
-     * @param    errcode
+     * @param    code
      * @param    data
+     * @throws   IOException 
     */
-    protected void response(int code, Map<String, Object> data)
+    protected void response(int code, Map<String, Object> data) throws IOException
     {
-        response(code, JSONWriter.map2JsonString(data));
+        response(code, (Object)data);
     }
     
 }
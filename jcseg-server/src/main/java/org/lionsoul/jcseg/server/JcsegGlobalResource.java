@@ -4,9 +4,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.lionsoul.jcseg.extractor.IDFModel;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.lionsoul.jcseg.server.core.GlobalResource;
+import org.lionsoul.jcseg.server.core.RequestMetrics;
+import org.lionsoul.jcseg.server.core.WorkerPool;
+import org.lionsoul.jcseg.server.util.ResultCache;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.util.Warmup;
 
 public class JcsegGlobalResource extends GlobalResource
 {
@@ -25,6 +31,29 @@ public class JcsegGlobalResource extends GlobalResource
      * */
     private Map<String, JcsegTokenizerEntry> tokenizerPool = null;
     
+    /**
+     * JIT warm up routine, null for no warm up
+    */
+    private Warmup warmup = null;
+    
+    /**
+     * corpus term statistics for the tfidf keywords, null if not loaded
+    */
+    private IDFModel idfModel = null;
+    
+    /**
+     * result cache of the tokenizers and the extractors, null for no cache
+    */
+    private ResultCache resultCache = null;
+    
+    /**
+     * the request metrics, the http threads and the worker pool
+     * of the server for the metrics, null if not available
+    */
+    private RequestMetrics requestMetrics = null;
+    private QueuedThreadPool httpThreadPool = null;
+    private WorkerPool workerPool = null;
+    
     
     /**
      * construct method 
@@ -104,6 +133,18 @@ public class JcsegGlobalResource extends GlobalResource
         return dicPool.get(name);
     }
     
+    /**
+     * get a copy of all the dictionaries
+     * 
+     * @return  Map
+    */
+    public Map<String, ADictionary> getDicts()
+    {
+        synchronized ( dicPool ) {
+            return new HashMap<String, ADictionary>(dicPool);
+        }
+    }
+    
     /**
      * add a new JcsegTaskConfig mapping
      * 
@@ -135,4 +176,75 @@ public class JcsegGlobalResource extends GlobalResource
     {
         return configPool.get(name);
     }
+    
+    public Warmup getWarmup()
+    {
+        return warmup;
+    }
+    
+    public void setWarmup(Warmup warmup)
+    {
+        this.warmup = warmup;
+    }
+    
+    public IDFModel getIDFModel()
+    {
+        return idfModel;
+    }
+    
+    public void setIDFModel(IDFModel idfModel)
+    {
+        this.idfModel = idfModel;
+    }
+    
+    public ResultCache getResultCache()
+    {
+        return resultCache;
+    }
+    
+    public void setResultCache(ResultCache resultCache)
+    {
+        this.resultCache = resultCache;
+    }
+    
+    public RequestMetrics getRequestMetrics()
+    {
+        return requestMetrics;
+    }
+    
+    public void setRequestMetrics(RequestMetrics requestMetrics)
+    {
+        this.requestMetrics = requestMetrics;
+    }
+    
+    public QueuedThreadPool getHttpThreadPool()
+    {
+        return httpThreadPool;
+    }
+    
+    public void setHttpThreadPool(QueuedThreadPool httpThreadPool)
+    {
+        this.httpThreadPool = httpThreadPool;
+    }
+    
+    public WorkerPool getWorkerPool()
+    {
+        return workerPool;
+    }
+    
+    public void setWorkerPool(WorkerPool workerPool)
+    {
+        this.workerPool = workerPool;
+    }
+    
+    /**
+     * check if the server is ready to serve the requests,
+     * that is the warm up is disabled or finished
+     * 
+     * @return  boolean
+    */
+    public boolean isReady()
+    {
+        return warmup == null || warmup.isReady();
+    }
 }
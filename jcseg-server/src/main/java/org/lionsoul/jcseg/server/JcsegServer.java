@@ -1,6 +1,7 @@
 package org.lionsoul.jcseg.server;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,23 +13,32 @@ import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.lionsoul.jcseg.extractor.IDFModel;
 import org.lionsoul.jcseg.json.JSONArray;
 import org.lionsoul.jcseg.json.JSONObject;
+import org.lionsoul.jcseg.server.controller.AllController;
 import org.lionsoul.jcseg.server.controller.MainController;
+import org.lionsoul.jcseg.server.controller.MetricsController;
+import org.lionsoul.jcseg.server.controller.ReadyController;
 import org.lionsoul.jcseg.server.controller.KeyphraseController;
 import org.lionsoul.jcseg.server.controller.KeywordsController;
 import org.lionsoul.jcseg.server.controller.SentenceController;
 import org.lionsoul.jcseg.server.controller.SummaryController;
+import org.lionsoul.jcseg.server.controller.TokenizerBatchController;
 import org.lionsoul.jcseg.server.controller.TokenizerController;
 import org.lionsoul.jcseg.server.core.AbstractRouter;
 import org.lionsoul.jcseg.server.core.DynamicRestRouter;
 import org.lionsoul.jcseg.server.core.ServerConfig;
 import org.lionsoul.jcseg.server.core.StandardHandler;
+import org.lionsoul.jcseg.server.core.WorkerPool;
+import org.lionsoul.jcseg.server.util.ResultCache;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
 import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
+import org.lionsoul.jcseg.tokenizer.core.DictionarySnapshot;
 import org.lionsoul.jcseg.tokenizer.core.JcsegException;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
 import org.lionsoul.jcseg.util.Util;
+import org.lionsoul.jcseg.util.Warmup;
 
 /**
  * Jcseg RESTful api server
@@ -52,6 +62,27 @@ public class JcsegServer
     */
     private JcsegGlobalResource resourcePool = null;
     
+    /**
+     * worker pool of the controllers, null for running them on the http threads 
+    */
+    private WorkerPool workerPool = null;
+    
+    /**
+     * whether to warm up the tokenizers before report ready
+     * and the max warm up time in milliseconds
+    */
+    private boolean warmup = true;
+    private long warmupMaxTime = 60000;
+    
+    /**
+     * directory of the prebuilt dictionary images, null for no images.
+     * and whether to force rebuild the images from the lexicons
+     * 
+     * @see DictionarySnapshot
+    */
+    private String snapshotDir = null;
+    private boolean snapshotRebuild = false;
+    
     /**
      * construct method
      * 
@@ -74,6 +105,7 @@ public class JcsegServer
         threadPool.setIdleTimeout(config.getThreadIdleTimeout());
         
         server = new Server(threadPool);
+        resourcePool.setHttpThreadPool(threadPool);
         
         //setup the http configuration
         HttpConfiguration http_config = new HttpConfiguration();
@@ -105,7 +137,10 @@ public class JcsegServer
         router.addMapping("/extractor/keyphrase", KeyphraseController.class);
         router.addMapping("/extractor/sentence", SentenceController.class);
         router.addMapping("/extractor/summary", SummaryController.class);
+        router.addMapping("/extractor/all", AllController.class);
         router.addMapping("/tokenizer/default", TokenizerController.class);
+        router.addMapping("/ready", ReadyController.class);
+        router.addMapping("/metrics", MetricsController.class);
         
         /*
          * the rest of path and dynamic rest checking will handler it 
@@ -116,6 +151,27 @@ public class JcsegServer
          * prepare standard handler
         */
         StandardHandler stdHandler = new StandardHandler(config, resourcePool, router);
+        stdHandler.addInlineController(ReadyController.class);
+        stdHandler.addInlineController(MainController.class);
+        stdHandler.addInlineController(MetricsController.class);
+        stdHandler.addStreamingController(TokenizerBatchController.class);
+        if ( config.isVirtualThreads() ) {
+            int permits = config.getWorkerPoolSize() > 0 
+                    ? config.getWorkerPoolSize() : Runtime.getRuntime().availableProcessors();
+            workerPool = WorkerPool.virtual(permits, config.getWorkerQueueSize());
+            if ( workerPool == null ) {
+                System.out.println("+-[Error]: virtual threads require Java " + WorkerPool.VIRTUAL_MIN_VERSION + "+, "
+                        + "fall back to the platform worker threads");
+            }
+        }
+        if ( workerPool == null && config.getWorkerPoolSize() > 0 ) {
+            workerPool = new WorkerPool(config.getWorkerPoolSize(), config.getWorkerQueueSize());
+        }
+        if ( workerPool != null ) {
+            stdHandler.setWorkerPool(workerPool, config.getOverloadRetryAfter());
+        }
+        resourcePool.setWorkerPool(workerPool);
+        resourcePool.setRequestMetrics(stdHandler.getRequestMetrics());
         
         /*
          * prepare the resource handler 
@@ -144,9 +200,10 @@ public class JcsegServer
      * @return JcsegServer
      * @throws CloneNotSupportedException 
      * @throws JcsegException 
+     * @throws IOException 
     */
     public JcsegServer initFromGlobalConfig(JSONObject globalConfig) 
-            throws CloneNotSupportedException, JcsegException
+            throws CloneNotSupportedException, JcsegException, IOException
     {
         /*
          * parse and initialize the server according to the global config
@@ -174,6 +231,44 @@ public class JcsegServer
             if ( serverSetting.has("http_response_header_size") ) {
                 config.setResponseHeaderSize(serverSetting.getInt("http_connection_idle_timeout"));
             }
+            if ( serverSetting.has("worker_pool_size") ) {
+                config.setWorkerPoolSize(serverSetting.getInt("worker_pool_size"));
+            }
+            if ( serverSetting.has("worker_queue_size") ) {
+                config.setWorkerQueueSize(serverSetting.getInt("worker_queue_size"));
+            }
+            if ( serverSetting.has("overload_retry_after") ) {
+                config.setOverloadRetryAfter(serverSetting.getInt("overload_retry_after"));
+            }
+            if ( serverSetting.has("virtual_threads") ) {
+                config.setVirtualThreads(serverSetting.getBoolean("virtual_threads"));
+            }
+            if ( serverSetting.has("warmup") ) {
+                warmup = serverSetting.getBoolean("warmup");
+            }
+            if ( serverSetting.has("warmup_max_time") ) {
+                warmupMaxTime = serverSetting.getLong("warmup_max_time");
+            }
+            if ( serverSetting.has("snapshot_dir") && ! serverSetting.isNull("snapshot_dir") ) {
+                snapshotDir = serverSetting.getString("snapshot_dir")
+                        .replace("{jar.dir}", Util.getJarHome(this));
+            }
+            if ( serverSetting.has("idf_file") && ! serverSetting.isNull("idf_file") ) {
+                String idfFile = serverSetting.getString("idf_file")
+                        .replace("{jar.dir}", Util.getJarHome(this));
+                resourcePool.setIDFModel(IDFModel.load(new File(idfFile)));
+            }
+            
+            /*
+             * the result cache in MB and the live seconds of its entries, 
+             * 0 size to disable it and 0 ttl for no expiring
+            */
+            long cacheSize = serverSetting.has("result_cache_size") 
+                    ? serverSetting.getLong("result_cache_size") : 64;
+            long cacheTtl = serverSetting.has("result_cache_ttl") 
+                    ? serverSetting.getLong("result_cache_ttl") : 300;
+            resourcePool.setResultCache(cacheSize > 0 
+                    ? new ResultCache(cacheSize * 1024 * 1024, cacheTtl * 1000) : null);
         }
 
         //create a global JcsegTaskConfig and initialize from the global_setting
@@ -240,7 +335,30 @@ public class JcsegServer
                 dictLoadConfig.setLexiconPath(lexPath);
                 
                 //create and register the global dictionary resource
-                ADictionary dic = DictionaryFactory.createDefaultDictionary(dictLoadConfig);
+                ADictionary dic;
+                if ( snapshotDir == null ) {
+                    dic = DictionaryFactory.createDefaultDictionary(dictLoadConfig);
+                } else {
+                    File dir = new File(snapshotDir);
+                    if ( ! dir.exists() && ! dir.mkdirs() ) {
+                        throw new IOException("Unable to create snapshot directory " + snapshotDir);
+                    }
+                    
+                    dic = DictionaryFactory.createSnapshotDictionary(
+                        dictLoadConfig, new File(dir, name + ".dic"), snapshotRebuild);
+                }
+                
+                //the cached results of the old words are dropped on a reload
+                final ResultCache cache = resourcePool.getResultCache();
+                if ( cache != null ) {
+                    dic.addReloadListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            cache.clear();
+                        }
+                    });
+                }
+                
                 resourcePool.addDict(name, dic);
             }
         }
@@ -300,6 +418,15 @@ public class JcsegServer
                 }
                 
                 resourcePool.addTokenizerEntry(name, new JcsegTokenizerEntry(algorithm, config, dic));
+                if ( warmup ) {
+                    getWarmup().addTokenizer(algorithm, config, dic);
+                }
+            }
+            
+            //the extractors all run on the tokenizer named "extractor"
+            JcsegTokenizerEntry entry = resourcePool.getTokenizerEntry("extractor");
+            if ( warmup && entry != null ) {
+                getWarmup().addExtractor(entry.getConfig(), entry.getDict());
             }
         }
         
@@ -310,6 +437,23 @@ public class JcsegServer
     }
     
 
+    /**
+     * get or create the warm up routine of the resource pool
+     * 
+     * @return  Warmup
+    */
+    private Warmup getWarmup()
+    {
+        Warmup w = resourcePool.getWarmup();
+        if ( w == null ) {
+            w = new Warmup();
+            w.setMaxTime(warmupMaxTime);
+            resourcePool.setWarmup(w);
+        }
+        
+        return w;
+    }
+    
     /**
      * reset a JcsegTaskConfig from a JSONObject
      * 
@@ -365,10 +509,55 @@ public class JcsegServer
     {
         if ( server != null ) {
             server.start();
+            
+            /*
+             * the server accepts the requests right now but
+             * the /ready endpoint reports not ready until the warm up is finished
+            */
+            Warmup w = resourcePool.getWarmup();
+            if ( w != null ) {
+                w.start();
+            }
+            
             server.join();
         }
     }
     
+    /**
+     * snapshot build step: the dictionary images were (re)built by 
+     * {@link #initFromGlobalConfig(JSONObject)}, here we start the server, 
+     * run the warm up to load all the hot classes and stop the server.
+     * run it with -XX:ArchiveClassesAtExit=jcseg-server.jsa (JDK 13+) to 
+     * produce the class data sharing archive for the next startup.
+     * 
+     * @throws Exception 
+    */
+    public void snapshot() throws Exception
+    {
+        if ( server != null ) {
+            server.start();
+        }
+        
+        Warmup w = resourcePool.getWarmup();
+        if ( w != null ) {
+            w.run();
+        }
+        
+        if ( server != null ) {
+            server.stop();
+        }
+    }
+    
+    public String getSnapshotDir()
+    {
+        return snapshotDir;
+    }
+    
+    public void setSnapshotRebuild(boolean snapshotRebuild)
+    {
+        this.snapshotRebuild = snapshotRebuild;
+    }
+    
     /**
      * stop the server 
      * 
@@ -379,6 +568,10 @@ public class JcsegServer
         if ( server != null ) {
             server.stop();
         }
+        
+        if ( workerPool != null ) {
+            workerPool.shutdown();
+        }
     }
 
     public static void main(String[] args) 
@@ -389,8 +582,13 @@ public class JcsegServer
          * get the jcseg-server.properties from the command line 
         */
         String proFile = null;
-        if ( args.length > 0 ) {
-            proFile = args[0];
+        boolean snapshot = false;
+        for ( String arg : args ) {
+            if ( "--snapshot".equals(arg) ) {
+                snapshot = true;
+            } else {
+                proFile = arg;
+            }
         }
         
         /*
@@ -410,7 +608,7 @@ public class JcsegServer
         
         //still not found, print an error and stop it right here
         if ( proFile == null ) {
-            System.out.println("Usage: java -jar jcseg-server-{version}.jar "
+            System.out.println("Usage: java -jar jcseg-server-{version}.jar [--snapshot] "
                     + "\"path of file jcseg-server properties\"");
             return;
         }
@@ -419,12 +617,25 @@ public class JcsegServer
             System.out.println("+-Try to load and parse server property file \"" + proFile + "\"");
             config.resetFromFile(proFile);
             JcsegServer server = new JcsegServer(config);
+            server.setSnapshotRebuild(snapshot);
             System.out.print("+-[Info]: initializing ... ");
             server.initFromGlobalConfig(config.getGlobalConfig());
             System.out.println(" --[Ok]");
+            if ( snapshot && server.getSnapshotDir() == null ) {
+                System.out.println("+-[Error]: snapshot_dir is not set in server_config");
+                System.exit(1);
+            }
+            
             System.out.print("+-[Info]: Register handler ... ");
             server.registerHandler();
             System.out.println(" --[Ok]");
+            if ( snapshot ) {
+                System.out.print("+-[Info]: Build snapshot ... ");
+                server.snapshot();
+                System.out.println(" --[Ok]");
+                System.exit(0);
+            }
+            
             server.start();
         } catch (Exception e) {
             e.printStackTrace();
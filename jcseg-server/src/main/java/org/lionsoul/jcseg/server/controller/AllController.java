@@ -0,0 +1,121 @@
+package org.lionsoul.jcseg.server.controller;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.lionsoul.jcseg.extractor.DocumentAnalysis;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeyphraseExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TextRankSummaryExtractor;
+import org.lionsoul.jcseg.sentence.SentenceSeg;
+import org.lionsoul.jcseg.server.JcsegController;
+import org.lionsoul.jcseg.server.JcsegGlobalResource;
+import org.lionsoul.jcseg.server.JcsegTokenizerEntry;
+import org.lionsoul.jcseg.server.core.GlobalResource;
+import org.lionsoul.jcseg.server.core.ServerConfig;
+import org.lionsoul.jcseg.server.core.UriEntry;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * keywords, keyphrase, key sentence and summary extract service handler,
+ * the document is split and segmented once and shared by all the extractors
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class AllController extends JcsegController
+{
+
+    public AllController(
+            ServerConfig config,
+            GlobalResource globalResource,
+            UriEntry uriEntry,
+            Request baseRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException
+    {
+        super(config, globalResource, uriEntry, baseRequest, request, response);
+    }
+
+    @Override
+    protected void run(String method) throws IOException
+    {
+        final String text = getString("text");
+        final int keywordsNum = getInt("keywords_number", 10),
+                keyphraseNum = getInt("keyphrase_number", 10),
+                sentenceNum = getInt("sentence_number", 6),
+                length = getInt("summary_length", 86),
+                maxCombineLength = getInt("maxCombineLength", 4),
+                autoMinLength = getInt("autoMinLength", 4);
+        final boolean autoFilter = getBoolean("autoFilter", false);
+        final boolean approximate = getBoolean("approximate", false);
+        if ( text == null || "".equals(text) ) {
+            response(STATUS_INVALID_ARGS, "Invalid Arguments");
+            return;
+        }
+
+        JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
+        if ( tokenizerEntry == null ) {
+            response(STATUS_INVALID_ARGS, "can't find tokenizer instance \"extractor\"");
+            return;
+        }
+
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(JcsegTaskConfig.COMPLEX_MODE,
+                                new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+
+                TextRankKeywordsExtractor keywordsExtractor = new TextRankKeywordsExtractor(seg);
+                keywordsExtractor.setKeywordsNum(keywordsNum);
+                keywordsExtractor.setAutoFilter(autoFilter);
+
+                TextRankKeyphraseExtractor keyphraseExtractor = new TextRankKeyphraseExtractor(seg);
+                keyphraseExtractor.setKeywordsNum(keyphraseNum);
+                keyphraseExtractor.setMaxWordsNum(maxCombineLength);
+                keyphraseExtractor.setAutoMinLength(autoMinLength);
+
+                SentenceSeg sentenceSeg = new SentenceSeg();
+                TextRankSummaryExtractor summaryExtractor = new TextRankSummaryExtractor(seg, sentenceSeg);
+                summaryExtractor.setSentenceNum(sentenceNum);
+                summaryExtractor.setApproximate(approximate);
+
+                DocumentAnalysis doc = DocumentAnalysis.analyze(text, sentenceSeg, seg);
+                Map<String, Object> map = new HashMap<String, Object>();
+                map.put("keywords", keywordsExtractor.getKeywords(doc));
+                map.put("keyphrase", keyphraseExtractor.getKeyphrase(doc));
+                map.put("sentence", summaryExtractor.getKeySentence(doc));
+                map.put("summary", summaryExtractor.getSummary(doc, length));
+                return map;
+            }
+            
+            @Override
+            protected void respond(Object result) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
+
+                //copy the cached result before adding the took
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = new HashMap<String, Object>((Map<String, Object>) result);
+
+                DecimalFormat df = new DecimalFormat("0.00000");
+                map.put("took", Float.valueOf(df.format(c_time)));
+
+                //response the request
+                response(STATUS_OK, map);
+            }
+        }, "all", keywordsNum, keyphraseNum, sentenceNum, length,
+                maxCombineLength, autoMinLength, autoFilter, approximate, text);
+    }
+
+}
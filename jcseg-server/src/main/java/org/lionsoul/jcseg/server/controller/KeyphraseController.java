@@ -3,7 +3,6 @@ package org.lionsoul.jcseg.server.controller;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -44,8 +43,8 @@ public class KeyphraseController extends JcsegController
     @Override
     protected void run(String method) throws IOException
     {
-        String text = getString("text");
-        int number = getInt("number", 10), 
+        final String text = getString("text");
+        final int number = getInt("number", 10), 
                 maxCombineLength = getInt("maxCombineLength", 4), 
                 autoMinLength = getInt("autoMinLength", 4);
         if ( text == null || "".equals(text) ) {
@@ -54,36 +53,40 @@ public class KeyphraseController extends JcsegController
         }
         
         JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
-        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
         if ( tokenizerEntry == null ) {
             response(STATUS_INVALID_ARGS, "can't find tokenizer instance \"extractor\"");
             return;
         }
         
-        try {
-            ISegment seg = SegmentFactory
-                    .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
-                            new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
+                                new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+                
+                TextRankKeyphraseExtractor extractor = new TextRankKeyphraseExtractor(seg);
+                extractor.setKeywordsNum(number);
+                extractor.setMaxWordsNum(maxCombineLength);
+                extractor.setAutoMinLength(autoMinLength);
+                return extractor.getKeyphraseFromString(text);
+            }
             
-            TextRankKeyphraseExtractor extractor = new TextRankKeyphraseExtractor(seg);
-            extractor.setKeywordsNum(number);
-            extractor.setMaxWordsNum(maxCombineLength);
-            extractor.setAutoMinLength(autoMinLength);
-            
-            long s_time = System.nanoTime();
-            List<String> keyphrase = extractor.getKeyphraseFromString(text);
-            double c_time = (System.nanoTime() - s_time)/1E9;
+            @Override
+            protected void respond(Object keyphrase) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
 
-            Map<String, Object> map = new HashMap<String, Object>();
-            DecimalFormat df = new DecimalFormat("0.00000"); 
-            map.put("took", Float.valueOf(df.format(c_time)));
-            map.put("keyphrase", keyphrase);
-            
-            //response the request
-            response(0, map);
-        } catch (JcsegException e) {
-            response(STATUS_INTERNEL_ERROR, "Internal error...");
-        }
+                Map<String, Object> map = new HashMap<String, Object>();
+                DecimalFormat df = new DecimalFormat("0.00000"); 
+                map.put("took", Float.valueOf(df.format(c_time)));
+                map.put("keyphrase", keyphrase);
+                
+                //response the request
+                response(0, map);
+            }
+        }, "keyphrase", number, maxCombineLength, autoMinLength, text);
     }
 
 }
@@ -3,13 +3,15 @@ package org.lionsoul.jcseg.server.controller;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.server.Request;
+import org.lionsoul.jcseg.extractor.IDFModel;
+import org.lionsoul.jcseg.extractor.KeywordsExtractor;
+import org.lionsoul.jcseg.extractor.impl.TFIDFKeywordsExtractor;
 import org.lionsoul.jcseg.extractor.impl.TextRankKeywordsExtractor;
 import org.lionsoul.jcseg.server.JcsegController;
 import org.lionsoul.jcseg.server.JcsegGlobalResource;
@@ -44,44 +46,75 @@ public class KeywordsController extends JcsegController
     @Override
     protected void run(String method) throws IOException
     {
-        String text = getString("text");
-        int number = getInt("number", 10);
-        boolean autoFilter = getBoolean("autoFilter", false);
+        final String text = getString("text");
+        final int number = getInt("number", 10);
+        final boolean autoFilter = getBoolean("autoFilter", false);
+        final String algorithm = getString("algorithm");
         if ( text == null || "".equals(text) ) {
             response(STATUS_INVALID_ARGS, "Invalid Arguments");
             return;
         }
         
+        if ( algorithm != null && ! "textrank".equals(algorithm) 
+                && ! "tfidf".equals(algorithm) ) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response(STATUS_INVALID_ARGS, "invalid algorithm \"" 
+                    + algorithm + "\", use textrank or tfidf");
+            return;
+        }
+        
         JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
-        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
         if ( tokenizerEntry == null ) {
             response(STATUS_INVALID_ARGS, "can't find tokenizer instance \"extractor\"");
             return;
         }
         
-        try {
-            ISegment seg = SegmentFactory
-                    .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
-                            new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
-            
-            TextRankKeywordsExtractor extractor = new TextRankKeywordsExtractor(seg);
-            extractor.setKeywordsNum(number);
-            extractor.setAutoFilter(autoFilter);
-            
-            long s_time = System.nanoTime();
-            List<String> keywords = extractor.getKeywordsFromString(text);
-            double c_time = (System.nanoTime() - s_time)/1E9;
-            
-            Map<String, Object> map = new HashMap<String, Object>();
-            DecimalFormat df = new DecimalFormat("0.00000"); 
-            map.put("took", Float.valueOf(df.format(c_time)));
-            map.put("keywords", keywords);
-            
-            //response the request
-            response(STATUS_OK, map);
-        } catch (JcsegException e) {
-            response(STATUS_INTERNEL_ERROR, "Internal error...");
+        final boolean tfidf = "tfidf".equals(algorithm);
+        final IDFModel model = resourcePool.getIDFModel();
+        if ( tfidf && model == null ) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response(STATUS_INVALID_ARGS, "idf model is not loaded, check the idf_file setting");
+            return;
         }
+        
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
+                                new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+                
+                KeywordsExtractor extractor;
+                if ( tfidf ) {
+                    TFIDFKeywordsExtractor tfidfExtractor = new TFIDFKeywordsExtractor(seg, model);
+                    tfidfExtractor.setKeywordsNum(number);
+                    tfidfExtractor.setAutoFilter(autoFilter);
+                    extractor = tfidfExtractor;
+                } else {
+                    TextRankKeywordsExtractor textRank = new TextRankKeywordsExtractor(seg);
+                    textRank.setKeywordsNum(number);
+                    textRank.setAutoFilter(autoFilter);
+                    extractor = textRank;
+                }
+                
+                return extractor.getKeywordsFromString(text);
+            }
+            
+            @Override
+            protected void respond(Object keywords) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
+                
+                Map<String, Object> map = new HashMap<String, Object>();
+                DecimalFormat df = new DecimalFormat("0.00000"); 
+                map.put("took", Float.valueOf(df.format(c_time)));
+                map.put("keywords", keywords);
+                
+                //response the request
+                response(STATUS_OK, map);
+            }
+        }, "keywords", tfidf ? "tfidf" : "textrank", number, autoFilter, text);
     }
 
 }
@@ -0,0 +1,274 @@
+package org.lionsoul.jcseg.server.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.lionsoul.jcseg.monitor.DictionaryMetrics;
+import org.lionsoul.jcseg.monitor.JcsegMetrics;
+import org.lionsoul.jcseg.monitor.SegmentMetrics;
+import org.lionsoul.jcseg.server.JcsegController;
+import org.lionsoul.jcseg.server.JcsegGlobalResource;
+import org.lionsoul.jcseg.server.core.GlobalResource;
+import org.lionsoul.jcseg.server.core.MetricsWriter;
+import org.lionsoul.jcseg.server.core.RequestMetrics;
+import org.lionsoul.jcseg.server.core.ServerConfig;
+import org.lionsoul.jcseg.server.core.UriEntry;
+import org.lionsoul.jcseg.server.core.WorkerPool;
+import org.lionsoul.jcseg.server.util.ResultCache;
+import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.ILexicon;
+
+/**
+ * metrics handler of /metrics in the prometheus text format.
+ * the requests of every route, the http threads and the worker pool,
+ * the result cache and the dictionaries. the dictionary probes and the
+ * segmenter counters are only there with -Djcseg.metrics=true
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+*/
+public class MetricsController extends JcsegController
+{
+
+    public MetricsController(
+            ServerConfig config,
+            GlobalResource globalResource,
+            UriEntry uriEntry,
+            Request baseRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException
+    {
+        super(config, globalResource, uriEntry, baseRequest, request, response);
+    }
+
+    @Override
+    protected void run(String method) throws IOException
+    {
+        JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
+        MetricsWriter metrics = new MetricsWriter();
+        requests(metrics, resourcePool.getRequestMetrics());
+        threads(metrics, resourcePool.getHttpThreadPool(), resourcePool.getWorkerPool());
+        cache(metrics, resourcePool.getResultCache());
+        dictionaries(metrics, resourcePool.getDicts());
+        segments(metrics);
+
+        response.setContentType(MetricsWriter.CONTENT_TYPE + ";charset=" + config.getCharset());
+        PrintWriter output = getOutput();
+        output.print(metrics.toString());
+        output.flush();
+    }
+
+    private void requests(MetricsWriter metrics, RequestMetrics requestMetrics)
+    {
+        if ( requestMetrics == null ) {
+            return;
+        }
+
+        Map<String, RequestMetrics.Route> routes
+                = new TreeMap<String, RequestMetrics.Route>(requestMetrics.getRoutes());
+        metrics.header("jcseg_http_requests_total", "counter",
+                "Number of the handled requests.");
+        for ( Map.Entry<String, RequestMetrics.Route> e : routes.entrySet() ) {
+            metrics.sample("jcseg_http_requests_total",
+                    e.getValue().getRequests(), "route", e.getKey());
+        }
+
+        metrics.header("jcseg_http_errors_total", "counter",
+                "Number of the requests answered with 5xx or an internal error.");
+        for ( Map.Entry<String, RequestMetrics.Route> e : routes.entrySet() ) {
+            metrics.sample("jcseg_http_errors_total",
+                    e.getValue().getErrors(), "route", e.getKey());
+        }
+
+        metrics.header("jcseg_http_request_duration_seconds", "histogram",
+                "Latency of the requests including the wait for a worker.");
+        for ( Map.Entry<String, RequestMetrics.Route> e : routes.entrySet() ) {
+            metrics.histogram("jcseg_http_request_duration_seconds",
+                    e.getValue().getLatency(), 1E-6, "route", e.getKey());
+        }
+
+        metrics.header("jcseg_http_request_size_bytes", "histogram",
+                "Bytes of the request body or the query string.");
+        for ( Map.Entry<String, RequestMetrics.Route> e : routes.entrySet() ) {
+            metrics.histogram("jcseg_http_request_size_bytes",
+                    e.getValue().getSize(), 1, "route", e.getKey());
+        }
+    }
+
+    private void threads(MetricsWriter metrics,
+            QueuedThreadPool httpThreadPool, WorkerPool workerPool)
+    {
+        if ( httpThreadPool != null ) {
+            metrics.header("jcseg_http_threads", "gauge", "Number of the http threads.")
+                .sample("jcseg_http_threads", httpThreadPool.getThreads());
+            metrics.header("jcseg_http_threads_busy", "gauge", "Number of the busy http threads.")
+                .sample("jcseg_http_threads_busy", httpThreadPool.getBusyThreads());
+            metrics.header("jcseg_http_threads_max", "gauge", "Max number of the http threads.")
+                .sample("jcseg_http_threads_max", httpThreadPool.getMaxThreads());
+            metrics.header("jcseg_http_queued", "gauge", "Number of the jobs waiting for a http thread.")
+                .sample("jcseg_http_queued", httpThreadPool.getQueueSize());
+        }
+
+        if ( workerPool != null ) {
+            metrics.header("jcseg_worker_threads", "gauge",
+                    "Number of the worker threads or the compute permits.")
+                .sample("jcseg_worker_threads", workerPool.getThreads());
+            metrics.header("jcseg_worker_active", "gauge",
+                    "Number of the workers running a request.")
+                .sample("jcseg_worker_active", workerPool.getActive());
+            metrics.header("jcseg_worker_queued", "gauge",
+                    "Number of the requests waiting for a worker.")
+                .sample("jcseg_worker_queued", workerPool.getQueued());
+            metrics.header("jcseg_worker_queue_capacity", "gauge",
+                    "Max number of the requests waiting for a worker.")
+                .sample("jcseg_worker_queue_capacity", workerPool.getQueueSize());
+            metrics.header("jcseg_worker_accepted_total", "counter",
+                    "Number of the requests accepted by the worker pool.")
+                .sample("jcseg_worker_accepted_total", workerPool.getAccepted());
+            metrics.header("jcseg_worker_rejected_total", "counter",
+                    "Number of the requests rejected with 503 for the full queue.")
+                .sample("jcseg_worker_rejected_total", workerPool.getRejected());
+            metrics.header("jcseg_worker_queue_seconds_total", "counter",
+                    "Total time the accepted requests waited for a worker.")
+                .sample("jcseg_worker_queue_seconds_total", workerPool.getQueueNanos() / 1E9);
+            metrics.header("jcseg_worker_compute_seconds_total", "counter",
+                    "Total time the workers spent on the requests.")
+                .sample("jcseg_worker_compute_seconds_total", workerPool.getComputeNanos() / 1E9);
+        }
+
+        metrics.header("jcseg_coalesced_requests_total", "counter",
+                "Number of the requests that shared the computation of a concurrent identical request.")
+            .sample("jcseg_coalesced_requests_total", getCoalesced());
+    }
+
+    private void cache(MetricsWriter metrics, ResultCache cache)
+    {
+        if ( cache == null ) {
+            return;
+        }
+
+        metrics.header("jcseg_result_cache_bytes", "gauge",
+                "Estimated memory of the cached results.")
+            .sample("jcseg_result_cache_bytes", cache.getBytes());
+        metrics.header("jcseg_result_cache_max_bytes", "gauge",
+                "Max estimated memory of the cached results.")
+            .sample("jcseg_result_cache_max_bytes", cache.getMaxBytes());
+        metrics.header("jcseg_result_cache_entries", "gauge",
+                "Number of the cached results.")
+            .sample("jcseg_result_cache_entries", cache.getSize());
+        metrics.header("jcseg_result_cache_hits_total", "counter",
+                "Number of the result cache hits.")
+            .sample("jcseg_result_cache_hits_total", cache.getHits());
+        metrics.header("jcseg_result_cache_misses_total", "counter",
+                "Number of the result cache misses.")
+            .sample("jcseg_result_cache_misses_total", cache.getMisses());
+        metrics.header("jcseg_result_cache_rejects_total", "counter",
+                "Number of the results not admitted to the cache.")
+            .sample("jcseg_result_cache_rejects_total", cache.getRejects());
+        metrics.header("jcseg_result_cache_evictions_total", "counter",
+                "Number of the results evicted from the cache.")
+            .sample("jcseg_result_cache_evictions_total", cache.getEvictions());
+    }
+
+    private void dictionaries(MetricsWriter metrics, Map<String, ADictionary> dicts)
+    {
+        dicts = new TreeMap<String, ADictionary>(dicts);
+        metrics.header("jcseg_dictionary_words", "gauge",
+                "Number of the words of the dictionaries by the lexicon.");
+        for ( Map.Entry<String, ADictionary> e : dicts.entrySet() ) {
+            for ( int t = 0; t < ILexicon.T_LEN; t++ ) {
+                metrics.sample("jcseg_dictionary_words", e.getValue().size(t),
+                        "dict", e.getKey(), "lexicon", DictionaryMetrics.LEXICON_NAMES[t]);
+            }
+        }
+
+        metrics.header("jcseg_dictionary_reloads_total", "counter",
+                "Number of the lexicon reloads done by the autoload thread.");
+        for ( Map.Entry<String, ADictionary> e : dicts.entrySet() ) {
+            metrics.sample("jcseg_dictionary_reloads_total",
+                    e.getValue().getReloads(), "dict", e.getKey());
+        }
+
+        metrics.header("jcseg_dictionary_last_reload_timestamp_seconds", "gauge",
+                "Unix time of the last lexicon reload, 0 for none yet.");
+        for ( Map.Entry<String, ADictionary> e : dicts.entrySet() ) {
+            metrics.sample("jcseg_dictionary_last_reload_timestamp_seconds",
+                    e.getValue().getLastReloadTime() / 1E3, "dict", e.getKey());
+        }
+
+        if ( ! JcsegMetrics.ENABLED ) {
+            return;
+        }
+
+        Map<String, Long> probes = DictionaryMetrics.getInstance().getProbes();
+        Map<String, Long> hits = DictionaryMetrics.getInstance().getHits();
+        metrics.header("jcseg_dictionary_probes_total", "counter",
+                "Number of the dictionary probes by the lexicon.");
+        for ( Map.Entry<String, Long> e : probes.entrySet() ) {
+            metrics.sample("jcseg_dictionary_probes_total", e.getValue(), "lexicon", e.getKey());
+        }
+
+        metrics.header("jcseg_dictionary_probe_hits_total", "counter",
+                "Number of the dictionary probes found by the lexicon.");
+        for ( Map.Entry<String, Long> e : hits.entrySet() ) {
+            metrics.sample("jcseg_dictionary_probe_hits_total", e.getValue(), "lexicon", e.getKey());
+        }
+    }
+
+    private void segments(MetricsWriter metrics)
+    {
+        Map<String, SegmentMetrics> segments
+                = new TreeMap<String, SegmentMetrics>(SegmentMetrics.getAll());
+        if ( segments.isEmpty() ) {
+            return;
+        }
+
+        metrics.header("jcseg_segment_tokens_total", "counter",
+                "Number of the tokens returned by the segmenters by the word type.");
+        for ( Map.Entry<String, SegmentMetrics> e : segments.entrySet() ) {
+            for ( Map.Entry<String, Long> t : e.getValue().getTokensByType().entrySet() ) {
+                metrics.sample("jcseg_segment_tokens_total", t.getValue(),
+                        "segmenter", e.getKey(), "type", t.getKey());
+            }
+        }
+
+        metrics.header("jcseg_segment_chars_total", "counter",
+                "Number of the input chars consumed by the segmenters by the script.");
+        for ( Map.Entry<String, SegmentMetrics> e : segments.entrySet() ) {
+            metrics.sample("jcseg_segment_chars_total", e.getValue().getCjkChars(),
+                    "segmenter", e.getKey(), "script", "cjk");
+            metrics.sample("jcseg_segment_chars_total", e.getValue().getLatinChars(),
+                    "segmenter", e.getKey(), "script", "latin");
+        }
+
+        metrics.header("jcseg_segment_phase_seconds_total", "counter",
+                "Time spent by the segmenters by the analysis phase.");
+        for ( Map.Entry<String, SegmentMetrics> e : segments.entrySet() ) {
+            for ( Map.Entry<String, Long> p : e.getValue().getPhaseNanos().entrySet() ) {
+                metrics.sample("jcseg_segment_phase_seconds_total", p.getValue() / 1E9,
+                        "segmenter", e.getKey(), "phase", p.getKey());
+            }
+        }
+
+        metrics.header("jcseg_segment_best_chunk_calls_total", "counter",
+                "Number of the best CJK chunk selections.");
+        for ( Map.Entry<String, SegmentMetrics> e : segments.entrySet() ) {
+            metrics.sample("jcseg_segment_best_chunk_calls_total",
+                    e.getValue().getBestChunkCalls(), "segmenter", e.getKey());
+        }
+
+        metrics.header("jcseg_segment_chunks_total", "counter",
+                "Number of the candidate chunks evaluated.");
+        for ( Map.Entry<String, SegmentMetrics> e : segments.entrySet() ) {
+            metrics.sample("jcseg_segment_chunks_total",
+                    e.getValue().getChunksEvaluated(), "segmenter", e.getKey());
+        }
+    }
+
+}
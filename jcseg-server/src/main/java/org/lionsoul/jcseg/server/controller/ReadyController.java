@@ -0,0 +1,59 @@
+package org.lionsoul.jcseg.server.controller;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.lionsoul.jcseg.server.JcsegController;
+import org.lionsoul.jcseg.server.JcsegGlobalResource;
+import org.lionsoul.jcseg.server.core.GlobalResource;
+import org.lionsoul.jcseg.server.core.ServerConfig;
+import org.lionsoul.jcseg.server.core.UriEntry;
+import org.lionsoul.jcseg.util.Warmup;
+
+/**
+ * readiness handler, respond 200 once the JIT warm up is finished
+ * and 503 before that, so the load balancer could hold the traffic
+ * 
+ * @author  chenxin<chenxin619315@gmail.com>
+*/
+public class ReadyController extends JcsegController
+{
+
+    public ReadyController(
+            ServerConfig config,
+            GlobalResource globalResource, 
+            UriEntry uriEntry,
+            Request baseRequest, 
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException
+    {
+        super(config, globalResource, uriEntry, baseRequest, request, response);
+    }
+
+    @Override
+    protected void run(String method) throws IOException
+    {
+        JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
+        Warmup warmup = resourcePool.getWarmup();
+        boolean ready = resourcePool.isReady();
+        
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("ready", ready);
+        if ( warmup != null ) {
+            map.put("rounds", warmup.getRounds());
+            map.put("took", warmup.getCostTime());
+        }
+        
+        if ( ! ready ) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        
+        response(ready ? STATUS_OK : STATUS_FAILED, map);
+    }
+
+}
@@ -3,7 +3,6 @@ package org.lionsoul.jcseg.server.controller;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -45,42 +44,48 @@ public class SentenceController extends JcsegController
     @Override
     protected void run(String method) throws IOException
     {
-        String text = getString("text");
-        int number = getInt("number", 6);
+        final String text = getString("text");
+        final int number = getInt("number", 6);
+        final boolean approximate = getBoolean("approximate", false);
         if ( text == null || "".equals(text) ) {
             response(STATUS_INVALID_ARGS, "Invalid Arguments");
             return;
         }
         
         JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
-        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
         if ( tokenizerEntry == null ) {
             response(STATUS_INVALID_ARGS, "can't find tokenizer instance \"extractor\"");
             return;
         }
         
-        try {
-            ISegment seg = SegmentFactory
-                    .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
-                            new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
+                                new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+                
+                TextRankSummaryExtractor extractor = new TextRankSummaryExtractor(seg, new SentenceSeg());
+                extractor.setSentenceNum(number);
+                extractor.setApproximate(approximate);
+                return extractor.getKeySentenceFromString(text);
+            }
             
-            TextRankSummaryExtractor extractor = new TextRankSummaryExtractor(seg, new SentenceSeg());
-            extractor.setSentenceNum(number);
-            
-            long s_time = System.nanoTime();
-            List<String> sentence = extractor.getKeySentenceFromString(text);
-            double c_time = (System.nanoTime() - s_time)/1E9;
-            
-            Map<String, Object> map = new HashMap<String, Object>();
-            DecimalFormat df = new DecimalFormat("0.00000"); 
-            map.put("took", Float.valueOf(df.format(c_time)));
-            map.put("sentence", sentence);
-            
-            //response the request
-            response(STATUS_OK, map);
-        } catch (JcsegException e) {
-            response(STATUS_INTERNEL_ERROR, "Internal error...");
-        }
+            @Override
+            protected void respond(Object sentence) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
+                
+                Map<String, Object> map = new HashMap<String, Object>();
+                DecimalFormat df = new DecimalFormat("0.00000"); 
+                map.put("took", Float.valueOf(df.format(c_time)));
+                map.put("sentence", sentence);
+                
+                //response the request
+                response(STATUS_OK, map);
+            }
+        }, "sentence", number, approximate, text);
     }
 
 }
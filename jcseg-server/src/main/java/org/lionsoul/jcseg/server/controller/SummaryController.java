@@ -9,7 +9,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.server.Request;
-import org.lionsoul.jcseg.extractor.SummaryExtractor;
 import org.lionsoul.jcseg.extractor.impl.TextRankSummaryExtractor;
 import org.lionsoul.jcseg.sentence.SentenceSeg;
 import org.lionsoul.jcseg.server.JcsegController;
@@ -45,41 +44,47 @@ public class SummaryController extends JcsegController
     @Override
     protected void run(String method) throws IOException
     {
-        String text = getString("text");
-        int length = getInt("length", 86);
+        final String text = getString("text");
+        final int length = getInt("length", 86);
+        final boolean approximate = getBoolean("approximate", false);
         if ( text == null || "".equals(text) ) {
             response(STATUS_INVALID_ARGS, "Invalid Arguments");
             return;
         }
         
         JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
-        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry("extractor");
         if ( tokenizerEntry == null ) {
             response(STATUS_INVALID_ARGS, "can't find tokenizer instance \"extractor\"");
             return;
         }
         
-        try {
-            ISegment seg = SegmentFactory
-                    .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
-                            new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(JcsegTaskConfig.COMPLEX_MODE, 
+                                new Object[]{tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+                
+                TextRankSummaryExtractor extractor = new TextRankSummaryExtractor(seg, new SentenceSeg());
+                extractor.setApproximate(approximate);
+                return extractor.getSummaryFromString(text, length);
+            }
             
-            SummaryExtractor extractor = new TextRankSummaryExtractor(seg, new SentenceSeg());
-            
-            long s_time = System.nanoTime();
-            String summary = extractor.getSummaryFromString(text, length);
-            double c_time = (System.nanoTime() - s_time)/1E9;
-            
-            Map<String, Object> map = new HashMap<String, Object>();
-            DecimalFormat df = new DecimalFormat("0.00000"); 
-            map.put("took", Float.valueOf(df.format(c_time)));
-            map.put("summary", summary);
-            
-            //response the request
-            response(STATUS_OK, map);
-        } catch (JcsegException e) {
-            response(STATUS_INTERNEL_ERROR, "Internal error...");
-        }
+            @Override
+            protected void respond(Object summary) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
+                
+                Map<String, Object> map = new HashMap<String, Object>();
+                DecimalFormat df = new DecimalFormat("0.00000"); 
+                map.put("took", Float.valueOf(df.format(c_time)));
+                map.put("summary", summary);
+                
+                //response the request
+                response(STATUS_OK, map);
+            }
+        }, "summary", length, approximate, text);
     }
 
 }
@@ -0,0 +1,192 @@
+package org.lionsoul.jcseg.server.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.lionsoul.jcseg.json.JSONException;
+import org.lionsoul.jcseg.json.JSONObject;
+import org.lionsoul.jcseg.json.JSONTokener;
+import org.lionsoul.jcseg.server.JcsegController;
+import org.lionsoul.jcseg.server.JcsegGlobalResource;
+import org.lionsoul.jcseg.server.JcsegTokenizerEntry;
+import org.lionsoul.jcseg.server.core.GlobalResource;
+import org.lionsoul.jcseg.server.core.JSONStreamWriter;
+import org.lionsoul.jcseg.server.core.ServerConfig;
+import org.lionsoul.jcseg.server.core.UriEntry;
+import org.lionsoul.jcseg.tokenizer.core.ISegment;
+import org.lionsoul.jcseg.tokenizer.core.ISpanSegment;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
+import org.lionsoul.jcseg.tokenizer.core.SegmentFactory;
+
+/**
+ * batch tokenizer service handler for /tokenizer/batch/{instance}.
+ * the documents are posted as newline delimited json (or a json array) in
+ * the request body, every document is a string or an object with a "text"
+ * and an optional "id". the body is parsed as it arrives and the result of
+ * each document is streamed back as a line of json once it is segmented, so
+ * one request could carry any number of documents with one segmenter.
+ * the words are written as they come so the results skip the result cache,
+ * caching them would build every result in memory first.
+ *
+ * @author  chenxin<chenxin619315@gmail.com>
+*/
+public class TokenizerBatchController extends JcsegController
+{
+
+    public TokenizerBatchController(
+            ServerConfig config,
+            GlobalResource resourcePool,
+            UriEntry uriEntry,
+            Request baseRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException
+    {
+        super(config, resourcePool, uriEntry, baseRequest, request, response);
+    }
+
+    @Override
+    protected void run(String method) throws IOException
+    {
+        if ( ! "POST".equals(request.getMethod()) ) {
+            response(STATUS_INVALID_ARGS, "Post the documents in the request body");
+            return;
+        }
+
+        JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
+        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry(method);
+        if ( tokenizerEntry == null ) {
+            response(STATUS_INVALID_ARGS, "can't find tokenizer instance [" + method + "]");
+            return;
+        }
+
+        ISegment seg;
+        try {
+            seg = SegmentFactory
+                    .createJcseg(tokenizerEntry.getAlgorithm(),
+                            new Object[]{ tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+        } catch (JcsegException e) {
+            response(STATUS_INTERNEL_ERROR, "Internal error...");
+            return;
+        }
+
+        if ( request.getCharacterEncoding() == null ) {
+            request.setCharacterEncoding(config.getCharset());
+        }
+
+        BufferedReader reader = new BufferedReader(request.getReader());
+        JSONTokener tokener = new JSONTokener(reader);
+        response.setContentType("application/x-ndjson;charset="+config.getCharset());
+        JSONStreamWriter json = JSONStreamWriter.create(
+                response.getOutputStream(), config.getCharset());
+
+        try {
+            /*
+             * a json array of documents or one document a line,
+             * the array is walked value by value instead of parsed at once
+            */
+            boolean array = false;
+            char c = tokener.nextClean();
+            if ( c == '[' ) {
+                array = true;
+            } else if ( c != 0 ) {
+                tokener.back();
+            }
+
+            int index = 0;
+            while ( true ) {
+                c = tokener.nextClean();
+                if ( c == 0 || (array && c == ']') ) {
+                    break;
+                }
+
+                if ( array && index > 0 ) {
+                    if ( c != ',' ) {
+                        throw tokener.syntaxError("Expected a ',' or ']'");
+                    }
+                } else {
+                    tokener.back();
+                }
+
+                tokenize(seg, json, index++, tokener.nextValue());
+
+                /*
+                 * send the results once no more documents are buffered,
+                 * the client may be waiting for them before it sends more
+                */
+                if ( ! reader.ready() ) {
+                    json.flush();
+                }
+            }
+        } catch (JSONException e) {
+            json.beginObject()
+                .key("code").value(STATUS_INVALID_ARGS)
+                .key("error").value(e.getMessage())
+            .endObject().raw("\n");
+        } finally {
+            json.close();
+        }
+    }
+
+    /**
+     * segment the specified document and write its result line
+     *
+     * @param   seg
+     * @param   json
+     * @param   index
+     * @param   doc
+     * @throws  IOException
+    */
+    private void tokenize(ISegment seg, JSONStreamWriter json,
+            int index, Object doc) throws IOException
+    {
+        Object id = null;
+        String text = null;
+        if ( doc instanceof String ) {
+            text = (String) doc;
+        } else if ( doc instanceof JSONObject ) {
+            JSONObject obj = (JSONObject) doc;
+            id = obj.opt("id");
+            Object val = obj.opt("text");
+            if ( val instanceof String ) {
+                text = (String) val;
+            }
+        }
+
+        json.beginObject().key("index").value(index);
+        if ( id != null && id != JSONObject.NULL ) {
+            json.key("id").value(id);
+        }
+
+        if ( text == null ) {
+            json.key("code").value(STATUS_INVALID_ARGS)
+                .key("error").value("Invalid document")
+            .endObject().raw("\n");
+            return;
+        }
+
+        json.key("code").value(STATUS_OK).key("list").beginArray();
+
+        IWord word = null;
+        long s_time = System.nanoTime();
+        if ( seg instanceof ISpanSegment ) {
+            ((ISpanSegment) seg).reset(text, 0, text.length());
+        } else {
+            seg.reset(new StringReader(text));
+        }
+
+        while ( (word = seg.next()) != null ) {
+            json.value(word);
+        }
+
+        double c_time = (System.nanoTime() - s_time)/1E9;
+        json.endArray()
+            .key("took").value(Math.round(c_time * 1E5) / 1E5)
+        .endObject().raw("\n");
+    }
+}
@@ -44,45 +44,50 @@ public class TokenizerController extends JcsegController
     }
 
     @Override
-    protected void run(String method) throws IOException
+    protected void run(final String method) throws IOException
     {
-        String text = getString("text");
+        final String text = getString("text");
         if ( text == null || "".equals(text) ) {
             response(STATUS_INVALID_ARGS, "Invalid Arguments");
             return;
         }
         
         JcsegGlobalResource resourcePool = (JcsegGlobalResource)globalResource;
-        JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry(method);
+        final JcsegTokenizerEntry tokenizerEntry = resourcePool.getTokenizerEntry(method);
         if ( tokenizerEntry == null ) {
             response(STATUS_INVALID_ARGS, "can't find tokenizer instance [" + method + "]");
             return;
         }
         
-        try {
-            ISegment seg = SegmentFactory
-                    .createJcseg(tokenizerEntry.getAlgorithm(),
-                            new Object[]{ tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
-            
-            IWord word = null;
-            List<IWord> list = new ArrayList<IWord>();
-            seg.reset(new StringReader(text));
-            
-            long s_time = System.nanoTime();
-            while ( (word = seg.next()) != null ) {
-                list.add(word);
+        final long s_time = System.nanoTime();
+        cached(new Computation() {
+            @Override
+            protected Object compute() throws IOException, JcsegException {
+                ISegment seg = SegmentFactory
+                        .createJcseg(tokenizerEntry.getAlgorithm(),
+                                new Object[]{ tokenizerEntry.getConfig(), tokenizerEntry.getDict()});
+                
+                IWord word = null;
+                List<IWord> list = new ArrayList<IWord>();
+                seg.reset(new StringReader(text));
+                while ( (word = seg.next()) != null ) {
+                    list.add(word);
+                }
+                
+                return list;
             }
             
-            double c_time = (System.nanoTime() - s_time)/1E9;
-            Map<String, Object> map = new HashMap<String, Object>();
-            DecimalFormat df = new DecimalFormat("0.00000"); 
-            map.put("took", Float.valueOf(df.format(c_time)));
-            map.put("list", list);
-            
-            //response the request
-            response(STATUS_OK, map);
-        } catch (JcsegException e) {
-            response(STATUS_INTERNEL_ERROR, "Internal error...");
-        }
+            @Override
+            protected void respond(Object list) throws IOException {
+                double c_time = (System.nanoTime() - s_time)/1E9;
+                Map<String, Object> map = new HashMap<String, Object>();
+                DecimalFormat df = new DecimalFormat("0.00000"); 
+                map.put("took", Float.valueOf(df.format(c_time)));
+                map.put("list", list);
+                
+                //response the request
+                response(STATUS_OK, map);
+            }
+        }, "tokenizer", method, text);
     }
 }
@@ -1,5 +1,6 @@
 package org.lionsoul.jcseg.server.core;
 
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * abstract router
@@ -13,6 +14,12 @@ public abstract class AbstractRouter
     */
     protected Class<? extends Controller> defaultController = null;
     
+    /**
+     * the resolved controller factories of the controller classes
+    */
+    private final ConcurrentHashMap<Class<? extends Controller>, ControllerFactory> factories
+            = new ConcurrentHashMap<Class<? extends Controller>, ControllerFactory>();
+    
     /**
      * construct method
      * 
@@ -21,6 +28,68 @@ public abstract class AbstractRouter
     public AbstractRouter(Class<? extends Controller> defaultController)
     {
         this.defaultController = defaultController;
+        if ( defaultController != null ) {
+            factoryOf(defaultController);
+        }
+    }
+    
+    /**
+     * get the controller of the requests that match no mapping
+     * 
+     * @return  Class
+    */
+    public Class<? extends Controller> getDefaultController()
+    {
+        return defaultController;
+    }
+    
+    /**
+     * get the factory of the controller class, it is resolved 
+     * the first time and shared after
+     * 
+     * @param   _class
+     * @return  ControllerFactory
+    */
+    protected ControllerFactory factoryOf(Class<? extends Controller> _class)
+    {
+        ControllerFactory factory = factories.get(_class);
+        if ( factory == null ) {
+            factory = ControllerFactory.of(_class);
+            ControllerFactory old = factories.putIfAbsent(_class, factory);
+            if ( old != null ) factory = old;
+        }
+        
+        return factory;
+    }
+    
+    /**
+     * get the factory of the controller to handle the request
+     * 
+     * @param   uriEntry
+     * @return  ControllerFactory
+    */
+    public ControllerFactory getControllerFactory(UriEntry uriEntry)
+    {
+        return factoryOf(getController(uriEntry));
+    }
+    
+    /**
+     * get the route of the request for the metrics, the routes are bounded
+     * by the controllers whatever paths the clients ask. it is the simple
+     * name of the controller class by default, "default" for the paths
+     * that match no mapping and "/" for the root path
+     * 
+     * @param   uriEntry
+     * @param   factory the controller factory of the request
+     * @return  String
+    */
+    public String getRoute(UriEntry uriEntry, ControllerFactory factory)
+    {
+        if ( factory.getControllerClass() == defaultController ) {
+            return uriEntry.getRequestUri().length() > 1 ? "default" : "/";
+        }
+        
+        return factory.getControllerClass().getSimpleName();
     }
     
     /**
@@ -3,7 +3,9 @@ package org.lionsoul.jcseg.server.core;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -42,7 +44,9 @@ public abstract class Controller
     protected HttpServletResponse response;
     
     /**
-     * output
+     * text output, the writer of the response is only taken 
+     * the first time it is written so the controllers that stream
+     * the response could take the output stream of the response instead
     */
     protected PrintWriter output = null;
     
@@ -51,6 +55,13 @@ public abstract class Controller
     */
     protected UriEntry uri;
     
+    /**
+     * the callback to finish the request set by the handler
+     * and whether the request is kept open after the run returns
+    */
+    private Runnable finisher = null;
+    private boolean detached = false;
+    
     
     /**
      * contruct method
@@ -82,7 +93,18 @@ public abstract class Controller
         /*
          * @Note: this line should after the init invoke 
         */
-        this.output = response.getWriter();
+        this.output = new PrintWriter(new ResponseWriter());
+    }
+    
+    /**
+     * get the text output of the response
+     * 
+     * @return  PrintWriter
+     * @throws  IOException
+    */
+    protected PrintWriter getOutput() throws IOException
+    {
+        return output;
     }
     
     /**
@@ -96,6 +118,47 @@ public abstract class Controller
         response.setStatus(HttpServletResponse.SC_OK);
     }
     
+    void setFinisher(Runnable finisher)
+    {
+        this.finisher = finisher;
+    }
+    
+    boolean isDetached()
+    {
+        return detached;
+    }
+    
+    /**
+     * keep the request open after the run returns so it could be answered
+     * by another thread later, the run should return right after it and 
+     * the returned callback must be invoked once the response is written
+     * 
+     * @return  Runnable or null if the request could not be detached
+    */
+    protected Runnable detach()
+    {
+        if ( finisher == null ) {
+            return null;
+        }
+        
+        final AsyncContext async = request.isAsyncStarted() 
+                ? request.getAsyncContext() : request.startAsync();
+        async.setTimeout(0);
+        detached = true;
+        
+        final Runnable finisher = this.finisher;
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    finisher.run();
+                } finally {
+                    async.complete();
+                }
+            }
+        };
+    }
+    
     /**
      * handle the current request
      * 
@@ -262,4 +325,49 @@ public abstract class Controller
         response.sendRedirect(path.charAt(0)=='/' ? path : "/"+path);
         output.close();
     }
+    
+    /**
+     * writer over the writer of the response taken the first time it is written
+    */
+    private class ResponseWriter extends Writer
+    {
+        private PrintWriter writer = null;
+        
+        private PrintWriter get() throws IOException
+        {
+            if ( writer == null ) {
+                writer = response.getWriter();
+            }
+            
+            return writer;
+        }
+        
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            get().write(cbuf, off, len);
+        }
+        
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            get().write(str, off, len);
+        }
+        
+        @Override
+        public void flush() throws IOException
+        {
+            if ( writer != null ) {
+                writer.flush();
+            }
+        }
+        
+        @Override
+        public void close() throws IOException
+        {
+            if ( writer != null ) {
+                writer.close();
+            }
+        }
+    }
 }
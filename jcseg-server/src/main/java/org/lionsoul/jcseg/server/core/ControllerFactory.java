@@ -0,0 +1,114 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+
+/**
+ * controller factory.
+ * the constructor of the controller class is resolved once when the route
+ * is compiled, so no reflective lookup is left on the request path and a
+ * controller class without the standard constructor fails at the start.
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public abstract class ControllerFactory
+{
+    /**
+     * the standard constructor parameter types of a controller
+    */
+    private static final Class<?>[] PARAM_TYPES = new Class<?>[]{
+        ServerConfig.class,
+        GlobalResource.class,
+        UriEntry.class,
+        Request.class,
+        HttpServletRequest.class,
+        HttpServletResponse.class
+    };
+
+    /**
+     * create a new controller for the request
+     *
+     * @param   config
+     * @param   resourcePool
+     * @param   uriEntry
+     * @param   baseRequest
+     * @param   request
+     * @param   response
+     * @return  Controller
+     * @throws  Exception
+    */
+    public abstract Controller create(
+            ServerConfig config,
+            GlobalResource resourcePool,
+            UriEntry uriEntry,
+            Request baseRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception;
+
+    /**
+     * @return  Class<? extends Controller> the class of the controllers created
+    */
+    public abstract Class<? extends Controller> getControllerClass();
+
+    /**
+     * create the factory of the specified controller class
+     *
+     * @param   _class
+     * @return  ControllerFactory
+     * @throws  IllegalArgumentException if there is no standard constructor
+    */
+    public static ControllerFactory of( Class<? extends Controller> _class )
+    {
+        try {
+            Constructor<? extends Controller> constructor = _class.getConstructor(PARAM_TYPES);
+            constructor.setAccessible(true);
+            return new ConstructorFactory(_class, constructor);
+        } catch ( NoSuchMethodException e ) {
+            throw new IllegalArgumentException("No standard constructor for controller " + _class.getName());
+        }
+    }
+
+    /**
+     * the factory over a resolved constructor
+    */
+    private static class ConstructorFactory extends ControllerFactory
+    {
+        private final Class<? extends Controller> _class;
+        private final Constructor<? extends Controller> constructor;
+
+        ConstructorFactory( Class<? extends Controller> _class, Constructor<? extends Controller> constructor )
+        {
+            this._class = _class;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Controller create(
+                ServerConfig config,
+                GlobalResource resourcePool,
+                UriEntry uriEntry,
+                Request baseRequest,
+                HttpServletRequest request,
+                HttpServletResponse response) throws Exception
+        {
+            try {
+                return constructor.newInstance(config, resourcePool,
+                        uriEntry, baseRequest, request, response);
+            } catch ( InvocationTargetException e ) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        @Override
+        public Class<? extends Controller> getControllerClass()
+        {
+            return _class;
+        }
+    }
+}
@@ -1,25 +1,47 @@
 package org.lionsoul.jcseg.server.core;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lionsoul.jcseg.server.util.LRUCache;
 
 /**
- * rest style router
+ * rest style router.
+ * the mapping paths are compiled to the controller factories when they
+ * are added, the controller classes found by the rest path are resolved
+ * once and cached, and the paths that match no controller are kept in a
+ * bounded negative cache so the bogus urls never reach the class loader again.
  * 
  * @author chenxin<chenxin619315@gmail.com>
 */
 public class DynamicRestRouter extends AbstractRouter
 {
+    /**
+     * max number of the class names in the negative cache
+    */
+    public static final int MAX_MISSING = 1024;
+    
     /**
      * base package path for the controller 
     */
     private String basePath = null;
     
+    /**
+     * standard path to controller factory mapping 
+    */
+    private Map<String, ControllerFactory> mapping = null;
+    
+    /**
+     * the resolved controller class names and the class names
+     * that are not a controller
+    */
+    private final Map<String, ControllerFactory> resolved;
+    private final LRUCache<String, Boolean> missing;
     
     /**
-     * standard path to controller mapping 
+     * the route patterns of the rest controller classes
     */
-    private Map<String, Class<? extends Controller>> mapping = null;
+    private final Map<Class<? extends Controller>, String> routes;
 
     public DynamicRestRouter(String basePath, 
             Class<? extends Controller> defaultController) 
@@ -27,13 +49,16 @@ public class DynamicRestRouter extends AbstractRouter
         super(defaultController);
         
         this.basePath = basePath;
-        mapping = new HashMap<String, Class<? extends Controller>>();
+        mapping  = new ConcurrentHashMap<String, ControllerFactory>();
+        resolved = new ConcurrentHashMap<String, ControllerFactory>();
+        missing  = new LRUCache<String, Boolean>(MAX_MISSING);
+        routes   = new ConcurrentHashMap<Class<? extends Controller>, String>();
     }
 
     @Override
     public void addMapping(String path, Class<? extends Controller> _class) 
     {
-        mapping.put(path, _class);
+        mapping.put(path, factoryOf(_class));
     }
 
     @Override
@@ -43,37 +68,127 @@ public class DynamicRestRouter extends AbstractRouter
     }
     
     @Override
-    @SuppressWarnings("unchecked")
     public Class<? extends Controller> getController(UriEntry uriEntry) 
     {
-        Class<? extends Controller> controller = null;
-        
+        return getControllerFactory(uriEntry).getControllerClass();
+    }
+    
+    @Override
+    public ControllerFactory getControllerFactory(UriEntry uriEntry) 
+    {
         /*
          * check the global mapping first 
         */
-        String requireUri = uriEntry.getRequestUri();
-        if ( mapping.containsKey(requireUri) ) {
-            controller = mapping.get(requireUri);
-        } else {
-            /*
-             * uriEntry.getController to define the Controller class
-             * and the uriEntry.getMethod to define which method to invoke 
-            */
-            String cClass = uriEntry.getController();
-            String method = uriEntry.getMethod();
-            if ( cClass != null && method != null ) {
-                //build the class pacakge path
-                String _clsname = basePath + "." + cClass + "Controller";
-                try {
-                    Class<?> _class = Class.forName(_clsname);
-                    if ( Controller.class.isAssignableFrom(_class) ) {
-                        controller = (Class<? extends Controller>) _class;
-                    }
-                } catch (ClassNotFoundException e) {}
+        ControllerFactory factory = mapping.get(uriEntry.getRequestUri());
+        if ( factory != null ) {
+            return factory;
+        }
+        
+        /*
+         * uriEntry.getController to define the Controller class
+         * and the uriEntry.getMethod to define which method to invoke 
+        */
+        String cClass = uriEntry.getController();
+        String method = uriEntry.getMethod();
+        if ( cClass != null && method != null ) {
+            //build the class pacakge path
+            String _clsname = basePath + "." + cClass + "Controller";
+            factory = resolve(_clsname);
+        }
+        
+        return factory == null ? factoryOf(defaultController) : factory;
+    }
+    
+    /**
+     * the mapping paths are the routes themselves and the rest paths are
+     * routed by the pattern of the controller class with the method as the
+     * instance, /tokenizer/master and /tokenizer/slave are both counted to
+     * /tokenizer/{instance} for example
+     * 
+     * @see AbstractRouter#getRoute(UriEntry, ControllerFactory)
+    */
+    @Override
+    public String getRoute(UriEntry uriEntry, ControllerFactory factory)
+    {
+        String uri = uriEntry.getRequestUri();
+        if ( mapping.get(uri) == factory ) {
+            return uri;
+        }
+        
+        if ( factory.getControllerClass() == defaultController ) {
+            return super.getRoute(uriEntry, factory);
+        }
+        
+        Class<? extends Controller> _class = factory.getControllerClass();
+        String route = routes.get(_class);
+        if ( route == null ) {
+            route = restPattern(_class);
+            routes.put(_class, route);
+        }
+        
+        return route;
+    }
+    
+    /**
+     * the rest path pattern of the controller class,
+     * /tokenizer/batch/{instance} for TokenizerBatchController
+     * 
+     * @param   _class
+     * @return  String
+    */
+    private static String restPattern(Class<? extends Controller> _class)
+    {
+        String name = _class.getSimpleName();
+        if ( name.endsWith("Controller") ) {
+            name = name.substring(0, name.length() - "Controller".length());
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < name.length(); i++ ) {
+            char chr = name.charAt(i);
+            if ( Character.isUpperCase(chr) ) {
+                sb.append('/').append(Character.toLowerCase(chr));
+            } else {
+                sb.append(chr);
+            }
+        }
+        
+        return sb.append("/{instance}").toString();
+    }
+    
+    /**
+     * resolve the controller factory of the class name
+     * 
+     * @param   _clsname
+     * @return  ControllerFactory or null if it is not a controller
+    */
+    @SuppressWarnings("unchecked")
+    private ControllerFactory resolve(String _clsname)
+    {
+        ControllerFactory factory = resolved.get(_clsname);
+        if ( factory != null ) {
+            return factory;
+        }
+        
+        if ( missing.get(_clsname) != null ) {
+            return null;
+        }
+        
+        try {
+            Class<?> _class = Class.forName(_clsname);
+            if ( Controller.class.isAssignableFrom(_class) ) {
+                factory = factoryOf((Class<? extends Controller>) _class);
+                resolved.put(_clsname, factory);
+                return factory;
             }
+        } catch (ClassNotFoundException e) {
+        } catch (LinkageError e) {
+        } catch (IllegalArgumentException e) {
+            //not a standard controller
         }
         
-        return controller == null ? defaultController : controller;
+        missing.set(_clsname, Boolean.TRUE);
+        return null;
     }
 
 }
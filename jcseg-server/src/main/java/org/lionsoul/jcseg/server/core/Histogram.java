@@ -0,0 +1,166 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * lock free histogram with the logarithmic buckets.
+ * the first bucket counts the values up to 2^minExp, every power of two
+ * range (2^(e-1), 2^e] above it up to 2^maxExp is split into subBuckets 
+ * linear buckets and an overflow bucket counts the rest, so every value is
+ * counted with the same relative precision whatever its magnitude, with 8
+ * sub buckets a latency of 30us and one of 3s are both placed within 12.5%.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class Histogram
+{
+    private final int minExp;
+    private final int maxExp;
+    private final int subBuckets;
+    private final int subShift;
+    private final AtomicLongArray counts;
+    private final AtomicLong sum = new AtomicLong(0);
+
+    /**
+     * create a histogram with one bucket for every power of two
+     *
+     * @param   minExp the first bucket counts the values up to 2^minExp
+     * @param   maxExp the last bucket counts the values up to 2^maxExp
+    */
+    public Histogram(int minExp, int maxExp)
+    {
+        this(minExp, maxExp, 1);
+    }
+
+    /**
+     * create a histogram
+     *
+     * @param   minExp the first bucket counts the values up to 2^minExp
+     * @param   maxExp the last bucket counts the values up to 2^maxExp
+     * @param   subBuckets number of the linear buckets of every power of two,
+     *  a power of two not greater than 2^minExp
+    */
+    public Histogram(int minExp, int maxExp, int subBuckets)
+    {
+        if ( subBuckets < 1 || Integer.bitCount(subBuckets) != 1
+                || subBuckets > (1L << minExp) ) {
+            throw new IllegalArgumentException("Invalid sub buckets " + subBuckets);
+        }
+
+        this.minExp = minExp;
+        this.maxExp = maxExp;
+        this.subBuckets = subBuckets;
+        this.subShift = Integer.numberOfTrailingZeros(subBuckets);
+        this.counts = new AtomicLongArray((maxExp - minExp) * subBuckets + 2);
+    }
+
+    /**
+     * count the specified value
+     *
+     * @param   value
+    */
+    public void record(long value)
+    {
+        counts.incrementAndGet(index(value));
+        sum.addAndGet(Math.max(0, value));
+    }
+
+    /**
+     * get the bucket of the specified value
+     *
+     * @param   value
+     * @return  int
+    */
+    public int index(long value)
+    {
+        if ( value <= (1L << minExp) ) {
+            return 0;
+        }
+
+        //the smallest exponent with value <= 2^exp
+        int exp = 64 - Long.numberOfLeadingZeros(value - 1);
+        if ( exp > maxExp ) {
+            return counts.length() - 1;
+        }
+
+        //the linear bucket in (2^(exp-1), 2^exp] with the step 2^(exp-1) / subBuckets
+        int shift = exp - 1 - subShift;
+        int sub = (int) ((value - (1L << (exp - 1)) - 1) >> shift);
+        return 1 + (exp - minExp - 1) * subBuckets + sub;
+    }
+
+    /**
+     * @return  int number of the buckets including the overflow bucket
+    */
+    public int getBuckets()
+    {
+        return counts.length();
+    }
+
+    /**
+     * get the upper bound of the specified bucket
+     *
+     * @param   idx
+     * @return  long or Long.MAX_VALUE for the overflow bucket
+    */
+    public long getBound(int idx)
+    {
+        if ( idx >= counts.length() - 1 ) {
+            return Long.MAX_VALUE;
+        } else if ( idx == 0 ) {
+            return 1L << minExp;
+        }
+
+        int exp = minExp + 1 + (idx - 1) / subBuckets;
+        int sub = (idx - 1) % subBuckets + 1;
+        return (1L << (exp - 1)) + ((long) sub << (exp - 1 - subShift));
+    }
+
+    /**
+     * @param   idx
+     * @return  long number of the values in the specified bucket
+    */
+    public long getCount(int idx)
+    {
+        return counts.get(idx);
+    }
+
+    /**
+     * @return  long number of all the values
+    */
+    public long getTotal()
+    {
+        long total = 0;
+        for ( int j = 0; j < counts.length(); j++ ) {
+            total += counts.get(j);
+        }
+
+        return total;
+    }
+
+    /**
+     * @return  long sum of all the values
+    */
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    public int getMinExp()
+    {
+        return minExp;
+    }
+
+    public int getMaxExp()
+    {
+        return maxExp;
+    }
+
+    public int getSubBuckets()
+    {
+        return subBuckets;
+    }
+}
@@ -0,0 +1,528 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Map;
+
+import org.lionsoul.jcseg.json.JSONString;
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+
+/**
+ * <p>
+ * streaming json writer.
+ * the json text is encoded and written straight to the output stream in
+ * one pass with the strings escaped, the char and the byte buffers and the
+ * charset encoder are kept by the thread and reused by all the writers
+ * created on it, so a large result is never built as a String first.
+ * </p>
+ *
+ * <pre>
+ * JSONStreamWriter json = JSONStreamWriter.create(response.getOutputStream(), "utf-8");
+ * json.beginObject().key("code").value(0).key("data").value(map).endObject().close();
+ * </pre>
+ *
+ * <p>
+ * the commas and the colons are added by the writer, the values of a
+ * {@link JSONString} are written as they are and the {@link IWord} are
+ * written as json object, any other unknown value is written as the
+ * escaped string of its toString. a writer could only be used by the thread
+ * that created it and {@link #close()} should be invoked when it is done.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class JSONStreamWriter
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * the buffers of the threads
+    */
+    private static final ThreadLocal<Buffers> local = new ThreadLocal<Buffers>();
+
+    private final OutputStream out;
+    private Buffers buffers;
+
+    /**
+     * number of the buffered chars
+    */
+    private int length = 0;
+
+    /**
+     * nesting depth and if a value was written at each depth
+    */
+    private int depth = 0;
+    private boolean[] started = new boolean[16];
+
+    /**
+     * if the next value is the value of a key
+    */
+    private boolean afterKey = false;
+
+    private JSONStreamWriter(OutputStream out, Buffers buffers)
+    {
+        this.out = out;
+        this.buffers = buffers;
+    }
+
+    /**
+     * create a writer over the buffers of the current thread
+     *
+     * @param   out
+     * @param   charset
+     * @return  JSONStreamWriter
+    */
+    public static JSONStreamWriter create(OutputStream out, String charset)
+    {
+        Buffers buffers = local.get();
+        if ( buffers == null ) {
+            buffers = new Buffers();
+            local.set(buffers);
+        }
+
+        /*
+         * the buffers are taken by a writer not closed yet,
+         * the nested writer use its own buffers then
+        */
+        if ( buffers.inUse ) {
+            buffers = new Buffers();
+        }
+
+        /*
+         * a writer failed in the middle of a write leaves the bytes
+         * and the encoder dirty, they are always cleared here
+        */
+        buffers.inUse = true;
+        buffers.setCharset(charset);
+        buffers.bytes.clear();
+        buffers.encoder.reset();
+        return new JSONStreamWriter(out, buffers);
+    }
+
+    public JSONStreamWriter beginObject() throws IOException
+    {
+        return open('{');
+    }
+
+    public JSONStreamWriter endObject() throws IOException
+    {
+        return close('}');
+    }
+
+    public JSONStreamWriter beginArray() throws IOException
+    {
+        return open('[');
+    }
+
+    public JSONStreamWriter endArray() throws IOException
+    {
+        return close(']');
+    }
+
+    /**
+     * write the key of the next value of the current object
+     *
+     * @param   key
+     * @return  JSONStreamWriter
+     * @throws  IOException
+    */
+    public JSONStreamWriter key(String key) throws IOException
+    {
+        separate();
+        string(key);
+        append(':');
+        afterKey = true;
+        return this;
+    }
+
+    public JSONStreamWriter value(String str) throws IOException
+    {
+        if ( str == null ) {
+            return nullValue();
+        }
+
+        separate();
+        string(str);
+        return this;
+    }
+
+    public JSONStreamWriter value(long val) throws IOException
+    {
+        separate();
+        if ( val == Long.MIN_VALUE ) {
+            append(Long.toString(val));
+            return this;
+        }
+
+        if ( val < 0 ) {
+            append('-');
+            val = -val;
+        }
+
+        //write the digits without a temporary String
+        char[] digits = buffers.digits;
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + (val % 10));
+            val /= 10;
+        } while ( val > 0 );
+
+        append(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public JSONStreamWriter value(double val) throws IOException
+    {
+        if ( Double.isNaN(val) || Double.isInfinite(val) ) {
+            return nullValue();
+        }
+
+        separate();
+        append(Double.toString(val));
+        return this;
+    }
+
+    public JSONStreamWriter value(boolean val) throws IOException
+    {
+        separate();
+        append(val ? "true" : "false");
+        return this;
+    }
+
+    public JSONStreamWriter nullValue() throws IOException
+    {
+        separate();
+        append("null");
+        return this;
+    }
+
+    /**
+     * write the specified word as a json object
+     *
+     * @param   word
+     * @return  JSONStreamWriter
+     * @throws  IOException
+    */
+    public JSONStreamWriter value(IWord word) throws IOException
+    {
+        if ( word == null ) {
+            return nullValue();
+        }
+
+        String[] partSpeech = word.getPartSpeech();
+        beginObject();
+        key("word").value(word.getValue());
+        key("position").value(word.getPosition());
+        key("length").value(word.getLength());
+        key("pinyin").value(word.getPinyin());
+        key("pos").value(partSpeech == null ? null : partSpeech[0]);
+        key("entity").value(word.getEntity());
+        return endObject();
+    }
+
+    /**
+     * write the specified value with the json type of its class
+     *
+     * @param   obj
+     * @return  JSONStreamWriter
+     * @throws  IOException
+    */
+    public JSONStreamWriter value(Object obj) throws IOException
+    {
+        if ( obj == null ) {
+            return nullValue();
+        } else if ( obj instanceof String ) {
+            return value((String) obj);
+        } else if ( obj instanceof IWord ) {
+            return value((IWord) obj);
+        } else if ( obj instanceof Boolean ) {
+            return value(((Boolean) obj).booleanValue());
+        } else if ( (obj instanceof Integer) || (obj instanceof Long)
+                || (obj instanceof Short) || (obj instanceof Byte) ) {
+            return value(((Number) obj).longValue());
+        } else if ( obj instanceof Float ) {
+            Float f = (Float) obj;
+            if ( f.isNaN() || f.isInfinite() ) {
+                return nullValue();
+            }
+            separate();
+            append(f.toString());
+            return this;
+        } else if ( obj instanceof Double ) {
+            return value(((Double) obj).doubleValue());
+        } else if ( obj instanceof Map<?, ?> ) {
+            beginObject();
+            for ( Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet() ) {
+                key(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        } else if ( obj instanceof Iterable<?> ) {
+            beginArray();
+            for ( Object o : (Iterable<?>) obj ) {
+                value(o);
+            }
+            return endArray();
+        } else if ( obj instanceof Object[] ) {
+            beginArray();
+            for ( Object o : (Object[]) obj ) {
+                value(o);
+            }
+            return endArray();
+        } else if ( obj instanceof JSONString ) {
+            separate();
+            append(((JSONString) obj).toJSONString());
+            return this;
+        }
+
+        return value(obj.toString());
+    }
+
+    /**
+     * write the specified raw text as it is,
+     * line breaks between the documents of a ndjson stream for example
+     *
+     * @param   raw
+     * @return  JSONStreamWriter
+     * @throws  IOException
+    */
+    public JSONStreamWriter raw(String raw) throws IOException
+    {
+        append(raw);
+        return this;
+    }
+
+    /**
+     * encode the buffered chars and flush the output stream
+     *
+     * @throws  IOException
+    */
+    public void flush() throws IOException
+    {
+        encode(true);
+        out.flush();
+    }
+
+    /**
+     * flush the writer and give the buffers back to the thread,
+     * the output stream is not closed
+     *
+     * @throws  IOException
+    */
+    public void close() throws IOException
+    {
+        if ( buffers == null ) {
+            return;
+        }
+
+        try {
+            flush();
+        } finally {
+            buffers.inUse = false;
+            buffers = null;
+        }
+    }
+
+    private JSONStreamWriter open(char c) throws IOException
+    {
+        separate();
+        append(c);
+        if ( ++depth == started.length ) {
+            boolean[] tmp = new boolean[started.length * 2];
+            System.arraycopy(started, 0, tmp, 0, started.length);
+            started = tmp;
+        }
+
+        started[depth] = false;
+        return this;
+    }
+
+    private JSONStreamWriter close(char c) throws IOException
+    {
+        if ( depth == 0 ) {
+            throw new IllegalStateException("Unbalanced json " + c);
+        }
+
+        depth--;
+        append(c);
+        return this;
+    }
+
+    /**
+     * append the comma before the value if it is not the first one
+    */
+    private void separate() throws IOException
+    {
+        if ( afterKey ) {
+            afterKey = false;
+            return;
+        }
+
+        //top level values are never separated, ndjson for example
+        if ( depth == 0 ) {
+            return;
+        }
+
+        if ( started[depth] ) {
+            append(',');
+        } else {
+            started[depth] = true;
+        }
+    }
+
+    /**
+     * append the quoted and escaped string
+    */
+    private void string(String str) throws IOException
+    {
+        append('"');
+        int len = str.length(), start = 0;
+        for ( int i = 0; i < len; i++ ) {
+            char c = str.charAt(i);
+            if ( c >= 0x20 && c != '"' && c != '\\'
+                    && c != '\u2028' && c != '\u2029' ) {
+                continue;
+            }
+
+            if ( i > start ) {
+                append(str, start, i);
+            }
+            start = i + 1;
+
+            switch ( c ) {
+            case '"':  append('\\'); append('"');  break;
+            case '\\': append('\\'); append('\\'); break;
+            case '\n': append('\\'); append('n');  break;
+            case '\r': append('\\'); append('r');  break;
+            case '\t': append('\\'); append('t');  break;
+            case '\b': append('\\'); append('b');  break;
+            case '\f': append('\\'); append('f');  break;
+            default:
+                append('\\'); append('u');
+                append(HEX[(c >> 12) & 0xF]);
+                append(HEX[(c >> 8) & 0xF]);
+                append(HEX[(c >> 4) & 0xF]);
+                append(HEX[c & 0xF]);
+            }
+        }
+
+        if ( len > start ) {
+            append(str, start, len);
+        }
+        append('"');
+    }
+
+    private void append(char c) throws IOException
+    {
+        if ( length == buffers.chars.length ) {
+            encode(false);
+        }
+        buffers.chars[length++] = c;
+    }
+
+    private void append(String str) throws IOException
+    {
+        append(str, 0, str.length());
+    }
+
+    private void append(String str, int start, int end) throws IOException
+    {
+        char[] chars = buffers.chars;
+        while ( start < end ) {
+            if ( length == chars.length ) {
+                encode(false);
+            }
+
+            int n = Math.min(end - start, chars.length - length);
+            str.getChars(start, start + n, chars, length);
+            length += n;
+            start  += n;
+        }
+    }
+
+    private void append(char[] src, int start, int len) throws IOException
+    {
+        char[] chars = buffers.chars;
+        while ( len > 0 ) {
+            if ( length == chars.length ) {
+                encode(false);
+            }
+
+            int n = Math.min(len, chars.length - length);
+            System.arraycopy(src, start, chars, length, n);
+            length += n;
+            start  += n;
+            len    -= n;
+        }
+    }
+
+    /**
+     * encode the buffered chars to the output stream, a high surrogate
+     * at the end is kept in the buffer until its pair comes if it is not the end
+    */
+    private void encode(boolean endOfInput) throws IOException
+    {
+        CharsetEncoder encoder = buffers.encoder;
+        CharBuffer cb = CharBuffer.wrap(buffers.chars, 0, length);
+        ByteBuffer bb = buffers.bytes;
+        while ( true ) {
+            CoderResult result = encoder.encode(cb, bb, endOfInput);
+            if ( result.isOverflow() ) {
+                drain(bb);
+                continue;
+            }
+
+            if ( endOfInput ) {
+                while ( encoder.flush(bb).isOverflow() ) {
+                    drain(bb);
+                }
+                encoder.reset();
+            }
+            break;
+        }
+        drain(bb);
+
+        //keep the chars left by the encoder
+        length = cb.remaining();
+        if ( length > 0 ) {
+            System.arraycopy(buffers.chars, cb.position(), buffers.chars, 0, length);
+        }
+    }
+
+    private void drain(ByteBuffer bb) throws IOException
+    {
+        if ( bb.position() > 0 ) {
+            out.write(bb.array(), 0, bb.position());
+            bb.clear();
+        }
+    }
+
+    /**
+     * the reusable buffers and encoder of a thread
+    */
+    private static class Buffers
+    {
+        final char[] chars = new char[4096];
+        final ByteBuffer bytes = ByteBuffer.allocate(8192);
+        final char[] digits = new char[20];
+        String charset = null;
+        CharsetEncoder encoder = null;
+        boolean inUse = false;
+
+        void setCharset(String name)
+        {
+            if ( ! name.equals(charset) ) {
+                charset = name;
+                encoder = Charset.forName(name).newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.math.BigDecimal;
+
+/**
+ * metrics writer of the prometheus text exposition format (version 0.0.4).
+ * the labels are passed as name, value pairs.
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class MetricsWriter
+{
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    private final StringBuilder sb;
+
+    public MetricsWriter()
+    {
+        this.sb = new StringBuilder(8192);
+    }
+
+    /**
+     * write the help and the type lines of a metric
+     *
+     * @param   name
+     * @param   type counter, gauge or histogram
+     * @param   help
+     * @return  MetricsWriter
+    */
+    public MetricsWriter header(String name, String type, String help)
+    {
+        sb.append("# HELP ").append(name).append(' ');
+        for ( int j = 0; j < help.length(); j++ ) {
+            char c = help.charAt(j);
+            if ( c == '\\' ) {
+                sb.append("\\\\");
+            } else if ( c == '\n' ) {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * write a sample
+     *
+     * @param   name
+     * @param   value
+     * @param   labels
+     * @return  MetricsWriter
+    */
+    public MetricsWriter sample(String name, long value, String... labels)
+    {
+        labels(name, labels);
+        sb.append(value).append('\n');
+        return this;
+    }
+
+    public MetricsWriter sample(String name, double value, String... labels)
+    {
+        labels(name, labels);
+        sb.append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * write the cumulative buckets, the sum and the count of the histogram
+     *
+     * @param   name
+     * @param   histogram
+     * @param   scale the bucket bounds and the sum are multiplied by
+     * @param   labels
+     * @return  MetricsWriter
+    */
+    public MetricsWriter histogram(String name,
+            Histogram histogram, double scale, String... labels)
+    {
+        String[] bucketLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, bucketLabels, 0, labels.length);
+        bucketLabels[labels.length] = "le";
+
+        long count = 0;
+        int buckets = histogram.getBuckets();
+        for ( int j = 0; j < buckets; j++ ) {
+            count += histogram.getCount(j);
+            bucketLabels[labels.length + 1] = j == buckets - 1
+                    ? "+Inf" : bound(histogram.getBound(j), scale);
+            sample(name + "_bucket", count, bucketLabels);
+        }
+
+        sample(name + "_sum", histogram.getSum() * scale, labels);
+        sample(name + "_count", count, labels);
+        return this;
+    }
+
+    private void labels(String name, String[] labels)
+    {
+        sb.append(name);
+        if ( labels.length > 0 ) {
+            sb.append('{');
+            for ( int j = 0; j + 1 < labels.length; j += 2 ) {
+                if ( j > 0 ) {
+                    sb.append(',');
+                }
+
+                sb.append(labels[j]).append("=\"");
+                String val = labels[j + 1];
+                for ( int i = 0; i < val.length(); i++ ) {
+                    char c = val.charAt(i);
+                    if ( c == '\\' ) {
+                        sb.append("\\\\");
+                    } else if ( c == '"' ) {
+                        sb.append("\\\"");
+                    } else if ( c == '\n' ) {
+                        sb.append("\\n");
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+    }
+
+    /**
+     * format the scaled bucket bound in decimal, 20us is 0.00002 rather than 1.9999999999999998E-5
+    */
+    private static String bound(long bound, double scale)
+    {
+        return BigDecimal.valueOf(bound).multiply(BigDecimal.valueOf(scale))
+                .stripTrailingZeros().toPlainString();
+    }
+
+    private static String format(double value)
+    {
+        if ( Double.isNaN(value) ) {
+            return "NaN";
+        } else if ( Double.isInfinite(value) ) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if ( value == Math.rint(value) && Math.abs(value) < 1E15 ) {
+            return Long.toString((long) value);
+        }
+
+        return Double.toString(value);
+    }
+
+    @Override
+    public String toString()
+    {
+        return sb.toString();
+    }
+}
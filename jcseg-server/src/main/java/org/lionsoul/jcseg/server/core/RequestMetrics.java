@@ -0,0 +1,134 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * request metrics grouped by the route.
+ * the number of the requests and the errors, the latency and the size of
+ * the request input of every route, the latency is counted from the request
+ * arriving to the response done so the wait for a worker is included.
+ * </p>
+ *
+ * <p>
+ * the routes are the route patterns of the controllers given by the router,
+ * /tokenizer/{instance} for example, not the request paths. at most
+ * {@link #MAX_ROUTES} of them are kept and the rest are counted to the
+ * {@link #OTHER_ROUTE} route as the last guard.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class RequestMetrics
+{
+    public static final int MAX_ROUTES = 256;
+    public static final String OTHER_ROUTE = "other";
+
+    /**
+     * latency buckets in microseconds from 16us to 2^25us (about 33s)
+     * with 8 linear buckets in every power of two so the p99 is off by
+     * 12.5% at most, input size buckets in bytes from 16B to 16MB with 4
+    */
+    public static final int LATENCY_MIN_EXP = 4;
+    public static final int LATENCY_MAX_EXP = 25;
+    public static final int LATENCY_SUB_BUCKETS = 8;
+    public static final int SIZE_MIN_EXP = 4;
+    public static final int SIZE_MAX_EXP = 24;
+    public static final int SIZE_SUB_BUCKETS = 4;
+
+    private final ConcurrentHashMap<String, Route> routes
+            = new ConcurrentHashMap<String, Route>();
+
+    /**
+     * record a done request
+     *
+     * @param   route
+     * @param   error whether the request is failed
+     * @param   nanos latency of the request
+     * @param   size bytes of the request input, negative for unknown
+    */
+    public void record(String route, boolean error, long nanos, long size)
+    {
+        Route r = get(route);
+        r.requests.increment();
+        if ( error ) {
+            r.errors.increment();
+        }
+
+        r.latency.record(nanos / 1000);
+        if ( size >= 0 ) {
+            r.size.record(size);
+        }
+    }
+
+    private Route get(String route)
+    {
+        Route r = routes.get(route);
+        if ( r != null ) {
+            return r;
+        }
+
+        if ( routes.size() >= MAX_ROUTES ) {
+            route = OTHER_ROUTE;
+            r = routes.get(route);
+            if ( r != null ) {
+                return r;
+            }
+        }
+
+        Route created = new Route();
+        r = routes.putIfAbsent(route, created);
+        return r == null ? created : r;
+    }
+
+    /**
+     * @return  Map the metrics of all the routes
+    */
+    public Map<String, Route> getRoutes()
+    {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * metrics of a route
+    */
+    public static class Route
+    {
+        private final StripedCounter requests = new StripedCounter();
+        private final StripedCounter errors = new StripedCounter();
+        private final Histogram latency 
+                = new Histogram(LATENCY_MIN_EXP, LATENCY_MAX_EXP, LATENCY_SUB_BUCKETS);
+        private final Histogram size 
+                = new Histogram(SIZE_MIN_EXP, SIZE_MAX_EXP, SIZE_SUB_BUCKETS);
+
+        public long getRequests()
+        {
+            return requests.sum();
+        }
+
+        public long getErrors()
+        {
+            return errors.sum();
+        }
+
+        /**
+         * @return  Histogram latency of the requests in microseconds
+        */
+        public Histogram getLatency()
+        {
+            return latency;
+        }
+
+        /**
+         * @return  Histogram bytes of the request inputs
+        */
+        public Histogram getSize()
+        {
+            return size;
+        }
+    }
+}
@@ -49,6 +49,22 @@ public class ServerConfig
     */
     protected int threadIdleTimeout = 60000;
     
+    /**
+     * number of the worker threads to run the controllers (0 to run them 
+     * on the http threads), max number of the requests waiting for a worker
+     * and the Retry-After seconds of the 503 response when the queue is full
+    */
+    protected int workerPoolSize = Runtime.getRuntime().availableProcessors();
+    protected int workerQueueSize = 256;
+    protected int overloadRetryAfter = 1;
+    
+    /**
+     * whether to run the controllers on the virtual threads (Java 24+),
+     * the compute is then bounded by workerPoolSize permits.
+     * it falls back to the fixed worker pool on the older java
+    */
+    protected boolean virtualThreads = false;
+    
     /**
      * static resouce base path 
     */
@@ -144,6 +160,46 @@ public class ServerConfig
         this.threadIdleTimeout = maxThreadIdleTimeout;
     }
 
+    public int getWorkerPoolSize()
+    {
+        return workerPoolSize;
+    }
+
+    public void setWorkerPoolSize(int workerPoolSize)
+    {
+        this.workerPoolSize = workerPoolSize;
+    }
+
+    public int getWorkerQueueSize()
+    {
+        return workerQueueSize;
+    }
+
+    public void setWorkerQueueSize(int workerQueueSize)
+    {
+        this.workerQueueSize = workerQueueSize;
+    }
+
+    public int getOverloadRetryAfter()
+    {
+        return overloadRetryAfter;
+    }
+
+    public void setOverloadRetryAfter(int overloadRetryAfter)
+    {
+        this.overloadRetryAfter = overloadRetryAfter;
+    }
+
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
     public String getAppBasePath()
     {
         return appBasePath;
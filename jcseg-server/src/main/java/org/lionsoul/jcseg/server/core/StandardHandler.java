@@ -1,8 +1,11 @@
 package org.lionsoul.jcseg.server.core;
 
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -17,6 +20,12 @@ import org.eclipse.jetty.server.handler.AbstractHandler;
 */
 public class StandardHandler extends AbstractHandler
 {
+    /**
+     * request attribute to mark the request as failed
+     * even though the response status is fine
+    */
+    public static final String ERROR_ATTRIBUTE = "org.lionsoul.jcseg.server.error";
+    
     /**
      * server config 
     */
@@ -32,6 +41,31 @@ public class StandardHandler extends AbstractHandler
     */
     protected AbstractRouter router = null;
     
+    /**
+     * the worker pool to run the controllers, null to run
+     * them on the http threads. and the seconds for the Retry-After
+     * header when the worker queue is full
+    */
+    private WorkerPool workerPool = null;
+    private int retryAfter = 1;
+    
+    /**
+     * the cheap controllers always run on the http threads
+    */
+    private final Set<Class<? extends Controller>> inlineControllers
+            = Collections.synchronizedSet(new HashSet<Class<? extends Controller>>());
+    
+    /**
+     * the controllers reading the request body themselves
+    */
+    private final Set<Class<? extends Controller>> streamingControllers
+            = Collections.synchronizedSet(new HashSet<Class<? extends Controller>>());
+    
+    /**
+     * metrics of the handled requests
+    */
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+    
     /**
      * contruct method
      * 
@@ -47,12 +81,62 @@ public class StandardHandler extends AbstractHandler
         this.router = router;
     }
     
+    /**
+     * run the controllers on the specified worker pool, the request is
+     * suspended until the worker is done and answered with 503 if the
+     * worker queue is full. the form body is read on the http thread
+     * before the request is queued for the fixed pool and on the virtual
+     * thread before the compute permit is taken for the virtual threads,
+     * so the workers and the permits are only held by the compute
+     *
+     * @param   workerPool
+     * @param   retryAfter seconds for the Retry-After header
+    */
+    public void setWorkerPool(WorkerPool workerPool, int retryAfter)
+    {
+        this.workerPool = workerPool;
+        this.retryAfter = retryAfter;
+    }
+    
+    public WorkerPool getWorkerPool()
+    {
+        return workerPool;
+    }
+    
+    public RequestMetrics getRequestMetrics()
+    {
+        return requestMetrics;
+    }
+    
+    /**
+     * run the specified controller on the http threads even with a
+     * worker pool, for the health checks that should never be queued
+     *
+     * @param   _class
+    */
+    public void addInlineController(Class<? extends Controller> _class)
+    {
+        inlineControllers.add(_class);
+    }
+    
+    /**
+     * never read the form body of the specified controller ahead,
+     * for the controllers streaming the request body themselves
+     *
+     * @param   _class
+    */
+    public void addStreamingController(Class<? extends Controller> _class)
+    {
+        streamingControllers.add(_class);
+    }
+    
     @Override
     public void handle(
             String target, Request baseRequest, 
             HttpServletRequest request,
             HttpServletResponse response) throws IOException, ServletException 
     {
+        final long start = System.nanoTime();
         String requestUri = request.getRequestURI();
         /*
          * @Note: all the request that with point the in the path
@@ -66,37 +150,83 @@ public class StandardHandler extends AbstractHandler
              * parse the current request uri to get the UriEntry 
              * then pass the UriEntry to the router to define the Controller handler class
             */
-            UriEntry uriEntry = UriEntry.parseRequestUri(request.getRequestURI());
-            Class<? extends Controller> _class = router.getController(uriEntry);
+            final UriEntry uriEntry = UriEntry.parseRequestUri(request.getRequestURI());
+            final ControllerFactory factory = router.getControllerFactory(uriEntry);
             //System.out.println(uriEntry.getController()+"#"+uriEntry.getMethod());
             
-            try {
+            /*
+             * count the request to the route of its controller instead of
+             * its path, the paths are as many as the clients could make up
+            */
+            final String route = router.getRoute(uriEntry, factory);
+            
+            /*
+             * record the done request, invoked by the controller itself 
+             * if it is detached and answered by another thread later
+            */
+            final HttpServletRequest _request = request;
+            final HttpServletResponse _response = response;
+            final Runnable finisher = new Runnable() {
+                @Override
+                public void run() {
+                    record(route, start, _request, _response);
+                }
+            };
+            
+            if ( workerPool == null
+                    || inlineControllers.contains(factory.getControllerClass()) ) {
+                if ( ! dispatch(factory, uriEntry, baseRequest, request, response, finisher) ) {
+                    finisher.run();
+                }
+            } else {
                 /*
-                 * create the controller and do the basic initialize work 
-                 * and invoke the run method to process the request.
+                 * suspend the request and give the http thread back,
+                 * the worker completes the request when it is done
                 */
-                Class<?>[] paramType = new Class[]{
-                        ServerConfig.class,
-                        GlobalResource.class,
-                        UriEntry.class, 
-                        Request.class, 
-                        HttpServletRequest.class, 
-                        HttpServletResponse.class
-                };
-                Constructor<?> constructor = _class.getConstructor(paramType);
+                final Request _baseRequest = baseRequest;
+                final boolean streaming = streamingControllers.contains(factory.getControllerClass());
+                final boolean virtual = workerPool.isVirtual();
                 
-                Object[] arguments = new Object[]{
-                        serverConfig,
-                        resourcePool, 
-                        uriEntry, 
-                        baseRequest, 
-                        request, 
-                        response
-                };
-                Controller controller = (Controller)constructor.newInstance(arguments);
-                controller.run(uriEntry.getMethod());
-            } catch (Exception e) {
-                //e.printStackTrace();
+                /*
+                 * the workers of the fixed pool are as many as the cpu cores,
+                 * the form body is read here on the http thread so a slow 
+                 * upload never holds a worker, the virtual threads read it 
+                 * before taking a compute permit instead
+                */
+                if ( ! streaming && ! virtual ) {
+                    readParameters(request);
+                }
+                
+                final AsyncContext async = request.startAsync();
+                async.setTimeout(0);
+                workerPool.execute(streaming || ! virtual ? null : new Runnable() {
+                    @Override
+                    public void run() {
+                        readParameters(_request);
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean detached = false;
+                        try {
+                            detached = dispatch(factory, uriEntry, 
+                                    _baseRequest, _request, _response, finisher);
+                        } finally {
+                            if ( ! detached ) {
+                                finisher.run();
+                                async.complete();
+                            }
+                        }
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        _response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                        _response.setHeader("Retry-After", String.valueOf(retryAfter));
+                        record(route, start, _request, _response);
+                        async.complete();
+                    }
+                });
             }
             
             /*
@@ -106,4 +236,73 @@ public class StandardHandler extends AbstractHandler
             baseRequest.setHandled(true);
         }
     }
+    
+    /**
+     * create the controller with the factory resolved by the router
+     * and invoke the run method to process the request.
+     * 
+     * @return  boolean true if the controller detached the request
+     *  and will invoke the finisher itself
+    */
+    private boolean dispatch(
+            ControllerFactory factory, UriEntry uriEntry,
+            Request baseRequest,
+            HttpServletRequest request,
+            HttpServletResponse response, 
+            Runnable finisher)
+    {
+        try {
+            Controller controller = factory.create(
+                    serverConfig,
+                    resourcePool,
+                    uriEntry,
+                    baseRequest,
+                    request,
+                    response
+            );
+            controller.setFinisher(finisher);
+            controller.run(uriEntry.getMethod());
+            return controller.isDetached();
+        } catch (Exception e) {
+            System.err.println("+-[Error]: failed to handle request "
+                    + request.getRequestURI() + " with "
+                    + factory.getControllerClass().getName() + ": " + e);
+            request.setAttribute(ERROR_ATTRIBUTE, Boolean.TRUE);
+            if ( ! response.isCommitted() ) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * read the form body of the request ahead, a broken body 
+     * fails again in the controller and is reported there
+    */
+    private static void readParameters(HttpServletRequest request)
+    {
+        try {
+            request.getParameterMap();
+        } catch (RuntimeException e) {
+        }
+    }
+    
+    /**
+     * record the metrics of the specified done request, the size of the 
+     * input is the length of the body or the query string, unknown for
+     * a chunked body
+    */
+    private void record(String route, long start, 
+            HttpServletRequest request, HttpServletResponse response)
+    {
+        boolean error = response.getStatus() >= 500
+                || request.getAttribute(ERROR_ATTRIBUTE) != null;
+        long size = request.getContentLength();
+        if ( size < 0 && request.getQueryString() != null ) {
+            size = request.getQueryString().length();
+        }
+        
+        requestMetrics.record(route, error, System.nanoTime() - start, size);
+    }
 }
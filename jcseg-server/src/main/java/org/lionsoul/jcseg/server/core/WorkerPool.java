@@ -0,0 +1,304 @@
+package org.lionsoul.jcseg.server.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * worker pool of the requests.
+ * a fixed number of worker threads behind a bounded queue, so the
+ * segmentation of at most threads + queue size requests is admitted and
+ * the rest are rejected at once instead of piling up the http threads.
+ * </p>
+ *
+ * <p>
+ * with {@link #virtual(int, int)} every request runs on its own virtual
+ * thread instead and the compute is bounded by a semaphore with the same
+ * number of permits as the threads of the fixed pool. it requires Java 24+
+ * (JEP 491): the request body is read by the blocking jetty HttpInput.read
+ * which waits in a synchronized block, before Java 24 that pins the carrier
+ * thread so a slow upload would hold a platform thread just the same.
+ * from Java 24 the blocked virtual thread leaves its carrier and the slow
+ * reading of the request body costs no platform thread.
+ * </p>
+ *
+ * <p>
+ * the time a request waits in the queue and the time it runs on a worker
+ * are counted separately, a growing queue wait is the sign of overload
+ * while the compute time is the cost of the requests themselves.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class WorkerPool
+{
+    private final ExecutorService executor;
+    private final int threads;
+    private final int queueSize;
+
+    /**
+     * the compute permits and the number of the requests waiting
+     * for a permit of the virtual threads mode, null for the fixed pool
+    */
+    private final Semaphore permits;
+    private final AtomicInteger waiting;
+
+    private final StripedCounter accepted = new StripedCounter();
+    private final StripedCounter rejected = new StripedCounter();
+    private final StripedCounter queueNanos = new StripedCounter();
+    private final StripedCounter computeNanos = new StripedCounter();
+
+    /**
+     * create a worker pool
+     *
+     * @param   threads number of the worker threads
+     * @param   queueSize max number of the requests waiting for a worker
+    */
+    public WorkerPool(int threads, int queueSize)
+    {
+        this(new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+            new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger(0);
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "jcseg-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            }
+        ), threads, queueSize, false);
+    }
+
+    private WorkerPool(ExecutorService executor, int threads, int queueSize, boolean virtual)
+    {
+        this.executor  = executor;
+        this.threads   = threads;
+        this.queueSize = queueSize;
+        this.permits   = virtual ? new Semaphore(threads) : null;
+        this.waiting   = virtual ? new AtomicInteger(0) : null;
+    }
+
+    /**
+     * the first java version the virtual threads
+     * are not pinned by a synchronized wait (JEP 491)
+    */
+    public static final int VIRTUAL_MIN_VERSION = 24;
+
+    /**
+     * create a worker pool over the virtual threads
+     *
+     * @param   permits max number of the requests computing at the same time
+     * @param   queueSize max number of the requests waiting for a permit
+     * @return  WorkerPool or null if the java version is before {@link #VIRTUAL_MIN_VERSION}
+    */
+    public static WorkerPool virtual(int permits, int queueSize)
+    {
+        if ( getJavaVersion() < VIRTUAL_MIN_VERSION ) {
+            return null;
+        }
+
+        /*
+         * the sources are kept at the old java level,
+         * look the java 21 factory up by reflection
+        */
+        ExecutorService executor;
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executor = (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+
+        return new WorkerPool(executor, permits, queueSize, true);
+    }
+
+    /**
+     * @return  int feature version of the running java, 8 for 1.8
+    */
+    static int getJavaVersion()
+    {
+        String version = System.getProperty("java.specification.version", "");
+        if ( version.startsWith("1.") ) {
+            version = version.substring(2);
+        }
+
+        int dot = version.indexOf('.');
+        try {
+            return Integer.parseInt(dot > -1 ? version.substring(0, dot) : version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * queue the specified task for a worker, the prepare task is run on the
+     * worker first without a compute permit, reading the request body on the
+     * virtual thread for example. a prepare task of the fixed pool holds the 
+     * worker thread like the task, so the blocking work should be done 
+     * before the request is queued.
+     * the reject task is run instead of the task if the queue is full, at once
+     * for the fixed pool and after the prepare task for the virtual threads.
+     *
+     * @param   prepare null for nothing to prepare
+     * @param   task
+     * @param   reject
+    */
+    public void execute(final Runnable prepare, final Runnable task, final Runnable reject)
+    {
+        final long queued = System.nanoTime();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long start = System.nanoTime();
+                    if ( prepare != null ) {
+                        prepare.run();
+                    }
+
+                    //the prepare time is not a wait for the compute
+                    long prepared = System.nanoTime();
+                    if ( permits == null ) {
+                        compute(queued + (prepared - start), task);
+                        return;
+                    }
+
+                    /*
+                     * take a compute permit, wait for it only if the
+                     * number of the waiting requests is under the queue size
+                    */
+                    if ( ! permits.tryAcquire() ) {
+                        if ( waiting.incrementAndGet() > queueSize ) {
+                            waiting.decrementAndGet();
+                            rejected.increment();
+                            reject.run();
+                            return;
+                        }
+
+                        try {
+                            permits.acquireUninterruptibly();
+                        } finally {
+                            waiting.decrementAndGet();
+                        }
+                    }
+
+                    try {
+                        accepted.increment();
+                        compute(queued + (prepared - start), task);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            reject.run();
+            return;
+        }
+
+        if ( permits == null ) {
+            accepted.increment();
+        }
+    }
+
+    private void compute(long queued, Runnable task)
+    {
+        long start = System.nanoTime();
+        queueNanos.add(start - queued);
+        try {
+            task.run();
+        } finally {
+            computeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * stop taking the requests, the queued ones are still run
+    */
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    /**
+     * @return  boolean true for the virtual threads mode
+    */
+    public boolean isVirtual()
+    {
+        return permits != null;
+    }
+
+    /**
+     * @return  int number of the worker threads or the compute permits
+    */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getQueueSize()
+    {
+        return queueSize;
+    }
+
+    /**
+     * @return  int number of the requests waiting in the queue
+    */
+    public int getQueued()
+    {
+        if ( permits != null ) {
+            return waiting.get();
+        }
+
+        return ((ThreadPoolExecutor) executor).getQueue().size();
+    }
+
+    /**
+     * @return  int number of the workers running a request
+    */
+    public int getActive()
+    {
+        if ( permits != null ) {
+            return threads - permits.availablePermits();
+        }
+
+        return ((ThreadPoolExecutor) executor).getActiveCount();
+    }
+
+    public long getAccepted()
+    {
+        return accepted.sum();
+    }
+
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+
+    /**
+     * @return  long total time the accepted requests waited in the queue
+    */
+    public long getQueueNanos()
+    {
+        return queueNanos.sum();
+    }
+
+    /**
+     * @return  long total time the workers spent on the requests
+    */
+    public long getComputeNanos()
+    {
+        return computeNanos.sum();
+    }
+}
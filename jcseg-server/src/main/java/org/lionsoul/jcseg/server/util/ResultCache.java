@@ -0,0 +1,392 @@
+package org.lionsoul.jcseg.server.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * concurrent result cache bounded by memory.
+ * the keys are spread over independent stripes, each stripe is a least
+ * recently used ordered map with its own lock and its own share of the memory,
+ * so the requests of different keys hardly ever contend.
+ * </p>
+ *
+ * <p>
+ * a new entry is admitted only if its key is asked more often than every
+ * least recently used entry it would evict (TinyLFU admission), the access
+ * frequency of every key, cached or not, is kept by a small count-min sketch
+ * of the stripe and halved periodically so the old popularity fades. a burst
+ * of one-off texts then never flushes the small set of hot queries.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class ResultCache
+{
+    /**
+     * estimated bytes of an entry without the key and the value
+    */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter rejects = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+
+    /**
+     * create a result cache
+     *
+     * @param   maxBytes max estimated memory of the entries
+     * @param   ttl max live time of an entry in milliseconds, 0 for no expiring
+    */
+    public ResultCache(long maxBytes, long ttl)
+    {
+        this(maxBytes, ttl, Math.min(64, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    /**
+     * create a result cache
+     *
+     * @param   maxBytes max estimated memory of the entries
+     * @param   ttl max live time of an entry in milliseconds, 0 for no expiring
+     * @param   stripeNum number of the stripes, rounded down to a power of two
+    */
+    public ResultCache(long maxBytes, long ttl, int stripeNum)
+    {
+        int num = Integer.highestOneBit(Math.max(1, stripeNum));
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl * 1000000L;
+        this.mask     = num - 1;
+        this.stripes  = new Stripe[num];
+        for ( int j = 0; j < num; j++ ) {
+            stripes[j] = new Stripe(maxBytes / num);
+        }
+    }
+
+    /**
+     * get the cached value of the specified key
+     *
+     * @param   key
+     * @return  Object or null if it is not cached
+    */
+    public Object get(String key)
+    {
+        int hash = spread(key.hashCode());
+        Stripe stripe = stripes[hash & mask];
+        synchronized ( stripe ) {
+            stripe.sketch.increment(hash);
+            Entry entry = stripe.map.remove(key);
+            if ( entry != null && expired(entry) ) {
+                stripe.bytes -= entry.weight;
+                entry = null;
+            }
+
+            if ( entry == null ) {
+                misses.increment();
+                return null;
+            }
+
+            //move it to the most recently used end
+            stripe.map.put(key, entry);
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * cache the value of the specified key if it is admitted
+     *
+     * @param   key
+     * @param   value
+     * @return  boolean true if it is cached
+    */
+    public boolean put(String key, Object value)
+    {
+        int hash = spread(key.hashCode());
+        Stripe stripe = stripes[hash & mask];
+        long weight = ENTRY_OVERHEAD + weigh(key) + weigh(value);
+        if ( weight > stripe.maxBytes ) {
+            rejects.increment();
+            return false;
+        }
+
+        synchronized ( stripe ) {
+            /*
+             * find the least recently used entries to make the room and
+             * check the admission against all of them before evicting any,
+             * the current entry of the key is replaced so its room is free
+            */
+            Entry current = stripe.map.get(key);
+            long need = stripe.bytes + weight - stripe.maxBytes
+                    - (current == null ? 0 : current.weight);
+            int victims = 0;
+            if ( need > 0 ) {
+                int frequency = stripe.sketch.frequency(hash);
+                for ( Entry victim : stripe.map.values() ) {
+                    if ( need <= 0 ) {
+                        break;
+                    }
+
+                    if ( victim == current ) {
+                        continue;
+                    }
+
+                    if ( ! expired(victim)
+                            && frequency <= stripe.sketch.frequency(victim.hash) ) {
+                        rejects.increment();
+                        return false;
+                    }
+
+                    need -= victim.weight;
+                    victims++;
+                }
+            }
+
+            stripe.remove(key);
+            Iterator<Entry> it = stripe.map.values().iterator();
+            for ( ; victims > 0; victims-- ) {
+                Entry victim = it.next();
+                it.remove();
+                stripe.bytes -= victim.weight;
+                evictions.increment();
+            }
+
+            stripe.map.put(key, new Entry(hash, value, weight, System.nanoTime()));
+            stripe.bytes += weight;
+        }
+
+        return true;
+    }
+
+    /**
+     * remove all the entries
+    */
+    public void clear()
+    {
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                stripe.map.clear();
+                stripe.bytes = 0;
+            }
+        }
+    }
+
+    private boolean expired(Entry entry)
+    {
+        return ttlNanos > 0 && System.nanoTime() - entry.created > ttlNanos;
+    }
+
+    private static int spread(int h)
+    {
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * estimate the memory of the specified value
+     *
+     * @param   obj
+     * @return  long bytes
+    */
+    public static long weigh(Object obj)
+    {
+        if ( obj == null ) {
+            return 0;
+        } else if ( obj instanceof String ) {
+            return 40 + 2L * ((String) obj).length();
+        } else if ( obj instanceof IWord ) {
+            IWord word = (IWord) obj;
+            return 64 + weigh(word.getValue()) + weigh(word.getPinyin())
+                    + weigh(word.getEntity()) + weigh(word.getPartSpeech());
+        } else if ( obj instanceof Collection<?> ) {
+            long bytes = 40;
+            for ( Object o : (Collection<?>) obj ) {
+                bytes += 8 + weigh(o);
+            }
+            return bytes;
+        } else if ( obj instanceof Map<?, ?> ) {
+            long bytes = 48;
+            for ( Map.Entry<?, ?> e : ((Map<?, ?>) obj).entrySet() ) {
+                bytes += 32 + weigh(e.getKey()) + weigh(e.getValue());
+            }
+            return bytes;
+        } else if ( obj instanceof Object[] ) {
+            long bytes = 16;
+            for ( Object o : (Object[]) obj ) {
+                bytes += 8 + weigh(o);
+            }
+            return bytes;
+        }
+
+        return 16;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    /**
+     * @return  long estimated memory of the cached entries
+    */
+    public long getBytes()
+    {
+        long bytes = 0;
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                bytes += stripe.bytes;
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return  int number of the cached entries
+    */
+    public int getSize()
+    {
+        int size = 0;
+        for ( Stripe stripe : stripes ) {
+            synchronized ( stripe ) {
+                size += stripe.map.size();
+            }
+        }
+
+        return size;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return  long number of the values not admitted
+    */
+    public long getRejects()
+    {
+        return rejects.sum();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    private static class Entry
+    {
+        final int hash;
+        final Object value;
+        final long weight;
+        final long created;
+
+        Entry(int hash, Object value, long weight, long created)
+        {
+            this.hash = hash;
+            this.value = value;
+            this.weight = weight;
+            this.created = created;
+        }
+    }
+
+    private static class Stripe
+    {
+        final long maxBytes;
+        /*
+         * insertion ordered, the entries are moved to the end by the hits only
+         * so looking up the current entry of a rejected value keeps its order
+        */
+        final LinkedHashMap<String, Entry> map = new LinkedHashMap<String, Entry>();
+        final FrequencySketch sketch;
+        long bytes = 0;
+
+        Stripe(long maxBytes)
+        {
+            this.maxBytes = maxBytes;
+            //about one counter for every 256 bytes of the entries
+            this.sketch = new FrequencySketch((int) Math.min(1 << 16, Math.max(256, maxBytes >> 8)));
+        }
+
+        void remove(String key)
+        {
+            Entry entry = map.remove(key);
+            if ( entry != null ) {
+                bytes -= entry.weight;
+            }
+        }
+    }
+
+    /**
+     * count-min sketch of 4 rows with the 4 bits counters, all the
+     * counters are halved once the additions reach 10 times the width
+    */
+    private static class FrequencySketch
+    {
+        private static final int[] SEEDS = {
+            0x97cb3127, 0xb4b82e39, 0x5e2b2f2b, 0x8f1bbcdc
+        };
+
+        final byte[] table;
+        final int shift;
+        final int width;
+        int additions = 0;
+
+        FrequencySketch(int width)
+        {
+            this.width = Integer.highestOneBit(width);
+            this.shift = 32 - Integer.numberOfTrailingZeros(this.width);
+            this.table = new byte[this.width * SEEDS.length];
+        }
+
+        private int index(int hash, int row)
+        {
+            return row * width + ((hash * SEEDS[row]) >>> shift);
+        }
+
+        void increment(int hash)
+        {
+            boolean added = false;
+            for ( int row = 0; row < SEEDS.length; row++ ) {
+                int idx = index(hash, row);
+                if ( table[idx] < 15 ) {
+                    table[idx]++;
+                    added = true;
+                }
+            }
+
+            if ( added && ++additions >= width * 10 ) {
+                for ( int j = 0; j < table.length; j++ ) {
+                    table[j] >>= 1;
+                }
+                additions >>= 1;
+            }
+        }
+
+        int frequency(int hash)
+        {
+            int min = 15;
+            for ( int row = 0; row < SEEDS.length; row++ ) {
+                min = Math.min(min, table[index(hash, row)]);
+            }
+
+            return min;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.lionsoul.jcseg.server.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lionsoul.jcseg.util.StripedCounter;
+
+/**
+ * <p>
+ * single flight of the concurrent computations of the same key.
+ * the first caller of a key leads the flight and computes the result,
+ * the callers coming before it lands are attached to the flight as waiters
+ * and completed by the thread that lands it, so no thread is held waiting.
+ * </p>
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class SingleFlight
+{
+    /**
+     * the flights in progress by their keys and the number
+     * of the callers that waited for one instead of computing
+    */
+    private final ConcurrentHashMap<String, Flight> flights
+            = new ConcurrentHashMap<String, Flight>();
+    private final StripedCounter coalesced = new StripedCounter();
+
+    /**
+     * a caller waiting for the result of a flight
+    */
+    public interface Waiter
+    {
+        /**
+         * invoked once with the result or the error of the flight
+         *
+         * @param   result
+         * @param   error null for success
+        */
+        public void done(Object result, Throwable error);
+    }
+
+    /**
+     * join the flight of the specified key
+     *
+     * @param   key
+     * @param   waiter completed when the flight in progress lands
+     * @return  Flight to compute and land if no flight of the key is in
+     *  progress, otherwise null and the waiter is or will be completed
+    */
+    public Flight join(String key, Waiter waiter)
+    {
+        Flight flight = new Flight(key);
+        Flight leader = flights.putIfAbsent(key, flight);
+        if ( leader == null ) {
+            return flight;
+        }
+
+        coalesced.increment();
+        if ( ! leader.attach(waiter) ) {
+            //landed in the meantime, complete it with the result right away
+            waiter.done(leader.result, leader.error);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return  int number of the flights in progress
+    */
+    public int getFlights()
+    {
+        return flights.size();
+    }
+
+    /**
+     * @return  long number of the callers that waited for a flight
+    */
+    public long getCoalesced()
+    {
+        return coalesced.sum();
+    }
+
+    /**
+     * a computation in flight, the leader lands it with its result or its error
+    */
+    public class Flight
+    {
+        private final String key;
+        private List<Waiter> waiters = new ArrayList<Waiter>();
+        private boolean landed = false;
+        private Object result = null;
+        private Throwable error = null;
+
+        private Flight(String key)
+        {
+            this.key = key;
+        }
+
+        private synchronized boolean attach(Waiter waiter)
+        {
+            if ( landed ) {
+                return false;
+            }
+
+            waiters.add(waiter);
+            return true;
+        }
+
+        /**
+         * remove the flight and complete all its waiters on the current
+         * thread, the callers of the key after it start a new flight
+         *
+         * @param   result
+         * @param   error null for success
+        */
+        public void land(Object result, Throwable error)
+        {
+            flights.remove(key, this);
+
+            List<Waiter> list;
+            synchronized ( this ) {
+                if ( landed ) {
+                    return;
+                }
+
+                this.result = result;
+                this.error = error;
+                this.landed = true;
+                list = waiters;
+                waiters = null;
+            }
+
+            for ( Waiter waiter : list ) {
+                try {
+                    waiter.done(result, error);
+                } catch (RuntimeException e) {
+                    System.err.println("+-[Error]: failed to complete a waiter of " + key + ": " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.lionsoul.jcseg.server;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.server.controller.KeywordsController;
+import org.lionsoul.jcseg.server.controller.MainController;
+import org.lionsoul.jcseg.server.core.DynamicRestRouter;
+import org.lionsoul.jcseg.server.core.UriEntry;
+
+/**
+ * rest router route patterns test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class DynamicRestRouterTest extends TestCase
+{
+    private DynamicRestRouter router;
+
+    @Override
+    protected void setUp()
+    {
+        router = new DynamicRestRouter("org.lionsoul.jcseg.server.controller", MainController.class);
+        router.addMapping("/extractor/keywords", KeywordsController.class);
+    }
+
+    private String route(String path)
+    {
+        UriEntry uriEntry = UriEntry.parseRequestUri(path);
+        return router.getRoute(uriEntry, router.getControllerFactory(uriEntry));
+    }
+
+    public void testRoute()
+    {
+        assertEquals("/extractor/keywords", route("/extractor/keywords"));
+        assertEquals("/tokenizer/{instance}", route("/tokenizer/master"));
+        assertEquals("/tokenizer/{instance}", route("/Tokenizer/anything"));
+        assertEquals("/tokenizer/batch/{instance}", route("/tokenizer/batch/master"));
+        assertEquals("/tokenizer/batch/{instance}", route("/tokenizerBatch/master"));
+        assertEquals("default", route("/no/such/path"));
+        assertEquals("default", route("/extractor/nothing"));
+        assertEquals("/", route("/"));
+    }
+}
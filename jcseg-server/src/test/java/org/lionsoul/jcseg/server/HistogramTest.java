@@ -0,0 +1,76 @@
+package org.lionsoul.jcseg.server;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.server.core.Histogram;
+
+/**
+ * logarithmic histogram with the linear sub buckets test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class HistogramTest extends TestCase
+{
+    /**
+     * every value is counted to the first bucket with a bound not less
+     * than it, and the bound is within 1/8 of the value above 2^minExp
+    */
+    public void testBounds()
+    {
+        Histogram histogram = new Histogram(4, 12, 8);
+        assertEquals(8 * 8 + 2, histogram.getBuckets());
+        assertEquals(16, histogram.getBound(0));
+        assertEquals(18, histogram.getBound(1));
+        assertEquals(32, histogram.getBound(8));
+        assertEquals(4096, histogram.getBound(histogram.getBuckets() - 2));
+        assertEquals(Long.MAX_VALUE, histogram.getBound(histogram.getBuckets() - 1));
+
+        for ( long value = -1; value <= 5000; value++ ) {
+            int idx = histogram.index(value);
+            assertTrue(value + "", value <= histogram.getBound(idx));
+            if ( idx > 0 ) {
+                assertTrue(value + "", value > histogram.getBound(idx - 1));
+            }
+            if ( value > 16 && value <= 4096 ) {
+                assertTrue(value + "", histogram.getBound(idx) - value < value / 8.0);
+            }
+        }
+    }
+
+    public void testRecord()
+    {
+        Histogram histogram = new Histogram(4, 12, 8);
+        histogram.record(-5);
+        histogram.record(17);
+        histogram.record(1000);
+        histogram.record(1000);
+        histogram.record(1L << 40);
+        assertEquals(1, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(2, histogram.getCount(histogram.index(1000)));
+        assertEquals(1000, histogram.getBound(histogram.index(1000)) - 24);
+        assertEquals(1, histogram.getCount(histogram.getBuckets() - 1));
+        assertEquals(5, histogram.getTotal());
+        assertEquals(17 + 2000 + (1L << 40), histogram.getSum());
+    }
+
+    /**
+     * one bucket for every power of two
+    */
+    public void testPowerOfTwo()
+    {
+        Histogram histogram = new Histogram(4, 6);
+        assertEquals(4, histogram.getBuckets());
+        assertEquals(0, histogram.index(16));
+        assertEquals(1, histogram.index(17));
+        assertEquals(1, histogram.index(32));
+        assertEquals(2, histogram.index(64));
+        assertEquals(3, histogram.index(65));
+
+        try {
+            new Histogram(2, 6, 8);
+            fail("the sub buckets should not be finer than 1");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
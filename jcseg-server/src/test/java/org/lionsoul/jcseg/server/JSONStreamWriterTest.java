@@ -0,0 +1,121 @@
+package org.lionsoul.jcseg.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.json.JSONString;
+import org.lionsoul.jcseg.server.core.JSONStreamWriter;
+
+/**
+ * streaming json writer test
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class JSONStreamWriterTest extends TestCase
+{
+    private static String write(Object value) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONStreamWriter json = JSONStreamWriter.create(out, "utf-8");
+        json.value(value).close();
+        return out.toString("utf-8");
+    }
+
+    /**
+     * the commas are only between the values of the same object or array
+    */
+    public void testNesting() throws IOException
+    {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        List<Object> list = new ArrayList<Object>();
+        list.add(1);
+        list.add(new Object[]{});
+        list.add(new LinkedHashMap<String, Object>());
+        list.add(new Object[]{true, null, -12L});
+        map.put("a", list);
+        map.put("b", 1.5);
+        map.put("c", Double.NaN);
+        map.put("d", new JSONString() {
+            @Override
+            public String toJSONString() {
+                return "{\"raw\":1}";
+            }
+        });
+
+        assertEquals("{\"a\":[1,[],{},[true,null,-12]],\"b\":1.5,\"c\":null,\"d\":{\"raw\":1}}", write(map));
+    }
+
+    /**
+     * the top level values are not separated, ndjson for example
+    */
+    public void testTopLevel() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONStreamWriter json = JSONStreamWriter.create(out, "utf-8");
+        json.beginObject().key("id").value(1).endObject().raw("\n");
+        json.beginObject().key("id").value(2).endObject().raw("\n");
+        json.close();
+        assertEquals("{\"id\":1}\n{\"id\":2}\n", out.toString("utf-8"));
+    }
+
+    public void testEscape() throws IOException
+    {
+        assertEquals("\"a\\\"b\\\\c\\n\\r\\t\\b\\f\\u0001\\u2028中文\"",
+                write("a\"b\\c\n\r\t\b\f\u0001\u2028中文"));
+
+        //a surrogate pair split by the char buffer boundary
+        StringBuilder sb = new StringBuilder();
+        for ( int j = 0; j < 4094; j++ ) {
+            sb.append('a');
+        }
+        sb.append("😀");
+        assertEquals("\"" + sb + "\"", write(sb.toString()));
+    }
+
+    /**
+     * a write failed in the middle leaves nothing
+     * behind for the next writer of the thread
+    */
+    public void testFailedWrite() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int j = 0; j < 6000; j++ ) {
+            sb.append('中');
+        }
+
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("broken pipe");
+            }
+        };
+
+        JSONStreamWriter json = JSONStreamWriter.create(broken, "utf-8");
+        try {
+            json.beginArray().value(sb.toString()).endArray();
+            fail("the write should fail");
+        } catch ( IOException e ) {
+        }
+
+        try {
+            json.close();
+            fail("the flush should fail");
+        } catch ( IOException e ) {
+        }
+
+        assertEquals("[\"ok\"]", write(new Object[]{"ok"}));
+        assertEquals("\"" + sb + "\"", write(sb.toString()));
+    }
+}
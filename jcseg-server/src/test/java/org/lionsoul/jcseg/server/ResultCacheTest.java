@@ -0,0 +1,122 @@
+package org.lionsoul.jcseg.server;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.server.util.ResultCache;
+
+/**
+ * result cache admission and eviction test,
+ * one stripe of 1000 bytes with the entries of 180 bytes
+ * and the big entries of 878 bytes that need two victims
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class ResultCacheTest extends TestCase
+{
+    private static String repeat(char c, int len)
+    {
+        StringBuilder sb = new StringBuilder(len);
+        for ( int j = 0; j < len; j++ ) {
+            sb.append(c);
+        }
+
+        return sb.toString();
+    }
+
+    private static final String BIG = repeat('x', 350);
+
+    private ResultCache cache;
+
+    @Override
+    protected void setUp()
+    {
+        cache = new ResultCache(1000, 0, 1);
+    }
+
+    private void ask(String key, int times)
+    {
+        for ( int j = 0; j < times; j++ ) {
+            cache.get(key);
+        }
+    }
+
+    /**
+     * a new entry evicts the cold entries
+    */
+    public void testAdmit()
+    {
+        assertTrue(cache.put("a", "x"));
+        assertTrue(cache.put("b", "x"));
+        ask("c", 2);
+        assertTrue(cache.put("c", BIG));
+        assertEquals(1, cache.getSize());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(BIG, cache.get("c"));
+    }
+
+    /**
+     * the admission is checked against all the victims before any is
+     * evicted, a hotter second victim keeps the cold first one as well
+    */
+    public void testRejectKeepsVictims()
+    {
+        assertTrue(cache.put("a", "x"));
+        assertTrue(cache.put("b", "x"));
+        ask("b", 5);
+        ask("c", 2);
+        assertFalse(cache.put("c", BIG));
+        assertEquals(2, cache.getSize());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(1, cache.getRejects());
+        assertEquals("x", cache.get("a"));
+        assertEquals("x", cache.get("b"));
+    }
+
+    /**
+     * a rejected new value of a key keeps its current value
+    */
+    public void testRejectKeepsCurrent()
+    {
+        assertTrue(cache.put("k", "x"));
+        assertTrue(cache.put("h", "x"));
+        ask("h", 5);
+        ask("k", 1);
+        assertFalse(cache.put("k", BIG));
+        assertEquals("x", cache.get("k"));
+        assertEquals("x", cache.get("h"));
+
+        //the room of the current value is free for its new value
+        assertTrue(cache.put("k", "y"));
+        assertEquals("y", cache.get("k"));
+        assertEquals(2, cache.getSize());
+        assertEquals(360, cache.getBytes());
+    }
+
+    /**
+     * a rejected value leaves the order of the current entry alone,
+     * so it is still the least recently used one to evict
+    */
+    public void testRejectKeepsOrder()
+    {
+        assertTrue(cache.put("a", "x"));
+        assertTrue(cache.put("b", "x"));
+        assertTrue(cache.put("c", "x"));
+        assertTrue(cache.put("d", "x"));
+        assertTrue(cache.put("e", "x"));
+        assertFalse(cache.put("a", BIG));
+
+        ask("f", 3);
+        assertTrue(cache.put("f", "x"));
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("a"));
+        assertEquals("x", cache.get("b"));
+        assertEquals("x", cache.get("f"));
+    }
+
+    public void testTooLarge()
+    {
+        assertFalse(cache.put("big", repeat('x', 1000)));
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getRejects());
+    }
+}
@@ -0,0 +1,122 @@
+package org.lionsoul.jcseg.server;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.lionsoul.jcseg.server.util.SingleFlight;
+
+/**
+ * single flight test, the concurrent callers of a key share
+ * one computation and its result or its error
+ *
+ * @author chenxin<chenxin619315@gmail.com>
+*/
+public class SingleFlightTest extends TestCase
+{
+    private static final int CALLERS = 8;
+
+    private SingleFlight flights;
+    private List<Object> results;
+    private List<Throwable> errors;
+    private CountDownLatch done;
+
+    @Override
+    protected void setUp()
+    {
+        flights = new SingleFlight();
+        results = new CopyOnWriteArrayList<Object>();
+        errors = new CopyOnWriteArrayList<Throwable>();
+        done = new CountDownLatch(CALLERS);
+    }
+
+    private final SingleFlight.Waiter waiter = new SingleFlight.Waiter() {
+        @Override
+        public void done(Object result, Throwable error) {
+            if ( error == null ) {
+                results.add(result);
+            } else {
+                errors.add(error);
+            }
+            done.countDown();
+        }
+    };
+
+    /**
+     * start the callers of the key at the same time, the leader
+     * lands the flight once all the others are attached
+    */
+    private int race(final Object result, final Throwable error) throws InterruptedException
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger leaders = new AtomicInteger(0);
+        for ( int j = 0; j < CALLERS; j++ ) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    SingleFlight.Flight flight = flights.join("key", waiter);
+                    if ( flight == null ) {
+                        return;
+                    }
+
+                    leaders.incrementAndGet();
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while ( flights.getCoalesced() < CALLERS - 1
+                            && System.currentTimeMillis() < deadline ) {
+                        Thread.yield();
+                    }
+
+                    flight.land(result, error);
+                    waiter.done(result, error);
+                }
+            }).start();
+        }
+
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return leaders.get();
+    }
+
+    public void testSingleFlight() throws InterruptedException
+    {
+        assertEquals(1, race("result", null));
+        assertEquals(CALLERS - 1, flights.getCoalesced());
+        assertEquals(CALLERS, results.size());
+        for ( Object result : results ) {
+            assertEquals("result", result);
+        }
+        assertTrue(errors.isEmpty());
+        assertEquals(0, flights.getFlights());
+    }
+
+    /**
+     * the waiters get the error of the leader and
+     * the failed flight is gone for the next caller
+    */
+    public void testError() throws InterruptedException
+    {
+        IOException error = new IOException("broken");
+        assertEquals(1, race(null, error));
+        assertEquals(CALLERS, errors.size());
+        for ( Throwable e : errors ) {
+            assertSame(error, e);
+        }
+        assertTrue(results.isEmpty());
+
+        SingleFlight.Flight flight = flights.join("key", waiter);
+        assertNotNull(flight);
+        flight.land("again", null);
+        assertEquals(CALLERS - 1, flights.getCoalesced());
+    }
+}